@@ -0,0 +1,77 @@
+package org.superwindcloud.shortlink.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cache.Cache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.superwindcloud.shortlink.service.RedirectEntry;
+
+/** L1 get/put through {@link LayeredCache}, the way ShortLinkService uses it, without L2 */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LayeredCacheBenchmark {
+
+  private static final String CACHE = "redirects";
+  private static final int ENTRIES = 20_000;
+
+  private Cache cache;
+  private RedirectEntry[] entries;
+
+  @Setup
+  public void setUp() {
+    CaffeineCacheManager local = new CaffeineCacheManager(CACHE);
+    local.setCaffeine(
+        Caffeine.newBuilder()
+            .maximumSize(ENTRIES)
+            .expireAfterAccess(10, TimeUnit.MINUTES)
+            .recordStats());
+    LayeredCacheManager manager =
+        new LayeredCacheManager(
+            local,
+            null,
+            Map.of(CACHE, new LongKeyCodec()),
+            Set.of(),
+            new LocalCacheInvalidationBus(),
+            new SimpleMeterRegistry());
+    cache = manager.getCache(CACHE);
+    entries = new RedirectEntry[ENTRIES];
+    for (int i = 0; i < ENTRIES; i++) {
+      entries[i] = new RedirectEntry(i, "https://example.com/article/" + i);
+      cache.put((long) i, entries[i]);
+    }
+  }
+
+  @Benchmark
+  public RedirectEntry getHit() {
+    return cache.get((long) ThreadLocalRandom.current().nextInt(ENTRIES), RedirectEntry.class);
+  }
+
+  @Benchmark
+  public RedirectEntry getMiss() {
+    return cache.get(-1L - ThreadLocalRandom.current().nextInt(ENTRIES), RedirectEntry.class);
+  }
+
+  @Benchmark
+  public void put() {
+    int i = ThreadLocalRandom.current().nextInt(ENTRIES);
+    cache.put((long) i, entries[i]);
+  }
+}
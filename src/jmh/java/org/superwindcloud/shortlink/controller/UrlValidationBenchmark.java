@@ -0,0 +1,35 @@
+package org.superwindcloud.shortlink.controller;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** URL validation done for every shortened URL, single and batch */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UrlValidationBenchmark {
+
+  @Param({
+    "https://example.com/article?id=42&ref=home",
+    "https://例子.测试/路径?q=%E4%B8%AD",
+    "not a url at all"
+  })
+  public String url;
+
+  @Benchmark
+  public boolean isValidUrl() {
+    return ShortLinkController.isValidUrl(url);
+  }
+}
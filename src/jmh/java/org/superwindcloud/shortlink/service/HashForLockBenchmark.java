@@ -0,0 +1,43 @@
+package org.superwindcloud.shortlink.service;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** SHA-256 lock key of an original URL, on every lock-mode create */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HashForLockBenchmark {
+
+  @Param({"64", "2048"})
+  public int urlLength;
+
+  private String url;
+
+  @Setup
+  public void setUp() {
+    StringBuilder builder = new StringBuilder("https://example.com/");
+    while (builder.length() < urlLength) {
+      builder.append('a');
+    }
+    url = builder.toString();
+  }
+
+  @Benchmark
+  public String hashForLock() {
+    return ShortLinkService.hashForLock(url);
+  }
+}
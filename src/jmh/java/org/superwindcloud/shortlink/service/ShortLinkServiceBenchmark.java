@@ -0,0 +1,99 @@
+package org.superwindcloud.shortlink.service;
+
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.superwindcloud.shortlink.entity.ShortLink;
+import org.superwindcloud.shortlink.support.InProcessApplication;
+
+/**
+ * End-to-end service paths against a real database.
+ *
+ * <p>{@code upsert} needs {@code INSERT ... ON CONFLICT ... RETURNING}, so compare the create modes
+ * with {@code -p database=postgres -p createMode=lock,upsert}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ShortLinkServiceBenchmark {
+
+  private static final int LINKS = 10_000;
+
+  @Param({"lock"})
+  public String createMode;
+
+  @Param({"h2"})
+  public String database;
+
+  private ConfigurableApplicationContext context;
+  private ShortLinkService shortLinkService;
+  private String[] shortCodes;
+  private String[] originalUrls;
+  private String run;
+  private final AtomicLong newUrls = new AtomicLong();
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    context = InProcessApplication.start(createMode, database, false);
+    shortLinkService = context.getBean(ShortLinkService.class);
+    run = Long.toHexString(System.nanoTime());
+    shortCodes = new String[LINKS];
+    originalUrls = new String[LINKS];
+    for (int i = 0; i < LINKS; i++) {
+      originalUrls[i] = "https://example.com/" + run + "/article/" + i;
+      shortCodes[i] = shortLinkService.createShortLink(originalUrls[i]).getShortCode();
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    context.close();
+  }
+
+  /** Redirect hot path: L1 hit plus in-memory click */
+  @Benchmark
+  public Optional<RedirectEntry> resolveRedirect() {
+    return shortLinkService.resolveRedirect(shortCodes[index()]);
+  }
+
+  /** Info path, which always reads the database */
+  @Benchmark
+  public Optional<ShortLink> findByShortCode() {
+    return shortLinkService.findByShortCode(shortCodes[index()]);
+  }
+
+  /** Shortening a URL that is already in the URL hash cache */
+  @Benchmark
+  public ShortLink createShortLinkExisting() {
+    return shortLinkService.createShortLink(originalUrls[index()]);
+  }
+
+  /** Shortening a new URL: lock or upsert, then one insert */
+  @Benchmark
+  public ShortLink createShortLinkNew() {
+    return shortLinkService.createShortLink(
+        "https://example.com/new/" + run + "/" + newUrls.incrementAndGet());
+  }
+
+  private static int index() {
+    return ThreadLocalRandom.current().nextInt(LINKS);
+  }
+}
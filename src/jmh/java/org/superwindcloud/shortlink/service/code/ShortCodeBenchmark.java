@@ -0,0 +1,69 @@
+package org.superwindcloud.shortlink.service.code;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Short code generation and packing, single threaded and contended */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShortCodeBenchmark {
+
+  private BlockShortCodeGenerator blockGenerator;
+  private RandomShortCodeGenerator randomGenerator;
+  private ShortCodeCodec codec;
+  private final AtomicLong sequence = new AtomicLong();
+
+  @Setup
+  public void setUp() {
+    AtomicLong next = new AtomicLong();
+    IdBlockAllocator allocator =
+        size -> {
+          long start = next.getAndAdd(size);
+          return new IdBlock(start, start + size);
+        };
+    blockGenerator = new BlockShortCodeGenerator(allocator, 6, 7046029254386353131L, 1000, 1);
+    randomGenerator = new RandomShortCodeGenerator(6, 1);
+    codec = new ShortCodeCodec(6, 7046029254386353131L);
+  }
+
+  @Benchmark
+  public String blockNextShortCode() {
+    return blockGenerator.nextShortCode(0);
+  }
+
+  @Benchmark
+  @Threads(8)
+  public String blockNextShortCodeContended() {
+    return blockGenerator.nextShortCode(0);
+  }
+
+  @Benchmark
+  public String randomNextShortCode() {
+    return randomGenerator.nextShortCode(0);
+  }
+
+  @Benchmark
+  public String codecEncode() {
+    return codec.encode(sequence.getAndIncrement() % codec.capacity());
+  }
+
+  @Benchmark
+  public long pack() {
+    return PackedShortCode.pack("aZ09xY");
+  }
+}
@@ -0,0 +1,298 @@
+package org.superwindcloud.shortlink.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.superwindcloud.shortlink.service.code.ShortCodeGenerator;
+import org.superwindcloud.shortlink.support.InProcessApplication;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Open-loop HTTP load generator with HdrHistogram latencies and a JSON report.
+ *
+ * <p>Requests are started at a fixed arrival rate whatever the server does, and latency is measured
+ * from each request's scheduled start rather than its actual send time, so a stalling server shows
+ * up as queueing delay instead of fewer samples. Without {@code --target} the app is started
+ * in-process on H2 with in-memory stand-ins for Redis, so runs need no external services.
+ */
+public final class LoadTest {
+
+  private static final int SEED_CONCURRENCY = 32;
+  private static final int CODE_LENGTH = 6;
+
+  private final LoadTestOptions options;
+  private final String baseUrl;
+  private final ExecutorService executor;
+  private final HttpClient client;
+  private final ObjectMapper objectMapper = JsonMapper.builder().build();
+  private final Map<Operation, OperationStats> stats = new EnumMap<>(Operation.class);
+  private final Operation[] operations;
+  private final int[] cumulativeWeights;
+  private final ZipfianSampler popularity;
+  private final Semaphore inFlight;
+  private final String runId = Long.toHexString(System.currentTimeMillis());
+  private final AtomicLong sequence = new AtomicLong();
+  private String[] shortCodes;
+
+  private LoadTest(LoadTestOptions options, String baseUrl, ExecutorService executor) {
+    this.options = options;
+    this.baseUrl = baseUrl;
+    this.executor = executor;
+    this.client =
+        HttpClient.newBuilder()
+            .executor(executor)
+            .version(HttpClient.Version.HTTP_1_1)
+            .followRedirects(HttpClient.Redirect.NEVER)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    this.operations = options.mix().keySet().toArray(Operation[]::new);
+    this.cumulativeWeights = new int[operations.length];
+    int total = 0;
+    for (int i = 0; i < operations.length; i++) {
+      total += options.mix().get(operations[i]);
+      cumulativeWeights[i] = total;
+    }
+    for (Operation operation : Operation.values()) {
+      stats.put(operation, new OperationStats());
+    }
+    this.popularity = new ZipfianSampler(options.links(), options.zipfExponent());
+    this.inFlight = new Semaphore(options.maxInFlight());
+  }
+
+  public static void main(String[] args) throws Exception {
+    LoadTestOptions options = LoadTestOptions.parse(args);
+    ConfigurableApplicationContext context = null;
+    String baseUrl = options.target();
+    if (baseUrl == null) {
+      context = InProcessApplication.start(options.createMode(), "h2", true);
+      baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+    }
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      new LoadTest(options, baseUrl, executor).run();
+    } finally {
+      if (context != null) {
+        context.close();
+      }
+    }
+  }
+
+  private void run() throws IOException, InterruptedException {
+    System.out.printf("Seeding %d short links on %s%n", options.links(), baseUrl);
+    seed();
+
+    System.out.printf("Warming up for %ds at %d req/s%n", options.warmupSeconds(), options.rate());
+    drive(options.warmupSeconds());
+    stats.values().forEach(OperationStats::reset);
+
+    System.out.printf("Measuring for %ds at %d req/s%n", options.durationSeconds(), options.rate());
+    long start = System.nanoTime();
+    drive(options.durationSeconds());
+    // 等在途请求结束，它们的延迟也算在本轮里
+    if (!inFlight.tryAcquire(options.maxInFlight(), 60, TimeUnit.SECONDS)) {
+      System.out.println("Some requests were still in flight after 60s and are not recorded");
+    }
+    double seconds = (System.nanoTime() - start) / 1e9;
+    report(seconds);
+  }
+
+  private void seed() throws InterruptedException {
+    shortCodes = new String[options.links()];
+    Semaphore permits = new Semaphore(SEED_CONCURRENCY);
+    AtomicReference<Exception> failure = new AtomicReference<>();
+    for (int i = 0; i < shortCodes.length; i++) {
+      int index = i;
+      permits.acquire();
+      executor.execute(
+          () -> {
+            try {
+              HttpResponse<String> response =
+                  client.send(
+                      shorten("https://example.com/seed/" + runId + "/" + index),
+                      HttpResponse.BodyHandlers.ofString());
+              if (response.statusCode() != Operation.SHORTEN.expectedStatus()) {
+                throw new IOException("HTTP " + response.statusCode() + ": " + response.body());
+              }
+              shortCodes[index] =
+                  objectMapper.readTree(response.body()).path("shortCode").asString();
+            } catch (IOException e) {
+              failure.compareAndSet(null, e);
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+              failure.compareAndSet(null, e);
+            } finally {
+              permits.release();
+            }
+          });
+    }
+    permits.acquire(SEED_CONCURRENCY);
+    permits.release(SEED_CONCURRENCY);
+    if (failure.get() != null) {
+      throw new IllegalStateException("Seeding short links failed", failure.get());
+    }
+  }
+
+  /** 按固定到达率发请求，不等响应；在途请求超过上限的记为 dropped */
+  private void drive(int seconds) {
+    long total = (long) options.rate() * seconds;
+    long begin = System.nanoTime();
+    for (long i = 0; i < total; i++) {
+      long intended = begin + i * 1_000_000_000L / options.rate();
+      long delay = intended - System.nanoTime();
+      if (delay > 0) {
+        LockSupport.parkNanos(delay);
+      }
+      Operation operation = pickOperation();
+      if (!inFlight.tryAcquire()) {
+        stats.get(operation).recordDropped();
+        continue;
+      }
+      executor.execute(
+          () -> {
+            try {
+              send(operation, intended);
+            } finally {
+              inFlight.release();
+            }
+          });
+    }
+  }
+
+  private void send(Operation operation, long intended) {
+    OperationStats operationStats = stats.get(operation);
+    try {
+      HttpResponse<Void> response =
+          client.send(request(operation), HttpResponse.BodyHandlers.discarding());
+      long latency = System.nanoTime() - intended;
+      if (response.statusCode() == operation.expectedStatus()) {
+        operationStats.recordSuccess(latency);
+      } else {
+        operationStats.recordError(latency);
+      }
+    } catch (IOException e) {
+      operationStats.recordError(System.nanoTime() - intended);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      operationStats.recordError(System.nanoTime() - intended);
+    }
+  }
+
+  private HttpRequest request(Operation operation) {
+    return switch (operation) {
+      case SHORTEN -> shorten(
+          "https://example.com/load/" + runId + "/" + sequence.incrementAndGet());
+      case REDIRECT -> get("/r/" + shortCodes[popularity.next()]);
+      case INFO -> get("/api/info/" + shortCodes[popularity.next()]);
+      case MISS -> get("/r/" + randomCode());
+    };
+  }
+
+  private HttpRequest shorten(String url) {
+    return HttpRequest.newBuilder(URI.create(baseUrl + "/api/shorten"))
+        .header("Content-Type", "application/json")
+        .POST(
+            HttpRequest.BodyPublishers.ofString(
+                objectMapper.writeValueAsString(Map.of("url", url))))
+        .build();
+  }
+
+  private HttpRequest get(String path) {
+    return HttpRequest.newBuilder(URI.create(baseUrl + path)).GET().build();
+  }
+
+  private Operation pickOperation() {
+    int roll = ThreadLocalRandom.current().nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+    for (int i = 0; i < cumulativeWeights.length; i++) {
+      if (roll < cumulativeWeights[i]) {
+        return operations[i];
+      }
+    }
+    return operations[operations.length - 1];
+  }
+
+  /** 随机 6 位短码，和已有短码撞上的概率可以忽略 */
+  private static String randomCode() {
+    char[] code = new char[CODE_LENGTH];
+    for (int i = 0; i < code.length; i++) {
+      code[i] =
+          ShortCodeGenerator.CHARACTERS.charAt(
+              ThreadLocalRandom.current().nextInt(ShortCodeGenerator.CHARACTERS.length()));
+    }
+    return new String(code);
+  }
+
+  private void report(double seconds) throws IOException {
+    Map<String, Object> mix = new LinkedHashMap<>();
+    options.mix().forEach((operation, weight) -> mix.put(operation.label(), weight));
+    Map<String, Object> config = new LinkedHashMap<>();
+    config.put("target", options.target() == null ? "in-process" : options.target());
+    config.put("rate", options.rate());
+    config.put("warmupSeconds", options.warmupSeconds());
+    config.put("durationSeconds", options.durationSeconds());
+    config.put("links", options.links());
+    config.put("zipfExponent", options.zipfExponent());
+    config.put("mix", mix);
+    config.put("createMode", options.createMode());
+    config.put("maxInFlight", options.maxInFlight());
+
+    Map<String, Object> environment = new LinkedHashMap<>();
+    environment.put("java", Runtime.version().toString());
+    environment.put("processors", Runtime.getRuntime().availableProcessors());
+    environment.put("maxHeapBytes", Runtime.getRuntime().maxMemory());
+
+    Map<String, Object> results = new LinkedHashMap<>();
+    for (Operation operation : operations) {
+      results.put(operation.label(), stats.get(operation).summary(seconds));
+    }
+
+    Map<String, Object> report = new LinkedHashMap<>();
+    report.put("startedAt", Instant.now().minusMillis((long) (seconds * 1000)).toString());
+    report.put("elapsedSeconds", seconds);
+    report.put("config", config);
+    report.put("environment", environment);
+    report.put("operations", results);
+
+    if (options.out().getParent() != null) {
+      Files.createDirectories(options.out().getParent());
+    }
+    Files.writeString(
+        options.out(), objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(report));
+
+    System.out.printf(
+        "%n%-10s %10s %8s %8s %10s %10s %10s %10s%n",
+        "operation", "count", "errors", "dropped", "p50 us", "p99 us", "p99.9 us", "max us");
+    for (Operation operation : operations) {
+      Map<String, Object> summary = stats.get(operation).summary(seconds);
+      @SuppressWarnings("unchecked")
+      Map<String, Object> latency = (Map<String, Object>) summary.get("latencyMicros");
+      System.out.printf(
+          "%-10s %10d %8d %8d %10.0f %10.0f %10.0f %10.0f%n",
+          operation.label(),
+          summary.get("count"),
+          summary.get("errors"),
+          summary.get("dropped"),
+          latency.get("p50"),
+          latency.get("p99"),
+          latency.get("p999"),
+          latency.get("max"));
+    }
+    System.out.println("Report written to " + options.out().toAbsolutePath());
+  }
+}
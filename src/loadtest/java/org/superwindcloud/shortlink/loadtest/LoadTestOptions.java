@@ -0,0 +1,93 @@
+package org.superwindcloud.shortlink.loadtest;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Command line options of {@link LoadTest}, given as {@code --name=value}.
+ *
+ * @param target base URL of a running instance; null starts the app in-process on H2
+ * @param rate total arrival rate in requests per second
+ * @param warmupSeconds seconds of load before recording starts
+ * @param durationSeconds seconds of recorded load
+ * @param links short links created before the run, the popularity universe
+ * @param zipfExponent skew of the Zipfian popularity, 0 is uniform
+ * @param mix relative weight of each operation
+ * @param createMode create mode of the in-process app
+ * @param maxInFlight requests allowed in flight; arrivals beyond it count as dropped
+ * @param out where the JSON report is written
+ */
+public record LoadTestOptions(
+    String target,
+    int rate,
+    int warmupSeconds,
+    int durationSeconds,
+    int links,
+    double zipfExponent,
+    Map<Operation, Integer> mix,
+    String createMode,
+    int maxInFlight,
+    Path out) {
+
+  public LoadTestOptions {
+    mix = Collections.unmodifiableMap(new LinkedHashMap<>(mix));
+  }
+
+  /**
+   * 解析命令行参数，未给出的选项取默认值
+   *
+   * @param args 形如 {@code --rate=2000} 的参数
+   * @return 解析结果
+   */
+  public static LoadTestOptions parse(String[] args) {
+    Map<String, String> values = new LinkedHashMap<>();
+    for (String arg : args) {
+      if (!arg.startsWith("--") || !arg.contains("=")) {
+        throw new IllegalArgumentException("Expected --name=value but got " + arg);
+      }
+      int separator = arg.indexOf('=');
+      values.put(arg.substring(2, separator), arg.substring(separator + 1));
+    }
+    LoadTestOptions options =
+        new LoadTestOptions(
+            values.remove("target"),
+            Integer.parseInt(values.getOrDefault("rate", "1000")),
+            Integer.parseInt(values.getOrDefault("warmup", "10")),
+            Integer.parseInt(values.getOrDefault("duration", "30")),
+            Integer.parseInt(values.getOrDefault("links", "10000")),
+            Double.parseDouble(values.getOrDefault("zipf", "0.99")),
+            parseMix(values.getOrDefault("mix", "shorten:10,redirect:80,info:5,miss:5")),
+            values.getOrDefault("create-mode", "lock"),
+            Integer.parseInt(values.getOrDefault("max-in-flight", "10000")),
+            Path.of(values.getOrDefault("out", "target/loadtest-result.json")));
+    for (String known :
+        new String[] {
+          "rate",
+          "warmup",
+          "duration",
+          "links",
+          "zipf",
+          "mix",
+          "create-mode",
+          "max-in-flight",
+          "out"
+        }) {
+      values.remove(known);
+    }
+    if (!values.isEmpty()) {
+      throw new IllegalArgumentException("Unknown options " + values.keySet());
+    }
+    return options;
+  }
+
+  private static Map<Operation, Integer> parseMix(String mix) {
+    Map<Operation, Integer> weights = new LinkedHashMap<>();
+    for (String part : mix.split(",")) {
+      String[] pair = part.split(":");
+      weights.put(Operation.fromName(pair[0].trim()), Integer.parseInt(pair[1].trim()));
+    }
+    return weights;
+  }
+}
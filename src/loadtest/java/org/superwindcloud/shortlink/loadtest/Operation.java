@@ -0,0 +1,33 @@
+package org.superwindcloud.shortlink.loadtest;
+
+import java.util.Locale;
+
+/** Request types the load test mixes, with the status that counts as success */
+public enum Operation {
+  /** POST /api/shorten with a URL not seen before */
+  SHORTEN(200),
+  /** GET /r/{code}, code picked by Zipfian popularity */
+  REDIRECT(302),
+  /** GET /api/info/{code}, code picked by Zipfian popularity */
+  INFO(200),
+  /** GET /r/{code} for a code that does not exist */
+  MISS(404);
+
+  private final int expectedStatus;
+
+  Operation(int expectedStatus) {
+    this.expectedStatus = expectedStatus;
+  }
+
+  public int expectedStatus() {
+    return expectedStatus;
+  }
+
+  public String label() {
+    return name().toLowerCase(Locale.ROOT);
+  }
+
+  static Operation fromName(String name) {
+    return valueOf(name.toUpperCase(Locale.ROOT));
+  }
+}
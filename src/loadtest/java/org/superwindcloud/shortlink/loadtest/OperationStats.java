@@ -0,0 +1,75 @@
+package org.superwindcloud.shortlink.loadtest;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+/** Latency histogram and outcome counters of one operation */
+final class OperationStats {
+
+  private static final long MAX_LATENCY_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+  private final Histogram latencies = new ConcurrentHistogram(MAX_LATENCY_NANOS, 3);
+  private final LongAdder errors = new LongAdder();
+  private final LongAdder dropped = new LongAdder();
+
+  void recordSuccess(long latencyNanos) {
+    latencies.recordValue(Math.min(latencyNanos, MAX_LATENCY_NANOS));
+  }
+
+  void recordError(long latencyNanos) {
+    recordSuccess(latencyNanos);
+    errors.increment();
+  }
+
+  void recordDropped() {
+    dropped.increment();
+  }
+
+  void reset() {
+    latencies.reset();
+    errors.reset();
+    dropped.reset();
+  }
+
+  /**
+   * 汇总成报告里的一项
+   *
+   * @param seconds 记录阶段的秒数，用于计算吞吐
+   * @return 计数、吞吐、延迟分位（微秒）和压缩后的 HdrHistogram
+   */
+  Map<String, Object> summary(double seconds) {
+    Histogram snapshot = latencies.copy();
+    Map<String, Object> latency = new LinkedHashMap<>();
+    latency.put("mean", snapshot.getMean() / 1_000);
+    for (double percentile : new double[] {50, 90, 99, 99.9, 99.99}) {
+      latency.put("p" + format(percentile), snapshot.getValueAtPercentile(percentile) / 1_000.0);
+    }
+    latency.put("max", snapshot.getMaxValue() / 1_000.0);
+
+    ByteBuffer buffer = ByteBuffer.allocate(snapshot.getNeededByteBufferCapacity());
+    int length = snapshot.encodeIntoCompressedByteBuffer(buffer);
+
+    Map<String, Object> summary = new LinkedHashMap<>();
+    summary.put("count", snapshot.getTotalCount());
+    summary.put("errors", errors.sum());
+    summary.put("dropped", dropped.sum());
+    summary.put("throughput", snapshot.getTotalCount() / seconds);
+    summary.put("latencyMicros", latency);
+    summary.put(
+        "hdrHistogram", Base64.getEncoder().encodeToString(Arrays.copyOf(buffer.array(), length)));
+    return summary;
+  }
+
+  private static String format(double percentile) {
+    return percentile == Math.rint(percentile)
+        ? Integer.toString((int) percentile)
+        : Double.toString(percentile).replace(".", "");
+  }
+}
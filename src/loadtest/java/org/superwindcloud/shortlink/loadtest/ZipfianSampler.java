@@ -0,0 +1,28 @@
+package org.superwindcloud.shortlink.loadtest;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/** Draws ranks {@code 0..n-1} where rank {@code k} has weight {@code 1 / (k + 1)^exponent} */
+public final class ZipfianSampler {
+
+  private final double[] cumulative;
+
+  public ZipfianSampler(int n, double exponent) {
+    cumulative = new double[n];
+    double total = 0;
+    for (int k = 0; k < n; k++) {
+      total += 1 / Math.pow(k + 1, exponent);
+      cumulative[k] = total;
+    }
+    for (int k = 0; k < n; k++) {
+      cumulative[k] /= total;
+    }
+  }
+
+  /** Returns a rank, 0 being the most popular */
+  public int next() {
+    int index = Arrays.binarySearch(cumulative, ThreadLocalRandom.current().nextDouble());
+    return Math.min(cumulative.length - 1, index >= 0 ? index : -index - 1);
+  }
+}
@@ -0,0 +1,9 @@
+package org.superwindcloud.shortlink.cache;
+
+/** Binary form of one cache's keys and values, needed by caches that also live in the L2 store */
+public interface CacheCodec extends CacheKeyCodec {
+
+  byte[] encodeValue(Object value);
+
+  Object decodeValue(byte[] bytes);
+}
@@ -0,0 +1,36 @@
+package org.superwindcloud.shortlink.cache;
+
+/**
+ * Tells the other nodes to drop a local entry.
+ *
+ * @param origin id of the node that made the change, so it can skip its own messages
+ * @param cacheName cache the entry belongs to
+ * @param key Base64 of the codec-encoded key, or null to clear the whole cache
+ */
+public record CacheInvalidation(String origin, String cacheName, String key) {
+
+  private static final char SEPARATOR = '\n';
+
+  /** Encodes this message as {@code origin \n cacheName \n key} for the pub/sub channel */
+  public String toMessage() {
+    return origin + SEPARATOR + cacheName + SEPARATOR + (key == null ? "" : key);
+  }
+
+  /**
+   * 解析频道里收到的消息
+   *
+   * @return 解析结果，格式不对时返回 null
+   */
+  public static CacheInvalidation fromMessage(String message) {
+    int first = message.indexOf(SEPARATOR);
+    int second = first < 0 ? -1 : message.indexOf(SEPARATOR, first + 1);
+    if (second < 0) {
+      return null;
+    }
+    String key = message.substring(second + 1);
+    return new CacheInvalidation(
+        message.substring(0, first),
+        message.substring(first + 1, second),
+        key.isEmpty() ? null : key);
+  }
+}
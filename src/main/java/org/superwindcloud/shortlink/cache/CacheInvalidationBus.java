@@ -0,0 +1,23 @@
+package org.superwindcloud.shortlink.cache;
+
+import java.util.function.Consumer;
+
+/**
+ * Fan-out channel that keeps the per-node caches coherent.
+ *
+ * <p>Selected with {@code app.cache.invalidation}: {@code redis} (default) uses Redis pub/sub,
+ * {@code local} delivers inside the JVM for tests and single-node runs.
+ */
+public interface CacheInvalidationBus {
+
+  void publish(CacheInvalidation invalidation);
+
+  void subscribe(Consumer<CacheInvalidation> listener);
+
+  /**
+   * 其他节点发布的消息此刻能否送达本节点
+   *
+   * @return false 时本节点可能漏掉其他节点的消息，依赖消息保持完整的结构不能只信本地状态
+   */
+  boolean receivesRemote();
+}
@@ -0,0 +1,9 @@
+package org.superwindcloud.shortlink.cache;
+
+/** Binary form of one cache's keys, used in invalidation messages and as Redis keys */
+public interface CacheKeyCodec {
+
+  byte[] encodeKey(Object key);
+
+  Object decodeKey(byte[] bytes);
+}
@@ -0,0 +1,98 @@
+package org.superwindcloud.shortlink.cache;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.CRC32;
+
+/**
+ * Binary file of hot short link ids, written periodically and read back on startup.
+ *
+ * <p>Layout: magic {@code SLHS}, a version byte, the id count, the ids as 8-byte big-endian longs
+ * and a CRC32 of the ids. The file is written next to the target and moved into place, so a crash
+ * mid-write leaves the previous snapshot intact.
+ */
+public final class HotSetSnapshot {
+
+  static final int MAGIC = 0x534C4853;
+  static final byte VERSION = 1;
+  private static final int HEADER_BYTES = 4 + 1 + 4;
+  private static final int TRAILER_BYTES = 8;
+
+  private HotSetSnapshot() {}
+
+  /**
+   * 原子地写入快照
+   *
+   * @param path 快照文件
+   * @param ids 短链接 id，越靠前越热
+   */
+  public static void write(Path path, long[] ids) throws IOException {
+    ByteBuffer body = ByteBuffer.allocate(ids.length * Long.BYTES);
+    body.asLongBuffer().put(ids);
+    CRC32 crc = new CRC32();
+    crc.update(body.array());
+
+    Path parent = path.toAbsolutePath().getParent();
+    if (parent == null) {
+      throw new IOException("Hot set snapshot path has no parent directory: " + path);
+    }
+    Files.createDirectories(parent);
+    // 临时文件放在同一目录下，move 才能是原子的
+    Path temp = Files.createTempFile(parent, "hot-set", ".tmp");
+    try {
+      try (DataOutputStream out =
+          new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        out.writeInt(ids.length);
+        out.write(body.array());
+        out.writeLong(crc.getValue());
+      }
+      Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+  }
+
+  /**
+   * 读取快照
+   *
+   * @param path 快照文件
+   * @return 短链接 id，顺序与写入时一致
+   * @throws IOException 文件不存在、版本不符或内容损坏
+   */
+  public static long[] read(Path path) throws IOException {
+    long size = Files.size(path);
+    try (DataInputStream in =
+        new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+      if (size < HEADER_BYTES + TRAILER_BYTES || in.readInt() != MAGIC) {
+        throw new IOException("Not a hot set snapshot: " + path);
+      }
+      byte version = in.readByte();
+      if (version != VERSION) {
+        throw new IOException("Unsupported hot set snapshot version " + version);
+      }
+      int count = in.readInt();
+      if (count < 0 || (long) count * Long.BYTES != size - HEADER_BYTES - TRAILER_BYTES) {
+        throw new IOException("Truncated hot set snapshot: " + path);
+      }
+      byte[] body = new byte[count * Long.BYTES];
+      in.readFully(body);
+      CRC32 crc = new CRC32();
+      crc.update(body);
+      if (in.readLong() != crc.getValue()) {
+        throw new IOException("Corrupt hot set snapshot: " + path);
+      }
+      long[] ids = new long[count];
+      ByteBuffer.wrap(body).asLongBuffer().get(ids);
+      return ids;
+    }
+  }
+}
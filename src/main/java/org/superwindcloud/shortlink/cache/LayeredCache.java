@@ -0,0 +1,320 @@
+package org.superwindcloud.shortlink.cache;
+
+import com.github.benmanes.caffeine.cache.Policy;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.util.Base64;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.dao.DataAccessException;
+
+/**
+ * Per-node L1 cache in front of an optional shared L2 store.
+ *
+ * <p>Reads fall through L1 then L2, and L2 hits are copied into L1. Writes go to both tiers.
+ * Evictions also go out on the {@link CacheInvalidationBus} so other nodes drop their L1 copy. L2
+ * failures count as misses, so Redis trouble degrades to database reads instead of errors.
+ */
+public class LayeredCache implements Cache {
+
+  private static final Logger log = LoggerFactory.getLogger(LayeredCache.class);
+
+  private final Cache local;
+  private final RemoteCacheStore remote;
+  private final CacheKeyCodec keyCodec;
+  // 只有带二级存储的缓存才需要编码值
+  private final CacheCodec valueCodec;
+  private final CacheInvalidationBus invalidationBus;
+  private final String origin;
+  // 一级缓存按写入时间过期时才有，用来判断条目的年龄
+  private final Policy.FixedExpiration<Object, Object> localExpiry;
+
+  private final Counter localHits;
+  private final Counter localMisses;
+  private final Counter remoteHits;
+  private final Counter remoteMisses;
+  private final Counter remoteErrors;
+
+  /**
+   * 创建两级缓存
+   *
+   * @param local 本地一级缓存
+   * @param remote 共享二级存储，为 null 时只用一级缓存
+   * @param codec 键的二进制编码；有二级存储时必须是同时编码值的 {@link CacheCodec}
+   * @param invalidationBus 失效消息通道
+   * @param origin 本节点 id
+   * @param meterRegistry 指标注册表
+   */
+  public LayeredCache(
+      Cache local,
+      RemoteCacheStore remote,
+      CacheKeyCodec codec,
+      CacheInvalidationBus invalidationBus,
+      String origin,
+      MeterRegistry meterRegistry) {
+    if (remote != null && !(codec instanceof CacheCodec)) {
+      throw new IllegalArgumentException(
+          "Cache " + local.getName() + " has a shared store but no value codec");
+    }
+    this.local = local;
+    this.remote = remote;
+    this.keyCodec = codec;
+    this.valueCodec = remote != null ? (CacheCodec) codec : null;
+    this.invalidationBus = invalidationBus;
+    this.origin = origin;
+    this.localExpiry = writeExpiry(local);
+
+    String name = local.getName();
+    this.localHits = requests(meterRegistry, name, "l1", "hit");
+    this.localMisses = requests(meterRegistry, name, "l1", "miss");
+    this.remoteHits = requests(meterRegistry, name, "l2", "hit");
+    this.remoteMisses = requests(meterRegistry, name, "l2", "miss");
+    this.remoteErrors = requests(meterRegistry, name, "l2", "error");
+    hitRatio(meterRegistry, name, "l1", localHits, localMisses);
+    // Caffeine 开了 recordStats，导出 cache.gets / cache.evictions / cache.size 等标准指标
+    if (local.getNativeCache() instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> caffeine) {
+      CaffeineCacheMetrics.monitor(meterRegistry, caffeine, name);
+    }
+    if (remote != null) {
+      hitRatio(meterRegistry, name, "l2", remoteHits, remoteMisses);
+    }
+  }
+
+  @Override
+  public String getName() {
+    return local.getName();
+  }
+
+  @Override
+  public Object getNativeCache() {
+    return local.getNativeCache();
+  }
+
+  @Override
+  public ValueWrapper get(Object key) {
+    ValueWrapper wrapper = local.get(key);
+    if (wrapper != null) {
+      localHits.increment();
+      return wrapper;
+    }
+    localMisses.increment();
+    Object value = getRemote(key);
+    if (value == null) {
+      return null;
+    }
+    local.put(key, value);
+    return new SimpleValueWrapper(value);
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <T> T get(Object key, Class<T> type) {
+    ValueWrapper wrapper = get(key);
+    Object value = wrapper == null ? null : wrapper.get();
+    if (value != null && type != null && !type.isInstance(value)) {
+      throw new IllegalStateException(
+          "Cached value is not of required type [" + type.getName() + "]: " + value);
+    }
+    return (T) value;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <T> T get(Object key, Callable<T> valueLoader) {
+    ValueWrapper wrapper = local.get(key);
+    if (wrapper != null) {
+      localHits.increment();
+      return (T) wrapper.get();
+    }
+    localMisses.increment();
+    return local.get(
+        key,
+        () -> {
+          Object value = getRemote(key);
+          if (value != null) {
+            return (T) value;
+          }
+          T loaded = valueLoader.call();
+          if (loaded != null) {
+            putRemote(key, loaded);
+          }
+          return loaded;
+        });
+  }
+
+  /**
+   * Non-blocking read for reactive callers: L1 answers inline, L2 through {@link
+   * RemoteCacheStore#getAsync}. The future holds the value, or null on a miss; L2 failures count as
+   * misses as in {@link #get(Object)}.
+   */
+  @Override
+  public CompletableFuture<?> retrieve(Object key) {
+    ValueWrapper wrapper = local.get(key);
+    if (wrapper != null) {
+      localHits.increment();
+      return CompletableFuture.completedFuture(wrapper.get());
+    }
+    localMisses.increment();
+    if (remote == null) {
+      return CompletableFuture.completedFuture(null);
+    }
+    CompletableFuture<byte[]> pending;
+    try {
+      pending = remote.getAsync(getName(), keyCodec.encodeKey(key));
+    } catch (DataAccessException e) {
+      pending = CompletableFuture.failedFuture(e);
+    }
+    return pending.handle(
+        (bytes, error) -> {
+          if (error != null) {
+            remoteErrors.increment();
+            log.debug("Shared cache {} unavailable, treating as miss", getName(), error);
+            return null;
+          }
+          Object value = bytes == null ? null : valueCodec.decodeValue(bytes);
+          if (value == null) {
+            remoteMisses.increment();
+            return null;
+          }
+          remoteHits.increment();
+          local.put(key, value);
+          return value;
+        });
+  }
+
+  @Override
+  public void put(Object key, Object value) {
+    local.put(key, value);
+    if (value != null) {
+      putRemote(key, value);
+    }
+  }
+
+  /**
+   * 一级缓存里的条目写入至今的时间，用于提前刷新
+   *
+   * @return 毫秒数；不在一级缓存，或一级缓存没有按写入时间过期时返回 -1
+   */
+  public long localAgeMillis(Object key) {
+    if (localExpiry == null) {
+      return -1;
+    }
+    return localExpiry.ageOf(key, TimeUnit.MILLISECONDS).orElse(-1);
+  }
+
+  /** Fills L1 only, keeping an entry that live traffic put there first; used by warm-up */
+  public void putLocalIfAbsent(Object key, Object value) {
+    local.putIfAbsent(key, value);
+  }
+
+  @Override
+  public void evict(Object key) {
+    local.evict(key);
+    byte[] encodedKey = keyCodec.encodeKey(key);
+    if (remote != null) {
+      try {
+        remote.evict(getName(), encodedKey);
+      } catch (DataAccessException e) {
+        remoteErrors.increment();
+        log.warn("Failed to evict {} from shared cache {}", key, getName(), e);
+      }
+    }
+    invalidationBus.publish(
+        new CacheInvalidation(origin, getName(), Base64.getEncoder().encodeToString(encodedKey)));
+  }
+
+  @Override
+  public void clear() {
+    local.clear();
+    if (remote != null) {
+      try {
+        remote.clear(getName());
+      } catch (DataAccessException e) {
+        remoteErrors.increment();
+        log.warn("Failed to clear shared cache {}", getName(), e);
+      }
+    }
+    invalidationBus.publish(new CacheInvalidation(origin, getName(), null));
+  }
+
+  /** Applies an invalidation received from another node to L1 only */
+  void onInvalidation(CacheInvalidation invalidation) {
+    if (invalidation.key() == null) {
+      local.clear();
+    } else {
+      local.evict(keyCodec.decodeKey(Base64.getDecoder().decode(invalidation.key())));
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Policy.FixedExpiration<Object, Object> writeExpiry(Cache local) {
+    if (local.getNativeCache() instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> caffeine) {
+      return ((com.github.benmanes.caffeine.cache.Cache<Object, Object>) caffeine)
+          .policy()
+          .expireAfterWrite()
+          .orElse(null);
+    }
+    return null;
+  }
+
+  private Object getRemote(Object key) {
+    if (remote == null) {
+      return null;
+    }
+    try {
+      byte[] bytes = remote.get(getName(), keyCodec.encodeKey(key));
+      Object value = bytes == null ? null : valueCodec.decodeValue(bytes);
+      if (value == null) {
+        remoteMisses.increment();
+      } else {
+        remoteHits.increment();
+      }
+      return value;
+    } catch (DataAccessException e) {
+      remoteErrors.increment();
+      log.debug("Shared cache {} unavailable, treating as miss", getName(), e);
+      return null;
+    }
+  }
+
+  private void putRemote(Object key, Object value) {
+    if (remote == null) {
+      return;
+    }
+    try {
+      remote.put(getName(), keyCodec.encodeKey(key), valueCodec.encodeValue(value));
+    } catch (DataAccessException e) {
+      remoteErrors.increment();
+      log.debug("Failed to write {} to shared cache {}", key, getName(), e);
+    }
+  }
+
+  private static Counter requests(
+      MeterRegistry meterRegistry, String cache, String tier, String result) {
+    return Counter.builder("shortlink.cache.requests")
+        .tag("cache", cache)
+        .tag("tier", tier)
+        .tag("result", result)
+        .register(meterRegistry);
+  }
+
+  private static void hitRatio(
+      MeterRegistry meterRegistry, String cache, String tier, Counter hits, Counter misses) {
+    Gauge.builder(
+            "shortlink.cache.hit.ratio",
+            () -> {
+              double total = hits.count() + misses.count();
+              return total == 0 ? 0 : hits.count() / total;
+            })
+        .tag("cache", cache)
+        .tag("tier", tier)
+        .register(meterRegistry);
+  }
+}
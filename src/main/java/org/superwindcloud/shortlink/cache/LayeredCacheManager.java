@@ -0,0 +1,94 @@
+package org.superwindcloud.shortlink.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+/**
+ * Wraps every cache of a local {@link CacheManager} in a {@link LayeredCache}. Caches listed in
+ * {@code remoteCaches} also get the shared L2 store; all caches take part in invalidation.
+ */
+public class LayeredCacheManager implements CacheManager, InitializingBean {
+
+  private static final CacheKeyCodec LOCAL_ONLY_CODEC = new StringKeyCodec();
+
+  private final CacheManager localCacheManager;
+  private final RemoteCacheStore remoteStore;
+  private final Map<String, CacheKeyCodec> codecs;
+  private final Set<String> remoteCaches;
+  private final CacheInvalidationBus invalidationBus;
+  private final MeterRegistry meterRegistry;
+  private final String nodeId = UUID.randomUUID().toString();
+  private final Map<String, LayeredCache> caches = new ConcurrentHashMap<>();
+
+  /**
+   * 创建两级缓存管理器
+   *
+   * @param localCacheManager 提供一级缓存
+   * @param remoteStore 共享二级存储，为 null 时所有缓存都只有一级
+   * @param codecs 各缓存的编码，未列出的缓存按字符串键处理
+   * @param remoteCaches 使用二级存储的缓存，它们的编码必须是 {@link CacheCodec}
+   * @param invalidationBus 失效消息通道
+   * @param meterRegistry 指标注册表
+   */
+  public LayeredCacheManager(
+      CacheManager localCacheManager,
+      RemoteCacheStore remoteStore,
+      Map<String, CacheKeyCodec> codecs,
+      Set<String> remoteCaches,
+      CacheInvalidationBus invalidationBus,
+      MeterRegistry meterRegistry) {
+    this.localCacheManager = localCacheManager;
+    this.remoteStore = remoteStore;
+    this.codecs = Map.copyOf(codecs);
+    this.remoteCaches = Set.copyOf(remoteCaches);
+    this.invalidationBus = invalidationBus;
+    this.meterRegistry = meterRegistry;
+  }
+
+  @Override
+  public void afterPropertiesSet() {
+    invalidationBus.subscribe(this::onInvalidation);
+  }
+
+  @Override
+  public Cache getCache(String name) {
+    return caches.computeIfAbsent(name, this::createCache);
+  }
+
+  @Override
+  public Collection<String> getCacheNames() {
+    return localCacheManager.getCacheNames();
+  }
+
+  private LayeredCache createCache(String name) {
+    Cache local = localCacheManager.getCache(name);
+    if (local == null) {
+      return null;
+    }
+    RemoteCacheStore remote = remoteCaches.contains(name) ? remoteStore : null;
+    return new LayeredCache(
+        local,
+        remote,
+        codecs.getOrDefault(name, LOCAL_ONLY_CODEC),
+        invalidationBus,
+        nodeId,
+        meterRegistry);
+  }
+
+  private void onInvalidation(CacheInvalidation invalidation) {
+    if (nodeId.equals(invalidation.origin())) {
+      return;
+    }
+    Cache cache = getCache(invalidation.cacheName());
+    if (cache instanceof LayeredCache layeredCache) {
+      layeredCache.onInvalidation(invalidation);
+    }
+  }
+}
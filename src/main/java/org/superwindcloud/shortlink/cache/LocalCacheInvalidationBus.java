@@ -0,0 +1,29 @@
+package org.superwindcloud.shortlink.cache;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/** In-process stand-in for the Redis channel; delivers synchronously to every subscriber */
+public class LocalCacheInvalidationBus implements CacheInvalidationBus {
+
+  private final List<Consumer<CacheInvalidation>> listeners = new CopyOnWriteArrayList<>();
+
+  @Override
+  public void publish(CacheInvalidation invalidation) {
+    for (Consumer<CacheInvalidation> listener : listeners) {
+      listener.accept(invalidation);
+    }
+  }
+
+  @Override
+  public void subscribe(Consumer<CacheInvalidation> listener) {
+    listeners.add(listener);
+  }
+
+  /** Nothing published on another node ever arrives here */
+  @Override
+  public boolean receivesRemote() {
+    return false;
+  }
+}
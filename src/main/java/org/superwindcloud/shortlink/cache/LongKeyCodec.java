@@ -0,0 +1,17 @@
+package org.superwindcloud.shortlink.cache;
+
+import java.nio.ByteBuffer;
+
+/** Key codec for caches keyed by {@code long}: keys are 8 big-endian bytes */
+public class LongKeyCodec implements CacheKeyCodec {
+
+  @Override
+  public byte[] encodeKey(Object key) {
+    return ByteBuffer.allocate(Long.BYTES).putLong((Long) key).array();
+  }
+
+  @Override
+  public Object decodeKey(byte[] bytes) {
+    return ByteBuffer.wrap(bytes).getLong();
+  }
+}
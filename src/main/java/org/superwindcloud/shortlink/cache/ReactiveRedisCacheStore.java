@@ -0,0 +1,84 @@
+package org.superwindcloud.shortlink.cache;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ReactiveValueOperations;
+import org.springframework.data.redis.core.ScanOptions;
+
+/**
+ * Same Redis key layout and TTL as {@link RedisCacheStore}, over reactive Lettuce.
+ *
+ * <p>For event-loop callers: {@link #getAsync} never blocks, and writes are sent without waiting
+ * for the reply, so a slow Redis costs a miss or a lost L2 copy rather than a stalled thread.
+ */
+public class ReactiveRedisCacheStore implements RemoteCacheStore {
+
+  private static final Logger log = LoggerFactory.getLogger(ReactiveRedisCacheStore.class);
+
+  private static final int CLEAR_BATCH = 500;
+
+  private final ReactiveRedisTemplate<byte[], byte[]> redisTemplate;
+  private final ReactiveValueOperations<byte[], byte[]> valueOperations;
+  private final Duration timeout;
+  private final Duration ttl;
+
+  /**
+   * 创建响应式的共享缓存存储
+   *
+   * @param redisTemplate 键和值都按字节数组序列化的模板
+   * @param timeout 单次读取的超时，超时按未命中处理
+   * @param ttl 每个条目写入后的存活时间
+   */
+  public ReactiveRedisCacheStore(
+      ReactiveRedisTemplate<byte[], byte[]> redisTemplate, Duration timeout, Duration ttl) {
+    this.redisTemplate = redisTemplate;
+    this.valueOperations = redisTemplate.opsForValue();
+    this.timeout = timeout;
+    this.ttl = ttl;
+  }
+
+  /** Blocks the caller; only for code that is not on an event loop */
+  @Override
+  public byte[] get(String cacheName, byte[] key) {
+    return valueOperations.get(RedisCacheStore.entryKey(cacheName, key)).block(timeout);
+  }
+
+  @Override
+  public CompletableFuture<byte[]> getAsync(String cacheName, byte[] key) {
+    return valueOperations
+        .get(RedisCacheStore.entryKey(cacheName, key))
+        .timeout(timeout)
+        .toFuture();
+  }
+
+  @Override
+  public void put(String cacheName, byte[] key, byte[] value) {
+    valueOperations
+        .set(RedisCacheStore.entryKey(cacheName, key), value, ttl)
+        .subscribe(null, e -> log.debug("Failed to write shared cache {}", cacheName, e));
+  }
+
+  @Override
+  public void evict(String cacheName, byte[] key) {
+    redisTemplate
+        .delete(RedisCacheStore.entryKey(cacheName, key))
+        .subscribe(null, e -> log.warn("Failed to evict from shared cache {}", cacheName, e));
+  }
+
+  @Override
+  public void clear(String cacheName) {
+    ScanOptions options =
+        ScanOptions.scanOptions()
+            .match(RedisCacheStore.entryPattern(cacheName))
+            .count(CLEAR_BATCH)
+            .build();
+    redisTemplate
+        .scan(options)
+        .buffer(CLEAR_BATCH)
+        .concatMap(keys -> redisTemplate.delete(keys.toArray(new byte[0][])))
+        .subscribe(null, e -> log.warn("Failed to clear shared cache {}", cacheName, e));
+  }
+}
@@ -0,0 +1,51 @@
+package org.superwindcloud.shortlink.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import org.superwindcloud.shortlink.service.RedirectEntry;
+
+/**
+ * Packed short code keys to {@link RedirectEntry} values in a fixed binary layout: version, id,
+ * redirect policy and original URL.
+ */
+public class RedirectEntryCacheCodec extends LongKeyCodec implements CacheCodec {
+
+  private static final byte VERSION = 3;
+
+  @Override
+  public byte[] encodeValue(Object value) {
+    RedirectEntry entry = (RedirectEntry) value;
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(16 + entry.originalUrl().length());
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+      out.writeByte(VERSION);
+      out.writeLong(entry.id());
+      out.writeShort(entry.redirectStatus());
+      out.writeInt(entry.cacheMaxAge());
+      out.writeUTF(entry.originalUrl());
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return bytes.toByteArray();
+  }
+
+  @Override
+  public Object decodeValue(byte[] bytes) {
+    try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+      byte version = in.readByte();
+      if (version != VERSION) {
+        // 未知版本按未命中处理，由数据库重新加载
+        return null;
+      }
+      long id = in.readLong();
+      int redirectStatus = in.readShort();
+      int cacheMaxAge = in.readInt();
+      return new RedirectEntry(id, in.readUTF(), redirectStatus, cacheMaxAge);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
@@ -0,0 +1,56 @@
+package org.superwindcloud.shortlink.cache;
+
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.superwindcloud.shortlink.util.RedisCommands;
+
+/** Publishes invalidations on a Redis pub/sub channel that every node subscribes to */
+public class RedisCacheInvalidationBus implements CacheInvalidationBus {
+
+  private static final Logger log = LoggerFactory.getLogger(RedisCacheInvalidationBus.class);
+
+  static final String CHANNEL = "shortlink:cache:invalidation";
+
+  private final RedisCommands redisCommands;
+  private final RedisMessageListenerContainer listenerContainer;
+
+  public RedisCacheInvalidationBus(
+      RedisCommands redisCommands, RedisMessageListenerContainer listenerContainer) {
+    this.redisCommands = redisCommands;
+    this.listenerContainer = listenerContainer;
+  }
+
+  @Override
+  public void publish(CacheInvalidation invalidation) {
+    try {
+      redisCommands.publish(CHANNEL, invalidation.toMessage());
+    } catch (DataAccessException e) {
+      // 发布失败只影响其他节点的本地缓存时效，本地缓存照常过期
+      log.warn("Failed to publish cache invalidation for {}", invalidation.cacheName(), e);
+    }
+  }
+
+  @Override
+  public void subscribe(Consumer<CacheInvalidation> listener) {
+    listenerContainer.addMessageListener(
+        (message, pattern) -> {
+          CacheInvalidation invalidation =
+              CacheInvalidation.fromMessage(new String(message.getBody(), StandardCharsets.UTF_8));
+          if (invalidation != null) {
+            listener.accept(invalidation);
+          }
+        },
+        new ChannelTopic(CHANNEL));
+  }
+
+  /** False while the subscription is down, e.g. during a Redis outage or reconnect */
+  @Override
+  public boolean receivesRemote() {
+    return listenerContainer.isRunning() && listenerContainer.isListening();
+  }
+}
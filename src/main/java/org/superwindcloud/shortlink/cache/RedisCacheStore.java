@@ -0,0 +1,66 @@
+package org.superwindcloud.shortlink.cache;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import org.superwindcloud.shortlink.util.RedisCommands;
+
+/**
+ * Keeps each cache entry as its own Redis string, {@code shortlink:cache:<name>:<key>}, with a TTL.
+ *
+ * <p>The shared tier only holds entries written within the TTL; an expired entry is a miss that the
+ * next reader reloads and writes back. Each entry can also be evicted on its own by Redis' {@code
+ * maxmemory} policy, which a single hash never allowed.
+ */
+public class RedisCacheStore implements RemoteCacheStore {
+
+  private static final String KEY_PREFIX = "shortlink:cache:";
+
+  private final RedisCommands redisCommands;
+  private final Duration ttl;
+
+  /**
+   * 创建共享缓存存储
+   *
+   * @param redisCommands Redis 命令入口
+   * @param ttl 每个条目写入后的存活时间
+   */
+  public RedisCacheStore(RedisCommands redisCommands, Duration ttl) {
+    this.redisCommands = redisCommands;
+    this.ttl = ttl;
+  }
+
+  @Override
+  public byte[] get(String cacheName, byte[] key) {
+    return redisCommands.get(entryKey(cacheName, key));
+  }
+
+  @Override
+  public void put(String cacheName, byte[] key, byte[] value) {
+    redisCommands.set(entryKey(cacheName, key), value, ttl);
+  }
+
+  @Override
+  public void evict(String cacheName, byte[] key) {
+    redisCommands.del(entryKey(cacheName, key));
+  }
+
+  /** Walks the cache's keys with SCAN; only used for whole-cache clears, which are rare */
+  @Override
+  public void clear(String cacheName) {
+    redisCommands.delMatching(entryPattern(cacheName));
+  }
+
+  /** Redis key of one entry: the cache's prefix followed by the encoded key bytes */
+  static byte[] entryKey(String cacheName, byte[] key) {
+    byte[] prefix = (KEY_PREFIX + cacheName + ":").getBytes(StandardCharsets.UTF_8);
+    byte[] entryKey = new byte[prefix.length + key.length];
+    System.arraycopy(prefix, 0, entryKey, 0, prefix.length);
+    System.arraycopy(key, 0, entryKey, prefix.length, key.length);
+    return entryKey;
+  }
+
+  /** SCAN pattern matching every entry of the cache */
+  static String entryPattern(String cacheName) {
+    return KEY_PREFIX + cacheName + ":*";
+  }
+}
@@ -0,0 +1,29 @@
+package org.superwindcloud.shortlink.cache;
+
+import java.util.concurrent.CompletableFuture;
+
+/** Shared second-level store behind the per-node caches */
+public interface RemoteCacheStore {
+
+  /**
+   * 读取共享缓存
+   *
+   * @return 编码后的值，不存在时返回 null
+   */
+  byte[] get(String cacheName, byte[] key);
+
+  /**
+   * 异步读取共享缓存，供非阻塞的调用方使用；默认在调用线程上同步读取
+   *
+   * @return 编码后的值，不存在时结果为 null
+   */
+  default CompletableFuture<byte[]> getAsync(String cacheName, byte[] key) {
+    return CompletableFuture.completedFuture(get(cacheName, key));
+  }
+
+  void put(String cacheName, byte[] key, byte[] value);
+
+  void evict(String cacheName, byte[] key);
+
+  void clear(String cacheName);
+}
@@ -0,0 +1,17 @@
+package org.superwindcloud.shortlink.cache;
+
+import java.nio.charset.StandardCharsets;
+
+/** Key codec for L1-only caches: keys travel in invalidation messages, values stay in the JVM */
+public class StringKeyCodec implements CacheKeyCodec {
+
+  @Override
+  public byte[] encodeKey(Object key) {
+    return key.toString().getBytes(StandardCharsets.UTF_8);
+  }
+
+  @Override
+  public Object decodeKey(byte[] bytes) {
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+}
@@ -3,6 +3,13 @@ package org.superwindcloud.shortlink.config;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableAsync;
 
+/**
+ * Enables {@code @Async}.
+ *
+ * <p>The executor comes from Spring Boot: a bounded platform thread pool by default, or a virtual
+ * thread per task when {@code spring.threads.virtual.enabled=true}, capped by {@code
+ * spring.task.execution.simple.concurrency-limit}.
+ */
 @Configuration
 @EnableAsync
 public class AsyncConfig {
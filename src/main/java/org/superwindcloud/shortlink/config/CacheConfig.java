@@ -1,31 +1,98 @@
 package org.superwindcloud.shortlink.config;
 
 import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.caffeine.CaffeineCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.superwindcloud.shortlink.cache.CacheKeyCodec;
+import org.superwindcloud.shortlink.cache.CacheInvalidationBus;
+import org.superwindcloud.shortlink.cache.LayeredCacheManager;
+import org.superwindcloud.shortlink.cache.LongKeyCodec;
+import org.superwindcloud.shortlink.cache.RedirectEntryCacheCodec;
+import org.superwindcloud.shortlink.cache.RedisCacheStore;
+import org.superwindcloud.shortlink.cache.RemoteCacheStore;
+import org.superwindcloud.shortlink.util.RedisCommands;
 
 @Configuration
 public class CacheConfig {
 
-  public static final String ORIGINAL_URL_CACHE = "shortLinksByOriginalUrl";
-  public static final String SHORT_CODE_CACHE = "shortLinksByShortCode";
+  /** 64-bit hash of the original URL to its packed short code */
+  public static final String ORIGINAL_URL_CACHE = "shortCodesByUrlHash";
+
+  /** Packed short code to its {@link org.superwindcloud.shortlink.service.RedirectEntry} */
+  public static final String SHORT_CODE_CACHE = "redirectsByShortCode";
 
   @Bean
-  public Caffeine<Object, Object> caffeine() {
-    return Caffeine.newBuilder()
-        .maximumSize(20_000)
-        .expireAfterAccess(10, TimeUnit.MINUTES)
-        .recordStats();
+  public Caffeine<Object, Object> caffeine(
+      @Value("${app.cache.l1.max-age-ms:0}") long maxAgeMillis) {
+    return defaultCaffeine(maxAgeMillis);
   }
 
+  /** L1 Caffeine per node; the short code cache is backed by expiring Redis entries as L2 */
   @Bean
-  public CacheManager cacheManager(Caffeine<Object, Object> caffeine) {
-    CaffeineCacheManager cacheManager =
+  public CacheManager cacheManager(
+      Caffeine<Object, Object> caffeine,
+      RedisCommands redisCommands,
+      CacheInvalidationBus cacheInvalidationBus,
+      MeterRegistry meterRegistry,
+      @Value("${app.cache.l2.enabled:true}") boolean l2Enabled,
+      @Value("${app.cache.l2.ttl-ms:86400000}") long l2TtlMillis) {
+    return layeredCacheManager(
+        caffeine,
+        l2Enabled ? new RedisCacheStore(redisCommands, Duration.ofMillis(l2TtlMillis)) : null,
+        cacheInvalidationBus,
+        meterRegistry);
+  }
+
+  /**
+   * 一级缓存配置，响应式重定向服务也用它
+   *
+   * @param maxAgeMillis 条目写入后的最长存活时间，兜住丢失的失效消息；0 表示不限制
+   */
+  public static Caffeine<Object, Object> defaultCaffeine(long maxAgeMillis) {
+    Caffeine<Object, Object> caffeine =
+        Caffeine.newBuilder().maximumSize(20_000).expireAfterAccess(10, TimeUnit.MINUTES);
+    if (maxAgeMillis > 0) {
+      caffeine.expireAfterWrite(maxAgeMillis, TimeUnit.MILLISECONDS);
+    }
+    return caffeine.recordStats();
+  }
+
+  /**
+   * 按本应用的缓存布局创建两级缓存管理器，响应式重定向服务也用它
+   *
+   * @param caffeine 一级缓存配置
+   * @param remoteStore 短码缓存的二级存储，为 null 时只用一级缓存
+   * @param cacheInvalidationBus 失效消息通道
+   * @param meterRegistry 指标注册表
+   */
+  public static LayeredCacheManager layeredCacheManager(
+      Caffeine<Object, Object> caffeine,
+      RemoteCacheStore remoteStore,
+      CacheInvalidationBus cacheInvalidationBus,
+      MeterRegistry meterRegistry) {
+    CaffeineCacheManager localCacheManager =
         new CaffeineCacheManager(ORIGINAL_URL_CACHE, SHORT_CODE_CACHE);
-    cacheManager.setCaffeine(caffeine);
-    return cacheManager;
+    localCacheManager.setCaffeine(caffeine);
+    Map<String, CacheKeyCodec> codecs =
+        Map.of(
+            ORIGINAL_URL_CACHE,
+            new LongKeyCodec(),
+            SHORT_CODE_CACHE,
+            new RedirectEntryCacheCodec());
+    return new LayeredCacheManager(
+        localCacheManager,
+        remoteStore,
+        codecs,
+        remoteStore != null ? Set.of(SHORT_CODE_CACHE) : Set.of(),
+        cacheInvalidationBus,
+        meterRegistry);
   }
 }
@@ -0,0 +1,47 @@
+package org.superwindcloud.shortlink.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.superwindcloud.shortlink.cache.CacheInvalidationBus;
+import org.superwindcloud.shortlink.cache.LocalCacheInvalidationBus;
+import org.superwindcloud.shortlink.cache.RedisCacheInvalidationBus;
+import org.superwindcloud.shortlink.util.RedisCommands;
+
+/** How L1 evictions reach the other nodes; also imported by the reactive redirect service */
+@Configuration
+public class CacheInvalidationConfig {
+
+  @Bean
+  @ConditionalOnProperty(
+      prefix = "app.cache",
+      name = "invalidation",
+      havingValue = "redis",
+      matchIfMissing = true)
+  public RedisMessageListenerContainer cacheInvalidationListenerContainer(
+      RedisConnectionFactory connectionFactory) {
+    RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+    container.setConnectionFactory(connectionFactory);
+    return container;
+  }
+
+  @Bean
+  @ConditionalOnProperty(
+      prefix = "app.cache",
+      name = "invalidation",
+      havingValue = "redis",
+      matchIfMissing = true)
+  public CacheInvalidationBus redisCacheInvalidationBus(
+      RedisCommands redisCommands,
+      RedisMessageListenerContainer cacheInvalidationListenerContainer) {
+    return new RedisCacheInvalidationBus(redisCommands, cacheInvalidationListenerContainer);
+  }
+
+  @Bean
+  @ConditionalOnProperty(prefix = "app.cache", name = "invalidation", havingValue = "local")
+  public CacheInvalidationBus localCacheInvalidationBus() {
+    return new LocalCacheInvalidationBus();
+  }
+}
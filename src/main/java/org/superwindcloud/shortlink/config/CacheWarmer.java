@@ -0,0 +1,200 @@
+package org.superwindcloud.shortlink.config;
+
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.superwindcloud.shortlink.cache.HotSetSnapshot;
+import org.superwindcloud.shortlink.entity.ShortLink;
+import org.superwindcloud.shortlink.repository.ShortLinkJdbcRepository;
+import org.superwindcloud.shortlink.service.RedirectEntry;
+import org.superwindcloud.shortlink.service.ShortLinkService;
+import org.superwindcloud.shortlink.util.ThreadFactories;
+
+/**
+ * Fills this node's L1 redirect cache before it takes traffic.
+ *
+ * <p>Runs after {@link StartupDependencyVerifier}. It first reloads the links listed in the hot set
+ * snapshot ({@code app.cache.warmup.snapshot-path}), then tops up to {@code app.cache.warmup.size}
+ * with the newest or most clicked links, read in keyset pages. Spring Boot reports readiness only
+ * after every runner returns, so {@code /actuator/health/readiness} stays down until warm-up ends.
+ * A failed warm-up is logged and the node starts cold. While running, the snapshot is rewritten
+ * every {@code app.cache.warmup.snapshot-interval-ms} and once more on shutdown.
+ */
+@Component
+public final class CacheWarmer implements ApplicationRunner {
+
+  private static final Logger log = LoggerFactory.getLogger(CacheWarmer.class);
+
+  private final ShortLinkService shortLinkService;
+  private final ShortLinkJdbcRepository shortLinkJdbcRepository;
+  private final Cache shortCodeCache;
+  private final int size;
+  private final boolean byClicks;
+  private final int pageSize;
+  private final Path snapshotPath;
+  private final long snapshotIntervalMillis;
+  private final ScheduledExecutorService snapshotter;
+
+  public CacheWarmer(
+      ShortLinkService shortLinkService,
+      ShortLinkJdbcRepository shortLinkJdbcRepository,
+      CacheManager cacheManager,
+      @Value("${app.cache.warmup.size:10000}") int size,
+      @Value("${app.cache.warmup.order:recent}") String order,
+      @Value("${app.cache.warmup.page-size:1000}") int pageSize,
+      @Value("${app.cache.warmup.snapshot-path:}") String snapshotPath,
+      @Value("${app.cache.warmup.snapshot-interval-ms:60000}") long snapshotIntervalMillis,
+      @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+    if (!"recent".equalsIgnoreCase(order) && !"clicks".equalsIgnoreCase(order)) {
+      throw new IllegalArgumentException("app.cache.warmup.order must be recent or clicks");
+    }
+    this.shortLinkService = shortLinkService;
+    this.shortLinkJdbcRepository = shortLinkJdbcRepository;
+    this.shortCodeCache = cacheManager.getCache(CacheConfig.SHORT_CODE_CACHE);
+    this.size = size;
+    this.byClicks = "clicks".equalsIgnoreCase(order);
+    this.pageSize = pageSize;
+    this.snapshotPath = snapshotPath.isBlank() ? null : Path.of(snapshotPath);
+    this.snapshotIntervalMillis = snapshotIntervalMillis;
+    this.snapshotter =
+        Executors.newSingleThreadScheduledExecutor(
+            ThreadFactories.background("hot-set-snapshotter", virtualThreads));
+  }
+
+  @Override
+  public void run(ApplicationArguments args) {
+    long start = System.nanoTime();
+    int restored = 0;
+    int preloaded = 0;
+    try {
+      restored = restoreSnapshot();
+      preloaded = preload(size - restored);
+    } catch (RuntimeException e) {
+      // 预热只是优化：查库、解码或写缓存出了什么错都不能让节点起不来
+      log.warn("Cache warm-up failed, starting with a partly cold cache", e);
+    }
+    log.info(
+        "Cache warmed with {} links ({} from snapshot) in {} ms",
+        restored + preloaded,
+        restored,
+        (System.nanoTime() - start) / 1_000_000);
+    if (snapshotPath != null) {
+      snapshotter.scheduleWithFixedDelay(
+          this::snapshotQuietly,
+          snapshotIntervalMillis,
+          snapshotIntervalMillis,
+          TimeUnit.MILLISECONDS);
+    }
+  }
+
+  @PreDestroy
+  void shutdown() {
+    snapshotter.shutdownNow();
+    snapshotQuietly();
+  }
+
+  /**
+   * 把一级缓存里访问频率最高的链接 id 写入快照
+   *
+   * @return 写入的 id 个数，未配置快照路径时返回 0
+   */
+  int snapshot() throws IOException {
+    if (snapshotPath == null) {
+      return 0;
+    }
+    long[] ids = hottestIds(Math.max(size, 0));
+    if (ids.length == 0) {
+      // 缓存还是空的（比如预热失败后马上关闭），保留上一份快照
+      return 0;
+    }
+    HotSetSnapshot.write(snapshotPath, ids);
+    return ids.length;
+  }
+
+  private int restoreSnapshot() {
+    if (snapshotPath == null || !Files.exists(snapshotPath)) {
+      return 0;
+    }
+    long[] ids;
+    try {
+      ids = HotSetSnapshot.read(snapshotPath);
+    } catch (IOException e) {
+      log.warn("Ignoring unreadable hot set snapshot {}", snapshotPath, e);
+      return 0;
+    }
+    List<Long> hottest = Arrays.stream(ids).limit(Math.max(size, 0)).boxed().toList();
+    List<ShortLink> links = shortLinkJdbcRepository.findByIds(hottest);
+    shortLinkService.warmCache(links);
+    return links.size();
+  }
+
+  /** Reads keyset pages until {@code limit} links are cached or the table is exhausted */
+  private int preload(int limit) {
+    int loaded = 0;
+    long beforeClicks = Long.MAX_VALUE;
+    long beforeId = Long.MAX_VALUE;
+    while (loaded < limit) {
+      int pageLimit = Math.min(pageSize, limit - loaded);
+      List<ShortLink> page =
+          byClicks
+              ? shortLinkJdbcRepository.findPageByClicksDesc(beforeClicks, beforeId, pageLimit)
+              : shortLinkJdbcRepository.findPageByIdDesc(beforeId, pageLimit);
+      if (page.isEmpty()) {
+        break;
+      }
+      shortLinkService.warmCache(page);
+      loaded += page.size();
+      ShortLink last = page.get(page.size() - 1);
+      beforeId = last.getId();
+      beforeClicks = last.getClickCount() == null ? 0 : last.getClickCount();
+      if (page.size() < pageLimit) {
+        break;
+      }
+    }
+    return loaded;
+  }
+
+  private long[] hottestIds(int limit) {
+    if (shortCodeCache == null
+        || !(shortCodeCache.getNativeCache()
+            instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> nativeCache)) {
+      return new long[0];
+    }
+    return hottest(nativeCache, limit).values().stream()
+        .filter(RedirectEntry.class::isInstance)
+        .mapToLong(value -> ((RedirectEntry) value).id())
+        .toArray();
+  }
+
+  /** 按 W-TinyLFU 的频率估计取最热的条目 */
+  private static <K, V> Map<K, V> hottest(
+      com.github.benmanes.caffeine.cache.Cache<K, V> cache, int limit) {
+    return cache.policy().eviction().map(eviction -> eviction.hottest(limit)).orElse(Map.of());
+  }
+
+  private void snapshotQuietly() {
+    try {
+      int written = snapshot();
+      if (written > 0) {
+        log.debug("Wrote {} hot link ids to {}", written, snapshotPath);
+      }
+    } catch (IOException | RuntimeException e) {
+      log.warn("Hot set snapshot to {} failed", snapshotPath, e);
+    }
+  }
+}
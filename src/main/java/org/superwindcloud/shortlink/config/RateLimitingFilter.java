@@ -0,0 +1,99 @@
+package org.superwindcloud.shortlink.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Set;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.superwindcloud.shortlink.util.Hashes;
+import org.superwindcloud.shortlink.util.RateLimiter;
+
+/**
+ * Rejects requests over the per client IP and per API key limits of one route with 429.
+ *
+ * <p>Requests carrying one of the configured {@code X-API-Key} values are counted against that
+ * key's budget only, which is shared by every IP using the key. Everything else, including unknown
+ * keys, is counted per client IP, so making up keys does not buy extra budget. Behind a proxy the
+ * client IP comes from {@code server.forward-headers-strategy}.
+ */
+public class RateLimitingFilter extends OncePerRequestFilter {
+
+  static final String API_KEY_HEADER = "X-API-Key";
+  private static final long API_KEY_SEED = 0x2545F4914F6CDD1DL;
+
+  private final RateLimiter rateLimiter;
+  private final String route;
+  private final Set<String> apiKeys;
+  private final int perIpLimit;
+  private final int perApiKeyLimit;
+  private final int windowSeconds;
+  private final Counter allowed;
+  private final Counter rejected;
+
+  /**
+   * @param route 路由名，用作限流键前缀和指标标签
+   * @param apiKeys 已发放的 API key，其余 key 按 IP 限流
+   * @param perIpPerSecond 每个客户端 IP 每秒允许的请求数
+   * @param perApiKeyPerSecond 每个 API key 每秒允许的请求数
+   * @param windowSeconds 令牌桶补充周期和全局计数窗口（秒）
+   */
+  public RateLimitingFilter(
+      RateLimiter rateLimiter,
+      MeterRegistry meterRegistry,
+      String route,
+      Set<String> apiKeys,
+      int perIpPerSecond,
+      int perApiKeyPerSecond,
+      int windowSeconds) {
+    this.rateLimiter = rateLimiter;
+    this.route = route;
+    this.apiKeys = Set.copyOf(apiKeys);
+    this.perIpLimit = perIpPerSecond * windowSeconds;
+    this.perApiKeyLimit = perApiKeyPerSecond * windowSeconds;
+    this.windowSeconds = windowSeconds;
+    this.allowed =
+        meterRegistry.counter("shortlink.ratelimit.requests", "route", route, "result", "allowed");
+    this.rejected =
+        meterRegistry.counter("shortlink.ratelimit.requests", "route", route, "result", "rejected");
+  }
+
+  @Override
+  protected void doFilterInternal(
+      HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+      throws ServletException, IOException {
+    String apiKey = request.getHeader(API_KEY_HEADER);
+    String key;
+    int limit;
+    if (apiKey != null && apiKeys.contains(apiKey)) {
+      // 不把原始 key 写进 Redis
+      key = route + ":key:" + Long.toHexString(Hashes.hash64(apiKey, API_KEY_SEED));
+      limit = perApiKeyLimit;
+    } else {
+      // 只认 getRemoteAddr，代理后面的真实 IP 交给 server.forward-headers-strategy 处理，避免伪造
+      key = route + ":ip:" + request.getRemoteAddr();
+      limit = perIpLimit;
+    }
+    if (!rateLimiter.isAllowed(key, limit, windowSeconds)) {
+      reject(response, key);
+      return;
+    }
+    allowed.increment();
+    filterChain.doFilter(request, response);
+  }
+
+  private void reject(HttpServletResponse response, String key) throws IOException {
+    rejected.increment();
+    long retryAfterSeconds = Math.max(1, (rateLimiter.retryAfterMillis(key) + 999) / 1000);
+    response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+    response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+    response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+    response.getWriter().write("{\"error\":\"Too many requests\"}");
+  }
+}
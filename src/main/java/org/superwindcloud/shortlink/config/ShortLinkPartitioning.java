@@ -0,0 +1,139 @@
+package org.superwindcloud.shortlink.config;
+
+import jakarta.annotation.PostConstruct;
+import java.util.Locale;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.superwindcloud.shortlink.repository.ShortLinkShards;
+
+/**
+ * Turns short_links into {@code app.short-links.partitions} range partitions on url_hash
+ * (PostgreSQL only).
+ *
+ * <p>Runs once Hibernate has updated the schema and before the web server takes traffic. A plain
+ * short_links table is replaced by the partitioned layout only while it is still empty, i.e. on a
+ * fresh database; a table that already holds rows must be migrated offline, and startup fails until
+ * then. A partitioned table with a different partition count also fails startup, because short
+ * codes embed their shard. Unique indexes on a partitioned table must contain url_hash, so short
+ * codes are unique together with it; the block generator keeps them globally unique. Nothing is
+ * done with a single partition.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class ShortLinkPartitioning {
+
+  private static final Logger log = LoggerFactory.getLogger(ShortLinkPartitioning.class);
+
+  // 多个节点同时首次启动时只让一个去建表
+  private static final long ADVISORY_LOCK_KEY = 0x73686f72746c6e6bL;
+
+  private static final String CREATE_TABLE =
+      "create table short_links ("
+          + "id bigserial,"
+          + " original_url varchar(2048) not null,"
+          + " url_hash uuid not null,"
+          + " short_code varchar(255) not null,"
+          + " created_at timestamp(6),"
+          + " click_count bigint,"
+          + " redirect_status integer,"
+          + " cache_max_age integer,"
+          + " primary key (id, url_hash)"
+          + ") partition by range (url_hash)";
+
+  // 索引名与实体上的一致，ddl-auto=update 不会再去建
+  private static final String[] CREATE_INDEXES = {
+    "create unique index idx_short_links_url_hash on short_links (url_hash)",
+    "create unique index idx_short_links_short_code on short_links (short_code, url_hash)",
+    "create index idx_short_links_created_at on short_links (created_at)"
+  };
+
+  private final JdbcTemplate jdbcTemplate;
+  private final ShortLinkShards shards;
+  private final TransactionTemplate transaction;
+
+  public ShortLinkPartitioning(
+      JdbcTemplate jdbcTemplate,
+      ShortLinkShards shards,
+      PlatformTransactionManager transactionManager) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.shards = shards;
+    this.transaction = new TransactionTemplate(transactionManager);
+  }
+
+  @PostConstruct
+  void partition() {
+    if (!shards.partitioned()) {
+      return;
+    }
+    if (!isPostgres()) {
+      throw new IllegalStateException("app.short-links.partitions > 1 requires PostgreSQL");
+    }
+    transaction.executeWithoutResult(status -> partitionInTransaction());
+  }
+
+  private void partitionInTransaction() {
+    jdbcTemplate.execute("select pg_advisory_xact_lock(" + ADVISORY_LOCK_KEY + ")");
+    String kind =
+        jdbcTemplate.queryForObject(
+            "select c.relkind::text from pg_class c where c.oid = to_regclass('short_links')",
+            String.class);
+    if ("p".equals(kind)) {
+      Integer existing =
+          jdbcTemplate.queryForObject(
+              "select count(*) from pg_inherits where inhparent = 'short_links'::regclass",
+              Integer.class);
+      if (existing == null || existing != shards.count()) {
+        throw new IllegalStateException(
+            "short_links has "
+                + existing
+                + " partitions but app.short-links.partitions is "
+                + shards.count()
+                + "; short codes embed their shard, so the count cannot change in place");
+      }
+      return;
+    }
+    if (kind != null) {
+      Boolean hasRows =
+          jdbcTemplate.queryForObject("select exists (select 1 from short_links)", Boolean.class);
+      if (Boolean.TRUE.equals(hasRows)) {
+        throw new IllegalStateException(
+            "short_links already holds rows; migrate it into a partitioned table offline"
+                + " or keep app.short-links.partitions=1");
+      }
+      // ddl-auto 刚建的空表，换成分区表
+      jdbcTemplate.execute("drop table short_links");
+    }
+    jdbcTemplate.execute(CREATE_TABLE);
+    for (String index : CREATE_INDEXES) {
+      jdbcTemplate.execute(index);
+    }
+    int last = shards.count() - 1;
+    for (int shard = 0; shard <= last; shard++) {
+      String from = shard == 0 ? "minvalue" : "'" + shards.lowerBound(shard) + "'";
+      String to = shard == last ? "maxvalue" : "'" + shards.lowerBound(shard + 1) + "'";
+      jdbcTemplate.execute(
+          "create table short_links_p"
+              + shard
+              + " partition of short_links for values from ("
+              + from
+              + ") to ("
+              + to
+              + ")");
+    }
+    log.info("Created short_links with {} url_hash range partitions", shards.count());
+  }
+
+  private boolean isPostgres() {
+    String product =
+        jdbcTemplate.execute(
+            (ConnectionCallback<String>)
+                connection -> connection.getMetaData().getDatabaseProductName());
+    return product != null && product.toLowerCase(Locale.ROOT).contains("postgresql");
+  }
+}
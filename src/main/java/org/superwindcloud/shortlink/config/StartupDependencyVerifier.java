@@ -8,6 +8,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
 import org.springframework.dao.DataAccessException;
 import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.StringRedisTemplate;
@@ -19,6 +21,7 @@ import org.springframework.stereotype.Component;
     name = "verify-dependencies",
     havingValue = "true",
     matchIfMissing = true)
+@Order(Ordered.HIGHEST_PRECEDENCE)
 public class StartupDependencyVerifier implements CommandLineRunner {
 
   private static final Logger log = LoggerFactory.getLogger(StartupDependencyVerifier.class);
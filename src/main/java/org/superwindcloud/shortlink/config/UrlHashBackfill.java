@@ -0,0 +1,136 @@
+package org.superwindcloud.shortlink.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+import org.superwindcloud.shortlink.repository.ShortLinkJdbcRepository;
+import org.superwindcloud.shortlink.util.ThreadFactories;
+
+/**
+ * Fills {@code short_links.url_hash} for rows written before the column existed.
+ *
+ * <p>Runs in the background in id order, {@code app.url-hash.backfill.batch-size} rows per
+ * statement with a pause in between, so a large table is migrated without a long lock or a load
+ * spike. Until it finishes, URL lookups also check unhashed rows by original_url. A pass only ends
+ * the fallback once the database holds no unhashed row; while older nodes are still writing them,
+ * it waits {@code app.url-hash.backfill.recheck-ms} and starts another pass. With {@code
+ * app.url-hash.drop-legacy-index=true} it then drops the old unique index on original_url
+ * (PostgreSQL only); enable that only once every node runs a version that writes url_hash.
+ */
+@Component
+public final class UrlHashBackfill implements ApplicationRunner {
+
+  private static final Logger log = LoggerFactory.getLogger(UrlHashBackfill.class);
+
+  private final ShortLinkJdbcRepository shortLinkJdbcRepository;
+  private final int batchSize;
+  private final long pauseMillis;
+  private final long recheckMillis;
+  private final boolean dropLegacyIndex;
+  private final ExecutorService worker;
+  private final Counter backfilledRows;
+
+  public UrlHashBackfill(
+      ShortLinkJdbcRepository shortLinkJdbcRepository,
+      MeterRegistry meterRegistry,
+      @Value("${app.url-hash.backfill.batch-size:1000}") int batchSize,
+      @Value("${app.url-hash.backfill.pause-ms:20}") long pauseMillis,
+      @Value("${app.url-hash.backfill.recheck-ms:60000}") long recheckMillis,
+      @Value("${app.url-hash.drop-legacy-index:false}") boolean dropLegacyIndex,
+      @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+    if (batchSize < 1) {
+      throw new IllegalArgumentException("app.url-hash.backfill.batch-size must be positive");
+    }
+    this.shortLinkJdbcRepository = shortLinkJdbcRepository;
+    this.batchSize = batchSize;
+    this.pauseMillis = pauseMillis;
+    this.recheckMillis = recheckMillis;
+    this.dropLegacyIndex = dropLegacyIndex;
+    this.worker =
+        Executors.newSingleThreadExecutor(
+            ThreadFactories.background("url-hash-backfill", virtualThreads));
+    this.backfilledRows =
+        Counter.builder("shortlink.urlhash.backfilled")
+            .description("Rows whose url_hash was filled in by the startup backfill")
+            .register(meterRegistry);
+  }
+
+  @Override
+  public void run(ApplicationArguments args) {
+    worker.execute(this::backfillQuietly);
+  }
+
+  @PreDestroy
+  void shutdown() {
+    worker.shutdownNow();
+  }
+
+  /**
+   * 分批补齐 url_hash，数据库里确认没有未补的行后关闭按 original_url 的回退查找
+   *
+   * @return 补齐的行数
+   */
+  long backfill() throws InterruptedException {
+    long start = System.nanoTime();
+    long rows = backfillPass();
+    while (!shortLinkJdbcRepository.markUrlHashesBackfilled()) {
+      // 滚动发布期间旧版本节点还在插入不带 url_hash 的行，id 可能落在已补过的位置之前，等一会儿从头再补
+      log.info("Rows without url_hash are still being written, rechecking in {} ms", recheckMillis);
+      TimeUnit.MILLISECONDS.sleep(recheckMillis);
+      rows += backfillPass();
+    }
+    if (rows > 0) {
+      log.info(
+          "Backfilled url_hash for {} links in {} ms",
+          rows,
+          (System.nanoTime() - start) / 1_000_000);
+    }
+    if (dropLegacyIndex) {
+      int dropped = shortLinkJdbcRepository.dropOriginalUrlUniqueIndexes();
+      if (dropped > 0) {
+        log.info("Dropped {} legacy unique index(es) on short_links.original_url", dropped);
+      }
+    }
+    return rows;
+  }
+
+  /** 从头按主键顺序补一遍 */
+  private long backfillPass() throws InterruptedException {
+    long rows = 0;
+    long afterId = 0;
+    while (true) {
+      ShortLinkJdbcRepository.UrlHashBatch batch =
+          shortLinkJdbcRepository.backfillUrlHashes(afterId, batchSize);
+      if (batch.rows() == 0) {
+        return rows;
+      }
+      rows += batch.rows();
+      backfilledRows.increment(batch.rows());
+      afterId = batch.lastId();
+      if (pauseMillis > 0) {
+        TimeUnit.MILLISECONDS.sleep(pauseMillis);
+      }
+    }
+  }
+
+  private void backfillQuietly() {
+    try {
+      backfill();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (DataAccessException e) {
+      // 回退查找保持开启，下次启动从头继续
+      log.warn("url_hash backfill failed, URL lookups keep checking unhashed rows", e);
+    }
+  }
+}
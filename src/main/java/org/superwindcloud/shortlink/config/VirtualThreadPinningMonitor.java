@@ -0,0 +1,86 @@
+package org.superwindcloud.shortlink.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Watches for virtual threads that block while pinned to their carrier.
+ *
+ * <p>On Java 21 a virtual thread that blocks inside {@code synchronized} or a native frame holds
+ * its carrier thread, and enough of them stall every request. This streams the JFR {@code
+ * jdk.VirtualThreadPinned} event in-process, records each pin in {@code shortlink.threads.pinned}
+ * and logs the first application frame once per call site.
+ */
+@Component
+@ConditionalOnProperty(prefix = "spring.threads.virtual", name = "enabled", havingValue = "true")
+public class VirtualThreadPinningMonitor {
+
+  private static final Logger log = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+  private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+  private final Timer pinned;
+  private final Duration threshold;
+  private final Set<String> reportedSites = ConcurrentHashMap.newKeySet();
+  private RecordingStream stream;
+
+  public VirtualThreadPinningMonitor(
+      MeterRegistry meterRegistry,
+      @Value("${app.threads.pinned-threshold-ms:20}") long thresholdMillis) {
+    this.threshold = Duration.ofMillis(thresholdMillis);
+    this.pinned =
+        Timer.builder("shortlink.threads.pinned")
+            .description("Time virtual threads spent blocked while pinned to a carrier thread")
+            .register(meterRegistry);
+  }
+
+  @PostConstruct
+  void start() {
+    stream = new RecordingStream();
+    stream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+    stream.onEvent(PINNED_EVENT, this::onPinned);
+    stream.startAsync();
+  }
+
+  @PreDestroy
+  void stop() {
+    if (stream != null) {
+      stream.close();
+    }
+  }
+
+  private void onPinned(RecordedEvent event) {
+    pinned.record(event.getDuration());
+    String site = callSite(event.getStackTrace());
+    if (reportedSites.add(site)) {
+      log.warn("Virtual thread pinned for {} ms at {}", event.getDuration().toMillis(), site);
+    }
+  }
+
+  /** 取第一个非 JDK 的栈帧，定位是哪段代码在 synchronized 或本地方法里阻塞 */
+  private static String callSite(RecordedStackTrace stackTrace) {
+    if (stackTrace == null) {
+      return "unknown";
+    }
+    for (RecordedFrame frame : stackTrace.getFrames()) {
+      String type = frame.getMethod().getType().getName();
+      if (!type.startsWith("java.") && !type.startsWith("jdk.") && !type.startsWith("sun.")) {
+        return type + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+      }
+    }
+    return "unknown";
+  }
+}
@@ -1,15 +1,92 @@
 package org.superwindcloud.shortlink.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Set;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
 import org.springframework.web.servlet.config.annotation.ViewControllerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.superwindcloud.shortlink.controller.RedirectFastPathFilter;
+import org.superwindcloud.shortlink.controller.RedirectPolicy;
+import org.superwindcloud.shortlink.service.ShortLinkService;
+import org.superwindcloud.shortlink.util.RateLimiter;
 
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
 
+  // 限流在前，重定向快速通道在后，都排在 Spring Boot 自带的过滤器之后
+  private static final int RATE_LIMIT_ORDER = Ordered.LOWEST_PRECEDENCE - 20;
+  private static final int REDIRECT_FAST_PATH_ORDER = Ordered.LOWEST_PRECEDENCE - 10;
+
   @Override
   public void addViewControllers(ViewControllerRegistry registry) {
     // This allows access to the root path and frontend
     registry.addViewController("/").setViewName("forward:/index.html");
   }
+
+  /** Rate limits link creation, including the batch endpoint */
+  @Bean
+  @ConditionalOnProperty(
+      prefix = "app.rate-limit",
+      name = "enabled",
+      havingValue = "true",
+      matchIfMissing = true)
+  public FilterRegistrationBean<RateLimitingFilter> shortenRateLimitingFilter(
+      RateLimiter rateLimiter,
+      MeterRegistry meterRegistry,
+      @Value("${app.rate-limit.shorten.per-ip:20}") int perIp,
+      @Value("${app.rate-limit.shorten.per-api-key:200}") int perApiKey,
+      @Value("${app.rate-limit.api-keys:}") Set<String> apiKeys,
+      @Value("${app.rate-limit.window-seconds:1}") int windowSeconds) {
+    FilterRegistrationBean<RateLimitingFilter> registration =
+        new FilterRegistrationBean<>(
+            new RateLimitingFilter(
+                rateLimiter, meterRegistry, "shorten", apiKeys, perIp, perApiKey, windowSeconds));
+    registration.addUrlPatterns("/api/shorten", "/api/shorten/batch");
+    registration.setOrder(RATE_LIMIT_ORDER);
+    return registration;
+  }
+
+  /** Rate limits redirects */
+  @Bean
+  @ConditionalOnProperty(
+      prefix = "app.rate-limit",
+      name = "enabled",
+      havingValue = "true",
+      matchIfMissing = true)
+  public FilterRegistrationBean<RateLimitingFilter> redirectRateLimitingFilter(
+      RateLimiter rateLimiter,
+      MeterRegistry meterRegistry,
+      @Value("${app.rate-limit.redirect.per-ip:200}") int perIp,
+      @Value("${app.rate-limit.redirect.per-api-key:2000}") int perApiKey,
+      @Value("${app.rate-limit.api-keys:}") Set<String> apiKeys,
+      @Value("${app.rate-limit.window-seconds:1}") int windowSeconds) {
+    FilterRegistrationBean<RateLimitingFilter> registration =
+        new FilterRegistrationBean<>(
+            new RateLimitingFilter(
+                rateLimiter, meterRegistry, "redirect", apiKeys, perIp, perApiKey, windowSeconds));
+    registration.addUrlPatterns("/r/*");
+    registration.setOrder(RATE_LIMIT_ORDER);
+    return registration;
+  }
+
+  /** Serves redirects without the DispatcherServlet; the controller handles whatever it skips */
+  @Bean
+  @ConditionalOnProperty(
+      prefix = "app.redirect",
+      name = "fast-path",
+      havingValue = "true",
+      matchIfMissing = true)
+  public FilterRegistrationBean<RedirectFastPathFilter> redirectFastPathFilter(
+      ShortLinkService shortLinkService, RedirectPolicy redirectPolicy) {
+    FilterRegistrationBean<RedirectFastPathFilter> registration =
+        new FilterRegistrationBean<>(new RedirectFastPathFilter(shortLinkService, redirectPolicy));
+    registration.addUrlPatterns("/r/*");
+    registration.setOrder(REDIRECT_FAST_PATH_ORDER);
+    return registration;
+  }
 }
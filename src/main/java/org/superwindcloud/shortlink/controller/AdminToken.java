@@ -0,0 +1,36 @@
+package org.superwindcloud.shortlink.controller;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Shared secret for the management endpoints, sent in the {@code X-Admin-Token} header.
+ *
+ * <p>While {@code app.admin-token} is empty every request is refused, so a fresh deployment does
+ * not expose them by accident.
+ */
+@Component
+public class AdminToken {
+
+  public static final String HEADER = "X-Admin-Token";
+
+  private final byte[] token;
+
+  public AdminToken(@Value("${app.admin-token:}") String token) {
+    this.token = token.getBytes(StandardCharsets.UTF_8);
+  }
+
+  /**
+   * 常量时间比较，避免按响应时间逐字节猜出 token
+   *
+   * @param provided 请求头里的值，可以为 null
+   * @return 配置了 token 且与之相同时返回 true
+   */
+  public boolean matches(String provided) {
+    return token.length > 0
+        && provided != null
+        && MessageDigest.isEqual(token, provided.getBytes(StandardCharsets.UTF_8));
+  }
+}
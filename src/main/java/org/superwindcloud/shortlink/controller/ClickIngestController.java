@@ -0,0 +1,77 @@
+package org.superwindcloud.shortlink.controller;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Map;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+import org.superwindcloud.shortlink.service.ShortLinkService;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+
+/**
+ * Takes click counts for redirects that a CDN answered from its cache.
+ *
+ * <p>Once a link has a max-age, repeat clicks stop reaching us. A log shipper aggregates the CDN's
+ * cache-hit log lines per short code and posts them here as NDJSON, one {@code {"shortCode":
+ * "abc123", "hits": 42}} per line. Only edge hits belong here: misses reached the origin and were
+ * counted already. The endpoint is off until {@code app.clicks.ingest-token} is set.
+ */
+@RestController
+public class ClickIngestController {
+
+  static final String TOKEN_HEADER = "X-Ingest-Token";
+
+  private final ShortLinkService shortLinkService;
+  private final ObjectMapper objectMapper;
+  private final byte[] token;
+
+  public ClickIngestController(
+      ShortLinkService shortLinkService,
+      ObjectMapper objectMapper,
+      @Value("${app.clicks.ingest-token:}") String token) {
+    this.shortLinkService = shortLinkService;
+    this.objectMapper = objectMapper;
+    this.token = token.getBytes(StandardCharsets.UTF_8);
+  }
+
+  /** Adds edge cache hits to the click counts */
+  @PostMapping(value = "/api/clicks/edge", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+  public ResponseEntity<Map<String, Object>> ingestEdgeHits(
+      @RequestHeader(value = TOKEN_HEADER, required = false) String providedToken,
+      @RequestBody String body) {
+    if (token.length == 0
+        || providedToken == null
+        || !MessageDigest.isEqual(token, providedToken.getBytes(StandardCharsets.UTF_8))) {
+      return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "Forbidden"));
+    }
+    long accepted = 0;
+    long rejected = 0;
+    for (String line : body.lines().filter(line -> !line.isBlank()).toList()) {
+      if (ingestLine(line)) {
+        accepted++;
+      } else {
+        rejected++;
+      }
+    }
+    return ResponseEntity.ok(Map.of("accepted", accepted, "rejected", rejected));
+  }
+
+  private boolean ingestLine(String line) {
+    try {
+      JsonNode node = objectMapper.readTree(line);
+      String shortCode = node.path("shortCode").asString("");
+      long hits = node.path("hits").asLong(0);
+      return shortLinkService.recordEdgeHits(shortCode, hits);
+    } catch (JacksonException e) {
+      return false;
+    }
+  }
+}
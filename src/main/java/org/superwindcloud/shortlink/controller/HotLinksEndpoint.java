@@ -0,0 +1,74 @@
+package org.superwindcloud.shortlink.controller;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.jspecify.annotations.Nullable;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.superwindcloud.shortlink.entity.ShortLink;
+import org.superwindcloud.shortlink.repository.ShortLinkRepository;
+import org.superwindcloud.shortlink.service.analytics.HotLinkTracker;
+
+/**
+ * {@code GET /actuator/hotlinks?limit=}: the most redirected links in the sliding window. Only
+ * exists while click analytics is on, since the analytics drainer is what feeds the ranking.
+ */
+@Component
+@Endpoint(id = "hotlinks")
+@ConditionalOnProperty(
+    prefix = "app.analytics",
+    name = "enabled",
+    havingValue = "true",
+    matchIfMissing = true)
+public class HotLinksEndpoint {
+
+  private static final int DEFAULT_LIMIT = 20;
+
+  private final HotLinkTracker hotLinkTracker;
+  private final ShortLinkRepository shortLinkRepository;
+
+  public HotLinksEndpoint(HotLinkTracker hotLinkTracker, ShortLinkRepository shortLinkRepository) {
+    this.hotLinkTracker = hotLinkTracker;
+    this.shortLinkRepository = shortLinkRepository;
+  }
+
+  /** Hot links, highest estimated clicks first */
+  @ReadOperation
+  public HotLinks hotLinks(@Nullable Integer limit) {
+    List<HotLinkTracker.HotLink> top = hotLinkTracker.top(limit == null ? DEFAULT_LIMIT : limit);
+    // 只按 id 查一次排行榜里的链接，拿到短码
+    Map<Long, String> shortCodes = new HashMap<>();
+    for (ShortLink shortLink :
+        shortLinkRepository.findAllById(
+            top.stream().map(HotLinkTracker.HotLink::linkId).toList())) {
+      shortCodes.put(shortLink.getId(), shortLink.getShortCode());
+    }
+    List<HotLink> links = new ArrayList<>(top.size());
+    for (HotLinkTracker.HotLink hotLink : top) {
+      String shortCode = shortCodes.get(hotLink.linkId());
+      if (shortCode != null) {
+        links.add(new HotLink(shortCode, hotLink.linkId(), hotLink.clicks()));
+      }
+    }
+    return new HotLinks(hotLinkTracker.window().toSeconds(), links);
+  }
+
+  /** Response body */
+  public record HotLinks(long windowSeconds, List<HotLink> links) {
+
+    public HotLinks {
+      links = List.copyOf(links);
+    }
+  }
+
+  /**
+   * One hot link
+   *
+   * @param clicks 窗口内的估计点击数，只会偏大
+   */
+  public record HotLink(String shortCode, long linkId, long clicks) {}
+}
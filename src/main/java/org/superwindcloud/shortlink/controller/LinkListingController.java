@@ -0,0 +1,198 @@
+package org.superwindcloud.shortlink.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.superwindcloud.shortlink.controller.dto.LinkListResponse;
+import org.superwindcloud.shortlink.repository.LinkCursor;
+import org.superwindcloud.shortlink.service.LinkListingService;
+import tools.jackson.databind.ObjectMapper;
+
+/**
+ * Lists links newest first for dashboards, one keyset page at a time or as a full NDJSON export.
+ *
+ * <p>{@code after} is the {@code nextCursor} of the previous page, {@code q} keeps only links whose
+ * original URL contains it. Deep pages cost the same as the first one.
+ *
+ * <p>Both expose every original URL and {@code q} may scan most of the table, so they need the
+ * admin token, and only {@code app.links.export.max-concurrent} exports run at once per node. An
+ * export gets {@code app.links.export.timeout-ms} instead of the default async request timeout, and
+ * its slot is given back however the async request ends: finished, timed out, failed or dropped by
+ * the client.
+ */
+@RestController
+public class LinkListingController {
+
+  static final int DEFAULT_LIMIT = 50;
+  static final int MAX_LIMIT = 1_000;
+  private static final int MAX_QUERY_LENGTH = 2048;
+  private static final String EXPORT_RETRY_AFTER_SECONDS = "30";
+
+  private final LinkListingService linkListingService;
+  private final ObjectMapper objectMapper;
+  private final AdminToken adminToken;
+  private final Semaphore exports;
+  private final long exportTimeoutMillis;
+
+  public LinkListingController(
+      LinkListingService linkListingService,
+      ObjectMapper objectMapper,
+      AdminToken adminToken,
+      @Value("${app.links.export.max-concurrent:1}") int maxConcurrentExports,
+      @Value("${app.links.export.timeout-ms:600000}") long exportTimeoutMillis) {
+    this.linkListingService = linkListingService;
+    this.objectMapper = objectMapper;
+    this.adminToken = adminToken;
+    this.exports = new Semaphore(maxConcurrentExports);
+    this.exportTimeoutMillis = exportTimeoutMillis;
+  }
+
+  /** One page of links */
+  @GetMapping("/api/links")
+  public ResponseEntity<?> listLinks(
+      @RequestHeader(value = AdminToken.HEADER, required = false) String providedToken,
+      @RequestParam(required = false) String after,
+      @RequestParam(defaultValue = "" + DEFAULT_LIMIT) int limit,
+      @RequestParam(required = false) String q) {
+    if (!adminToken.matches(providedToken)) {
+      return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "Forbidden"));
+    }
+    if (limit < 1 || limit > MAX_LIMIT) {
+      return badRequest("limit must be between 1 and " + MAX_LIMIT);
+    }
+    LinkCursor cursor = null;
+    if (after != null && !after.isEmpty()) {
+      cursor = LinkCursor.decode(after);
+      if (cursor == null) {
+        return badRequest("Invalid cursor");
+      }
+    }
+    if (q != null && q.length() > MAX_QUERY_LENGTH) {
+      return badRequest("q must be at most " + MAX_QUERY_LENGTH + " characters");
+    }
+    LinkListingService.LinkPage page = linkListingService.page(cursor, blankToNull(q), limit);
+    return ResponseEntity.ok(
+        new LinkListResponse(
+            page.links().stream().map(LinkListResponse.Item::of).toList(),
+            page.next() == null ? null : page.next().encode()));
+  }
+
+  /** Every link as one NDJSON line, streamed straight from a database cursor */
+  @GetMapping("/api/links/export")
+  public ResponseEntity<StreamingResponseBody> exportLinks(
+      @RequestHeader(value = AdminToken.HEADER, required = false) String providedToken,
+      @RequestParam(required = false) String q,
+      HttpServletRequest request) {
+    if (!adminToken.matches(providedToken)) {
+      return ResponseEntity.status(HttpStatus.FORBIDDEN)
+          .contentType(MediaType.APPLICATION_JSON)
+          .body(errorBody("Forbidden"));
+    }
+    if (q != null && q.length() > MAX_QUERY_LENGTH) {
+      return ResponseEntity.badRequest()
+          .contentType(MediaType.APPLICATION_JSON)
+          .body(errorBody("q must be at most " + MAX_QUERY_LENGTH + " characters"));
+    }
+    if (!exports.tryAcquire()) {
+      // 每个导出都是一次长时间的全表游标，同时只跑有限几个
+      return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+          .header(HttpHeaders.RETRY_AFTER, EXPORT_RETRY_AFTER_SECONDS)
+          .contentType(MediaType.APPLICATION_JSON)
+          .body(errorBody("Too many concurrent exports"));
+    }
+    ExportPermit permit = new ExportPermit();
+    // 超时、出错、客户端断开时 body 可能根本没跑完，名额由异步请求的回调归还
+    WebAsyncUtils.getAsyncManager(request)
+        .registerCallableInterceptor(ExportPermit.class.getName(), permit);
+    String urlContains = blankToNull(q);
+    StreamingResponseBody body =
+        out -> {
+          try {
+            linkListingService.export(
+                urlContains,
+                link -> {
+                  try {
+                    out.write(objectMapper.writeValueAsBytes(LinkListResponse.Item.of(link)));
+                    out.write('\n');
+                  } catch (IOException e) {
+                    // 客户端断开，抛出去结束数据库游标
+                    throw new UncheckedIOException(e);
+                  }
+                });
+          } catch (UncheckedIOException e) {
+            throw e.getCause();
+          } finally {
+            permit.release();
+          }
+        };
+    return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+  }
+
+  /** One export slot, released exactly once whichever way the async request ends */
+  private final class ExportPermit implements CallableProcessingInterceptor {
+
+    private final AtomicBoolean held = new AtomicBoolean(true);
+
+    void release() {
+      if (held.compareAndSet(true, false)) {
+        exports.release();
+      }
+    }
+
+    @Override
+    public <T> void beforeConcurrentHandling(NativeWebRequest request, Callable<T> task) {
+      // 在 startAsync 之前调用，这里设的超时只作用于这次导出
+      if (request instanceof AsyncWebRequest asyncRequest) {
+        asyncRequest.setTimeout(exportTimeoutMillis);
+      }
+    }
+
+    @Override
+    public <T> Object handleTimeout(NativeWebRequest request, Callable<T> task) {
+      release();
+      return RESULT_NONE;
+    }
+
+    @Override
+    public <T> Object handleError(NativeWebRequest request, Callable<T> task, Throwable t) {
+      release();
+      return RESULT_NONE;
+    }
+
+    @Override
+    public <T> void afterCompletion(NativeWebRequest request, Callable<T> task) {
+      release();
+    }
+  }
+
+  private static String blankToNull(String value) {
+    return value == null || value.isBlank() ? null : value;
+  }
+
+  private StreamingResponseBody errorBody(String message) {
+    byte[] error = objectMapper.writeValueAsBytes(Map.of("error", message));
+    return out -> out.write(error);
+  }
+
+  private static ResponseEntity<Map<String, String>> badRequest(String message) {
+    return ResponseEntity.badRequest().body(Map.of("error", message));
+  }
+}
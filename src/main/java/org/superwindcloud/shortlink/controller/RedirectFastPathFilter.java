@@ -0,0 +1,132 @@
+package org.superwindcloud.shortlink.controller;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.filter.ServerHttpObservationFilter;
+import org.superwindcloud.shortlink.service.RedirectEntry;
+import org.superwindcloud.shortlink.service.ShortLinkService;
+
+/**
+ * Answers {@code GET /r/{shortCode}} without going through Spring MVC.
+ *
+ * <p>The code is cut straight out of the request URI and resolved through {@link
+ * ShortLinkService#resolveRedirect}. Responses match {@link
+ * ShortLinkController#redirectToOriginalUrl} byte for byte: the {@link RedirectPolicy} status with
+ * a {@code Location} header and no body (or 304 on a matching {@code If-None-Match}), or 404 with
+ * the same JSON error, written from a pre-encoded array. Anything unusual (other methods,
+ * percent-encoded or nested paths) is left to the controller.
+ */
+public class RedirectFastPathFilter extends OncePerRequestFilter {
+
+  private static final Logger log = LoggerFactory.getLogger(RedirectFastPathFilter.class);
+
+  static final String PREFIX = "/r/";
+  private static final String PATH_PATTERN = "/r/{shortCode}";
+  private static final byte[] NOT_FOUND_BODY =
+      "{\"error\":\"Short link not found\"}".getBytes(StandardCharsets.UTF_8);
+  private static final byte[] INTERNAL_ERROR_BODY =
+      "{\"error\":\"Internal server error\"}".getBytes(StandardCharsets.UTF_8);
+
+  private final ShortLinkService shortLinkService;
+  private final RedirectPolicy redirectPolicy;
+
+  public RedirectFastPathFilter(ShortLinkService shortLinkService, RedirectPolicy redirectPolicy) {
+    this.shortLinkService = shortLinkService;
+    this.redirectPolicy = redirectPolicy;
+  }
+
+  @Override
+  protected void doFilterInternal(
+      HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+      throws ServletException, IOException {
+    String shortCode = shortCode(request);
+    if (shortCode == null) {
+      filterChain.doFilter(request, response);
+      return;
+    }
+    // 没有经过 DispatcherServlet，手动补上路由模板，http.server.requests 的 uri 标签保持不变
+    ServerHttpObservationFilter.findObservationContext(request)
+        .ifPresent(context -> context.setPathPattern(PATH_PATTERN));
+
+    Optional<RedirectEntry> redirect;
+    try {
+      redirect =
+          shortLinkService.resolveRedirect(
+              shortCode,
+              request.getHeader(HttpHeaders.REFERER),
+              request.getHeader(HttpHeaders.USER_AGENT));
+    } catch (RuntimeException e) {
+      // 与 GlobalExceptionHandler 的兜底响应一致
+      log.error("Redirect failed for {}", shortCode, e);
+      writeJson(response, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, INTERNAL_ERROR_BODY);
+      return;
+    }
+    if (redirect.isPresent()) {
+      writeRedirect(request, response, redirect.get());
+      return;
+    }
+    writeJson(response, HttpServletResponse.SC_NOT_FOUND, NOT_FOUND_BODY);
+  }
+
+  /**
+   * 从 URI 里直接截出短码
+   *
+   * @return 短码，不是简单的 {@code GET /r/<code>} 时返回 null，交给控制器处理
+   */
+  static String shortCode(HttpServletRequest request) {
+    if (!"GET".equals(request.getMethod())) {
+      return null;
+    }
+    String uri = request.getRequestURI();
+    int start = request.getContextPath().length() + PREFIX.length();
+    if (uri.length() <= start || !uri.startsWith(PREFIX, start - PREFIX.length())) {
+      return null;
+    }
+    for (int i = start; i < uri.length(); i++) {
+      char c = uri.charAt(i);
+      // 编码字符、多级路径、矩阵参数都走控制器，保证与 @PathVariable 的解析结果一致
+      if (c == '/' || c == '%' || c == ';') {
+        return null;
+      }
+    }
+    return uri.substring(start);
+  }
+
+  private void writeRedirect(
+      HttpServletRequest request, HttpServletResponse response, RedirectEntry entry) {
+    String cacheControl = redirectPolicy.cacheControl(entry);
+    if (cacheControl == null) {
+      response.setStatus(redirectPolicy.status(entry));
+      response.setHeader(HttpHeaders.LOCATION, entry.originalUrl());
+      return;
+    }
+    String etag = redirectPolicy.etag(entry);
+    if (RedirectPolicy.notModified(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+      response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+    } else {
+      response.setStatus(redirectPolicy.status(entry));
+      response.setHeader(HttpHeaders.LOCATION, entry.originalUrl());
+    }
+    response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+    response.setHeader(HttpHeaders.ETAG, etag);
+  }
+
+  private static void writeJson(HttpServletResponse response, int status, byte[] body)
+      throws IOException {
+    response.setStatus(status);
+    response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+    // Jackson 写完会 flush，响应走 chunked 编码；这里同样先 flush，不设 Content-Length
+    response.getOutputStream().write(body);
+    response.flushBuffer();
+  }
+}
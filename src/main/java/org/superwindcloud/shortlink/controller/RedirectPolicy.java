@@ -0,0 +1,104 @@
+package org.superwindcloud.shortlink.controller;
+
+import java.util.Set;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.superwindcloud.shortlink.service.RedirectEntry;
+import org.superwindcloud.shortlink.util.Hashes;
+
+/**
+ * Decides the status and HTTP caching headers of a redirect.
+ *
+ * <p>Each link may carry its own status and max-age; otherwise {@code app.redirect.status} and
+ * {@code app.redirect.cache-max-age} apply. A positive max-age emits {@code Cache-Control: public,
+ * max-age=N} so browsers and the CDN can answer repeat clicks. A permanent redirect without a
+ * max-age gets {@code no-cache}, otherwise clients would keep it forever and never come back. The
+ * legacy default, a 302 with no max-age, emits neither header.
+ */
+@Component
+public final class RedirectPolicy {
+
+  /** Redirect statuses a link may use */
+  public static final Set<Integer> STATUSES = Set.of(301, 302, 307, 308);
+
+  /** Upper bound on max-age, one year */
+  public static final int MAX_CACHE_MAX_AGE = 31_536_000;
+
+  private static final long ETAG_SEED = 0x1B873593L;
+
+  private final int defaultStatus;
+  private final int defaultMaxAge;
+
+  public RedirectPolicy(
+      @Value("${app.redirect.status:302}") int defaultStatus,
+      @Value("${app.redirect.cache-max-age:0}") int defaultMaxAge) {
+    if (!STATUSES.contains(defaultStatus)) {
+      throw new IllegalArgumentException("app.redirect.status must be one of " + STATUSES);
+    }
+    if (defaultMaxAge < 0 || defaultMaxAge > MAX_CACHE_MAX_AGE) {
+      throw new IllegalArgumentException(
+          "app.redirect.cache-max-age must be between 0 and " + MAX_CACHE_MAX_AGE);
+    }
+    this.defaultStatus = defaultStatus;
+    this.defaultMaxAge = defaultMaxAge;
+  }
+
+  /** Effective redirect status of the entry */
+  public int status(RedirectEntry entry) {
+    return entry.redirectStatus() == RedirectEntry.DEFAULT ? defaultStatus : entry.redirectStatus();
+  }
+
+  /** Effective max-age of the entry in seconds */
+  public int maxAge(RedirectEntry entry) {
+    return entry.cacheMaxAge() == RedirectEntry.DEFAULT ? defaultMaxAge : entry.cacheMaxAge();
+  }
+
+  /**
+   * Cache-Control 响应头
+   *
+   * @return 头的值，不需要时返回 null，响应与旧版本一致
+   */
+  public String cacheControl(RedirectEntry entry) {
+    int maxAge = maxAge(entry);
+    if (maxAge > 0) {
+      return "public, max-age=" + maxAge;
+    }
+    int status = status(entry);
+    return status == 301 || status == 308 ? "no-cache" : null;
+  }
+
+  /**
+   * 强 ETag，由状态码和目标 URL 决定，只在输出 Cache-Control 时使用
+   *
+   * @return 带引号的 ETag
+   */
+  public String etag(RedirectEntry entry) {
+    return "\""
+        + Long.toHexString(Hashes.hash64(entry.originalUrl(), ETAG_SEED ^ status(entry)))
+        + "\"";
+  }
+
+  /**
+   * 判断 If-None-Match 是否命中
+   *
+   * @param ifNoneMatch 请求头，可以为 null 或逗号分隔的多个 ETag
+   * @param etag 当前 ETag
+   * @return 命中时应返回 304
+   */
+  public static boolean notModified(String ifNoneMatch, String etag) {
+    if (ifNoneMatch == null) {
+      return false;
+    }
+    for (String candidate : ifNoneMatch.split(",")) {
+      String tag = candidate.trim();
+      // If-None-Match 用弱比较
+      if (tag.startsWith("W/")) {
+        tag = tag.substring(2);
+      }
+      if (tag.equals("*") || tag.equals(etag)) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -1,29 +1,62 @@
 package org.superwindcloud.shortlink.controller;
 
 import jakarta.validation.Valid;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.superwindcloud.shortlink.controller.dto.CreateShortLinkRequest;
+import org.superwindcloud.shortlink.controller.dto.CreateShortLinksRequest;
+import org.superwindcloud.shortlink.controller.dto.RedirectPolicyRequest;
 import org.superwindcloud.shortlink.entity.ShortLink;
+import org.superwindcloud.shortlink.service.RedirectEntry;
 import org.superwindcloud.shortlink.service.ShortLinkService;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.ObjectMapper;
 
 @RestController
 public class ShortLinkController {
 
   private final ShortLinkService shortLinkService;
+  private final ObjectMapper objectMapper;
+  private final RedirectPolicy redirectPolicy;
+  private final AdminToken adminToken;
   private static final int MAX_URL_LENGTH = 2048;
+  private static final int MAX_BATCH_SIZE = 10_000;
+  private static final int BATCH_CHUNK_SIZE = 500;
+  // 一行是 {"url": ...}，URL 最长 2048 个字符，留出转义和空白的余量
+  private static final int MAX_NDJSON_LINE_BYTES = 8 * 1024;
+  private static final long MAX_NDJSON_BYTES = 8L * 1024 * 1024;
 
-  public ShortLinkController(ShortLinkService shortLinkService) {
+  public ShortLinkController(
+      ShortLinkService shortLinkService,
+      ObjectMapper objectMapper,
+      RedirectPolicy redirectPolicy,
+      AdminToken adminToken) {
     this.shortLinkService = shortLinkService;
+    this.objectMapper = objectMapper;
+    this.redirectPolicy = redirectPolicy;
+    this.adminToken = adminToken;
   }
 
   /** Creates a short link from the original URL */
@@ -48,20 +81,132 @@ public class ShortLinkController {
             shortLink.getOriginalUrl()));
   }
 
+  /** Creates short links for a JSON list of URLs, streaming back one NDJSON line per URL */
+  @PostMapping(value = "/api/shorten/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<StreamingResponseBody> createShortLinks(
+      @Valid @RequestBody CreateShortLinksRequest request) {
+    return streamBatch(request.urls());
+  }
+
+  /**
+   * Same as the JSON variant, but reads one {"url": ...} object per line. The body is read line by
+   * line up to {@code MAX_NDJSON_BYTES}; a line that is not such an object fails the whole batch.
+   */
+  @PostMapping(value = "/api/shorten/batch", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+  public ResponseEntity<?> createShortLinksFromNdjson(InputStream body) throws IOException {
+    List<String> urls = new ArrayList<>();
+    InputStream in = new BufferedInputStream(body);
+    ByteArrayOutputStream line = new ByteArrayOutputStream();
+    long bytes = 0;
+    int lineNumber = 1;
+    for (int b = in.read(); ; b = in.read()) {
+      if (b != -1 && b != '\n') {
+        if (++bytes > MAX_NDJSON_BYTES) {
+          return ResponseEntity.status(HttpStatus.CONTENT_TOO_LARGE)
+              .body(Map.of("error", "Batch must not exceed " + MAX_NDJSON_BYTES + " bytes"));
+        }
+        if (line.size() == MAX_NDJSON_LINE_BYTES) {
+          return badLine(lineNumber, "exceeds " + MAX_NDJSON_LINE_BYTES + " bytes");
+        }
+        line.write(b);
+        continue;
+      }
+      String text = line.toString(StandardCharsets.UTF_8);
+      if (!text.isBlank()) {
+        CreateShortLinkRequest request = readLine(text);
+        if (request == null) {
+          return badLine(lineNumber, "is not a {\"url\": ...} object");
+        }
+        if (urls.size() == MAX_BATCH_SIZE) {
+          return batchSizeError();
+        }
+        urls.add(request.url());
+      }
+      if (b == -1) {
+        break;
+      }
+      line.reset();
+      lineNumber++;
+    }
+    if (urls.isEmpty()) {
+      return batchSizeError();
+    }
+    return streamBatch(urls);
+  }
+
   /** Redirects to the original URL based on the short code */
   @GetMapping("/r/{shortCode}")
-  public ResponseEntity<?> redirectToOriginalUrl(@PathVariable String shortCode) {
-    Optional<ShortLink> shortLink = shortLinkService.findAndIncrementClickCount(shortCode);
+  public ResponseEntity<?> redirectToOriginalUrl(
+      @PathVariable String shortCode,
+      @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+      @RequestHeader(value = HttpHeaders.REFERER, required = false) String referrer,
+      @RequestHeader(value = HttpHeaders.USER_AGENT, required = false) String userAgent) {
+    Optional<RedirectEntry> redirect =
+        shortLinkService.resolveRedirect(shortCode, referrer, userAgent);
 
-    if (shortLink.isPresent()) {
-      return ResponseEntity.status(HttpStatus.FOUND)
-          .header("Location", shortLink.get().getOriginalUrl())
+    if (redirect.isPresent()) {
+      RedirectEntry entry = redirect.get();
+      String cacheControl = redirectPolicy.cacheControl(entry);
+      if (cacheControl == null) {
+        return ResponseEntity.status(redirectPolicy.status(entry))
+            .header("Location", entry.originalUrl())
+            .build();
+      }
+      String etag = redirectPolicy.etag(entry);
+      if (RedirectPolicy.notModified(ifNoneMatch, etag)) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+            .header(HttpHeaders.CACHE_CONTROL, cacheControl)
+            .header(HttpHeaders.ETAG, etag)
+            .build();
+      }
+      return ResponseEntity.status(redirectPolicy.status(entry))
+          .header("Location", entry.originalUrl())
+          .header(HttpHeaders.CACHE_CONTROL, cacheControl)
+          .header(HttpHeaders.ETAG, etag)
           .build();
     }
     return ResponseEntity.status(HttpStatus.NOT_FOUND)
         .body(Map.of("error", "Short link not found"));
   }
 
+  /**
+   * Sets a link's own redirect status and max-age; null fields fall back to the global policy.
+   * Needs the admin token: a long max-age ends up in CDN and browser caches and cannot be undone.
+   */
+  @PutMapping("/api/links/{shortCode}/redirect-policy")
+  public ResponseEntity<?> updateRedirectPolicy(
+      @PathVariable String shortCode,
+      @RequestHeader(value = AdminToken.HEADER, required = false) String providedToken,
+      @Valid @RequestBody RedirectPolicyRequest request) {
+    if (!adminToken.matches(providedToken)) {
+      return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "Forbidden"));
+    }
+    if (request.status() != null && !RedirectPolicy.STATUSES.contains(request.status())) {
+      return ResponseEntity.badRequest()
+          .body(Map.of("error", "Redirect status must be one of 301, 302, 307 or 308"));
+    }
+    Optional<ShortLink> updated =
+        shortLinkService.updateRedirectPolicy(shortCode, request.status(), request.maxAge());
+    if (updated.isEmpty()) {
+      return ResponseEntity.status(HttpStatus.NOT_FOUND)
+          .body(Map.of("error", "Short link not found"));
+    }
+    RedirectEntry entry =
+        new RedirectEntry(
+            updated.get().getId(),
+            updated.get().getOriginalUrl(),
+            request.status() == null ? RedirectEntry.DEFAULT : request.status(),
+            request.maxAge() == null ? RedirectEntry.DEFAULT : request.maxAge());
+    return ResponseEntity.ok(
+        Map.of(
+            "shortCode",
+            updated.get().getShortCode(),
+            "redirectStatus",
+            redirectPolicy.status(entry),
+            "cacheMaxAge",
+            redirectPolicy.maxAge(entry)));
+  }
+
   /** Gets short link details by short code */
   @GetMapping("/api/info/{shortCode}")
   public ResponseEntity<?> getShortLinkInfo(@PathVariable String shortCode) {
@@ -83,7 +228,61 @@ public class ShortLinkController {
         .body(Map.of("error", "Short link not found"));
   }
 
-  private boolean isValidUrl(String url) {
+  private ResponseEntity<StreamingResponseBody> streamBatch(List<String> urls) {
+    StreamingResponseBody body =
+        out -> {
+          // 分块处理，每块一次查重 + 一次批量插入，写完一块就 flush 给客户端
+          for (int from = 0; from < urls.size(); from += BATCH_CHUNK_SIZE) {
+            List<String> chunk = urls.subList(from, Math.min(urls.size(), from + BATCH_CHUNK_SIZE));
+            List<String> trimmed = new ArrayList<>(chunk.size());
+            List<String> valid = new ArrayList<>(chunk.size());
+            for (String url : chunk) {
+              String candidate = url == null ? "" : url.trim();
+              trimmed.add(candidate);
+              if (isValidUrl(candidate)) {
+                valid.add(candidate);
+              }
+            }
+            Map<String, ShortLink> links = shortLinkService.createShortLinks(valid);
+            for (int i = 0; i < chunk.size(); i++) {
+              Map<String, String> line = new LinkedHashMap<>();
+              line.put("url", chunk.get(i));
+              ShortLink shortLink = links.get(trimmed.get(i));
+              if (shortLink == null) {
+                line.put("error", "Invalid URL format");
+              } else {
+                line.put("shortUrl", "/r/" + shortLink.getShortCode());
+                line.put("shortCode", shortLink.getShortCode());
+                line.put("originalUrl", shortLink.getOriginalUrl());
+              }
+              out.write(objectMapper.writeValueAsBytes(line));
+              out.write('\n');
+            }
+            out.flush();
+          }
+        };
+    return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+  }
+
+  /** Parses one NDJSON line; null when it is not a JSON object */
+  private CreateShortLinkRequest readLine(String ndjsonLine) {
+    try {
+      return objectMapper.readValue(ndjsonLine, CreateShortLinkRequest.class);
+    } catch (JacksonException e) {
+      return null;
+    }
+  }
+
+  private static ResponseEntity<Map<String, String>> badLine(int lineNumber, String problem) {
+    return ResponseEntity.badRequest().body(Map.of("error", "Line " + lineNumber + " " + problem));
+  }
+
+  private static ResponseEntity<Map<String, String>> batchSizeError() {
+    return ResponseEntity.badRequest()
+        .body(Map.of("error", "Batch must contain 1 to " + MAX_BATCH_SIZE + " URLs"));
+  }
+
+  static boolean isValidUrl(String url) {
     if (url == null || url.isBlank() || url.length() > MAX_URL_LENGTH) {
       return false;
     }
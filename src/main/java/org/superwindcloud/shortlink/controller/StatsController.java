@@ -0,0 +1,113 @@
+package org.superwindcloud.shortlink.controller;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.superwindcloud.shortlink.controller.dto.ClickStatsResponse;
+import org.superwindcloud.shortlink.repository.ClickRollupRow;
+import org.superwindcloud.shortlink.service.RedirectEntry;
+import org.superwindcloud.shortlink.service.ShortLinkService;
+import org.superwindcloud.shortlink.service.analytics.ClickAnalytics;
+import org.superwindcloud.shortlink.service.analytics.RollupGranularity;
+
+/**
+ * Reads the click rollups written by {@link ClickAnalytics}.
+ *
+ * <p>{@code from} and {@code to} are ISO-8601 instants, {@code to} defaults to now and {@code from}
+ * to one default window before it (an hour of minutes, a day of hours, thirty days). Clicks of the
+ * last flush interval are not visible yet.
+ */
+@RestController
+public class StatsController {
+
+  static final int MAX_BUCKETS = 10_000;
+
+  private final ShortLinkService shortLinkService;
+  private final ClickAnalytics clickAnalytics;
+
+  public StatsController(ShortLinkService shortLinkService, ClickAnalytics clickAnalytics) {
+    this.shortLinkService = shortLinkService;
+    this.clickAnalytics = clickAnalytics;
+  }
+
+  /** Clicks of one short link per minute, hour or day */
+  @GetMapping("/api/stats/{shortCode}")
+  public ResponseEntity<?> getStats(
+      @PathVariable String shortCode,
+      @RequestParam(required = false) String from,
+      @RequestParam(required = false) String to,
+      @RequestParam(defaultValue = "hour") String granularity) {
+    RollupGranularity rollupGranularity = RollupGranularity.parse(granularity);
+    if (rollupGranularity == null) {
+      return badRequest("Granularity must be one of minute, hour or day");
+    }
+    Instant end;
+    Instant start;
+    try {
+      end = to == null ? Instant.now() : Instant.parse(to);
+      start = from == null ? end.minus(defaultWindow(rollupGranularity)) : Instant.parse(from);
+    } catch (DateTimeParseException e) {
+      return badRequest("from and to must be ISO-8601 instants, e.g. 2024-01-01T00:00:00Z");
+    }
+    if (!start.isBefore(end)) {
+      return badRequest("from must be before to");
+    }
+    // 起点向下对齐到桶边界，包含起点所在的桶
+    start = Instant.ofEpochMilli(rollupGranularity.bucketStart(start.toEpochMilli()));
+    if (Duration.between(start, end).toMillis() / rollupGranularity.millis() >= MAX_BUCKETS) {
+      return badRequest("Range spans more than " + MAX_BUCKETS + " buckets");
+    }
+
+    Optional<RedirectEntry> entry = shortLinkService.findRedirectEntry(shortCode);
+    if (entry.isEmpty()) {
+      return ResponseEntity.status(HttpStatus.NOT_FOUND)
+          .body(Map.of("error", "Short link not found"));
+    }
+    List<ClickRollupRow> rows =
+        clickAnalytics.rollups(entry.get().id(), rollupGranularity, start, end, MAX_BUCKETS);
+    long clicks = 0;
+    List<ClickStatsResponse.Bucket> buckets = new ArrayList<>(rows.size());
+    for (ClickRollupRow row : rows) {
+      clicks += row.clicks();
+      buckets.add(
+          new ClickStatsResponse.Bucket(
+              row.bucketStart().toInstant(ZoneOffset.UTC),
+              row.clicks(),
+              row.botClicks(),
+              row.mobileClicks(),
+              row.desktopClicks()));
+    }
+    return ResponseEntity.ok(
+        new ClickStatsResponse(
+            shortCode,
+            rollupGranularity.name().toLowerCase(Locale.ROOT),
+            start,
+            end,
+            clicks,
+            buckets));
+  }
+
+  private static Duration defaultWindow(RollupGranularity granularity) {
+    return switch (granularity) {
+      case MINUTE -> Duration.ofHours(1);
+      case HOUR -> Duration.ofDays(1);
+      case DAY -> Duration.ofDays(30);
+    };
+  }
+
+  private static ResponseEntity<Map<String, String>> badRequest(String message) {
+    return ResponseEntity.badRequest().body(Map.of("error", message));
+  }
+}
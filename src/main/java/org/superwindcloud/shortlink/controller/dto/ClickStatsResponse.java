@@ -0,0 +1,22 @@
+package org.superwindcloud.shortlink.controller.dto;
+
+import java.time.Instant;
+import java.util.List;
+
+/** Click rollups of one link; buckets without clicks are omitted */
+public record ClickStatsResponse(
+    String shortCode,
+    String granularity,
+    Instant from,
+    Instant to,
+    long clicks,
+    List<Bucket> buckets) {
+
+  public ClickStatsResponse {
+    buckets = List.copyOf(buckets);
+  }
+
+  /** Clicks in one bucket, split by coarse user agent class */
+  public record Bucket(
+      Instant start, long clicks, long botClicks, long mobileClicks, long desktopClicks) {}
+}
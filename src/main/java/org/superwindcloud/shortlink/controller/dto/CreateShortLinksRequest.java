@@ -0,0 +1,8 @@
+package org.superwindcloud.shortlink.controller.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+
+public record CreateShortLinksRequest(
+    @NotEmpty(message = "URLs are required") @Size(max = 10_000) List<String> urls) {}
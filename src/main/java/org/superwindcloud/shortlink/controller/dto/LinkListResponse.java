@@ -0,0 +1,35 @@
+package org.superwindcloud.shortlink.controller.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import org.superwindcloud.shortlink.repository.LinkSummary;
+
+/**
+ * One page of {@code GET /api/links}
+ *
+ * @param nextCursor 作为下一次请求的 after 参数，最后一页为 null
+ */
+public record LinkListResponse(List<Item> links, String nextCursor) {
+
+  public LinkListResponse {
+    links = List.copyOf(links);
+  }
+
+  /** One link; also the shape of each NDJSON export line */
+  public record Item(
+      String shortCode,
+      String shortUrl,
+      String originalUrl,
+      long clickCount,
+      LocalDateTime createdAt) {
+
+    public static Item of(LinkSummary summary) {
+      return new Item(
+          summary.shortCode(),
+          "/r/" + summary.shortCode(),
+          summary.originalUrl(),
+          summary.clickCount(),
+          summary.createdAt());
+    }
+  }
+}
@@ -0,0 +1,12 @@
+package org.superwindcloud.shortlink.controller.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import org.superwindcloud.shortlink.controller.RedirectPolicy;
+
+/** A link's own redirect policy; a null field falls back to the global default */
+public record RedirectPolicyRequest(
+    Integer status,
+    @Min(value = 0, message = "maxAge must not be negative")
+        @Max(value = RedirectPolicy.MAX_CACHE_MAX_AGE, message = "maxAge must be at most one year")
+        Integer maxAge) {}
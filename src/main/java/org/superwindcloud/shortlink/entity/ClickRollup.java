@@ -0,0 +1,53 @@
+package org.superwindcloud.shortlink.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+
+/**
+ * Clicks of one link in one minute, hour or day bucket.
+ *
+ * <p>Mapped so Hibernate creates the table; rows are written and read with set-based SQL in {@link
+ * org.superwindcloud.shortlink.repository.ClickRollupJdbcRepository}.
+ */
+@Entity
+@Table(name = "click_rollups")
+public class ClickRollup {
+
+  @EmbeddedId private ClickRollupId id;
+
+  @Column(name = "clicks", nullable = false)
+  private long clicks;
+
+  @Column(name = "bot_clicks", nullable = false)
+  private long botClicks;
+
+  @Column(name = "mobile_clicks", nullable = false)
+  private long mobileClicks;
+
+  @Column(name = "desktop_clicks", nullable = false)
+  private long desktopClicks;
+
+  public ClickRollup() {}
+
+  public ClickRollupId getId() {
+    return id;
+  }
+
+  public long getClicks() {
+    return clicks;
+  }
+
+  public long getBotClicks() {
+    return botClicks;
+  }
+
+  public long getMobileClicks() {
+    return mobileClicks;
+  }
+
+  public long getDesktopClicks() {
+    return desktopClicks;
+  }
+}
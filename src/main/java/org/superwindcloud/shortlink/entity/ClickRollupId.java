@@ -0,0 +1,62 @@
+package org.superwindcloud.shortlink.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/** Primary key of {@link ClickRollup}: link, bucket size and bucket start */
+@Embeddable
+public class ClickRollupId implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  @Column(name = "link_id", nullable = false)
+  private Long linkId;
+
+  @Column(name = "granularity", nullable = false, length = 6)
+  private String granularity;
+
+  // UTC，按粒度截断
+  @Column(name = "bucket_start", nullable = false)
+  private LocalDateTime bucketStart;
+
+  public ClickRollupId() {}
+
+  public ClickRollupId(Long linkId, String granularity, LocalDateTime bucketStart) {
+    this.linkId = linkId;
+    this.granularity = granularity;
+    this.bucketStart = bucketStart;
+  }
+
+  public Long getLinkId() {
+    return linkId;
+  }
+
+  public String getGranularity() {
+    return granularity;
+  }
+
+  public LocalDateTime getBucketStart() {
+    return bucketStart;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof ClickRollupId other)) {
+      return false;
+    }
+    return Objects.equals(linkId, other.linkId)
+        && Objects.equals(granularity, other.granularity)
+        && Objects.equals(bucketStart, other.bucketStart);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(linkId, granularity, bucketStart);
+  }
+}
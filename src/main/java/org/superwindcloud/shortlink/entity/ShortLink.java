@@ -4,13 +4,15 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 import java.time.LocalDateTime;
+import java.util.UUID;
+import org.superwindcloud.shortlink.util.UrlHashes;
 
 @Entity
 @Table(
     name = "short_links",
     indexes = {
       @Index(name = "idx_short_links_short_code", columnList = "short_code", unique = true),
-      @Index(name = "idx_short_links_original_url", columnList = "original_url", unique = true),
+      @Index(name = "idx_short_links_url_hash", columnList = "url_hash", unique = true),
       @Index(name = "idx_short_links_created_at", columnList = "created_at")
     })
 public class ShortLink {
@@ -21,11 +23,16 @@ public class ShortLink {
 
   @NotBlank
   @Size(max = 2048)
-  @Column(name = "original_url", nullable = false, unique = true, length = 2048)
+  @Column(name = "original_url", nullable = false, length = 2048)
   private String originalUrl;
 
+  // original_url 的 128 位摘要，去重的唯一索引建在这列上；旧数据由 UrlHashBackfill 补齐
+  @Column(name = "url_hash")
+  private UUID urlHash;
+
+  // 唯一性由 idx_short_links_short_code 保证；分区表上的唯一索引必须带上 url_hash
   @NotBlank
-  @Column(name = "short_code", nullable = false, unique = true)
+  @Column(name = "short_code", nullable = false)
   private String shortCode;
 
   @Column(name = "created_at")
@@ -34,11 +41,20 @@ public class ShortLink {
   @Column(name = "click_count")
   private Long clickCount = 0L;
 
+  // 为空时使用全局配置 app.redirect.status
+  @Column(name = "redirect_status")
+  private Integer redirectStatus;
+
+  // 为空时使用全局配置 app.redirect.cache-max-age，单位秒
+  @Column(name = "cache_max_age")
+  private Integer cacheMaxAge;
+
   // Constructors
   public ShortLink() {}
 
   public ShortLink(String originalUrl, String shortCode) {
     this.originalUrl = originalUrl;
+    this.urlHash = UrlHashes.of(originalUrl);
     this.shortCode = shortCode;
     this.createdAt = LocalDateTime.now();
   }
@@ -56,10 +72,19 @@ public class ShortLink {
     return originalUrl;
   }
 
+  // 不重新计算 url_hash：读路径从数据库取这一列，新建时由构造函数计算
   public void setOriginalUrl(String originalUrl) {
     this.originalUrl = originalUrl;
   }
 
+  public UUID getUrlHash() {
+    return urlHash;
+  }
+
+  public void setUrlHash(UUID urlHash) {
+    this.urlHash = urlHash;
+  }
+
   public String getShortCode() {
     return shortCode;
   }
@@ -84,6 +109,22 @@ public class ShortLink {
     this.clickCount = clickCount;
   }
 
+  public Integer getRedirectStatus() {
+    return redirectStatus;
+  }
+
+  public void setRedirectStatus(Integer redirectStatus) {
+    this.redirectStatus = redirectStatus;
+  }
+
+  public Integer getCacheMaxAge() {
+    return cacheMaxAge;
+  }
+
+  public void setCacheMaxAge(Integer cacheMaxAge) {
+    this.cacheMaxAge = cacheMaxAge;
+  }
+
   // Increment click count method
   public void incrementClickCount() {
     this.clickCount++;
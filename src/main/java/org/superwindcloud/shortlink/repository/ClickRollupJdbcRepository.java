@@ -0,0 +1,178 @@
+package org.superwindcloud.shortlink.repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/** Batched upserts and range reads on {@code click_rollups} */
+@Repository
+public class ClickRollupJdbcRepository {
+
+  // 每行 7 个参数，远低于 PostgreSQL 的 65535 上限
+  private static final int MAX_ROWS_PER_STATEMENT = 1000;
+
+  private static final String COLUMNS =
+      "link_id, granularity, bucket_start, clicks, bot_clicks, mobile_clicks, desktop_clicks";
+
+  private static final RowMapper<ClickRollupRow> ROW_MAPPER =
+      (rs, rowNum) ->
+          new ClickRollupRow(
+              rs.getLong("link_id"),
+              rs.getString("granularity"),
+              rs.getTimestamp("bucket_start").toLocalDateTime(),
+              rs.getLong("clicks"),
+              rs.getLong("bot_clicks"),
+              rs.getLong("mobile_clicks"),
+              rs.getLong("desktop_clicks"));
+
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transaction;
+  private volatile Boolean postgres;
+
+  public ClickRollupJdbcRepository(
+      JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.transaction = new TransactionTemplate(transactionManager);
+  }
+
+  /**
+   * Adds the given counts to their buckets, creating missing buckets.
+   *
+   * <p>All chunks commit together: the caller retries the whole list after a failure, so a partly
+   * committed write would count those clicks twice.
+   *
+   * @param rows one row per distinct (link, granularity, bucket)
+   */
+  public void addAll(List<ClickRollupRow> rows) {
+    boolean upsert = isPostgres();
+    transaction.executeWithoutResult(
+        status -> {
+          for (int from = 0; from < rows.size(); from += MAX_ROWS_PER_STATEMENT) {
+            List<ClickRollupRow> chunk =
+                rows.subList(from, Math.min(rows.size(), from + MAX_ROWS_PER_STATEMENT));
+            if (upsert) {
+              upsertFromValues(chunk);
+            } else {
+              updateThenInsert(chunk);
+            }
+          }
+        });
+  }
+
+  /**
+   * Buckets of one link and granularity in {@code [from, to)}, oldest first
+   *
+   * @param limit 最多返回的行数
+   */
+  public List<ClickRollupRow> find(
+      long linkId, String granularity, LocalDateTime from, LocalDateTime to, int limit) {
+    return jdbcTemplate.query(
+        "select "
+            + COLUMNS
+            + " from click_rollups where link_id = ? and granularity = ?"
+            + " and bucket_start >= ? and bucket_start < ? order by bucket_start limit ?",
+        ROW_MAPPER,
+        linkId,
+        granularity,
+        Timestamp.valueOf(from),
+        Timestamp.valueOf(to),
+        limit);
+  }
+
+  /** One statement per chunk: insert ... values (...), ... on conflict do update */
+  private void upsertFromValues(List<ClickRollupRow> chunk) {
+    StringBuilder sql =
+        new StringBuilder(256 + chunk.size() * 32)
+            .append("insert into click_rollups (")
+            .append(COLUMNS)
+            .append(") values ");
+    List<Object> args = new ArrayList<>(chunk.size() * 7);
+    for (int i = 0; i < chunk.size(); i++) {
+      if (i > 0) {
+        sql.append(", ");
+      }
+      sql.append("(?, ?, ?, ?, ?, ?, ?)");
+      ClickRollupRow row = chunk.get(i);
+      args.add(row.linkId());
+      args.add(row.granularity());
+      args.add(Timestamp.valueOf(row.bucketStart()));
+      args.add(row.clicks());
+      args.add(row.botClicks());
+      args.add(row.mobileClicks());
+      args.add(row.desktopClicks());
+    }
+    sql.append(" on conflict (link_id, granularity, bucket_start) do update set")
+        .append(" clicks = click_rollups.clicks + excluded.clicks,")
+        .append(" bot_clicks = click_rollups.bot_clicks + excluded.bot_clicks,")
+        .append(" mobile_clicks = click_rollups.mobile_clicks + excluded.mobile_clicks,")
+        .append(" desktop_clicks = click_rollups.desktop_clicks + excluded.desktop_clicks");
+    jdbcTemplate.update(sql.toString(), args.toArray());
+  }
+
+  /**
+   * Portable fallback (H2 in tests): one batch of updates, then one batch inserting the buckets
+   * that did not exist yet. Not safe against a concurrent writer creating the same bucket.
+   */
+  private void updateThenInsert(List<ClickRollupRow> chunk) {
+    List<Object[]> updates = new ArrayList<>(chunk.size());
+    for (ClickRollupRow row : chunk) {
+      updates.add(
+          new Object[] {
+            row.clicks(),
+            row.botClicks(),
+            row.mobileClicks(),
+            row.desktopClicks(),
+            row.linkId(),
+            row.granularity(),
+            Timestamp.valueOf(row.bucketStart())
+          });
+    }
+    int[] counts =
+        jdbcTemplate.batchUpdate(
+            "update click_rollups set clicks = clicks + ?, bot_clicks = bot_clicks + ?,"
+                + " mobile_clicks = mobile_clicks + ?, desktop_clicks = desktop_clicks + ?"
+                + " where link_id = ? and granularity = ? and bucket_start = ?",
+            updates);
+    List<Object[]> inserts = new ArrayList<>();
+    for (int i = 0; i < chunk.size(); i++) {
+      if (counts[i] == 0) {
+        ClickRollupRow row = chunk.get(i);
+        inserts.add(
+            new Object[] {
+              row.linkId(),
+              row.granularity(),
+              Timestamp.valueOf(row.bucketStart()),
+              row.clicks(),
+              row.botClicks(),
+              row.mobileClicks(),
+              row.desktopClicks()
+            });
+      }
+    }
+    if (!inserts.isEmpty()) {
+      jdbcTemplate.batchUpdate(
+          "insert into click_rollups (" + COLUMNS + ") values (?, ?, ?, ?, ?, ?, ?)", inserts);
+    }
+  }
+
+  private boolean isPostgres() {
+    Boolean result = postgres;
+    if (result == null) {
+      String product =
+          jdbcTemplate.execute(
+              (ConnectionCallback<String>)
+                  connection -> connection.getMetaData().getDatabaseProductName());
+      result = product != null && product.toLowerCase(Locale.ROOT).contains("postgresql");
+      postgres = result;
+    }
+    return result;
+  }
+}
@@ -0,0 +1,17 @@
+package org.superwindcloud.shortlink.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * One row of {@code click_rollups}; on upsert the counts are deltas added to the stored row
+ *
+ * @param bucketStart UTC bucket start
+ */
+public record ClickRollupRow(
+    long linkId,
+    String granularity,
+    LocalDateTime bucketStart,
+    long clicks,
+    long botClicks,
+    long mobileClicks,
+    long desktopClicks) {}
@@ -0,0 +1,53 @@
+package org.superwindcloud.shortlink.repository;
+
+import java.nio.ByteBuffer;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Base64;
+
+/**
+ * Keyset position in the newest-first link listing, the {@code (created_at, id)} of the last row of
+ * a page.
+ *
+ * <p>Clients get it as an opaque URL-safe token: epoch seconds, nanos and id packed into 20 bytes.
+ */
+public record LinkCursor(LocalDateTime createdAt, long id) {
+
+  private static final int ENCODED_BYTES = Long.BYTES + Integer.BYTES + Long.BYTES;
+
+  /** URL-safe token handed to clients */
+  public String encode() {
+    ByteBuffer buffer = ByteBuffer.allocate(ENCODED_BYTES);
+    buffer.putLong(createdAt.toEpochSecond(ZoneOffset.UTC));
+    buffer.putInt(createdAt.getNano());
+    buffer.putLong(id);
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+  }
+
+  /**
+   * 解析 {@link #encode} 生成的游标
+   *
+   * @return 游标，格式不对时返回 null
+   */
+  public static LinkCursor decode(String token) {
+    byte[] bytes;
+    try {
+      bytes = Base64.getUrlDecoder().decode(token);
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+    if (bytes.length != ENCODED_BYTES) {
+      return null;
+    }
+    ByteBuffer buffer = ByteBuffer.wrap(bytes);
+    long epochSecond = buffer.getLong();
+    int nano = buffer.getInt();
+    long id = buffer.getLong();
+    try {
+      return new LinkCursor(LocalDateTime.ofEpochSecond(epochSecond, nano, ZoneOffset.UTC), id);
+    } catch (DateTimeException e) {
+      return null;
+    }
+  }
+}
@@ -0,0 +1,17 @@
+package org.superwindcloud.shortlink.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * The columns of {@code short_links} that listings show, read without hydrating an entity
+ *
+ * @param clickCount 已写入数据库的点击数，不含内存里待写的部分
+ */
+public record LinkSummary(
+    long id, String shortCode, String originalUrl, LocalDateTime createdAt, long clickCount) {
+
+  /** Keyset position right after this row */
+  public LinkCursor cursor() {
+    return new LinkCursor(createdAt, id);
+  }
+}
@@ -0,0 +1,310 @@
+package org.superwindcloud.shortlink.repository;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.superwindcloud.shortlink.cache.CacheInvalidation;
+import org.superwindcloud.shortlink.cache.CacheInvalidationBus;
+import org.superwindcloud.shortlink.config.CacheConfig;
+import org.superwindcloud.shortlink.service.code.PackedShortCode;
+import org.superwindcloud.shortlink.util.ThreadFactories;
+
+/**
+ * Sends read-only lookups to PostgreSQL streaming replicas, one Hikari pool each.
+ *
+ * <p>Writes never come here; they keep using the primary pool. Replicas are listed in {@code
+ * app.datasource.replicas.urls}, and each read picks the next healthy one round-robin. A background
+ * check measures replay lag every {@code health-check-interval-ms}. A replica that cannot be
+ * reached, is not streaming WAL from the primary, or is more than {@code max-lag-ms} behind leaves
+ * the rotation until a later check passes. A read that fails on a replica marks it down and is
+ * retried on the primary. Links this node wrote within the lag window are read from the primary, so
+ * a create or policy change is visible to the next lookup. Redirect cache evictions announced by
+ * other nodes count as writes too, otherwise the evicted entry could be reloaded from a replica
+ * that has not replayed the change yet. Without replicas every read goes to the primary.
+ */
+@Component
+public class ReadReplicas {
+
+  private static final Logger log = LoggerFactory.getLogger(ReadReplicas.class);
+
+  // 主库上 pg_last_* 都是 null，结果为 0。收到的 WAL 都已回放时延迟也是 0，但 WAL receiver
+  // 断开后同样如此，所以还要看它是否在 streaming；status 列需要 pg_read_all_stats 才可见
+  private static final String POSTGRES_LAG_QUERY =
+      "select pg_is_in_recovery() and not exists"
+          + " (select 1 from pg_stat_wal_receiver where status = 'streaming') as disconnected,"
+          + " case when pg_is_in_recovery()"
+          + " and pg_last_wal_receive_lsn() is distinct from pg_last_wal_replay_lsn()"
+          + " then coalesce(extract(epoch from now() - pg_last_xact_replay_timestamp()), 0)"
+          + " else 0 end as lag";
+
+  private final JdbcTemplate primary;
+  private final CacheInvalidationBus invalidationBus;
+  private final List<Replica> replicas;
+  private final long maxLagMillis;
+  private final long healthCheckIntervalMillis;
+  private final Cache<String, Boolean> recentWrites;
+  private final ScheduledExecutorService healthChecker;
+  private final AtomicInteger next = new AtomicInteger();
+
+  private final Counter replicaReads;
+  private final Counter primaryReads;
+  private final Counter failovers;
+
+  public ReadReplicas(
+      JdbcTemplate primary,
+      CacheInvalidationBus invalidationBus,
+      MeterRegistry meterRegistry,
+      @Value("${app.datasource.replicas.urls:}") String urls,
+      @Value("${app.datasource.replicas.username:}") String username,
+      @Value("${app.datasource.replicas.password:}") String password,
+      @Value("${app.datasource.replicas.pool-size:10}") int poolSize,
+      @Value("${app.datasource.replicas.connection-timeout-ms:1000}") long connectionTimeoutMillis,
+      @Value("${app.datasource.replicas.max-lag-ms:5000}") long maxLagMillis,
+      @Value("${app.datasource.replicas.health-check-interval-ms:2000}")
+          long healthCheckIntervalMillis,
+      @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+    this.primary = primary;
+    this.invalidationBus = invalidationBus;
+    this.maxLagMillis = maxLagMillis;
+    this.healthCheckIntervalMillis = healthCheckIntervalMillis;
+    List<String> jdbcUrls =
+        Arrays.stream(urls.split(",")).map(String::trim).filter(url -> !url.isEmpty()).toList();
+    List<Replica> pools = new ArrayList<>(jdbcUrls.size());
+    for (int i = 0; i < jdbcUrls.size(); i++) {
+      HikariConfig config = new HikariConfig();
+      config.setPoolName("replica-" + (i + 1));
+      config.setJdbcUrl(jdbcUrls.get(i));
+      config.setUsername(username);
+      config.setPassword(password);
+      config.setMaximumPoolSize(poolSize);
+      config.setReadOnly(true);
+      // 副本挂了不能拖住重定向，也不能让启动失败
+      config.setConnectionTimeout(connectionTimeoutMillis);
+      config.setInitializationFailTimeout(-1);
+      config.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+      pools.add(new Replica(config.getPoolName(), new HikariDataSource(config)));
+    }
+    this.replicas = List.copyOf(pools);
+    // 健康检查之间副本可能又落后了一个周期，窗口取两者之和
+    this.recentWrites =
+        Caffeine.newBuilder()
+            .maximumSize(100_000)
+            .expireAfterWrite(Duration.ofMillis(maxLagMillis + healthCheckIntervalMillis))
+            .build();
+    this.healthChecker =
+        Executors.newSingleThreadScheduledExecutor(
+            ThreadFactories.background("replica-health-checker", virtualThreads));
+
+    this.replicaReads = meterRegistry.counter("shortlink.replica.reads", "target", "replica");
+    this.primaryReads = meterRegistry.counter("shortlink.replica.reads", "target", "primary");
+    this.failovers = meterRegistry.counter("shortlink.replica.failovers");
+    Gauge.builder("shortlink.replica.healthy", this, r -> r.healthyCount())
+        .description("Replicas currently in the read rotation")
+        .register(meterRegistry);
+  }
+
+  @PostConstruct
+  void start() {
+    if (replicas.isEmpty()) {
+      return;
+    }
+    invalidationBus.subscribe(this::onInvalidation);
+    // 第一次检查同步执行，启动完成时副本已经在轮转里
+    checkHealth();
+    healthChecker.scheduleWithFixedDelay(
+        this::checkHealth,
+        healthCheckIntervalMillis,
+        healthCheckIntervalMillis,
+        TimeUnit.MILLISECONDS);
+  }
+
+  @PreDestroy
+  void shutdown() {
+    healthChecker.shutdownNow();
+    replicas.forEach(replica -> replica.dataSource().close());
+  }
+
+  /** Whether any replica is configured */
+  public boolean enabled() {
+    return !replicas.isEmpty();
+  }
+
+  /** Reads of this short code go to the primary until replicas have caught up with the write */
+  public void recordWrite(String shortCode) {
+    if (enabled()) {
+      recentWrites.put(shortCode, Boolean.TRUE);
+    }
+  }
+
+  /**
+   * 执行只读查询，优先走副本
+   *
+   * @param shortCode 查询涉及的短码，本节点刚写过时改读主库；不按短码查询时传 null
+   * @param query 在给定的 JdbcTemplate 上执行的查询，副本失败时会在主库上再执行一次
+   * @return 查询结果
+   */
+  public <T> T read(String shortCode, Function<JdbcTemplate, T> query) {
+    Replica replica =
+        shortCode != null && recentWrites.getIfPresent(shortCode) != null ? null : pick();
+    if (replica == null) {
+      primaryReads.increment();
+      return query.apply(primary);
+    }
+    try {
+      T result = query.apply(replica.jdbcTemplate());
+      replicaReads.increment();
+      return result;
+    } catch (DataAccessResourceFailureException | TransientDataAccessException e) {
+      // 移出轮转，等健康检查恢复
+      if (replica.healthy) {
+        replica.healthy = false;
+        log.warn("Read replica {} failed, removed from rotation", replica.name(), e);
+      }
+      failovers.increment();
+      primaryReads.increment();
+      return query.apply(primary);
+    }
+  }
+
+  /** 其他节点改了链接并驱逐了跳转缓存，在延迟窗口内本节点也从主库读这个短码 */
+  private void onInvalidation(CacheInvalidation invalidation) {
+    if (!CacheConfig.SHORT_CODE_CACHE.equals(invalidation.cacheName())
+        || invalidation.key() == null) {
+      return;
+    }
+    byte[] key = Base64.getDecoder().decode(invalidation.key());
+    if (key.length == Long.BYTES) {
+      recordWrite(PackedShortCode.unpack(ByteBuffer.wrap(key).getLong()));
+    }
+  }
+
+  int healthyCount() {
+    int healthy = 0;
+    for (Replica replica : replicas) {
+      if (replica.healthy) {
+        healthy++;
+      }
+    }
+    return healthy;
+  }
+
+  /** Probes every replica once; package-private for tests */
+  void checkHealth() {
+    for (Replica replica : replicas) {
+      boolean healthy;
+      String reason;
+      try {
+        double lagSeconds = lagSeconds(replica);
+        healthy = lagSeconds * 1000 <= maxLagMillis;
+        reason = "lag " + Math.round(lagSeconds * 1000) + " ms";
+      } catch (RuntimeException e) {
+        // 异常会终止 scheduleWithFixedDelay 的后续执行，这里必须吞掉
+        healthy = false;
+        reason = e.getMessage();
+      }
+      if (healthy != replica.healthy) {
+        if (healthy) {
+          log.info("Read replica {} back in rotation ({})", replica.name(), reason);
+        } else {
+          log.warn("Read replica {} out of rotation: {}", replica.name(), reason);
+        }
+        replica.healthy = healthy;
+      }
+    }
+  }
+
+  private double lagSeconds(Replica replica) {
+    if (replica.postgres == null) {
+      String product =
+          replica
+              .jdbcTemplate()
+              .execute(
+                  (ConnectionCallback<String>)
+                      connection -> connection.getMetaData().getDatabaseProductName());
+      replica.postgres = product != null && product.toLowerCase(Locale.ROOT).contains("postgresql");
+    }
+    if (!replica.postgres) {
+      // 非 PostgreSQL（测试里的 H2）只检查连通性
+      replica.jdbcTemplate().queryForObject("select 1", Integer.class);
+      return 0;
+    }
+    return replica
+        .jdbcTemplate()
+        .queryForObject(
+            POSTGRES_LAG_QUERY,
+            (rs, rowNum) -> {
+              if (rs.getBoolean("disconnected")) {
+                // 收不到新 WAL 的副本延迟会无限增长，但查询本身看不出来
+                throw new DataAccessResourceFailureException(
+                    "WAL receiver is not streaming (or role lacks pg_read_all_stats)");
+              }
+              return rs.getDouble("lag");
+            });
+  }
+
+  private Replica pick() {
+    int size = replicas.size();
+    for (int i = 0; i < size; i++) {
+      Replica replica = replicas.get(Math.floorMod(next.getAndIncrement(), size));
+      if (replica.healthy) {
+        return replica;
+      }
+    }
+    return null;
+  }
+
+  /** One replica pool and its rotation state */
+  private static final class Replica {
+
+    private final String name;
+    private final HikariDataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private volatile boolean healthy;
+    private volatile Boolean postgres;
+
+    Replica(String name, HikariDataSource dataSource) {
+      this.name = name;
+      this.dataSource = dataSource;
+      this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    String name() {
+      return name;
+    }
+
+    HikariDataSource dataSource() {
+      return dataSource;
+    }
+
+    JdbcTemplate jdbcTemplate() {
+      return jdbcTemplate;
+    }
+  }
+}
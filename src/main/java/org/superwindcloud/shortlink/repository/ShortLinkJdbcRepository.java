@@ -0,0 +1,572 @@
+package org.superwindcloud.shortlink.repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Stream;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+import org.superwindcloud.shortlink.entity.ShortLink;
+import org.superwindcloud.shortlink.util.UrlHashes;
+
+/**
+ * Set-based statements and replica-routed lookups that do not fit the entity-per-row model of
+ * {@link ShortLinkRepository}
+ */
+@Repository
+public class ShortLinkJdbcRepository {
+
+  // PostgreSQL caps bind parameters at 65535 per statement
+  private static final int MAX_ROWS_PER_STATEMENT = 1000;
+
+  private static final String SHORT_LINK_COLUMNS =
+      "id, original_url, url_hash, short_code, created_at, click_count, redirect_status,"
+          + " cache_max_age";
+
+  private static final RowMapper<ShortLink> SHORT_LINK_ROW_MAPPER =
+      (rs, rowNum) -> {
+        ShortLink shortLink = new ShortLink();
+        shortLink.setId(rs.getLong("id"));
+        shortLink.setOriginalUrl(rs.getString("original_url"));
+        shortLink.setUrlHash(rs.getObject("url_hash", UUID.class));
+        shortLink.setShortCode(rs.getString("short_code"));
+        Timestamp createdAt = rs.getTimestamp("created_at");
+        shortLink.setCreatedAt(createdAt == null ? null : createdAt.toLocalDateTime());
+        shortLink.setClickCount(rs.getLong("click_count"));
+        shortLink.setRedirectStatus(rs.getObject("redirect_status", Integer.class));
+        shortLink.setCacheMaxAge(rs.getObject("cache_max_age", Integer.class));
+        return shortLink;
+      };
+
+  private static final String SUMMARY_COLUMNS =
+      "id, short_code, original_url, created_at, click_count";
+
+  private static final RowMapper<LinkSummary> SUMMARY_ROW_MAPPER =
+      (rs, rowNum) ->
+          new LinkSummary(
+              rs.getLong("id"),
+              rs.getString("short_code"),
+              rs.getString("original_url"),
+              rs.getTimestamp("created_at").toLocalDateTime(),
+              rs.getLong("click_count"));
+
+  // 导出时每次从游标取的行数，PostgreSQL 只有在事务里才按批读取
+  private static final int EXPORT_FETCH_SIZE = 1_000;
+
+  private final JdbcTemplate jdbcTemplate;
+  private final ReadReplicas readReplicas;
+  private final ShortLinkShards shards;
+  private final JdbcTemplate exportJdbcTemplate;
+  private volatile Boolean postgres;
+  // 补齐之前还可能有 url_hash 为 null 的旧行，按 URL 查找时要回退到 original_url
+  private volatile boolean urlHashesBackfilled;
+
+  public ShortLinkJdbcRepository(
+      JdbcTemplate jdbcTemplate, ReadReplicas readReplicas, ShortLinkShards shards) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.readReplicas = readReplicas;
+    this.shards = shards;
+    // 独立的 JdbcTemplate 带上 fetch size，导出时按批读取
+    this.exportJdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+    this.exportJdbcTemplate.setFetchSize(EXPORT_FETCH_SIZE);
+  }
+
+  /**
+   * Inserts a new link unless its URL or short code already exists, in a single statement
+   * (PostgreSQL only)
+   *
+   * @return the inserted row, or empty when a unique constraint was hit
+   */
+  public Optional<ShortLink> insertIfAbsent(String originalUrl, String shortCode) {
+    LocalDateTime createdAt = LocalDateTime.now();
+    List<Long> ids =
+        jdbcTemplate.query(
+            "insert into short_links (original_url, url_hash, short_code, created_at, click_count)"
+                + " values (?, ?, ?, ?, 0) on conflict do nothing returning id",
+            (rs, rowNum) -> rs.getLong(1),
+            originalUrl,
+            UrlHashes.of(originalUrl),
+            shortCode,
+            Timestamp.valueOf(createdAt));
+    if (ids.isEmpty()) {
+      return Optional.empty();
+    }
+    ShortLink shortLink = new ShortLink(originalUrl, shortCode);
+    shortLink.setId(ids.get(0));
+    shortLink.setCreatedAt(createdAt);
+    return Optional.of(shortLink);
+  }
+
+  /**
+   * Looks a short code up for reads, on a replica when one is healthy
+   *
+   * <p>A replica miss is confirmed on the primary before it is reported: the code may have been
+   * created on another node within the replication lag, and a miss feeds the negative cache. When
+   * short_links is partitioned, the url_hash range of the shard embedded in the code is added, so
+   * only that partition is searched.
+   */
+  public Optional<ShortLink> findByShortCode(String shortCode) {
+    Optional<ShortLink> found =
+        readReplicas.read(shortCode, jdbc -> findByShortCode(jdbc, shortCode));
+    if (found.isEmpty() && readReplicas.enabled()) {
+      return findByShortCode(jdbcTemplate, shortCode);
+    }
+    return found;
+  }
+
+  private Optional<ShortLink> findByShortCode(JdbcTemplate jdbc, String shortCode) {
+    int shard = shards.ofShortCode(shortCode);
+    if (shards.partitioned() && shard >= 0) {
+      return jdbc
+          .query(
+              "select "
+                  + SHORT_LINK_COLUMNS
+                  + " from short_links where short_code = ? and url_hash between ? and ?",
+              SHORT_LINK_ROW_MAPPER,
+              shortCode,
+              shards.lowerBound(shard),
+              shards.upperBound(shard))
+          .stream()
+          .findFirst();
+    }
+    // 未分区，或者短码不是当前配置生成的，只能查所有分区
+    return jdbc
+        .query(
+            "select " + SHORT_LINK_COLUMNS + " from short_links where short_code = ?",
+            SHORT_LINK_ROW_MAPPER,
+            shortCode)
+        .stream()
+        .findFirst();
+  }
+
+  /**
+   * Sets a link's redirect status and Cache-Control max-age on the primary
+   *
+   * <p>Pruned to one partition the same way as {@link #findByShortCode}.
+   *
+   * @return number of rows updated, 0 when the code does not exist
+   */
+  public int updateRedirectPolicy(String shortCode, Integer redirectStatus, Integer cacheMaxAge) {
+    String sql =
+        "update short_links set redirect_status = ?, cache_max_age = ? where short_code = ?";
+    int shard = shards.ofShortCode(shortCode);
+    if (shards.partitioned() && shard >= 0) {
+      return jdbcTemplate.update(
+          sql + " and url_hash between ? and ?",
+          redirectStatus,
+          cacheMaxAge,
+          shortCode,
+          shards.lowerBound(shard),
+          shards.upperBound(shard));
+    }
+    return jdbcTemplate.update(sql, redirectStatus, cacheMaxAge, shortCode);
+  }
+
+  /**
+   * Finds the link of an original URL on the primary, through the url_hash index, then confirms the
+   * full string
+   *
+   * <p>Until {@link #markUrlHashesBackfilled} succeeds, a miss also checks rows whose url_hash is
+   * still null, through the legacy original_url index.
+   */
+  public Optional<ShortLink> findByOriginalUrl(String originalUrl) {
+    return findByOriginalUrl(jdbcTemplate, originalUrl);
+  }
+
+  /**
+   * Same as {@link #findByOriginalUrl}, on a replica when one is healthy
+   *
+   * <p>Only for the check before an insert: a miss caused by lag ends in a unique violation, after
+   * which the caller must read the primary.
+   */
+  public Optional<ShortLink> findByOriginalUrlOnReplica(String originalUrl) {
+    return readReplicas.read(null, jdbc -> findByOriginalUrl(jdbc, originalUrl));
+  }
+
+  private Optional<ShortLink> findByOriginalUrl(JdbcTemplate jdbc, String originalUrl) {
+    for (ShortLink shortLink :
+        jdbc.query(
+            "select " + SHORT_LINK_COLUMNS + " from short_links where url_hash = ?",
+            SHORT_LINK_ROW_MAPPER,
+            UrlHashes.of(originalUrl))) {
+      if (originalUrl.equals(shortLink.getOriginalUrl())) {
+        return Optional.of(shortLink);
+      }
+    }
+    if (urlHashesBackfilled) {
+      return Optional.empty();
+    }
+    return jdbc.query(
+            "select "
+                + SHORT_LINK_COLUMNS
+                + " from short_links where url_hash is null and original_url = ?",
+            SHORT_LINK_ROW_MAPPER,
+            originalUrl)
+        .stream()
+        .findFirst();
+  }
+
+  /**
+   * Loads all links whose original URL is in the given set with one {@code = any(?)} query on
+   * url_hash, plus one on original_url while the backfill is unfinished (PostgreSQL only)
+   */
+  public List<ShortLink> findByOriginalUrls(Collection<String> originalUrls) {
+    if (originalUrls.isEmpty()) {
+      return List.of();
+    }
+    Set<String> wanted = new HashSet<>(originalUrls);
+    UUID[] hashes = wanted.stream().map(UrlHashes::of).toArray(UUID[]::new);
+    List<ShortLink> result = new ArrayList<>();
+    for (ShortLink shortLink :
+        jdbcTemplate.query(
+            "select " + SHORT_LINK_COLUMNS + " from short_links where url_hash = any(?)",
+            ps -> ps.setArray(1, ps.getConnection().createArrayOf("uuid", hashes)),
+            SHORT_LINK_ROW_MAPPER)) {
+      // 摘要相同但 URL 不同的行不算命中
+      if (wanted.contains(shortLink.getOriginalUrl())) {
+        result.add(shortLink);
+      }
+    }
+    if (!urlHashesBackfilled) {
+      String[] urls = wanted.toArray(String[]::new);
+      result.addAll(
+          jdbcTemplate.query(
+              "select "
+                  + SHORT_LINK_COLUMNS
+                  + " from short_links where url_hash is null and original_url = any(?)",
+              ps -> ps.setArray(1, ps.getConnection().createArrayOf("text", urls)),
+              SHORT_LINK_ROW_MAPPER));
+    }
+    return result;
+  }
+
+  /**
+   * Inserts many links in one statement by unnesting two parallel arrays; rows hitting a unique
+   * constraint are skipped (PostgreSQL only)
+   *
+   * @param shortCodesByUrl original URL to the short code to assign it
+   * @return the rows actually inserted
+   */
+  public List<ShortLink> insertAllIfAbsent(Map<String, String> shortCodesByUrl) {
+    if (shortCodesByUrl.isEmpty()) {
+      return List.of();
+    }
+    String[] urls = new String[shortCodesByUrl.size()];
+    UUID[] hashes = new UUID[shortCodesByUrl.size()];
+    String[] codes = new String[shortCodesByUrl.size()];
+    int i = 0;
+    for (Map.Entry<String, String> entry : shortCodesByUrl.entrySet()) {
+      urls[i] = entry.getKey();
+      hashes[i] = UrlHashes.of(entry.getKey());
+      codes[i] = entry.getValue();
+      i++;
+    }
+    Timestamp createdAt = Timestamp.valueOf(LocalDateTime.now());
+    return jdbcTemplate.query(
+        "insert into short_links (original_url, url_hash, short_code, created_at, click_count)"
+            + " select t.url, t.hash, t.code, ?, 0"
+            + " from unnest(?::text[], ?::uuid[], ?::text[]) as t(url, hash, code)"
+            + " on conflict do nothing returning "
+            + SHORT_LINK_COLUMNS,
+        ps -> {
+          ps.setTimestamp(1, createdAt);
+          ps.setArray(2, ps.getConnection().createArrayOf("text", urls));
+          ps.setArray(3, ps.getConnection().createArrayOf("uuid", hashes));
+          ps.setArray(4, ps.getConnection().createArrayOf("text", codes));
+        },
+        SHORT_LINK_ROW_MAPPER);
+  }
+
+  /**
+   * One keyset page of links, newest first
+   *
+   * @param beforeId 上一页最后一行的 id，第一页传 {@link Long#MAX_VALUE}
+   * @param limit 页大小
+   */
+  public List<ShortLink> findPageByIdDesc(long beforeId, int limit) {
+    return readReplicas.read(
+        null,
+        jdbc ->
+            jdbc.query(
+                "select "
+                    + SHORT_LINK_COLUMNS
+                    + " from short_links where id < ? order by id desc limit ?",
+                SHORT_LINK_ROW_MAPPER,
+                beforeId,
+                limit));
+  }
+
+  /**
+   * One keyset page of links, most clicked first
+   *
+   * <p>click_count has no index (it is updated constantly), so every page is a top-N sort over the
+   * table; meant for startup warm-up, not for request paths.
+   *
+   * @param beforeClicks 上一页最后一行的点击数，第一页传 {@link Long#MAX_VALUE}
+   * @param beforeId 上一页最后一行的 id，第一页传 {@link Long#MAX_VALUE}
+   * @param limit 页大小
+   */
+  public List<ShortLink> findPageByClicksDesc(long beforeClicks, long beforeId, int limit) {
+    return readReplicas.read(
+        null,
+        jdbc ->
+            jdbc.query(
+                "select "
+                    + SHORT_LINK_COLUMNS
+                    + " from short_links where coalesce(click_count, 0) < ?"
+                    + " or (coalesce(click_count, 0) = ? and id < ?)"
+                    + " order by coalesce(click_count, 0) desc, id desc limit ?",
+                SHORT_LINK_ROW_MAPPER,
+                beforeClicks,
+                beforeClicks,
+                beforeId,
+                limit));
+  }
+
+  /**
+   * One keyset page of the link listing, newest first, read through idx_short_links_created_at
+   *
+   * <p>Rows without a created_at (never written by this code) are not listed.
+   *
+   * @param after 上一页最后一行的游标，第一页传 null
+   * @param urlContains 原始 URL 需包含的子串，不过滤时传 null；按索引顺序扫描时过滤，匹配稀疏时一页要扫更多行
+   * @param limit 页大小
+   */
+  public List<LinkSummary> findSummaryPage(LinkCursor after, String urlContains, int limit) {
+    List<Object> args = new ArrayList<>(5);
+    String sql = summarySelect(after, urlContains, args) + " limit ?";
+    args.add(limit);
+    return readReplicas.read(null, jdbc -> jdbc.query(sql, SUMMARY_ROW_MAPPER, args.toArray()));
+  }
+
+  /**
+   * Streams the whole listing, newest first, reading {@value #EXPORT_FETCH_SIZE} rows per round
+   * trip; must run inside a transaction and the stream must be closed
+   *
+   * @param urlContains 原始 URL 需包含的子串，不过滤时传 null
+   */
+  public Stream<LinkSummary> streamSummaries(String urlContains) {
+    List<Object> args = new ArrayList<>(1);
+    String sql = summarySelect(null, urlContains, args);
+    return exportJdbcTemplate.queryForStream(sql, SUMMARY_ROW_MAPPER, args.toArray());
+  }
+
+  private static String summarySelect(LinkCursor after, String urlContains, List<Object> args) {
+    StringBuilder sql =
+        new StringBuilder("select ")
+            .append(SUMMARY_COLUMNS)
+            .append(" from short_links where created_at is not null");
+    if (after != null) {
+      // 第一个条件让索引直接定位到游标位置，第二个条件处理 created_at 相同的行
+      Timestamp createdAt = Timestamp.valueOf(after.createdAt());
+      sql.append(" and created_at <= ? and (created_at < ? or id < ?)");
+      args.add(createdAt);
+      args.add(createdAt);
+      args.add(after.id());
+    }
+    if (urlContains != null) {
+      sql.append(" and original_url like ? escape '\\'");
+      args.add("%" + escapeLike(urlContains) + "%");
+    }
+    return sql.append(" order by created_at desc, id desc").toString();
+  }
+
+  private static String escapeLike(String value) {
+    return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+  }
+
+  /** Loads the links with the given ids, in chunks of one {@code in (...)} statement each */
+  public List<ShortLink> findByIds(List<Long> ids) {
+    List<ShortLink> result = new ArrayList<>(ids.size());
+    for (int from = 0; from < ids.size(); from += MAX_ROWS_PER_STATEMENT) {
+      List<Long> chunk = ids.subList(from, Math.min(ids.size(), from + MAX_ROWS_PER_STATEMENT));
+      String placeholders = String.join(", ", Collections.nCopies(chunk.size(), "?"));
+      String sql =
+          "select " + SHORT_LINK_COLUMNS + " from short_links where id in (" + placeholders + ")";
+      result.addAll(
+          readReplicas.read(
+              null, jdbc -> jdbc.query(sql, SHORT_LINK_ROW_MAPPER, chunk.toArray())));
+    }
+    return result;
+  }
+
+  /**
+   * Fills url_hash for one batch of rows written before the column existed
+   *
+   * @param afterId 只处理 id 大于它的行，第一批传 0；按主键顺序推进，不会重复扫描已补的行
+   * @param limit 批大小
+   * @return 本批的行数和最大 id，行数为 0 表示已经补完
+   */
+  public UrlHashBatch backfillUrlHashes(long afterId, int limit) {
+    List<Object[]> rows =
+        jdbcTemplate.query(
+            "select id, original_url from short_links where url_hash is null and id > ?"
+                + " order by id limit ?",
+            (rs, rowNum) -> new Object[] {UrlHashes.of(rs.getString(2)), rs.getLong(1)},
+            afterId,
+            limit);
+    if (rows.isEmpty()) {
+      return new UrlHashBatch(0, afterId);
+    }
+    jdbcTemplate.batchUpdate(
+        "update short_links set url_hash = ? where id = ? and url_hash is null", rows);
+    return new UrlHashBatch(rows.size(), (long) rows.get(rows.size() - 1)[1]);
+  }
+
+  /**
+   * One url_hash backfill batch
+   *
+   * @param lastId 下一批的 afterId
+   */
+  public record UrlHashBatch(int rows, long lastId) {}
+
+  /**
+   * Stops falling back to original_url lookups, but only if no row lacks a url_hash
+   *
+   * <p>Checked on the primary rather than trusted from the backfill: during a rolling deploy, nodes
+   * still on the old version keep inserting rows without a url_hash, at ids the backfill may
+   * already have passed.
+   *
+   * @return 还有 url_hash 为 null 的行时返回 false，回退查找保持开启
+   */
+  public boolean markUrlHashesBackfilled() {
+    Boolean complete =
+        jdbcTemplate.queryForObject(
+            "select not exists (select 1 from short_links where url_hash is null)", Boolean.class);
+    if (!Boolean.TRUE.equals(complete)) {
+      return false;
+    }
+    urlHashesBackfilled = true;
+    return true;
+  }
+
+  /**
+   * Drops the unique index and constraints on original_url left by older schemas; url_hash carries
+   * uniqueness from here on (PostgreSQL only)
+   *
+   * @return number of indexes and constraints dropped
+   */
+  public int dropOriginalUrlUniqueIndexes() {
+    List<String> constraints =
+        jdbcTemplate.queryForList(
+            "select quote_ident(c.conname) from pg_constraint c"
+                + " join pg_attribute a on a.attrelid = c.conrelid and a.attnum = c.conkey[1]"
+                + " where c.conrelid = 'short_links'::regclass and c.contype = 'u'"
+                + " and cardinality(c.conkey) = 1 and a.attname = 'original_url'",
+            String.class);
+    for (String constraint : constraints) {
+      jdbcTemplate.execute("alter table short_links drop constraint " + constraint);
+    }
+    Integer legacyIndexes =
+        jdbcTemplate.queryForObject(
+            "select count(*) from pg_indexes where tablename = 'short_links'"
+                + " and indexname = 'idx_short_links_original_url'",
+            Integer.class);
+    if (legacyIndexes != null && legacyIndexes > 0) {
+      // 不在事务里执行，concurrently 建删索引都不阻塞写入
+      jdbcTemplate.execute("drop index concurrently if exists idx_short_links_original_url");
+    }
+    return constraints.size() + (legacyIndexes == null ? 0 : legacyIndexes);
+  }
+
+  /**
+   * Adds the given click deltas to their rows
+   *
+   * <p>When short_links is partitioned and the shard is known, every statement also carries the
+   * url_hash range of the shard, so it is pruned to that one partition instead of probing the
+   * primary key of each.
+   *
+   * @param shard 这些 id 所在的分片，{@link ShortLinkShards#ofShortCode} 解不出时为 -1
+   * @param deltas short link id to number of clicks to add
+   * @return number of rows updated
+   */
+  public int addClickCounts(int shard, Map<Long, Long> deltas) {
+    if (deltas.isEmpty()) {
+      return 0;
+    }
+    List<Object[]> rows = new ArrayList<>(deltas.size());
+    deltas.forEach((id, delta) -> rows.add(new Object[] {id, delta}));
+    // 分片未知时只能按 id 查所有分区
+    UUID[] range =
+        shards.partitioned() && shard >= 0
+            ? new UUID[] {shards.lowerBound(shard), shards.upperBound(shard)}
+            : null;
+
+    int updated = 0;
+    for (int from = 0; from < rows.size(); from += MAX_ROWS_PER_STATEMENT) {
+      List<Object[]> chunk =
+          rows.subList(from, Math.min(rows.size(), from + MAX_ROWS_PER_STATEMENT));
+      updated += isPostgres() ? updateFromValues(chunk, range) : updateInBatch(chunk, range);
+    }
+    return updated;
+  }
+
+  /** One statement per chunk: update ... from (values (id, delta), ...) */
+  private int updateFromValues(List<Object[]> chunk, UUID[] range) {
+    StringBuilder sql =
+        new StringBuilder(64 + chunk.size() * 24)
+            .append(
+                "update short_links as s set click_count = coalesce(s.click_count, 0) + v.delta")
+            .append(" from (values ");
+    Object[] args = new Object[chunk.size() * 2 + (range == null ? 0 : 2)];
+    for (int i = 0; i < chunk.size(); i++) {
+      if (i > 0) {
+        sql.append(", ");
+      }
+      sql.append("(?::bigint, ?::bigint)");
+      args[i * 2] = chunk.get(i)[0];
+      args[i * 2 + 1] = chunk.get(i)[1];
+    }
+    sql.append(") as v(id, delta) where s.id = v.id");
+    if (range != null) {
+      sql.append(" and s.url_hash between ? and ?");
+      args[args.length - 2] = range[0];
+      args[args.length - 1] = range[1];
+    }
+    return jdbcTemplate.update(sql.toString(), args);
+  }
+
+  /** Portable fallback (H2 in tests) that still sends the chunk as one JDBC batch */
+  private int updateInBatch(List<Object[]> chunk, UUID[] range) {
+    List<Object[]> args = new ArrayList<>(chunk.size());
+    for (Object[] row : chunk) {
+      args.add(
+          range == null
+              ? new Object[] {row[1], row[0]}
+              : new Object[] {row[1], row[0], range[0], range[1]});
+    }
+    String sql = "update short_links set click_count = coalesce(click_count, 0) + ? where id = ?";
+    if (range != null) {
+      sql += " and url_hash between ? and ?";
+    }
+    int updated = 0;
+    for (int count : jdbcTemplate.batchUpdate(sql, args)) {
+      updated += Math.max(count, 0);
+    }
+    return updated;
+  }
+
+  boolean isPostgres() {
+    Boolean result = postgres;
+    if (result == null) {
+      String product =
+          jdbcTemplate.execute(
+              (ConnectionCallback<String>)
+                  connection -> connection.getMetaData().getDatabaseProductName());
+      result = product != null && product.toLowerCase(Locale.ROOT).contains("postgresql");
+      postgres = result;
+    }
+    return result;
+  }
+}
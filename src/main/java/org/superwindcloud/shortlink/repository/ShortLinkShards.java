@@ -0,0 +1,99 @@
+package org.superwindcloud.shortlink.repository;
+
+import java.math.BigInteger;
+import java.util.UUID;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.superwindcloud.shortlink.service.code.ShortCodeCodec;
+import org.superwindcloud.shortlink.util.UrlHashes;
+
+/**
+ * Maps links onto the {@code app.short-links.partitions} range partitions of short_links.
+ *
+ * <p>Partition {@code i} holds the url_hash values whose top 64 bits, read as unsigned, fall in the
+ * i-th of N equal slices. The shard of a link is therefore a function of its URL, so a dedup lookup
+ * by url_hash touches one partition. The block generator embeds the same shard in the short code,
+ * and {@link #ofShortCode} recovers it, so a redirect lookup is pruned to one partition as well.
+ * With one partition every method is trivial and nothing is decoded.
+ */
+@Component
+public class ShortLinkShards {
+
+  private static final BigInteger TWO_TO_64 = BigInteger.ONE.shiftLeft(64);
+
+  private final int count;
+  private final ShortCodeCodec codec;
+  // 每个分片 url_hash 的上下界（闭区间）
+  private final UUID[] lowerBounds;
+  private final UUID[] upperBounds;
+
+  public ShortLinkShards(
+      @Value("${app.short-links.partitions:1}") int count,
+      @Value("${app.short-code.length:6}") int length,
+      @Value("${app.short-code.secret:0}") long secret) {
+    if (count < 1) {
+      throw new IllegalArgumentException("app.short-links.partitions must be positive");
+    }
+    this.count = count;
+    this.codec = new ShortCodeCodec(length, secret);
+    this.lowerBounds = new UUID[count];
+    this.upperBounds = new UUID[count];
+    for (int shard = 0; shard < count; shard++) {
+      lowerBounds[shard] = new UUID(firstHighBits(shard), 0);
+      upperBounds[shard] =
+          shard == count - 1 ? new UUID(-1L, -1L) : new UUID(firstHighBits(shard + 1) - 1, -1L);
+    }
+  }
+
+  /** Number of partitions; 1 when short_links is a plain table */
+  public int count() {
+    return count;
+  }
+
+  /** Whether short_links is split into more than one partition */
+  public boolean partitioned() {
+    return count > 1;
+  }
+
+  /** Shard of the link for this original URL */
+  public int ofUrl(String originalUrl) {
+    return ofUrlHash(UrlHashes.of(originalUrl));
+  }
+
+  /** Shard holding this url_hash: floor(high64 * count / 2^64) */
+  public int ofUrlHash(UUID urlHash) {
+    return (int) Math.unsignedMultiplyHigh(urlHash.getMostSignificantBits(), count);
+  }
+
+  /**
+   * 从短码还原分片
+   *
+   * @return 分片编号；不是块生成器按当前长度和密钥生成的短码时返回 -1
+   */
+  public int ofShortCode(String shortCode) {
+    if (count == 1) {
+      return 0;
+    }
+    long value = codec.decode(shortCode);
+    return value < 0 ? -1 : (int) (value % count);
+  }
+
+  /** Smallest url_hash in this shard */
+  public UUID lowerBound(int shard) {
+    return lowerBounds[shard];
+  }
+
+  /** Largest url_hash in this shard */
+  public UUID upperBound(int shard) {
+    return upperBounds[shard];
+  }
+
+  /** 分片第一个值的高 64 位：ceil(shard * 2^64 / count) */
+  private long firstHighBits(int shard) {
+    BigInteger[] division =
+        BigInteger.valueOf(shard).multiply(TWO_TO_64).divideAndRemainder(BigInteger.valueOf(count));
+    BigInteger ceiling =
+        division[1].signum() == 0 ? division[0] : division[0].add(BigInteger.ONE);
+    return ceiling.longValue();
+  }
+}
@@ -0,0 +1,202 @@
+package org.superwindcloud.shortlink.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.superwindcloud.shortlink.repository.ShortLinkJdbcRepository;
+import org.superwindcloud.shortlink.repository.ShortLinkShards;
+import org.superwindcloud.shortlink.util.ShardedPendingCounts;
+import org.superwindcloud.shortlink.util.ThreadFactories;
+
+/**
+ * Write-behind click counter.
+ *
+ * <p>Redirects only bump a per-link counter in {@link ShardedPendingCounts}, under the shard
+ * decoded from the short code. A single flusher thread drains the pending deltas into one batched
+ * UPDATE per shard every {@code app.clicks.flush-interval-ms}, or earlier once {@code
+ * app.clicks.flush-threshold} clicks are pending. Those two settings bound how many clicks a crash
+ * can lose; a graceful shutdown flushes everything once the web server has stopped.
+ */
+@Component
+public class ClickCountAggregator implements SmartLifecycle {
+
+  /**
+   * Lifecycle phase of the click writers. They start before the web server and stop after it, so
+   * the final flush also covers the requests that graceful shutdown let finish.
+   */
+  public static final int LIFECYCLE_PHASE = SmartLifecycle.DEFAULT_PHASE - 4096;
+
+  private static final Logger log = LoggerFactory.getLogger(ClickCountAggregator.class);
+
+  private final ShortLinkJdbcRepository shortLinkJdbcRepository;
+  private final long flushIntervalMillis;
+  private final long flushThreshold;
+
+  private final ShardedPendingCounts pending;
+  private final AtomicBoolean flushRequested = new AtomicBoolean();
+  private final ReentrantLock flushLock = new ReentrantLock();
+  private final ScheduledExecutorService flusher;
+  private volatile boolean running;
+
+  private final Timer flushTimer;
+  private final Counter flushedClicks;
+  private final Counter failedFlushes;
+
+  public ClickCountAggregator(
+      ShortLinkJdbcRepository shortLinkJdbcRepository,
+      ShortLinkShards shards,
+      MeterRegistry meterRegistry,
+      @Value("${app.clicks.flush-interval-ms:1000}") long flushIntervalMillis,
+      @Value("${app.clicks.flush-threshold:10000}") long flushThreshold,
+      @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+    this.shortLinkJdbcRepository = shortLinkJdbcRepository;
+    this.flushIntervalMillis = flushIntervalMillis;
+    this.flushThreshold = flushThreshold;
+    this.pending = new ShardedPendingCounts(shards.count());
+    this.flusher =
+        Executors.newSingleThreadScheduledExecutor(
+            ThreadFactories.background("click-count-flusher", virtualThreads));
+
+    Gauge.builder("shortlink.clicks.pending", pending, ShardedPendingCounts::total)
+        .description("Clicks recorded in memory but not yet written to the database")
+        .register(meterRegistry);
+    Gauge.builder("shortlink.clicks.pending.links", pending, ShardedPendingCounts::size)
+        .description("Distinct short links with pending clicks")
+        .register(meterRegistry);
+    this.flushTimer =
+        Timer.builder("shortlink.clicks.flush")
+            .description("Latency of one batched click count flush")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+    this.flushedClicks = meterRegistry.counter("shortlink.clicks.flushed");
+    this.failedFlushes = meterRegistry.counter("shortlink.clicks.flush.failures");
+  }
+
+  @Override
+  public void start() {
+    if (running) {
+      return;
+    }
+    flusher.scheduleWithFixedDelay(
+        this::flushQuietly, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    running = true;
+  }
+
+  /**
+   * Records one click for the given short link id without touching the database
+   *
+   * @param shard {@link ShortLinkShards#ofShortCode} 解出的分片，未知时为 -1
+   * @param shortLinkId 短链接 id
+   */
+  public void record(int shard, long shortLinkId) {
+    record(shard, shortLinkId, 1);
+  }
+
+  /** Records clicks counted elsewhere, e.g. redirects served from a CDN cache */
+  public void record(int shard, long shortLinkId, long clicks) {
+    pending.add(shard, shortLinkId, clicks);
+    if (pending.total() >= flushThreshold && flushRequested.compareAndSet(false, true)) {
+      try {
+        flusher.execute(this::flushQuietly);
+      } catch (RejectedExecutionException e) {
+        // 关闭过程中，剩余点击由 stop() 里的最后一次 flush 写入
+        flushRequested.set(false);
+      }
+    }
+  }
+
+  /** Number of clicks for the given link that have not been written yet */
+  public long pendingClicks(long shortLinkId) {
+    return pending.get(shortLinkId);
+  }
+
+  /**
+   * Writes all pending deltas, one batch per shard
+   *
+   * @return number of clicks written
+   */
+  public long flush() {
+    flushLock.lock();
+    try {
+      flushRequested.set(false);
+      Map<Integer, Map<Long, Long>> deltasByShard = pending.drain();
+      if (deltasByShard.isEmpty()) {
+        return 0;
+      }
+      long clicks = 0;
+      long start = System.nanoTime();
+      Iterator<Map.Entry<Integer, Map<Long, Long>>> shards = deltasByShard.entrySet().iterator();
+      try {
+        while (shards.hasNext()) {
+          Map.Entry<Integer, Map<Long, Long>> shard = shards.next();
+          shortLinkJdbcRepository.addClickCounts(shard.getKey(), shard.getValue());
+          long shardClicks = shard.getValue().values().stream().mapToLong(Long::longValue).sum();
+          flushedClicks.increment(shardClicks);
+          clicks += shardClicks;
+          shards.remove();
+        }
+      } catch (RuntimeException e) {
+        // 写库失败时把还没写入的分片放回去，等下一轮再写
+        deltasByShard.forEach(pending::addAll);
+        failedFlushes.increment();
+        throw e;
+      } finally {
+        flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+      }
+      return clicks;
+    } finally {
+      flushLock.unlock();
+    }
+  }
+
+  @Override
+  public void stop() {
+    running = false;
+    flusher.shutdown();
+    try {
+      if (!flusher.awaitTermination(flushIntervalMillis, TimeUnit.MILLISECONDS)) {
+        flusher.shutdownNow();
+      }
+    } catch (InterruptedException e) {
+      flusher.shutdownNow();
+      Thread.currentThread().interrupt();
+    }
+    try {
+      log.info("Flushed {} pending clicks on shutdown", flush());
+    } catch (RuntimeException e) {
+      log.error("Final click count flush failed, {} clicks lost", pending.total(), e);
+    }
+  }
+
+  @Override
+  public boolean isRunning() {
+    return running;
+  }
+
+  @Override
+  public int getPhase() {
+    return LIFECYCLE_PHASE;
+  }
+
+  private void flushQuietly() {
+    try {
+      flush();
+    } catch (RuntimeException e) {
+      log.warn("Click count flush failed, {} clicks kept for retry", pending.total(), e);
+    }
+  }
+}
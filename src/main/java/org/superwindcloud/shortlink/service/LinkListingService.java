@@ -0,0 +1,90 @@
+package org.superwindcloud.shortlink.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.superwindcloud.shortlink.repository.LinkCursor;
+import org.superwindcloud.shortlink.repository.LinkSummary;
+import org.superwindcloud.shortlink.repository.ShortLinkJdbcRepository;
+
+/**
+ * Pages through and exports all links, newest first, with keyset pagination instead of OFFSET.
+ *
+ * <p>Click counts include clicks still pending in {@link ClickCountAggregator}.
+ */
+@Service
+public class LinkListingService {
+
+  private final ShortLinkJdbcRepository shortLinkJdbcRepository;
+  private final ClickCountAggregator clickCountAggregator;
+  private final TransactionTemplate readOnlyTransaction;
+
+  public LinkListingService(
+      ShortLinkJdbcRepository shortLinkJdbcRepository,
+      ClickCountAggregator clickCountAggregator,
+      PlatformTransactionManager transactionManager) {
+    this.shortLinkJdbcRepository = shortLinkJdbcRepository;
+    this.clickCountAggregator = clickCountAggregator;
+    this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+    this.readOnlyTransaction.setReadOnly(true);
+  }
+
+  /**
+   * 读取一页
+   *
+   * @param after 上一页返回的游标，第一页传 null
+   * @param urlContains 原始 URL 需包含的子串，可以为 null
+   * @param limit 页大小
+   * @return 本页和下一页的游标，没有下一页时游标为 null
+   */
+  public LinkPage page(LinkCursor after, String urlContains, int limit) {
+    // 多取一行判断是否还有下一页，省掉一次 count
+    List<LinkSummary> rows = shortLinkJdbcRepository.findSummaryPage(after, urlContains, limit + 1);
+    boolean hasMore = rows.size() > limit;
+    List<LinkSummary> links = new ArrayList<>(Math.min(rows.size(), limit));
+    for (int i = 0; i < rows.size() && i < limit; i++) {
+      links.add(withPendingClicks(rows.get(i)));
+    }
+    return new LinkPage(links, hasMore ? links.get(links.size() - 1).cursor() : null);
+  }
+
+  /**
+   * 按页面顺序逐行导出全部链接，结果集由数据库游标分批读取，不会整表进堆
+   *
+   * @param urlContains 原始 URL 需包含的子串，可以为 null
+   * @param sink 逐行处理，抛出的异常会中止导出
+   */
+  public void export(String urlContains, Consumer<LinkSummary> sink) {
+    readOnlyTransaction.executeWithoutResult(
+        status -> {
+          try (Stream<LinkSummary> rows = shortLinkJdbcRepository.streamSummaries(urlContains)) {
+            rows.map(this::withPendingClicks).forEach(sink);
+          }
+        });
+  }
+
+  private LinkSummary withPendingClicks(LinkSummary row) {
+    long pending = clickCountAggregator.pendingClicks(row.id());
+    if (pending == 0) {
+      return row;
+    }
+    return new LinkSummary(
+        row.id(), row.shortCode(), row.originalUrl(), row.createdAt(), row.clickCount() + pending);
+  }
+
+  /**
+   * One page of the listing
+   *
+   * @param next 下一页的游标，最后一页为 null
+   */
+  public record LinkPage(List<LinkSummary> links, LinkCursor next) {
+
+    public LinkPage {
+      links = List.copyOf(links);
+    }
+  }
+}
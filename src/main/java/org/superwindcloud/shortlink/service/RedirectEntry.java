@@ -0,0 +1,22 @@
+package org.superwindcloud.shortlink.service;
+
+/**
+ * What the redirect path needs to know about a short link, cached per packed short code.
+ *
+ * <p>Immutable, so concurrent redirects can share one instance; clicks are counted by {@link
+ * ClickCountAggregator} rather than on the entry.
+ *
+ * @param id short link id, used to record clicks
+ * @param originalUrl redirect target
+ * @param redirectStatus the link's own redirect status, or {@link #DEFAULT}
+ * @param cacheMaxAge the link's own Cache-Control max-age in seconds, or {@link #DEFAULT}
+ */
+public record RedirectEntry(long id, String originalUrl, int redirectStatus, int cacheMaxAge) {
+
+  /** The link has no policy of its own and follows the global one */
+  public static final int DEFAULT = -1;
+
+  public RedirectEntry(long id, String originalUrl) {
+    this(id, originalUrl, DEFAULT, DEFAULT);
+  }
+}
@@ -0,0 +1,255 @@
+package org.superwindcloud.shortlink.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.superwindcloud.shortlink.cache.CacheInvalidation;
+import org.superwindcloud.shortlink.cache.CacheInvalidationBus;
+import org.superwindcloud.shortlink.util.BloomFilter;
+import org.superwindcloud.shortlink.util.ThreadFactories;
+
+/**
+ * Answers "this short code does not exist" without a database query.
+ *
+ * <p>A Bloom filter over every short code is built at startup by streaming the {@code short_code}
+ * column. New codes are added on create and announced to the other nodes over the cache
+ * invalidation bus. A periodic catch-up scan picks up codes whose announcement was missed. Codes
+ * that pass the filter but are missing in the database stay in a short-TTL negative cache until
+ * their creation is announced or scanned. Until the first build completes every code passes, so
+ * lookups behave as before.
+ *
+ * <p>A filter miss is only trusted while the bus delivers other nodes' announcements and has done
+ * so since the start of the last completed scan. Otherwise a code just created elsewhere could be
+ * missing here, so misses fall through to the database until a scan after the bus recovered.
+ */
+@Component
+public class ShortCodeFilter implements ApplicationRunner {
+
+  private static final Logger log = LoggerFactory.getLogger(ShortCodeFilter.class);
+
+  static final String CHANNEL_NAME = "shortCodeFilter";
+  private static final int FETCH_SIZE = 10_000;
+  // 序列值的提交顺序不保证单调，增量扫描往回多看一段，put 是幂等的
+  private static final long REFRESH_OVERLAP = 1_000;
+
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate readOnlyTransaction;
+  private final CacheInvalidationBus invalidationBus;
+  private final String origin = UUID.randomUUID().toString();
+  private final long expectedCodes;
+  private final double falsePositiveRate;
+  private final long refreshIntervalMillis;
+  private final Cache<String, Boolean> negativeCache;
+  private final ScheduledExecutorService refresher;
+
+  private volatile BloomFilter filter;
+  private final AtomicLong lastSeenId = new AtomicLong(-1);
+  // 过滤器是否包含其他节点创建的全部短码：总线断过就置 false，总线正常期间完成一次扫描后恢复
+  private volatile boolean complete;
+
+  private final Counter rejected;
+  private final Counter bypassed;
+  private final Counter negativeHits;
+  private final Counter falsePositives;
+
+  public ShortCodeFilter(
+      JdbcTemplate jdbcTemplate,
+      PlatformTransactionManager transactionManager,
+      CacheInvalidationBus invalidationBus,
+      MeterRegistry meterRegistry,
+      @Value("${app.short-code.filter.expected-codes:10000000}") long expectedCodes,
+      @Value("${app.short-code.filter.false-positive-rate:0.01}") double falsePositiveRate,
+      @Value("${app.short-code.filter.negative-ttl-ms:30000}") long negativeTtlMillis,
+      @Value("${app.short-code.filter.negative-max-size:100000}") long negativeMaxSize,
+      @Value("${app.short-code.filter.refresh-interval-ms:60000}") long refreshIntervalMillis,
+      @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+    // 独立的 JdbcTemplate 带上 fetch size，PostgreSQL 只有在事务里才会按批流式读取
+    this.jdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+    this.jdbcTemplate.setFetchSize(FETCH_SIZE);
+    this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+    this.readOnlyTransaction.setReadOnly(true);
+    this.invalidationBus = invalidationBus;
+    this.expectedCodes = expectedCodes;
+    this.falsePositiveRate = falsePositiveRate;
+    this.refreshIntervalMillis = refreshIntervalMillis;
+    this.refresher =
+        Executors.newSingleThreadScheduledExecutor(
+            ThreadFactories.background("short-code-filter-refresher", virtualThreads));
+    this.negativeCache =
+        Caffeine.newBuilder()
+            .maximumSize(negativeMaxSize)
+            .expireAfterWrite(Duration.ofMillis(negativeTtlMillis))
+            .build();
+
+    this.rejected = meterRegistry.counter("shortlink.filter.lookups", "result", "rejected");
+    this.bypassed = meterRegistry.counter("shortlink.filter.lookups", "result", "bypassed");
+    this.negativeHits = meterRegistry.counter("shortlink.filter.lookups", "result", "negative");
+    this.falsePositives =
+        meterRegistry.counter("shortlink.filter.lookups", "result", "false_positive");
+    Gauge.builder(
+            "shortlink.filter.false.positive.rate",
+            this,
+            f -> f.filter == null ? 0 : f.filter.expectedFalsePositiveRate())
+        .description("False positive probability implied by the Bloom filter fill ratio")
+        .register(meterRegistry);
+    Gauge.builder(
+            "shortlink.filter.memory", this, f -> f.filter == null ? 0 : f.filter.memoryBytes())
+        .baseUnit("bytes")
+        .register(meterRegistry);
+    Gauge.builder("shortlink.filter.negative.size", negativeCache, Cache::estimatedSize)
+        .register(meterRegistry);
+  }
+
+  @Override
+  public void run(ApplicationArguments args) {
+    invalidationBus.subscribe(this::onInvalidation);
+    try {
+      rebuild();
+    } catch (DataAccessException e) {
+      log.warn("Short code filter build failed, lookups fall through until the next refresh", e);
+    }
+    refresher.scheduleWithFixedDelay(
+        this::refresh, refreshIntervalMillis, refreshIntervalMillis, TimeUnit.MILLISECONDS);
+  }
+
+  @PreDestroy
+  void shutdown() {
+    refresher.shutdownNow();
+  }
+
+  /**
+   * 判断短码是否可能存在
+   *
+   * @return false 表示短码一定不存在，可以直接返回 404
+   */
+  public boolean mightExist(String shortCode) {
+    if (negativeCache.getIfPresent(shortCode) != null) {
+      negativeHits.increment();
+      return false;
+    }
+    BloomFilter current = filter;
+    if (current != null && !current.mightContain(shortCode)) {
+      if (!invalidationBus.receivesRemote()) {
+        complete = false;
+      }
+      if (!complete) {
+        // 可能是其他节点刚创建、通知还没到的短码，交给数据库判断
+        bypassed.increment();
+        return true;
+      }
+      rejected.increment();
+      return false;
+    }
+    return true;
+  }
+
+  /** Remembers a code that passed the filter but is not in the database */
+  public void recordMissing(String shortCode) {
+    BloomFilter current = filter;
+    // 只有过滤器说"可能存在"才算误判；过滤器未完整时放行的短码它本来就判了不存在
+    if (current != null && current.mightContain(shortCode)) {
+      falsePositives.increment();
+    }
+    negativeCache.put(shortCode, Boolean.TRUE);
+  }
+
+  /** Adds a freshly created code here and on every other node */
+  public void recordCreated(String shortCode) {
+    add(shortCode);
+    invalidationBus.publish(
+        new CacheInvalidation(
+            origin,
+            CHANNEL_NAME,
+            Base64.getEncoder().encodeToString(shortCode.getBytes(StandardCharsets.UTF_8))));
+  }
+
+  /** Picks up codes created elsewhere whose announcement never arrived */
+  void refresh() {
+    try {
+      if (filter == null) {
+        rebuild();
+      } else {
+        boolean receiving = invalidationBus.receivesRemote();
+        scanFrom(filter, lastSeenId.get() - REFRESH_OVERLAP);
+        complete = receiving && invalidationBus.receivesRemote();
+      }
+    } catch (RuntimeException e) {
+      // 异常会终止 scheduleWithFixedDelay 的后续执行，这里必须吞掉
+      log.warn("Short code filter refresh failed", e);
+    }
+  }
+
+  private void rebuild() {
+    boolean receiving = invalidationBus.receivesRemote();
+    Long rows = jdbcTemplate.queryForObject("select count(*) from short_links", Long.class);
+    long capacity = Math.max(expectedCodes, rows == null ? 0 : rows * 2);
+    BloomFilter next = new BloomFilter(capacity, falsePositiveRate);
+    long start = System.nanoTime();
+    long scanned = scanFrom(next, -1);
+    filter = next;
+    // 全量扫描结束到切换之间创建的短码还没进过过滤器，切换后补扫一次
+    scanFrom(next, lastSeenId.get() - REFRESH_OVERLAP);
+    complete = receiving && invalidationBus.receivesRemote();
+    log.info(
+        "Short code filter built from {} codes in {} ms, {} KiB",
+        scanned,
+        (System.nanoTime() - start) / 1_000_000,
+        next.memoryBytes() / 1024);
+  }
+
+  private long scanFrom(BloomFilter target, long afterId) {
+    long[] scanned = {0};
+    readOnlyTransaction.executeWithoutResult(
+        status ->
+            jdbcTemplate.query(
+                "select id, short_code from short_links where id > ? order by id",
+                rs -> {
+                  String shortCode = rs.getString(2);
+                  target.put(shortCode);
+                  // 通知丢失时负缓存里可能还留着这个短码
+                  negativeCache.invalidate(shortCode);
+                  lastSeenId.accumulateAndGet(rs.getLong(1), Math::max);
+                  scanned[0]++;
+                },
+                afterId));
+    return scanned[0];
+  }
+
+  private void add(String shortCode) {
+    negativeCache.invalidate(shortCode);
+    BloomFilter current = filter;
+    if (current != null) {
+      current.put(shortCode);
+    }
+  }
+
+  private void onInvalidation(CacheInvalidation invalidation) {
+    if (!CHANNEL_NAME.equals(invalidation.cacheName())
+        || origin.equals(invalidation.origin())
+        || invalidation.key() == null) {
+      return;
+    }
+    add(new String(Base64.getDecoder().decode(invalidation.key()), StandardCharsets.UTF_8));
+  }
+}
@@ -1,20 +1,43 @@
 package org.superwindcloud.shortlink.service;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
-import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.superwindcloud.shortlink.cache.LayeredCache;
 import org.superwindcloud.shortlink.config.CacheConfig;
 import org.superwindcloud.shortlink.entity.ShortLink;
+import org.superwindcloud.shortlink.repository.ReadReplicas;
+import org.superwindcloud.shortlink.repository.ShortLinkJdbcRepository;
 import org.superwindcloud.shortlink.repository.ShortLinkRepository;
+import org.superwindcloud.shortlink.repository.ShortLinkShards;
+import org.superwindcloud.shortlink.service.analytics.ClickAnalytics;
+import org.superwindcloud.shortlink.service.code.PackedShortCode;
+import org.superwindcloud.shortlink.service.code.ShortCodeGenerator;
 import org.superwindcloud.shortlink.util.DistributedLock;
+import org.superwindcloud.shortlink.util.Hashes;
+import org.superwindcloud.shortlink.util.SingleFlight;
 
 @Service
 public class ShortLinkService {
@@ -23,59 +46,201 @@ public class ShortLinkService {
   private final Cache originalUrlCache;
   private final Cache shortCodeCache;
   private final DistributedLock distributedLock;
+  private final ClickCountAggregator clickCountAggregator;
+  private final ClickAnalytics clickAnalytics;
+  private final ShortCodeGenerator shortCodeGenerator;
+  private final ShortLinkJdbcRepository shortLinkJdbcRepository;
+  private final ShortCodeFilter shortCodeFilter;
+  private final ReadReplicas readReplicas;
+  private final ShortLinkShards shards;
+  private final boolean upsertMode;
+  // 同一短码同时未命中时只查一次库
+  private final SingleFlight<Long, Optional<RedirectEntry>> redirectLoads = new SingleFlight<>();
+  private final Executor refreshExecutor;
+  private final long refreshAheadMillis;
+
+  private final Map<String, Timer> createTimers;
+  private final Counter collisionRetries;
+  private final Timer cacheLookups;
+  private final Timer databaseLookups;
+  private final Timer notFoundLookups;
+  private final Timer filteredLookups;
+  private final Counter refreshes;
 
-  private static final String CHARACTERS =
-      "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
-  private static final int SHORT_CODE_LENGTH = 6;
   private static final int MAX_GENERATION_ATTEMPTS = 10;
   private static final String LOCK_PREFIX = "shortlink:lock:";
+  private static final long URL_HASH_SEED = 0x5DEECE66DL;
+
+  private static final String CACHE_HIT = "cache_hit";
+  private static final String EXISTING = "existing";
+  private static final String CREATED = "created";
+  private static final String LOCK_FAIL = "lock_fail";
 
   public ShortLinkService(
       ShortLinkRepository shortLinkRepository,
       CacheManager cacheManager,
-      DistributedLock distributedLock) {
+      DistributedLock distributedLock,
+      ClickCountAggregator clickCountAggregator,
+      ClickAnalytics clickAnalytics,
+      ShortCodeGenerator shortCodeGenerator,
+      ShortLinkJdbcRepository shortLinkJdbcRepository,
+      ShortCodeFilter shortCodeFilter,
+      ReadReplicas readReplicas,
+      ShortLinkShards shards,
+      @Qualifier("applicationTaskExecutor") Executor refreshExecutor,
+      MeterRegistry meterRegistry,
+      @Value("${app.create.mode:lock}") String createMode,
+      @Value("${app.cache.l1.refresh-ahead-ms:0}") long refreshAheadMillis) {
     this.shortLinkRepository = shortLinkRepository;
     this.originalUrlCache = cacheManager.getCache(CacheConfig.ORIGINAL_URL_CACHE);
     this.shortCodeCache = cacheManager.getCache(CacheConfig.SHORT_CODE_CACHE);
     this.distributedLock = distributedLock;
+    this.clickCountAggregator = clickCountAggregator;
+    this.clickAnalytics = clickAnalytics;
+    this.shortCodeGenerator = shortCodeGenerator;
+    this.shortLinkJdbcRepository = shortLinkJdbcRepository;
+    this.shortCodeFilter = shortCodeFilter;
+    this.readReplicas = readReplicas;
+    this.shards = shards;
+    this.refreshExecutor = refreshExecutor;
+    this.refreshAheadMillis = refreshAheadMillis;
+    this.upsertMode = "upsert".equalsIgnoreCase(createMode);
+
+    String mode = upsertMode ? "upsert" : "lock";
+    Map<String, Timer> timers = new HashMap<>();
+    for (String outcome : new String[] {CACHE_HIT, EXISTING, CREATED, LOCK_FAIL, "error"}) {
+      timers.put(
+          outcome,
+          Timer.builder("shortlink.create")
+              .description("Latency of creating one short link, by how it ended")
+              .tag("mode", mode)
+              .tag("outcome", outcome)
+              .register(meterRegistry));
+    }
+    this.createTimers = Map.copyOf(timers);
+    this.collisionRetries =
+        Counter.builder("shortlink.create.retries")
+            .description("Short codes regenerated after colliding with an existing code")
+            .tag("outcome", "collision_retry")
+            .register(meterRegistry);
+    this.cacheLookups = lookupTimer(meterRegistry, "cache");
+    this.databaseLookups = lookupTimer(meterRegistry, "db");
+    this.notFoundLookups = lookupTimer(meterRegistry, "not_found");
+    // 短码非法或被布隆过滤器、负缓存排除，不碰任何缓存和数据库
+    this.filteredLookups = lookupTimer(meterRegistry, "filtered");
+    FunctionCounter.builder("shortlink.redirect.loads", redirectLoads, SingleFlight::loads)
+        .description("Database loads started for short codes missing from the cache")
+        .tag("outcome", "loaded")
+        .register(meterRegistry);
+    FunctionCounter.builder("shortlink.redirect.loads", redirectLoads, SingleFlight::coalesced)
+        .description("Cache misses that waited for a load already in flight")
+        .tag("outcome", "coalesced")
+        .register(meterRegistry);
+    this.refreshes =
+        Counter.builder("shortlink.redirect.refreshes")
+            .description("Background reloads of cached short codes nearing their L1 max age")
+            .register(meterRegistry);
+  }
+
+  private static Timer lookupTimer(MeterRegistry meterRegistry, String outcome) {
+    return Timer.builder("shortlink.redirect.lookups")
+        .description("Short code lookups by where the answer came from")
+        .tag("outcome", outcome)
+        .register(meterRegistry);
   }
 
-  /** Creates a short link from the original URL */
-  @Transactional
+  /**
+   * Creates a short link from the original URL.
+   *
+   * <p>Not wrapped in one transaction: each insert attempt commits or fails on its own, so a unique
+   * violation does not poison the retry that follows it.
+   */
   public ShortLink createShortLink(String originalUrl) {
+    long start = System.nanoTime();
+    String outcome = "error";
+    try {
+      Creation creation = upsertMode ? createWithUpsert(originalUrl) : createWithLock(originalUrl);
+      outcome = creation.outcome();
+      if (creation.shortLink() == null) {
+        throw new IllegalStateException("Another process is creating a short link for this URL");
+      }
+      return creation.shortLink();
+    } finally {
+      createTimers.get(outcome).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  /** 无锁模式：一条 insert ... on conflict do nothing，冲突时回读已有记录 */
+  private Creation createWithUpsert(String originalUrl) {
+    ShortLink cached = getCachedByOriginalUrl(originalUrl);
+    if (cached != null) {
+      return new Creation(cached, CACHE_HIT);
+    }
+    int shard = shards.ofUrl(originalUrl);
+    for (int attempt = 0; attempt < MAX_GENERATION_ATTEMPTS; attempt++) {
+      Optional<ShortLink> inserted =
+          shortLinkJdbcRepository.insertIfAbsent(
+              originalUrl, shortCodeGenerator.nextShortCode(shard));
+      if (inserted.isPresent()) {
+        shortCodeFilter.recordCreated(inserted.get().getShortCode());
+        readReplicas.recordWrite(inserted.get().getShortCode());
+        cacheShortLink(inserted.get());
+        return new Creation(inserted.get(), CREATED);
+      }
+      Optional<ShortLink> existing = shortLinkJdbcRepository.findByOriginalUrl(originalUrl);
+      if (existing.isPresent()) {
+        cacheShortLink(existing.get());
+        return new Creation(existing.get(), EXISTING);
+      }
+      // URL 没有冲突，说明是短码撞上了历史随机短码，换一个再试
+      collisionRetries.increment();
+    }
+    throw new IllegalStateException("Unable to generate unique short code after several attempts");
+  }
+
+  /**
+   * 加锁模式：Redis 分布式锁串行化同一 URL 的创建
+   *
+   * @return 锁被别的请求持有且链接还不存在时，结果里的链接为 null
+   */
+  private Creation createWithLock(String originalUrl) {
     String lockKey = LOCK_PREFIX + "url:" + hashForLock(originalUrl);
     String lockValue = UUID.randomUUID().toString();
 
     // 尝试获取分布式锁
     if (!distributedLock.tryLock(lockKey, lockValue)) {
-      // 如果无法获取锁，先检查是否已存在
-      Optional<ShortLink> existingLink = findExistingShortLink(originalUrl);
-      if (existingLink.isPresent()) {
-        return existingLink.get();
-      }
-      // 如果仍然不存在，抛出异常或返回已存在的链接
-      throw new IllegalStateException("Another process is creating a short link for this URL");
+      // 如果无法获取锁，先检查是否已存在；别的请求正在创建，副本多半还没有，直接读主库
+      Optional<ShortLink> existingLink = findExistingShortLink(originalUrl, false);
+      // 如果仍然不存在，由调用方抛出异常
+      return new Creation(
+          existingLink.orElse(null), existingLink.isPresent() ? EXISTING : LOCK_FAIL);
     }
 
     try {
-      // 获取锁后再次检查是否已存在
-      Optional<ShortLink> existingLink = findExistingShortLink(originalUrl);
+      // 获取锁后再次检查是否已存在，副本漏掉的行会在插入时撞唯一索引，再回主库读
+      Optional<ShortLink> existingLink = findExistingShortLink(originalUrl, true);
       if (existingLink.isPresent()) {
-        return existingLink.get();
+        return new Creation(existingLink.get(), EXISTING);
       }
 
+      // 块分配的短码互不冲突，重试只会在撞上历史随机短码时发生
+      // 短码里带上 URL 所在的分片，按短码查找时只查这一个分区
+      int shard = shards.ofUrl(originalUrl);
       for (int attempt = 0; attempt < MAX_GENERATION_ATTEMPTS; attempt++) {
-        String shortCode = generateShortCode();
+        String shortCode = shortCodeGenerator.nextShortCode(shard);
         ShortLink shortLink = new ShortLink(originalUrl, shortCode);
         try {
           ShortLink saved = shortLinkRepository.saveAndFlush(shortLink);
+          shortCodeFilter.recordCreated(saved.getShortCode());
+          readReplicas.recordWrite(saved.getShortCode());
           cacheShortLink(saved);
-          return saved;
+          return new Creation(saved, CREATED);
         } catch (DataIntegrityViolationException ex) {
-          Optional<ShortLink> concurrentLink = findExistingShortLink(originalUrl);
+          Optional<ShortLink> concurrentLink = findExistingShortLink(originalUrl, false);
           if (concurrentLink.isPresent()) {
-            return concurrentLink.get();
+            return new Creation(concurrentLink.get(), EXISTING);
           }
+          collisionRetries.increment();
         }
       }
 
@@ -87,92 +252,331 @@ public class ShortLinkService {
     }
   }
 
-  /** Finds a short link by its short code and increments the click count */
-  public Optional<ShortLink> findAndIncrementClickCount(String shortCode) {
-    Optional<ShortLink> existing = findByShortCode(shortCode);
-    if (existing.isEmpty()) {
-      return existing;
+  /**
+   * Creates short links for many URLs at once.
+   *
+   * <p>Duplicates inside the batch collapse to one link, existing rows are found with one query and
+   * new rows go in with one set-based insert per round. Always uses the lock-free path.
+   *
+   * @return original URL to its short link, for every distinct input URL
+   */
+  public Map<String, ShortLink> createShortLinks(Collection<String> originalUrls) {
+    Set<String> pending = new LinkedHashSet<>(originalUrls);
+    Map<String, ShortLink> result = new HashMap<>(pending.size() * 2);
+    for (Iterator<String> it = pending.iterator(); it.hasNext(); ) {
+      String originalUrl = it.next();
+      ShortLink cached = getCachedByOriginalUrl(originalUrl);
+      if (cached != null) {
+        result.put(originalUrl, cached);
+        it.remove();
+      }
+    }
+
+    for (int attempt = 0; attempt < MAX_GENERATION_ATTEMPTS && !pending.isEmpty(); attempt++) {
+      if (attempt > 0) {
+        // 上一轮剩下的 URL 都要换短码重试
+        collisionRetries.increment(pending.size());
+      }
+      for (ShortLink existing : shortLinkJdbcRepository.findByOriginalUrls(pending)) {
+        collect(existing, pending, result);
+      }
+      if (pending.isEmpty()) {
+        break;
+      }
+      Map<String, String> shortCodesByUrl = new LinkedHashMap<>(pending.size() * 2);
+      for (String originalUrl : pending) {
+        shortCodesByUrl.put(
+            originalUrl, shortCodeGenerator.nextShortCode(shards.ofUrl(originalUrl)));
+      }
+      // 没插进去的行要么被并发请求抢先创建，要么撞了短码，下一轮先查再插
+      for (ShortLink inserted : shortLinkJdbcRepository.insertAllIfAbsent(shortCodesByUrl)) {
+        shortCodeFilter.recordCreated(inserted.getShortCode());
+        readReplicas.recordWrite(inserted.getShortCode());
+        collect(inserted, pending, result);
+      }
     }
 
-    ShortLink link = existing.get();
-    incrementClickCount(link);
-    return Optional.of(link);
+    if (!pending.isEmpty()) {
+      throw new IllegalStateException(
+          "Unable to generate unique short codes for " + pending.size() + " URLs");
+    }
+    return result;
   }
 
-  /** Finds a short link by its short code without incrementing click count */
-  public Optional<ShortLink> findByShortCode(String shortCode) {
-    ShortLink cached = getFromCache(shortCodeCache, shortCode);
-    if (cached != null) {
-      return Optional.of(cached);
+  private void collect(ShortLink shortLink, Set<String> pending, Map<String, ShortLink> result) {
+    cacheShortLink(shortLink);
+    result.put(shortLink.getOriginalUrl(), shortLink);
+    pending.remove(shortLink.getOriginalUrl());
+  }
+
+  /**
+   * Resolves a short code for the redirect path and records the click.
+   *
+   * <p>Codes that cannot be packed, or that the {@link ShortCodeFilter} rules out, return empty
+   * without touching any cache or the database.
+   */
+  public Optional<RedirectEntry> resolveRedirect(String shortCode) {
+    return resolveRedirect(shortCode, null, null);
+  }
+
+  /**
+   * Resolves a short code for the redirect path and records the click and its click event.
+   *
+   * @param shortCode 短码
+   * @param referrer Referer 请求头，可以为 null
+   * @param userAgent User-Agent 请求头，可以为 null
+   * @return 重定向目标，短码不存在时为空
+   */
+  public Optional<RedirectEntry> resolveRedirect(
+      String shortCode, String referrer, String userAgent) {
+    Optional<RedirectEntry> entry = findRedirectEntry(shortCode);
+    if (entry.isPresent()) {
+      long id = entry.get().id();
+      // 点击先按分片记在内存里，由 ClickCountAggregator 按分片批量写回数据库
+      clickCountAggregator.record(shards.ofShortCode(shortCode), id);
+      // 点击事件进环形缓冲区，由 ClickAnalytics 的后台线程汇总
+      clickAnalytics.record(id, referrer, userAgent);
     }
-    Optional<ShortLink> result = shortLinkRepository.findByShortCode(shortCode);
-    result.ifPresent(this::cacheShortLink);
-    return result;
+    return entry;
   }
 
-  /** Generates a random short code */
-  private String generateShortCode() {
-    StringBuilder shortCode = new StringBuilder();
-    for (int i = 0; i < SHORT_CODE_LENGTH; i++) {
-      shortCode.append(CHARACTERS.charAt(ThreadLocalRandom.current().nextInt(CHARACTERS.length())));
+  /**
+   * Looks a short code up through the caches without recording a click.
+   *
+   * @param shortCode 短码
+   * @return 重定向目标，短码不存在时为空
+   */
+  public Optional<RedirectEntry> findRedirectEntry(String shortCode) {
+    long start = System.nanoTime();
+    long packed = PackedShortCode.pack(shortCode);
+    if (packed == PackedShortCode.INVALID || !shortCodeFilter.mightExist(shortCode)) {
+      filteredLookups.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+      return Optional.empty();
+    }
+    RedirectEntry entry = getFromCache(shortCodeCache, packed, RedirectEntry.class);
+    if (entry != null) {
+      refreshIfAging(shortCode, packed);
+      cacheLookups.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+      return Optional.of(entry);
     }
+    // 热点短码刚失效或节点刚重启时，并发的未命中共用一次查库
+    Optional<RedirectEntry> loaded = redirectLoads.load(packed, () -> loadRedirectEntry(shortCode));
+    Timer timer = loaded.isPresent() ? databaseLookups : notFoundLookups;
+    timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    return loaded;
+  }
 
-    return shortCode.toString();
+  /** 查库并回填缓存，不存在的短码记入负缓存 */
+  private Optional<RedirectEntry> loadRedirectEntry(String shortCode) {
+    Optional<ShortLink> loaded = shortLinkJdbcRepository.findByShortCode(shortCode);
+    if (loaded.isEmpty()) {
+      shortCodeFilter.recordMissing(shortCode);
+      return Optional.empty();
+    }
+    cacheShortLink(loaded.get());
+    return Optional.of(toRedirectEntry(loaded.get()));
   }
 
-  private void incrementClickCount(ShortLink shortLink) {
-    if (shortLink.getId() == null) {
+  /**
+   * 一级缓存里的条目写入超过 {@code app.cache.l1.refresh-ahead-ms} 后，命中时在后台重新查库。
+   *
+   * <p>还在被访问的短码在到达 {@code app.cache.l1.max-age-ms} 之前就换上新条目，不会过期后落到数据库上；不再被访问的条目照常过期。
+   */
+  private void refreshIfAging(String shortCode, long packed) {
+    if (refreshAheadMillis <= 0
+        || !(shortCodeCache instanceof LayeredCache layeredCache)
+        || layeredCache.localAgeMillis(packed) < refreshAheadMillis) {
       return;
     }
-    int updatedRows = shortLinkRepository.incrementClickCountById(shortLink.getId());
-    if (updatedRows > 0) {
-      long updatedClickCount =
-          shortLink.getClickCount() == null ? 1L : shortLink.getClickCount() + 1;
-      shortLink.setClickCount(updatedClickCount);
-      cacheShortLink(shortLink);
+    if (redirectLoads.loadAsync(packed, () -> loadRedirectEntry(shortCode), refreshExecutor)) {
+      refreshes.increment();
     }
   }
 
-  private Optional<ShortLink> findExistingShortLink(String originalUrl) {
-    ShortLink cached = getFromCache(originalUrlCache, originalUrl);
+  /**
+   * Adds clicks that were answered from a CDN cache and never reached this service.
+   *
+   * @param shortCode 短码
+   * @param hits 边缘缓存命中次数
+   * @return 短码不存在时返回 false
+   */
+  public boolean recordEdgeHits(String shortCode, long hits) {
+    if (hits <= 0) {
+      return false;
+    }
+    Optional<RedirectEntry> entry = findRedirectEntry(shortCode);
+    entry.ifPresent(
+        e -> clickCountAggregator.record(shards.ofShortCode(shortCode), e.id(), hits));
+    return entry.isPresent();
+  }
+
+  /**
+   * Sets or clears a link's own redirect status and Cache-Control max-age.
+   *
+   * <p>Null clears the link's value so it follows the global default again. The cached entry is
+   * evicted here and, through the invalidation bus, on every other node.
+   *
+   * @return the updated link, or empty if the code does not exist
+   */
+  public Optional<ShortLink> updateRedirectPolicy(
+      String shortCode, Integer redirectStatus, Integer cacheMaxAge) {
+    long packed = PackedShortCode.pack(shortCode);
+    if (packed == PackedShortCode.INVALID) {
+      return Optional.empty();
+    }
+    // 按短码里的分片只更新一个分区，不用 JPA 按 id 在每个分区里找
+    if (shortLinkJdbcRepository.updateRedirectPolicy(shortCode, redirectStatus, cacheMaxAge) == 0) {
+      return Optional.empty();
+    }
+    readReplicas.recordWrite(shortCode);
+    if (shortCodeCache != null) {
+      shortCodeCache.evict(packed);
+    }
+    return shortLinkJdbcRepository.findByShortCode(shortCode);
+  }
+
+  /**
+   * Finds a short link by its short code without incrementing click count.
+   *
+   * <p>Always reads the database so the caller gets its own copy; clicks not yet flushed by {@link
+   * ClickCountAggregator} are added to the returned count.
+   */
+  public Optional<ShortLink> findByShortCode(String shortCode) {
+    // 不存在的短码（扫描、拼写错误）在这里挡掉，不打到数据库
+    if (PackedShortCode.pack(shortCode) == PackedShortCode.INVALID
+        || !shortCodeFilter.mightExist(shortCode)) {
+      return Optional.empty();
+    }
+    Optional<ShortLink> result = shortLinkJdbcRepository.findByShortCode(shortCode);
+    if (result.isEmpty()) {
+      shortCodeFilter.recordMissing(shortCode);
+      return result;
+    }
+    ShortLink shortLink = result.get();
+    cacheShortLink(shortLink);
+    if (shortLink.getId() != null) {
+      long flushed = shortLink.getClickCount() == null ? 0 : shortLink.getClickCount();
+      shortLink.setClickCount(flushed + clickCountAggregator.pendingClicks(shortLink.getId()));
+    }
+    return result;
+  }
+
+  /**
+   * 按原始 URL 查已有链接，先查缓存
+   *
+   * @param onReplica 是否允许读副本，只有之后还会插入、能靠唯一索引兜底时才允许
+   */
+  private Optional<ShortLink> findExistingShortLink(String originalUrl, boolean onReplica) {
+    ShortLink cached = getCachedByOriginalUrl(originalUrl);
     if (cached != null) {
       return Optional.of(cached);
     }
-    Optional<ShortLink> result = shortLinkRepository.findByOriginalUrl(originalUrl);
+    Optional<ShortLink> result =
+        onReplica
+            ? shortLinkJdbcRepository.findByOriginalUrlOnReplica(originalUrl)
+            : shortLinkJdbcRepository.findByOriginalUrl(originalUrl);
     result.ifPresent(this::cacheShortLink);
     return result;
   }
 
-  private ShortLink getFromCache(Cache cache, String key) {
-    if (cache == null || key == null) {
+  /**
+   * 按原始 URL 查缓存：URL 哈希 → 短码 → 跳转条目，并校验完整 URL，哈希碰撞按未命中处理
+   *
+   * @return 只带 id、短码和原始 URL 的 ShortLink，未命中时为 null
+   */
+  private ShortLink getCachedByOriginalUrl(String originalUrl) {
+    if (originalUrl == null) {
       return null;
     }
-    return cache.get(key, ShortLink.class);
+    Long packed = getFromCache(originalUrlCache, urlHash(originalUrl), Long.class);
+    if (packed == null) {
+      return null;
+    }
+    RedirectEntry entry = getFromCache(shortCodeCache, packed, RedirectEntry.class);
+    if (entry == null || !entry.originalUrl().equals(originalUrl)) {
+      return null;
+    }
+    ShortLink shortLink = new ShortLink();
+    shortLink.setId(entry.id());
+    shortLink.setShortCode(PackedShortCode.unpack(packed));
+    shortLink.setOriginalUrl(entry.originalUrl());
+    if (entry.redirectStatus() != RedirectEntry.DEFAULT) {
+      shortLink.setRedirectStatus(entry.redirectStatus());
+    }
+    if (entry.cacheMaxAge() != RedirectEntry.DEFAULT) {
+      shortLink.setCacheMaxAge(entry.cacheMaxAge());
+    }
+    return shortLink;
   }
 
+  /**
+   * Preloads links into this node's L1 caches without writing them to the shared L2.
+   *
+   * <p>Entries already cached by live traffic are kept, they can only be fresher.
+   */
+  public void warmCache(Collection<ShortLink> shortLinks) {
+    for (ShortLink shortLink : shortLinks) {
+      long packed = PackedShortCode.pack(shortLink.getShortCode());
+      if (shortLink.getId() == null || packed == PackedShortCode.INVALID) {
+        continue;
+      }
+      putLocalIfAbsent(shortCodeCache, packed, toRedirectEntry(shortLink));
+      putLocalIfAbsent(originalUrlCache, urlHash(shortLink.getOriginalUrl()), packed);
+    }
+  }
+
+  private static void putLocalIfAbsent(Cache cache, Object key, Object value) {
+    if (cache instanceof LayeredCache layeredCache) {
+      layeredCache.putLocalIfAbsent(key, value);
+    } else if (cache != null) {
+      cache.putIfAbsent(key, value);
+    }
+  }
+
+  private <T> T getFromCache(Cache cache, Object key, Class<T> type) {
+    if (cache == null) {
+      return null;
+    }
+    return cache.get(key, type);
+  }
+
+  /** 缓存里只放不可变的 {@link RedirectEntry}，不放 JPA 实体 */
   private void cacheShortLink(ShortLink shortLink) {
-    if (shortLink == null) {
+    long packed = PackedShortCode.pack(shortLink.getShortCode());
+    if (shortLink.getId() == null || packed == PackedShortCode.INVALID) {
       return;
     }
-    if (originalUrlCache != null) {
-      originalUrlCache.put(shortLink.getOriginalUrl(), shortLink);
-    }
     if (shortCodeCache != null) {
-      shortCodeCache.put(shortLink.getShortCode(), shortLink);
+      shortCodeCache.put(packed, toRedirectEntry(shortLink));
     }
+    if (originalUrlCache != null) {
+      originalUrlCache.put(urlHash(shortLink.getOriginalUrl()), packed);
+    }
+  }
+
+  private static RedirectEntry toRedirectEntry(ShortLink shortLink) {
+    return new RedirectEntry(
+        shortLink.getId(),
+        shortLink.getOriginalUrl(),
+        shortLink.getRedirectStatus() == null
+            ? RedirectEntry.DEFAULT
+            : shortLink.getRedirectStatus(),
+        shortLink.getCacheMaxAge() == null ? RedirectEntry.DEFAULT : shortLink.getCacheMaxAge());
+  }
+
+  private static long urlHash(String originalUrl) {
+    return Hashes.hash64(originalUrl, URL_HASH_SEED);
   }
 
-  private String hashForLock(String value) {
+  static String hashForLock(String value) {
     try {
       MessageDigest digest = MessageDigest.getInstance("SHA-256");
-      byte[] hash = digest.digest(value.getBytes(StandardCharsets.UTF_8));
-      StringBuilder builder = new StringBuilder(hash.length * 2);
-      for (byte b : hash) {
-        builder.append(String.format("%02x", b));
-      }
-      return builder.toString();
+      return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
     } catch (NoSuchAlgorithmException e) {
       throw new IllegalStateException("SHA-256 is not available", e);
     }
   }
+
+  /** 单次创建的结果和指标标签，link 为 null 表示没拿到锁 */
+  private record Creation(ShortLink shortLink, String outcome) {}
 }
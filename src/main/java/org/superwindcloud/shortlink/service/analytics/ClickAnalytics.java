@@ -0,0 +1,347 @@
+package org.superwindcloud.shortlink.service.analytics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.superwindcloud.shortlink.repository.ClickRollupJdbcRepository;
+import org.superwindcloud.shortlink.repository.ClickRollupRow;
+import org.superwindcloud.shortlink.service.ClickCountAggregator;
+import org.superwindcloud.shortlink.util.Hashes;
+import org.superwindcloud.shortlink.util.ThreadFactories;
+
+/**
+ * Click events and their per-minute, per-hour and per-day rollups.
+ *
+ * <p>A redirect only offers a compact event (link id, timestamp, referrer hash, user agent class)
+ * to a {@link ClickEventRing} and returns. A single drainer thread folds the events into buckets
+ * every {@code app.analytics.flush-interval-ms}, or as soon as the ring passes three quarters full,
+ * and adds them to {@code click_rollups} with batched upserts. Buckets that fail to write are kept
+ * for the next round, up to a bound. The same thread feeds the {@link HotLinkTracker}.
+ *
+ * <p>When the drainer falls behind, {@code app.analytics.overflow} decides what a redirect does,
+ * see {@link ClickOverflowPolicy}. The drainer stops after the web server, in the same lifecycle
+ * phase as {@link ClickCountAggregator}, and drains the ring one last time.
+ */
+@Component
+public class ClickAnalytics implements SmartLifecycle {
+
+  private static final Logger log = LoggerFactory.getLogger(ClickAnalytics.class);
+
+  private static final long REFERRER_SEED = 0x2545F4914F6CDD1DL;
+  private static final RollupGranularity[] GRANULARITIES = RollupGranularity.values();
+  // BLOCK 策略每次让出 CPU 的时长
+  private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+  private final ClickRollupJdbcRepository clickRollupJdbcRepository;
+  private final HotLinkTracker hotLinkTracker;
+  private final boolean enabled;
+  private final long flushIntervalMillis;
+  private final int maxPendingBuckets;
+  private final ClickOverflowPolicy overflow;
+  private final int sampleRate;
+  private final long blockTimeoutNanos;
+  private final ClickEventRing ring;
+  private final int highWatermark;
+  private final ScheduledExecutorService drainer;
+  private final AtomicBoolean drainRequested = new AtomicBoolean();
+  private volatile boolean running;
+  private final ReentrantLock flushLock = new ReentrantLock();
+  // 只在持有 flushLock 时访问
+  private final Map<BucketKey, long[]> pending = new HashMap<>();
+
+  private final Counter droppedEvents;
+  private final Counter sampledOutEvents;
+  private final Counter blockedEvents;
+  private final Counter droppedBuckets;
+  private final Counter failedFlushes;
+  private final Timer flushTimer;
+
+  public ClickAnalytics(
+      ClickRollupJdbcRepository clickRollupJdbcRepository,
+      HotLinkTracker hotLinkTracker,
+      MeterRegistry meterRegistry,
+      @Value("${app.analytics.enabled:true}") boolean enabled,
+      @Value("${app.analytics.ring-capacity:65536}") int ringCapacity,
+      @Value("${app.analytics.flush-interval-ms:1000}") long flushIntervalMillis,
+      @Value("${app.analytics.max-pending-buckets:100000}") int maxPendingBuckets,
+      @Value("${app.analytics.overflow:drop}") String overflow,
+      @Value("${app.analytics.sample-rate:10}") int sampleRate,
+      @Value("${app.analytics.block-timeout-ms:5}") long blockTimeoutMillis,
+      @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+    if (sampleRate < 1) {
+      throw new IllegalArgumentException("app.analytics.sample-rate must be positive");
+    }
+    this.clickRollupJdbcRepository = clickRollupJdbcRepository;
+    this.hotLinkTracker = hotLinkTracker;
+    this.enabled = enabled;
+    this.flushIntervalMillis = flushIntervalMillis;
+    this.maxPendingBuckets = maxPendingBuckets;
+    this.overflow = ClickOverflowPolicy.parse(overflow);
+    this.sampleRate = sampleRate;
+    this.blockTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(blockTimeoutMillis);
+    this.ring = new ClickEventRing(ringCapacity);
+    this.highWatermark = ring.capacity() - ring.capacity() / 4;
+    this.drainer =
+        Executors.newSingleThreadScheduledExecutor(
+            ThreadFactories.background("click-analytics-drainer", virtualThreads));
+
+    Gauge.builder("shortlink.analytics.ring.size", ring, ClickEventRing::size)
+        .description("Click events waiting in the ring buffer")
+        .register(meterRegistry);
+    this.droppedEvents =
+        Counter.builder("shortlink.analytics.events.dropped")
+            .description("Click events dropped because the ring buffer was full")
+            .register(meterRegistry);
+    this.sampledOutEvents =
+        Counter.builder("shortlink.analytics.events.sampled")
+            .description("Click events skipped by sampling; the kept ones count for them")
+            .register(meterRegistry);
+    this.blockedEvents =
+        Counter.builder("shortlink.analytics.events.blocked")
+            .description("Click events that waited for a free slot before being accepted")
+            .register(meterRegistry);
+    this.droppedBuckets =
+        Counter.builder("shortlink.analytics.buckets.dropped")
+            .description("Rollup buckets dropped after failed writes piled up")
+            .register(meterRegistry);
+    this.failedFlushes = meterRegistry.counter("shortlink.analytics.flush.failures");
+    this.flushTimer =
+        Timer.builder("shortlink.analytics.flush")
+            .description("Latency of one batched rollup upsert")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+  }
+
+  @Override
+  public void start() {
+    if (running) {
+      return;
+    }
+    if (enabled) {
+      drainer.scheduleWithFixedDelay(
+          this::flushQuietly, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+    running = true;
+  }
+
+  /**
+   * 记录一次点击事件，只写内存，不做任何 I/O
+   *
+   * @param linkId 短链接 id
+   * @param referrer Referer 请求头，可以为 null
+   * @param userAgent User-Agent 请求头，可以为 null
+   */
+  public void record(long linkId, String referrer, String userAgent) {
+    if (!enabled) {
+      return;
+    }
+    int weight = 1;
+    if (overflow == ClickOverflowPolicy.SAMPLE && ring.size() >= highWatermark) {
+      requestDrain();
+      // 积压超过水位后只收 1/N 的事件，每个按 N 次计，汇总出的点击数仍是无偏估计
+      if (ThreadLocalRandom.current().nextInt(sampleRate) != 0) {
+        sampledOutEvents.increment();
+        return;
+      }
+      weight = sampleRate;
+    }
+    long timestampMillis = System.currentTimeMillis();
+    long referrerHash =
+        referrer == null || referrer.isEmpty() ? 0 : Hashes.hash64(referrer, REFERRER_SEED);
+    UserAgentClass userAgentClass = UserAgentClass.classify(userAgent);
+    if (ring.offer(linkId, timestampMillis, referrerHash, userAgentClass, weight)) {
+      if (ring.size() >= highWatermark) {
+        requestDrain();
+      }
+      return;
+    }
+    requestDrain();
+    if (overflow == ClickOverflowPolicy.BLOCK
+        && offerBlocking(linkId, timestampMillis, referrerHash, userAgentClass)) {
+      return;
+    }
+    droppedEvents.increment();
+  }
+
+  /**
+   * 读取一个链接在 {@code [from, to)} 内的汇总桶
+   *
+   * @param limit 最多返回的桶数
+   * @return 按时间升序，没有点击的桶不返回
+   */
+  public List<ClickRollupRow> rollups(
+      long linkId, RollupGranularity granularity, Instant from, Instant to, int limit) {
+    return clickRollupJdbcRepository.find(
+        linkId, granularity.name(), toUtc(from.toEpochMilli()), toUtc(to.toEpochMilli()), limit);
+  }
+
+  /**
+   * Drains up to one ring capacity of events and writes every pending bucket. The cap keeps a flush
+   * finite while redirects keep filling the ring; the rest waits for the next round.
+   *
+   * @return number of events drained
+   */
+  public int flush() {
+    flushLock.lock();
+    try {
+      drainRequested.set(false);
+      int events = 0;
+      int drained;
+      do {
+        drained = ring.drain(this::accumulate, ring.capacity() - events);
+        events += drained;
+      } while (drained > 0 && events < ring.capacity());
+      hotLinkTracker.publish(System.currentTimeMillis());
+      if (pending.isEmpty()) {
+        return events;
+      }
+      List<ClickRollupRow> rows = new ArrayList<>(pending.size());
+      pending.forEach(
+          (key, counts) ->
+              rows.add(
+                  new ClickRollupRow(
+                      key.linkId(),
+                      key.granularity().name(),
+                      toUtc(key.bucketStart()),
+                      counts[0],
+                      counts[UserAgentClass.BOT.ordinal()],
+                      counts[UserAgentClass.MOBILE.ordinal()],
+                      counts[UserAgentClass.DESKTOP.ordinal()])));
+      long start = System.nanoTime();
+      try {
+        clickRollupJdbcRepository.addAll(rows);
+      } catch (RuntimeException e) {
+        failedFlushes.increment();
+        if (pending.size() > maxPendingBuckets) {
+          // 数据库长时间不可用，丢掉积压的桶，避免内存无限增长
+          droppedBuckets.increment(pending.size());
+          pending.clear();
+        }
+        throw e;
+      } finally {
+        flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+      }
+      pending.clear();
+      return events;
+    } finally {
+      flushLock.unlock();
+    }
+  }
+
+  @Override
+  public void stop() {
+    running = false;
+    drainer.shutdown();
+    try {
+      if (!drainer.awaitTermination(flushIntervalMillis, TimeUnit.MILLISECONDS)) {
+        drainer.shutdownNow();
+      }
+    } catch (InterruptedException e) {
+      drainer.shutdownNow();
+      Thread.currentThread().interrupt();
+    }
+    if (!enabled) {
+      return;
+    }
+    try {
+      flush();
+    } catch (RuntimeException e) {
+      log.error("Final click rollup flush failed, {} buckets lost", pending.size(), e);
+    }
+  }
+
+  @Override
+  public boolean isRunning() {
+    return running;
+  }
+
+  @Override
+  public int getPhase() {
+    return ClickCountAggregator.LIFECYCLE_PHASE;
+  }
+
+  /** 让消费线程马上排空一次，不等下一个周期 */
+  private void requestDrain() {
+    if (running && drainRequested.compareAndSet(false, true)) {
+      try {
+        drainer.execute(this::flushQuietly);
+      } catch (RejectedExecutionException e) {
+        // 关闭过程中，剩余事件由 stop() 里的最后一次 flush 写入
+        drainRequested.set(false);
+      }
+    }
+  }
+
+  /**
+   * BLOCK 策略：隔一小段时间重试，直到消费线程腾出槽位或超时
+   *
+   * @return 超时或消费线程已停止时返回 false
+   */
+  private boolean offerBlocking(
+      long linkId, long timestampMillis, long referrerHash, UserAgentClass userAgentClass) {
+    long deadline = System.nanoTime() + blockTimeoutNanos;
+    while (running && System.nanoTime() < deadline) {
+      LockSupport.parkNanos(BLOCK_PARK_NANOS);
+      if (ring.offer(linkId, timestampMillis, referrerHash, userAgentClass)) {
+        blockedEvents.increment();
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void accumulate(
+      long linkId,
+      long timestampMillis,
+      long referrerHash,
+      UserAgentClass userAgentClass,
+      int weight) {
+    hotLinkTracker.record(linkId, timestampMillis, weight);
+    for (RollupGranularity granularity : GRANULARITIES) {
+      long[] counts =
+          pending.computeIfAbsent(
+              new BucketKey(linkId, granularity, granularity.bucketStart(timestampMillis)),
+              key -> new long[UserAgentClass.values().length]);
+      // OTHER 的序号是 0，正好用来存总数，其余下标按 UA 分类计数
+      counts[0] += weight;
+      if (userAgentClass != UserAgentClass.OTHER) {
+        counts[userAgentClass.ordinal()] += weight;
+      }
+    }
+  }
+
+  private void flushQuietly() {
+    try {
+      flush();
+    } catch (RuntimeException e) {
+      log.warn("Click rollup flush failed, {} buckets kept for retry", pending.size(), e);
+    }
+  }
+
+  private static LocalDateTime toUtc(long epochMillis) {
+    return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneOffset.UTC);
+  }
+
+  private record BucketKey(long linkId, RollupGranularity granularity, long bucketStart) {}
+}
@@ -0,0 +1,145 @@
+package org.superwindcloud.shortlink.service.analytics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded lock-free ring of click events, many producers and a single consumer.
+ *
+ * <p>Events are stored field by field in parallel primitive arrays, so recording one allocates
+ * nothing. Each slot carries a sequence number: a producer claims a slot with one CAS on the tail,
+ * fills it and publishes it by advancing the slot's sequence; the consumer reads only published
+ * slots and hands them back the same way. A full ring rejects the event instead of waiting.
+ */
+public final class ClickEventRing {
+
+  private final int mask;
+  private final AtomicLongArray sequences;
+  private final long[] linkIds;
+  private final long[] timestamps;
+  private final long[] referrerHashes;
+  private final byte[] userAgentClasses;
+  private final int[] weights;
+  private final AtomicLong tail = new AtomicLong();
+  // 只有消费线程读写
+  private long head;
+  // 每次 drain 结束时发布 head，供 size() 在其他线程读取
+  private volatile long consumed;
+
+  /**
+   * @param capacity 容量，向上取整到 2 的幂
+   */
+  public ClickEventRing(int capacity) {
+    if (capacity <= 0 || capacity > 1 << 30) {
+      throw new IllegalArgumentException("capacity must be between 1 and 2^30");
+    }
+    int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+    this.mask = size - 1;
+    this.sequences = new AtomicLongArray(size);
+    for (int i = 0; i < size; i++) {
+      sequences.set(i, i);
+    }
+    this.linkIds = new long[size];
+    this.timestamps = new long[size];
+    this.referrerHashes = new long[size];
+    this.userAgentClasses = new byte[size];
+    this.weights = new int[size];
+  }
+
+  /** Number of slots */
+  public int capacity() {
+    return mask + 1;
+  }
+
+  /**
+   * 写入一个事件，不阻塞
+   *
+   * @return 环已满时返回 false，事件被丢弃
+   */
+  public boolean offer(
+      long linkId, long timestampMillis, long referrerHash, UserAgentClass userAgentClass) {
+    return offer(linkId, timestampMillis, referrerHash, userAgentClass, 1);
+  }
+
+  /**
+   * 写入一个代表多次点击的事件，采样时使用，不阻塞
+   *
+   * @param weight 事件代表的点击数
+   * @return 环已满时返回 false，事件被丢弃
+   */
+  public boolean offer(
+      long linkId,
+      long timestampMillis,
+      long referrerHash,
+      UserAgentClass userAgentClass,
+      int weight) {
+    long position = tail.get();
+    int index;
+    while (true) {
+      index = (int) (position & mask);
+      long difference = sequences.getAcquire(index) - position;
+      if (difference == 0) {
+        if (tail.weakCompareAndSetVolatile(position, position + 1)) {
+          break;
+        }
+        position = tail.get();
+      } else if (difference < 0) {
+        // 槽位还没被消费线程归还
+        return false;
+      } else {
+        position = tail.get();
+      }
+    }
+    linkIds[index] = linkId;
+    timestamps[index] = timestampMillis;
+    referrerHashes[index] = referrerHash;
+    userAgentClasses[index] = (byte) userAgentClass.ordinal();
+    weights[index] = weight;
+    sequences.setRelease(index, position + 1);
+    return true;
+  }
+
+  /**
+   * 取出已发布的事件，只能由一个线程调用
+   *
+   * @param consumer 逐个接收事件
+   * @param max 最多取出的个数
+   * @return 取出的个数
+   */
+  public int drain(Consumer consumer, int max) {
+    int drained = 0;
+    while (drained < max) {
+      int index = (int) (head & mask);
+      if (sequences.getAcquire(index) != head + 1) {
+        break;
+      }
+      consumer.accept(
+          linkIds[index],
+          timestamps[index],
+          referrerHashes[index],
+          UserAgentClass.of(userAgentClasses[index]),
+          weights[index]);
+      sequences.setRelease(index, head + mask + 1);
+      head++;
+      drained++;
+    }
+    consumed = head;
+    return drained;
+  }
+
+  /** Approximate number of events waiting */
+  public int size() {
+    return (int) Math.max(0, Math.min(capacity(), tail.get() - consumed));
+  }
+
+  /** Receives drained events */
+  @FunctionalInterface
+  public interface Consumer {
+    void accept(
+        long linkId,
+        long timestampMillis,
+        long referrerHash,
+        UserAgentClass userAgentClass,
+        int weight);
+  }
+}
@@ -0,0 +1,28 @@
+package org.superwindcloud.shortlink.service.analytics;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/** What {@link ClickAnalytics#record} does once the click event ring backs up */
+public enum ClickOverflowPolicy {
+  /** Drop events that do not fit and count them; the redirect never waits */
+  DROP,
+  /** Past the high watermark keep one event in N, weighted N, so rollups stay unbiased */
+  SAMPLE,
+  /** Wait up to {@code app.analytics.block-timeout-ms} for a free slot, then drop */
+  BLOCK;
+
+  /**
+   * 解析配置值，大小写不敏感
+   *
+   * @throws IllegalArgumentException 无法识别时
+   */
+  public static ClickOverflowPolicy parse(String value) {
+    try {
+      return valueOf(value.trim().toUpperCase(Locale.ROOT));
+    } catch (IllegalArgumentException | NullPointerException e) {
+      throw new IllegalArgumentException(
+          "app.analytics.overflow must be one of " + Arrays.toString(values()), e);
+    }
+  }
+}
@@ -0,0 +1,180 @@
+package org.superwindcloud.shortlink.service.analytics;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.superwindcloud.shortlink.util.CountMinSketch;
+
+/**
+ * Links with the most redirects over a sliding window, in bounded memory.
+ *
+ * <p>The window ({@code app.hot-links.window-seconds}) is split into slices. Each slice holds a
+ * {@link CountMinSketch} of clicks per link and a fixed number of candidates, the links with the
+ * highest estimates seen so far in that slice. The oldest slice is cleared as time moves on, so a
+ * link that cools down drops out within one window. Memory depends on the sketch size and the
+ * candidate count, never on how many links exist.
+ *
+ * <p>{@link ClickAnalytics} feeds it from its drainer thread and republishes the ranking after
+ * every flush; readers only see that immutable snapshot. With {@code app.analytics.enabled=false}
+ * nothing feeds it, so the rank gauges are not registered and {@code /actuator/hotlinks} is off.
+ */
+@Component
+public final class HotLinkTracker {
+
+  private static final int SKETCH_DEPTH = 4;
+  private static final int SKETCH_WIDTH = 4096;
+  // 指标只按名次打标签，标签数固定
+  private static final int RANKED_GAUGES = 10;
+
+  private final Slice[] slices;
+  private final long sliceMillis;
+  private final int capacity;
+  private volatile List<HotLink> top = List.of();
+
+  public HotLinkTracker(
+      MeterRegistry meterRegistry,
+      @Value("${app.hot-links.window-seconds:60}") int windowSeconds,
+      @Value("${app.hot-links.slices:6}") int sliceCount,
+      @Value("${app.hot-links.capacity:100}") int capacity,
+      @Value("${app.analytics.enabled:true}") boolean analyticsEnabled) {
+    if (sliceCount < 1 || windowSeconds * 1000L < sliceCount) {
+      throw new IllegalArgumentException("app.hot-links.slices must be between 1 and the window");
+    }
+    this.sliceMillis = windowSeconds * 1000L / sliceCount;
+    this.capacity = capacity;
+    this.slices = new Slice[sliceCount];
+    for (int i = 0; i < sliceCount; i++) {
+      slices[i] = new Slice();
+    }
+    if (!analyticsEnabled) {
+      // 没有点击喂进来时排行永远为空，不导出一组恒为 0 的指标
+      return;
+    }
+    for (int rank = 1; rank <= RANKED_GAUGES; rank++) {
+      int index = rank - 1;
+      Gauge.builder("shortlink.hotlinks.clicks", this, tracker -> tracker.clicksAt(index))
+          .description("Estimated clicks in the sliding window of the link at this rank")
+          .tag("rank", Integer.toString(rank))
+          .register(meterRegistry);
+    }
+  }
+
+  /** Length of the sliding window */
+  public Duration window() {
+    return Duration.ofMillis(sliceMillis * slices.length);
+  }
+
+  /**
+   * 当前窗口内点击最多的链接
+   *
+   * @param limit 最多返回的个数，不超过 {@code app.hot-links.capacity}
+   * @return 按估计点击数降序，最多滞后一个汇总周期
+   */
+  public List<HotLink> top(int limit) {
+    List<HotLink> snapshot = top;
+    return snapshot.subList(0, Math.min(Math.max(limit, 0), snapshot.size()));
+  }
+
+  /** Counts one click; only called from the analytics drainer thread */
+  void record(long linkId, long timestampMillis) {
+    record(linkId, timestampMillis, 1);
+  }
+
+  /** Counts clicks represented by one sampled event; only called from the analytics drainer */
+  void record(long linkId, long timestampMillis, long clicks) {
+    long epoch = Math.floorDiv(timestampMillis, sliceMillis);
+    Slice slice = slices[(int) Math.floorMod(epoch, (long) slices.length)];
+    if (slice.epoch != epoch) {
+      if (epoch < slice.epoch) {
+        // 事件比窗口还旧，对应的分片已经复用
+        return;
+      }
+      slice.reset(epoch);
+    }
+    slice.offer(linkId, slice.sketch.add(linkId, clicks), capacity);
+  }
+
+  /** Recomputes the ranking over the live slices; only called from the analytics drainer thread */
+  void publish(long nowMillis) {
+    long oldestEpoch = Math.floorDiv(nowMillis, sliceMillis) - slices.length + 1;
+    List<Slice> live = new ArrayList<>(slices.length);
+    Set<Long> candidates = new HashSet<>();
+    for (Slice slice : slices) {
+      if (slice.epoch >= oldestEpoch) {
+        live.add(slice);
+        candidates.addAll(slice.candidates.keySet());
+      }
+    }
+    List<HotLink> ranking = new ArrayList<>(candidates.size());
+    for (long linkId : candidates) {
+      long clicks = 0;
+      for (Slice slice : live) {
+        clicks += slice.sketch.estimate(linkId);
+      }
+      ranking.add(new HotLink(linkId, clicks));
+    }
+    ranking.sort((a, b) -> Long.compare(b.clicks(), a.clicks()));
+    top = List.copyOf(ranking.subList(0, Math.min(capacity, ranking.size())));
+  }
+
+  private double clicksAt(int index) {
+    List<HotLink> snapshot = top;
+    return index < snapshot.size() ? snapshot.get(index).clicks() : 0;
+  }
+
+  /**
+   * One ranked link
+   *
+   * @param clicks 窗口内的估计点击数，只会偏大
+   */
+  public record HotLink(long linkId, long clicks) {}
+
+  /** Clicks of one time slice */
+  private static final class Slice {
+
+    private final CountMinSketch sketch = new CountMinSketch(SKETCH_DEPTH, SKETCH_WIDTH);
+    private final Map<Long, Long> candidates = new HashMap<>();
+    // 候选集中最小估计值的下界；估计值只增不减，缓存值过期也只会偏小
+    private long minEstimate;
+    private long epoch = Long.MIN_VALUE;
+
+    void reset(long newEpoch) {
+      sketch.clear();
+      candidates.clear();
+      minEstimate = 0;
+      epoch = newEpoch;
+    }
+
+    void offer(long linkId, long estimate, int capacity) {
+      if (candidates.size() < capacity || candidates.containsKey(linkId)) {
+        candidates.put(linkId, estimate);
+        return;
+      }
+      if (estimate <= minEstimate) {
+        return;
+      }
+      // 只有可能替换时才扫描一遍找真正的最小值
+      long minLinkId = 0;
+      long min = Long.MAX_VALUE;
+      for (Map.Entry<Long, Long> entry : candidates.entrySet()) {
+        if (entry.getValue() < min) {
+          min = entry.getValue();
+          minLinkId = entry.getKey();
+        }
+      }
+      minEstimate = min;
+      if (estimate > min) {
+        candidates.remove(minLinkId);
+        candidates.put(linkId, estimate);
+      }
+    }
+  }
+}
@@ -0,0 +1,43 @@
+package org.superwindcloud.shortlink.service.analytics;
+
+import java.time.Duration;
+import java.util.Locale;
+
+/** Bucket sizes of the click rollups; buckets are aligned to UTC */
+public enum RollupGranularity {
+  MINUTE(Duration.ofMinutes(1)),
+  HOUR(Duration.ofHours(1)),
+  DAY(Duration.ofDays(1));
+
+  private final long millis;
+
+  RollupGranularity(Duration size) {
+    this.millis = size.toMillis();
+  }
+
+  /** Bucket size in milliseconds */
+  public long millis() {
+    return millis;
+  }
+
+  /** Start of the bucket containing the given epoch millis */
+  public long bucketStart(long epochMillis) {
+    return Math.floorDiv(epochMillis, millis) * millis;
+  }
+
+  /**
+   * 解析查询参数，大小写不敏感
+   *
+   * @return 粒度，无法识别时返回 null
+   */
+  public static RollupGranularity parse(String value) {
+    if (value == null) {
+      return null;
+    }
+    try {
+      return valueOf(value.trim().toUpperCase(Locale.ROOT));
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+  }
+}
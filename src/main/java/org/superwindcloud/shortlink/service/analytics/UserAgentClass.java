@@ -0,0 +1,58 @@
+package org.superwindcloud.shortlink.service.analytics;
+
+import java.util.Locale;
+
+/** Coarse class of the client behind a redirect, derived from its User-Agent */
+public enum UserAgentClass {
+  OTHER,
+  BOT,
+  MOBILE,
+  DESKTOP;
+
+  private static final UserAgentClass[] VALUES = values();
+
+  private static final String[] BOT_MARKERS = {
+    "bot", "crawl", "spider", "slurp", "preview", "curl", "wget", "python", "java/", "okhttp",
+    "go-http"
+  };
+  private static final String[] MOBILE_MARKERS = {"mobile", "android", "iphone", "ipad", "ipod"};
+  private static final String[] DESKTOP_MARKERS = {"windows", "macintosh", "x11", "cros", "linux"};
+
+  /**
+   * 按 User-Agent 粗分类，只做子串匹配，不解析版本号
+   *
+   * @param userAgent 请求头，可以为 null
+   * @return 分类，无法判断时为 {@link #OTHER}
+   */
+  public static UserAgentClass classify(String userAgent) {
+    if (userAgent == null || userAgent.isEmpty()) {
+      return OTHER;
+    }
+    String ua = userAgent.toLowerCase(Locale.ROOT);
+    // 爬虫常在 UA 里冒充浏览器，先判断
+    if (containsAny(ua, BOT_MARKERS)) {
+      return BOT;
+    }
+    if (containsAny(ua, MOBILE_MARKERS)) {
+      return MOBILE;
+    }
+    if (containsAny(ua, DESKTOP_MARKERS)) {
+      return DESKTOP;
+    }
+    return OTHER;
+  }
+
+  /** Inverse of {@link #ordinal()} */
+  public static UserAgentClass of(int ordinal) {
+    return VALUES[ordinal];
+  }
+
+  private static boolean containsAny(String ua, String[] markers) {
+    for (String marker : markers) {
+      if (ua.contains(marker)) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,9 @@
+package org.superwindcloud.shortlink.service.code;
+
+/**
+ * A leased range of sequence values.
+ *
+ * @param start first value, inclusive
+ * @param end last value, exclusive
+ */
+public record IdBlock(long start, long end) {}
@@ -0,0 +1,13 @@
+package org.superwindcloud.shortlink.service.code;
+
+/** Leases contiguous ranges of sequence values so nodes can mint codes without coordination */
+public interface IdBlockAllocator {
+
+  /**
+   * 租用一段连续的序列值
+   *
+   * @param size 期望的段长度，实现可以按共享存储里已有的配置返回不同长度
+   * @return 本节点独占的序列值区间
+   */
+  IdBlock allocate(int size);
+}
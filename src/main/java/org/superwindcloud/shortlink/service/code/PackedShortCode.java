@@ -0,0 +1,61 @@
+package org.superwindcloud.shortlink.service.code;
+
+import java.util.Arrays;
+
+/**
+ * Packs a base62 short code of up to 10 characters into one {@code long}, 6 bits per character.
+ *
+ * <p>Each character is stored as its alphabet index plus one, so leading {@code '0'} characters are
+ * kept and every packed value is positive. Used as the in-memory key for redirect lookups instead
+ * of the code string.
+ */
+public final class PackedShortCode {
+
+  /** Returned by {@link #pack} for codes that cannot be packed */
+  public static final long INVALID = -1;
+
+  private static final int MAX_LENGTH = 10;
+  private static final int BITS_PER_CHAR = 6;
+  private static final byte[] INDEX = new byte[128];
+
+  static {
+    Arrays.fill(INDEX, (byte) -1);
+    for (int i = 0; i < ShortCodeGenerator.CHARACTERS.length(); i++) {
+      INDEX[ShortCodeGenerator.CHARACTERS.charAt(i)] = (byte) i;
+    }
+  }
+
+  private PackedShortCode() {}
+
+  /**
+   * 把短码打包成 long
+   *
+   * @return 打包后的值；为空、超过 10 位或含有字母表以外字符时返回 {@link #INVALID}
+   */
+  public static long pack(String shortCode) {
+    if (shortCode == null || shortCode.isEmpty() || shortCode.length() > MAX_LENGTH) {
+      return INVALID;
+    }
+    long packed = 0;
+    for (int i = 0; i < shortCode.length(); i++) {
+      char c = shortCode.charAt(i);
+      if (c >= INDEX.length || INDEX[c] < 0) {
+        return INVALID;
+      }
+      packed = (packed << BITS_PER_CHAR) | (INDEX[c] + 1);
+    }
+    return packed;
+  }
+
+  /** Restores the short code from a value produced by {@link #pack} */
+  public static String unpack(long packed) {
+    char[] buffer = new char[MAX_LENGTH];
+    int position = MAX_LENGTH;
+    while (packed != 0) {
+      buffer[--position] =
+          ShortCodeGenerator.CHARACTERS.charAt((int) (packed & ((1 << BITS_PER_CHAR) - 1)) - 1);
+      packed >>>= BITS_PER_CHAR;
+    }
+    return new String(buffer, position, MAX_LENGTH - position);
+  }
+}
@@ -0,0 +1,38 @@
+package org.superwindcloud.shortlink.service.code;
+
+import java.util.concurrent.ThreadLocalRandom;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Picks random characters; uniqueness is left to the database unique index.
+ *
+ * <p>Cannot be combined with {@code app.short-links.partitions} above 1: partitions only enforce
+ * short code uniqueness together with the url_hash, which only the block generator makes safe.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.short-code", name = "generator", havingValue = "random")
+public class RandomShortCodeGenerator implements ShortCodeGenerator {
+
+  private final int length;
+
+  public RandomShortCodeGenerator(
+      @Value("${app.short-code.length:6}") int length,
+      @Value("${app.short-links.partitions:1}") int partitions) {
+    if (partitions > 1) {
+      throw new IllegalArgumentException(
+          "app.short-code.generator=random cannot be used with app.short-links.partitions > 1");
+    }
+    this.length = length;
+  }
+
+  @Override
+  public String nextShortCode(int shard) {
+    StringBuilder shortCode = new StringBuilder(length);
+    for (int i = 0; i < length; i++) {
+      shortCode.append(CHARACTERS.charAt(ThreadLocalRandom.current().nextInt(CHARACTERS.length())));
+    }
+    return shortCode.toString();
+  }
+}
@@ -0,0 +1,28 @@
+package org.superwindcloud.shortlink.service.code;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.superwindcloud.shortlink.util.RedisCommands;
+
+/** Leases blocks with a single Redis INCRBY on a shared counter */
+@Component
+@ConditionalOnProperty(prefix = "app.short-code", name = "allocator", havingValue = "redis")
+public class RedisIdBlockAllocator implements IdBlockAllocator {
+
+  static final String COUNTER_KEY = "shortlink:code:sequence";
+
+  private final RedisCommands redisCommands;
+
+  public RedisIdBlockAllocator(RedisCommands redisCommands) {
+    this.redisCommands = redisCommands;
+  }
+
+  @Override
+  public IdBlock allocate(int size) {
+    Long end = redisCommands.incrBy(COUNTER_KEY, size);
+    if (end == null) {
+      throw new IllegalStateException("Redis INCRBY on " + COUNTER_KEY + " returned no value");
+    }
+    return new IdBlock(end - size, end);
+  }
+}
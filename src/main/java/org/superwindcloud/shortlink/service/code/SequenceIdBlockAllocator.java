@@ -0,0 +1,57 @@
+package org.superwindcloud.shortlink.service.code;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Leases blocks from a database sequence whose increment is the block size, so one nextval() call
+ * reserves a whole block.
+ */
+@Component
+@ConditionalOnProperty(
+    prefix = "app.short-code",
+    name = "allocator",
+    havingValue = "sequence",
+    matchIfMissing = true)
+public class SequenceIdBlockAllocator implements IdBlockAllocator {
+
+  static final String SEQUENCE_NAME = "short_code_block_seq";
+
+  private final JdbcTemplate jdbcTemplate;
+  private volatile long increment;
+
+  public SequenceIdBlockAllocator(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  @Override
+  public IdBlock allocate(int size) {
+    long step = increment;
+    if (step == 0) {
+      step = prepareSequence(size);
+      increment = step;
+    }
+    Long start = jdbcTemplate.queryForObject("select nextval('" + SEQUENCE_NAME + "')", Long.class);
+    if (start == null) {
+      throw new IllegalStateException("Sequence " + SEQUENCE_NAME + " returned no value");
+    }
+    return new IdBlock(start, start + step);
+  }
+
+  /** 序列不属于任何实体，ddl-auto 不会建它；已存在时沿用它的步长，改配置不会造成区间重叠 */
+  private long prepareSequence(int size) {
+    jdbcTemplate.execute(
+        "create sequence if not exists "
+            + SEQUENCE_NAME
+            + " start with 0 minvalue 0 increment by "
+            + size);
+    String step =
+        jdbcTemplate.queryForObject(
+            "select increment from information_schema.sequences"
+                + " where upper(sequence_name) = upper(?)",
+            String.class,
+            SEQUENCE_NAME);
+    return step == null ? size : Long.parseLong(step.trim());
+  }
+}
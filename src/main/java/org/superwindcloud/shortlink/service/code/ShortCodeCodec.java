@@ -0,0 +1,124 @@
+package org.superwindcloud.shortlink.service.code;
+
+/**
+ * Maps sequence values onto fixed-length base62 codes.
+ *
+ * <p>A keyed Feistel network permutes the value inside {@code [0, 62^length)} before it is
+ * base62-encoded, so consecutive ids produce unrelated looking codes while distinct ids still
+ * always produce distinct codes.
+ */
+public final class ShortCodeCodec {
+
+  private static final int ROUNDS = 4;
+  private static final int MAX_LENGTH = 10;
+
+  private final int length;
+  private final long capacity;
+  private final int halfBits;
+  private final long halfMask;
+  private final long[] roundKeys = new long[ROUNDS];
+
+  public ShortCodeCodec(int length, long secret) {
+    if (length < 1 || length > MAX_LENGTH) {
+      throw new IllegalArgumentException("Short code length must be between 1 and " + MAX_LENGTH);
+    }
+    this.length = length;
+    long domain = 1;
+    for (int i = 0; i < length; i++) {
+      domain *= ShortCodeGenerator.CHARACTERS.length();
+    }
+    this.capacity = domain;
+    // Feistel 需要偶数位宽，取能覆盖整个取值空间的最小偶数位
+    int bits = 64 - Long.numberOfLeadingZeros(domain - 1);
+    this.halfBits = (bits + 1) / 2;
+    this.halfMask = (1L << halfBits) - 1;
+    long state = secret;
+    for (int i = 0; i < ROUNDS; i++) {
+      state += 0x9E3779B97F4A7C15L;
+      roundKeys[i] = mix(state);
+    }
+  }
+
+  /** Number of distinct codes this codec can produce */
+  public long capacity() {
+    return capacity;
+  }
+
+  /**
+   * 把序列值编码为短码
+   *
+   * @param value 序列值，范围 {@code [0, capacity)}
+   * @return 固定长度的短码
+   */
+  public String encode(long value) {
+    if (value < 0 || value >= capacity) {
+      throw new IllegalStateException("Short code space exhausted at sequence value " + value);
+    }
+    // cycle walking：置换结果落在取值空间之外时继续置换，保证在 [0, capacity) 内仍是双射
+    long permuted = permute(value);
+    while (permuted >= capacity) {
+      permuted = permute(permuted);
+    }
+    char[] code = new char[length];
+    for (int i = length - 1; i >= 0; i--) {
+      code[i] = ShortCodeGenerator.CHARACTERS.charAt((int) (permuted % 62));
+      permuted /= 62;
+    }
+    return new String(code);
+  }
+
+  /**
+   * 把短码还原为序列值，{@link #encode} 的逆运算
+   *
+   * @param code 短码
+   * @return 序列值；长度不对或含有字母表以外字符时返回 -1
+   */
+  public long decode(String code) {
+    if (code == null || code.length() != length) {
+      return -1;
+    }
+    long permuted = 0;
+    for (int i = 0; i < length; i++) {
+      int index = ShortCodeGenerator.CHARACTERS.indexOf(code.charAt(i));
+      if (index < 0) {
+        return -1;
+      }
+      permuted = permuted * 62 + index;
+    }
+    // 沿着 encode 的 cycle walking 反向走回取值空间
+    long value = unpermute(permuted);
+    while (value >= capacity) {
+      value = unpermute(value);
+    }
+    return value;
+  }
+
+  private long permute(long value) {
+    long left = value >>> halfBits;
+    long right = value & halfMask;
+    for (long key : roundKeys) {
+      long next = left ^ (mix(right ^ key) & halfMask);
+      left = right;
+      right = next;
+    }
+    return (left << halfBits) | right;
+  }
+
+  private long unpermute(long value) {
+    long left = value >>> halfBits;
+    long right = value & halfMask;
+    for (int i = ROUNDS - 1; i >= 0; i--) {
+      long previous = right ^ (mix(left ^ roundKeys[i]) & halfMask);
+      right = left;
+      left = previous;
+    }
+    return (left << halfBits) | right;
+  }
+
+  /** splitmix64 finalizer */
+  private static long mix(long z) {
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return z ^ (z >>> 31);
+  }
+}
@@ -0,0 +1,21 @@
+package org.superwindcloud.shortlink.service.code;
+
+/**
+ * Source of new short codes.
+ *
+ * <p>Selected with {@code app.short-code.generator}: {@code block} (default) hands out
+ * collision-free codes from leased id blocks, {@code random} keeps the original random picker.
+ */
+public interface ShortCodeGenerator {
+
+  /** Alphabet shared by every generator, also used to validate incoming codes */
+  String CHARACTERS = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
+
+  /**
+   * 生成一个新的短码
+   *
+   * @param shard 链接所在的分片，见 {@code ShortLinkShards}；未分区时为 0
+   * @return 短码，只包含 {@link #CHARACTERS} 中的字符，分片可以从短码还原
+   */
+  String nextShortCode(int shard);
+}
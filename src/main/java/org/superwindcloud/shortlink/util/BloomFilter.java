@@ -0,0 +1,80 @@
+package org.superwindcloud.shortlink.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free Bloom filter over strings.
+ *
+ * <p>Bits live in an {@link AtomicLongArray} and are set with CAS, so concurrent {@link #put} and
+ * {@link #mightContain} calls need no locking. Positions come from double hashing of two 64-bit
+ * hashes of the string's chars.
+ */
+public final class BloomFilter {
+
+  private final AtomicLongArray words;
+  private final long bitSize;
+  private final int hashFunctions;
+  private final AtomicLong bitsSet = new AtomicLong();
+
+  /**
+   * 按预期元素数和误判率确定位数组大小和哈希函数个数
+   *
+   * @param expectedInsertions 预期元素个数
+   * @param falsePositiveRate 期望误判率，例如 0.01
+   */
+  public BloomFilter(long expectedInsertions, double falsePositiveRate) {
+    long n = Math.max(1, expectedInsertions);
+    long bits = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+    long wordCount = Math.max(1, (bits + 63) / 64);
+    if (wordCount > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Bloom filter too large: " + bits + " bits");
+    }
+    this.words = new AtomicLongArray((int) wordCount);
+    this.bitSize = wordCount * 64;
+    this.hashFunctions = Math.max(1, (int) Math.round((double) bitSize / n * Math.log(2)));
+  }
+
+  /** Adds the value; safe to call concurrently */
+  public void put(String value) {
+    long h1 = Hashes.hash64(value, 0x9E3779B97F4A7C15L);
+    long h2 = Hashes.hash64(value, 0xC2B2AE3D27D4EB4FL) | 1;
+    for (int i = 0; i < hashFunctions; i++) {
+      long bit = Long.remainderUnsigned(h1 + i * h2, bitSize);
+      int index = (int) (bit >>> 6);
+      long mask = 1L << bit;
+      long word = words.get(index);
+      while ((word & mask) == 0) {
+        long witness = words.compareAndExchange(index, word, word | mask);
+        if (witness == word) {
+          bitsSet.incrementAndGet();
+          break;
+        }
+        word = witness;
+      }
+    }
+  }
+
+  /** False means the value was definitely never added */
+  public boolean mightContain(String value) {
+    long h1 = Hashes.hash64(value, 0x9E3779B97F4A7C15L);
+    long h2 = Hashes.hash64(value, 0xC2B2AE3D27D4EB4FL) | 1;
+    for (int i = 0; i < hashFunctions; i++) {
+      long bit = Long.remainderUnsigned(h1 + i * h2, bitSize);
+      if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /** False positive probability implied by the current fill ratio */
+  public double expectedFalsePositiveRate() {
+    return Math.pow((double) bitsSet.get() / bitSize, hashFunctions);
+  }
+
+  /** Size of the bit array in bytes */
+  public long memoryBytes() {
+    return bitSize / 8;
+  }
+}
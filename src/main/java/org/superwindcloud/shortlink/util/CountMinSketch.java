@@ -0,0 +1,89 @@
+package org.superwindcloud.shortlink.util;
+
+import java.util.Arrays;
+
+/**
+ * Count-min sketch over long keys.
+ *
+ * <p>Memory is fixed at {@code depth * width} counters whatever the number of distinct keys. An
+ * estimate never undercounts; it overcounts by at most {@code e / width} of the total with
+ * probability {@code 1 - e^-depth}. Updates are conservative (only the minimal rows grow), which
+ * tightens estimates for skewed streams. Not thread-safe.
+ */
+public final class CountMinSketch {
+
+  private static final long[] SEEDS = {
+    0x9E3779B97F4A7C15L,
+    0xC2B2AE3D27D4EB4FL,
+    0x165667B19E3779F9L,
+    0xD6E8FEB86659FD93L,
+    0xFF51AFD7ED558CCDL,
+    0xC4CEB9FE1A85EC53L,
+    0x27D4EB2F165667C5L,
+    0x85EBCA77C2B2AE63L
+  };
+
+  private final int depth;
+  private final int mask;
+  private final long[] counters;
+  private long total;
+
+  /**
+   * @param depth 行数，即哈希函数个数，1 到 8
+   * @param width 每行计数器个数，向上取整到 2 的幂
+   */
+  public CountMinSketch(int depth, int width) {
+    if (depth < 1 || depth > SEEDS.length) {
+      throw new IllegalArgumentException("depth must be between 1 and " + SEEDS.length);
+    }
+    if (width < 1 || width > 1 << 24) {
+      throw new IllegalArgumentException("width must be between 1 and 2^24");
+    }
+    int size = width == 1 ? 1 : Integer.highestOneBit(width - 1) << 1;
+    this.depth = depth;
+    this.mask = size - 1;
+    this.counters = new long[depth * size];
+  }
+
+  /**
+   * 累加计数
+   *
+   * @return 累加后的估计值
+   */
+  public long add(long key, long count) {
+    total += count;
+    long updated = estimate(key) + count;
+    for (int row = 0; row < depth; row++) {
+      int slot = slot(key, row);
+      // 保守更新：只把小于新估计值的计数器抬上去
+      if (counters[slot] < updated) {
+        counters[slot] = updated;
+      }
+    }
+    return updated;
+  }
+
+  /** Estimated count of the key, never below the true count */
+  public long estimate(long key) {
+    long estimate = Long.MAX_VALUE;
+    for (int row = 0; row < depth; row++) {
+      estimate = Math.min(estimate, counters[slot(key, row)]);
+    }
+    return estimate;
+  }
+
+  /** Sum of all counts added since the last {@link #clear} */
+  public long total() {
+    return total;
+  }
+
+  /** Resets every counter */
+  public void clear() {
+    Arrays.fill(counters, 0);
+    total = 0;
+  }
+
+  private int slot(long key, int row) {
+    return row * (mask + 1) + (int) (Hashes.hash64(key, SEEDS[row]) & mask);
+  }
+}
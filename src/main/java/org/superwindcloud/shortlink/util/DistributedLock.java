@@ -1,21 +1,49 @@
 package org.superwindcloud.shortlink.util;
 
-import java.nio.charset.StandardCharsets;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
-import org.springframework.data.redis.connection.ReturnType;
-import org.springframework.data.redis.core.RedisCallback;
-import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Component;
 
+/**
+ * Redis lock built on {@code SET NX PX} and a compare-and-delete script.
+ *
+ * <p>Acquire and release are timed as {@code shortlink.lock.acquire} (outcome acquired, contended
+ * or error) and {@code shortlink.lock.release} (released, or expired when the key had already timed
+ * out or changed owner).
+ */
 @Component
 public class DistributedLock {
 
-  private final StringRedisTemplate redisTemplate;
+  private final RedisCommands redisCommands;
+
+  private final Timer acquired;
+  private final Timer contended;
+  private final Timer acquireErrors;
+  private final Timer released;
+  private final Timer expired;
+  private final Timer releaseErrors;
 
   private static final long DEFAULT_EXPIRE_TIME = 10; // 10秒
 
-  public DistributedLock(StringRedisTemplate redisTemplate) {
-    this.redisTemplate = redisTemplate;
+  // 脚本只加载一次，之后走 EVALSHA，NOSCRIPT 时由 RedisTemplate 自动回退到 EVAL
+  private static final RedisCommands.Script<Long> RELEASE_SCRIPT =
+      RedisCommands.script(
+          "lock_release",
+          "if redis.call('get', KEYS[1]) == ARGV[1] then"
+              + " return redis.call('del', KEYS[1]) else return 0 end",
+          Long.class);
+
+  public DistributedLock(RedisCommands redisCommands, MeterRegistry meterRegistry) {
+    this.redisCommands = redisCommands;
+    this.acquired = timer(meterRegistry, "shortlink.lock.acquire", "acquired");
+    this.contended = timer(meterRegistry, "shortlink.lock.acquire", "contended");
+    this.acquireErrors = timer(meterRegistry, "shortlink.lock.acquire", "error");
+    this.released = timer(meterRegistry, "shortlink.lock.release", "released");
+    this.expired = timer(meterRegistry, "shortlink.lock.release", "expired");
+    this.releaseErrors = timer(meterRegistry, "shortlink.lock.release", "error");
   }
 
   /**
@@ -27,9 +55,16 @@ public class DistributedLock {
    * @return 是否获取成功
    */
   public boolean tryLock(String lockKey, String lockValue, long expireTime) {
-    Boolean result =
-        redisTemplate.opsForValue().setIfAbsent(lockKey, lockValue, expireTime, TimeUnit.SECONDS);
-    return result != null && result;
+    long start = System.nanoTime();
+    try {
+      boolean locked =
+          redisCommands.setIfAbsent(lockKey, lockValue, Duration.ofSeconds(expireTime));
+      (locked ? acquired : contended).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+      return locked;
+    } catch (RuntimeException e) {
+      acquireErrors.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+      throw e;
+    }
   }
 
   /**
@@ -40,19 +75,16 @@ public class DistributedLock {
    * @return 是否释放成功
    */
   public boolean releaseLock(String lockKey, String lockValue) {
-    String script =
-        "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end";
-    Long result =
-        redisTemplate.execute(
-            (RedisCallback<Long>)
-                connection ->
-                    connection.eval(
-                        script.getBytes(StandardCharsets.UTF_8),
-                        ReturnType.INTEGER,
-                        1,
-                        lockKey.getBytes(StandardCharsets.UTF_8),
-                        lockValue.getBytes(StandardCharsets.UTF_8)));
-    return result != null && result == 1;
+    long start = System.nanoTime();
+    try {
+      Long result = redisCommands.eval(RELEASE_SCRIPT, List.of(lockKey), lockValue);
+      boolean unlocked = result != null && result == 1;
+      (unlocked ? released : expired).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+      return unlocked;
+    } catch (RuntimeException e) {
+      releaseErrors.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+      throw e;
+    }
   }
 
   /**
@@ -65,4 +97,8 @@ public class DistributedLock {
   public boolean tryLock(String lockKey, String lockValue) {
     return tryLock(lockKey, lockValue, DEFAULT_EXPIRE_TIME);
   }
+
+  private static Timer timer(MeterRegistry meterRegistry, String name, String outcome) {
+    return Timer.builder(name).tag("outcome", outcome).register(meterRegistry);
+  }
 }
@@ -0,0 +1,39 @@
+package org.superwindcloud.shortlink.util;
+
+/** Fast non-cryptographic 64-bit string hashes for in-memory indexes */
+public final class Hashes {
+
+  private Hashes() {}
+
+  /**
+   * 计算字符串的 64 位哈希，不同 seed 得到相互独立的哈希值
+   *
+   * @param value 待哈希的字符串
+   * @param seed 种子
+   * @return 64 位哈希值
+   */
+  public static long hash64(String value, long seed) {
+    long h = seed ^ value.length();
+    for (int i = 0; i < value.length(); i++) {
+      h = (h ^ value.charAt(i)) * 0x100000001B3L;
+      h = Long.rotateLeft(h, 23);
+    }
+    h = (h ^ (h >>> 33)) * 0xFF51AFD7ED558CCDL;
+    h = (h ^ (h >>> 33)) * 0xC4CEB9FE1A85EC53L;
+    return h ^ (h >>> 33);
+  }
+
+  /**
+   * 计算 long 的 64 位哈希（murmur3 finalizer）
+   *
+   * @param value 待哈希的值
+   * @param seed 种子
+   * @return 64 位哈希值
+   */
+  public static long hash64(long value, long seed) {
+    long h = value ^ seed;
+    h = (h ^ (h >>> 33)) * 0xFF51AFD7ED558CCDL;
+    h = (h ^ (h >>> 33)) * 0xC4CEB9FE1A85EC53L;
+    return h ^ (h >>> 33);
+  }
+}
@@ -0,0 +1,80 @@
+package org.superwindcloud.shortlink.util;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-id counts waiting to be written, for write-behind counters.
+ *
+ * <p>Writers bump a per-id {@link LongAdder} without taking a lock, so a hot id does not serialize
+ * its callers on a map bin. {@link #drain()} takes what every adder holds and drops adders that
+ * stayed at zero for a whole cycle. An add can race with that removal and land in an adder that is
+ * no longer mapped. The drain takes what reached the removed adder before its final read, and the
+ * writer, which checks the mapping after adding, moves anything later into the live adder. Both use
+ * {@link LongAdder#sumThenReset()}, so every count is drained exactly once.
+ */
+public final class PendingCounts {
+
+  private final ConcurrentHashMap<Long, LongAdder> counts = new ConcurrentHashMap<>();
+  private final LongAdder total = new LongAdder();
+
+  /** Adds to the pending count of the id */
+  public void add(long id, long delta) {
+    LongAdder adder = counts.computeIfAbsent(id, key -> new LongAdder());
+    adder.add(delta);
+    total.add(delta);
+    if (counts.get(id) != adder) {
+      // drain 刚把这个 adder 当作空闲移出，它最后一次读之后加上的部分由这里转移
+      long orphaned = adder.sumThenReset();
+      if (orphaned != 0) {
+        total.add(-orphaned);
+        add(id, orphaned);
+      }
+    }
+  }
+
+  /** Pending count of the id */
+  public long get(long id) {
+    LongAdder adder = counts.get(id);
+    return adder == null ? 0 : adder.sum();
+  }
+
+  /** Pending count over all ids */
+  public long total() {
+    return total.sum();
+  }
+
+  /** Number of ids holding an adder, including ones idle since the last drain */
+  public int size() {
+    return counts.size();
+  }
+
+  /**
+   * 取走所有非零的待写增量，并移除上一轮起一直为零的 id
+   *
+   * @return 每个 id 取走的增量，调用方写库失败时用 {@link #add} 放回
+   */
+  public Map<Long, Long> drain() {
+    Map<Long, Long> deltas = new HashMap<>();
+    long drained = 0;
+    for (Map.Entry<Long, LongAdder> entry : counts.entrySet()) {
+      LongAdder adder = entry.getValue();
+      // sum() 之后到达的点击留在 adder 里，只减去已读到的部分
+      long delta = adder.sum();
+      if (delta != 0) {
+        adder.add(-delta);
+      } else if (counts.remove(entry.getKey(), adder)) {
+        // 移出前后并发加上的部分：这里取到的由 drain 带走，之后的由写入方自己转移
+        delta = adder.sumThenReset();
+      }
+      if (delta != 0) {
+        deltas.put(entry.getKey(), delta);
+        drained += delta;
+      }
+    }
+    total.add(-drained);
+    return deltas;
+  }
+}
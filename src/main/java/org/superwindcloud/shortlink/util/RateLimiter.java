@@ -1,59 +1,210 @@
 package org.superwindcloud.shortlink.util;
 
-import java.nio.charset.StandardCharsets;
-import org.springframework.data.redis.connection.ReturnType;
-import org.springframework.data.redis.core.RedisCallback;
-import org.springframework.data.redis.core.StringRedisTemplate;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+/**
+ * Per-key rate limiter: a local token bucket on each node plus a global budget shared through
+ * Redis.
+ *
+ * <p>{@link #isAllowed} only touches in-memory state, so a slow or unavailable Redis never delays a
+ * request. Permits granted locally are counted and pushed to Redis in one pipelined batch of
+ * preloaded {@code EVALSHA} calls per sync interval. When the cluster-wide count for a key reaches
+ * its limit, the key is rejected on this node until the window ends. If a sync fails, nodes keep
+ * enforcing their local buckets only.
+ */
 @Component
 public class RateLimiter {
 
-  private final StringRedisTemplate redisTemplate;
+  private static final Logger log = LoggerFactory.getLogger(RateLimiter.class);
 
-  public RateLimiter(StringRedisTemplate redisTemplate) {
-    this.redisTemplate = redisTemplate;
+  static final String KEY_PREFIX = "shortlink:ratelimit:";
+
+  // 窗口计数：INCRBY 后只要键还没有过期时间就补上，键已存在时也不会丢 TTL
+  static final RedisCommands.Script<Long> WINDOW_SCRIPT =
+      RedisCommands.script(
+          "ratelimit_window",
+          "local count = redis.call('incrby', KEYS[1], ARGV[1])"
+              + " if redis.call('pttl', KEYS[1]) < 0 then"
+              + " redis.call('pexpire', KEYS[1], ARGV[2]) end"
+              + " return count",
+          Long.class);
+
+  private final RedisCommands redisCommands;
+  private final Cache<String, KeyState> states;
+  private final Set<KeyState> dirty = ConcurrentHashMap.newKeySet();
+  private final long syncIntervalMillis;
+  private final ScheduledExecutorService syncer;
+  private final Counter syncFailures;
+
+  private volatile boolean syncFailing;
+
+  public RateLimiter(
+      RedisCommands redisCommands,
+      MeterRegistry meterRegistry,
+      @Value("${app.rate-limit.sync-interval-ms:200}") long syncIntervalMillis,
+      @Value("${app.rate-limit.max-keys:100000}") long maxKeys,
+      @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+    this.redisCommands = redisCommands;
+    this.syncIntervalMillis = syncIntervalMillis;
+    this.states =
+        Caffeine.newBuilder()
+            .maximumSize(maxKeys)
+            .expireAfterAccess(Duration.ofMinutes(10))
+            .build();
+    this.syncer =
+        Executors.newSingleThreadScheduledExecutor(
+            ThreadFactories.background("rate-limit-syncer", virtualThreads));
+    this.syncFailures = meterRegistry.counter("shortlink.ratelimit.sync.failures");
+    Gauge.builder("shortlink.ratelimit.keys", states, Cache::estimatedSize).register(meterRegistry);
+  }
+
+  @PostConstruct
+  void start() {
+    syncer.scheduleWithFixedDelay(
+        this::sync, syncIntervalMillis, syncIntervalMillis, TimeUnit.MILLISECONDS);
+  }
+
+  @PreDestroy
+  void shutdown() {
+    syncer.shutdownNow();
   }
 
   /**
-   * 限流检查
+   * 限流检查，只读写本机内存，不等待 Redis
    *
    * @param key 限流的键（如IP地址、用户ID等）
-   * @param limit 限制次数
+   * @param limit 限制次数，同时也是本机令牌桶的容量
    * @param duration 限制时间窗口（秒）
    * @return 是否允许通过
    */
   public boolean isAllowed(String key, int limit, int duration) {
-    String script =
-        "local key = KEYS[1] "
-            + "local limit = tonumber(ARGV[1]) "
-            + "local window = tonumber(ARGV[2]) "
-            + "local current = redis.call('GET', key) "
-            + "if current == false then "
-            + "  redis.call('SET', key, 1) "
-            + "  redis.call('EXPIRE', key, window) "
-            + "  return 1 "
-            + "end "
-            + "current = tonumber(current) "
-            + "if current < limit then "
-            + "  redis.call('INCR', key) "
-            + "  return 1 "
-            + "else "
-            + "  return 0 "
-            + "end";
-
-    Long result =
-        redisTemplate.execute(
-            (RedisCallback<Long>)
-                connection ->
-                    connection.eval(
-                        script.getBytes(StandardCharsets.UTF_8),
-                        ReturnType.INTEGER,
-                        1,
-                        key.getBytes(StandardCharsets.UTF_8),
-                        String.valueOf(limit).getBytes(StandardCharsets.UTF_8),
-                        String.valueOf(duration).getBytes(StandardCharsets.UTF_8)));
-
-    return result != null && result == 1;
+    KeyState state = states.get(key, k -> new KeyState(k, limit, duration, System.nanoTime()));
+    long blockedUntil = state.blockedUntilMillis;
+    if (blockedUntil != 0 && System.currentTimeMillis() < blockedUntil) {
+      return false;
+    }
+    if (!state.bucket.tryAcquire(System.nanoTime())) {
+      return false;
+    }
+    // 先计数再登记，同步线程先摘除再取数，两者交错时增量不会丢
+    state.unsynced.increment();
+    dirty.add(state);
+    return true;
+  }
+
+  /**
+   * 距离该键下一次可能放行的时间
+   *
+   * @param key 限流的键
+   * @return 毫秒数，未知的键返回 0
+   */
+  public long retryAfterMillis(String key) {
+    KeyState state = states.getIfPresent(key);
+    if (state == null) {
+      return 0;
+    }
+    long local =
+        TimeUnit.NANOSECONDS.toMillis(state.bucket.nanosUntilNextPermit(System.nanoTime()));
+    long global = state.blockedUntilMillis - System.currentTimeMillis();
+    return Math.max(0, Math.max(local, global));
+  }
+
+  /** Pushes the permits granted since the last sync and applies the cluster-wide counts */
+  void sync() {
+    try {
+      pushBatch();
+      if (syncFailing) {
+        syncFailing = false;
+        log.info("Rate limit sync with Redis recovered");
+      }
+    } catch (RuntimeException e) {
+      // 异常会终止 scheduleWithFixedDelay 的后续执行，这里必须吞掉；本批增量直接丢弃
+      syncFailures.increment();
+      if (!syncFailing) {
+        syncFailing = true;
+        log.warn("Rate limit sync with Redis failed, enforcing local buckets only", e);
+      }
+    }
+  }
+
+  private void pushBatch() {
+    List<KeyState> batch = new ArrayList<>();
+    List<Long> deltas = new ArrayList<>();
+    for (Iterator<KeyState> it = dirty.iterator(); it.hasNext(); ) {
+      KeyState state = it.next();
+      it.remove();
+      long delta = state.unsynced.sumThenReset();
+      if (delta > 0) {
+        batch.add(state);
+        deltas.add(delta);
+      }
+    }
+    if (batch.isEmpty()) {
+      return;
+    }
+    long now = System.currentTimeMillis();
+    List<Object> counts =
+        redisCommands.pipeline(
+            "ratelimit_sync",
+            pipeline -> {
+              for (int i = 0; i < batch.size(); i++) {
+                KeyState state = batch.get(i);
+                pipeline.eval(
+                    WINDOW_SCRIPT,
+                    List.of(state.redisKey(now)),
+                    Long.toString(deltas.get(i)),
+                    Long.toString(state.windowMillis * 2));
+              }
+            });
+    for (int i = 0; i < batch.size(); i++) {
+      if (counts.get(i) instanceof Long count) {
+        batch.get(i).applyGlobalCount(count, now);
+      }
+    }
+  }
+
+  private static final class KeyState {
+    private final String key;
+    private final long limit;
+    private final long windowMillis;
+    private final TokenBucket bucket;
+    private final LongAdder unsynced = new LongAdder();
+    private volatile long blockedUntilMillis;
+
+    private KeyState(String key, int limit, int duration, long nowNanos) {
+      this.key = key;
+      this.limit = limit;
+      this.windowMillis = TimeUnit.SECONDS.toMillis(duration);
+      this.bucket = new TokenBucket(limit, duration, TimeUnit.SECONDS, nowNanos);
+    }
+
+    private String redisKey(long nowMillis) {
+      return KEY_PREFIX + key + ":" + nowMillis / windowMillis;
+    }
+
+    private void applyGlobalCount(long count, long nowMillis) {
+      // 全局预算用完后本窗口剩余时间内直接拒绝，下个窗口开始自然解除
+      blockedUntilMillis = count >= limit ? (nowMillis / windowMillis + 1) * windowMillis : 0;
+    }
   }
 }
@@ -0,0 +1,297 @@
+package org.superwindcloud.shortlink.util;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+/**
+ * The app's single entry point to Redis, on top of {@link StringRedisTemplate}.
+ *
+ * <p>Every call is timed as {@code shortlink.redis.commands} tagged with the command and outcome.
+ * Lua scripts are declared once with {@link #script} and always run by SHA. Single calls fall back
+ * to {@code EVAL} on {@code NOSCRIPT} through the template. Pipelines send {@code SCRIPT LOAD}
+ * ahead of a script's first use on this node, and again after a {@code NOSCRIPT} error.
+ */
+@Component
+public class RedisCommands {
+
+  private static final int SCAN_BATCH = 500;
+
+  private final StringRedisTemplate redisTemplate;
+  private final MeterRegistry meterRegistry;
+  private final Map<String, Timer> successTimers = new ConcurrentHashMap<>();
+  private final Map<String, Timer> errorTimers = new ConcurrentHashMap<>();
+  private final Set<String> loadedScripts = ConcurrentHashMap.newKeySet();
+
+  public RedisCommands(StringRedisTemplate redisTemplate, MeterRegistry meterRegistry) {
+    this.redisTemplate = redisTemplate;
+    this.meterRegistry = meterRegistry;
+  }
+
+  /**
+   * 声明 Lua 脚本，SHA1 只计算一次，适合放在静态常量里
+   *
+   * @param name 脚本名，用作指标标签
+   * @param source 脚本源码
+   * @param resultType 返回值类型
+   * @return 可反复执行的脚本
+   */
+  public static <T> Script<T> script(String name, String source, Class<T> resultType) {
+    return new Script<>(name, new DefaultRedisScript<>(source, resultType));
+  }
+
+  /** SET key value NX PX ttl */
+  public boolean setIfAbsent(String key, String value, Duration ttl) {
+    return Boolean.TRUE.equals(
+        timed("set_nx", () -> redisTemplate.opsForValue().setIfAbsent(key, value, ttl)));
+  }
+
+  /** INCRBY key delta */
+  public Long incrBy(String key, long delta) {
+    return timed("incrby", () -> redisTemplate.opsForValue().increment(key, delta));
+  }
+
+  /** GET key */
+  public byte[] get(byte[] key) {
+    return execute("get", connection -> connection.stringCommands().get(key));
+  }
+
+  /** SET key value PX ttl */
+  public void set(byte[] key, byte[] value, Duration ttl) {
+    execute(
+        "set_px", connection -> connection.stringCommands().pSetEx(key, ttl.toMillis(), value));
+  }
+
+  /** DEL key */
+  public void del(byte[] key) {
+    execute("del", connection -> connection.keyCommands().del(key));
+  }
+
+  /**
+   * 用 SCAN 遍历匹配的键并分批 DEL，不像 KEYS 那样阻塞 Redis
+   *
+   * @param pattern SCAN 的 MATCH 模式
+   * @return 删除的键数
+   */
+  public long delMatching(String pattern) {
+    return execute(
+        "scan_del",
+        connection -> {
+          ScanOptions options = ScanOptions.scanOptions().match(pattern).count(SCAN_BATCH).build();
+          long deleted = 0;
+          List<byte[]> batch = new ArrayList<>(SCAN_BATCH);
+          try (Cursor<byte[]> cursor = connection.keyCommands().scan(options)) {
+            while (cursor.hasNext()) {
+              batch.add(cursor.next());
+              if (batch.size() == SCAN_BATCH) {
+                deleted += delAll(connection, batch);
+              }
+            }
+          }
+          return deleted + delAll(connection, batch);
+        });
+  }
+
+  /** PUBLISH channel message */
+  public void publish(String channel, String message) {
+    timed(
+        "publish",
+        () -> {
+          redisTemplate.convertAndSend(channel, message);
+          return null;
+        });
+  }
+
+  /**
+   * 以 EVALSHA 执行脚本，服务端没有缓存时由 RedisTemplate 回退到 EVAL
+   *
+   * @param script {@link #script} 声明的脚本
+   * @param keys KEYS
+   * @param args ARGV
+   * @return 脚本返回值
+   */
+  public <T> T eval(Script<T> script, List<String> keys, String... args) {
+    return timed(
+        "script:" + script.name(),
+        () -> redisTemplate.execute(script.redisScript(), keys, (Object[]) args));
+  }
+
+  /**
+   * 执行任意命令，用于上面没有封装的命令
+   *
+   * @param command 命令名，用作指标标签
+   * @param action 在连接上执行的操作
+   * @return 操作的返回值
+   */
+  public <T> T execute(String command, RedisCallback<T> action) {
+    return timed(command, () -> redisTemplate.execute(action));
+  }
+
+  /**
+   * 在一次往返里发送多条命令
+   *
+   * @param name 管道名，指标标签为 {@code pipeline:<name>}
+   * @param commands 向管道里追加命令
+   * @return 每条追加命令的结果，顺序与追加顺序一致
+   */
+  public List<Object> pipeline(String name, Consumer<Pipeline> commands) {
+    return timed(
+        "pipeline:" + name,
+        () -> {
+          List<Integer> loads = new ArrayList<>();
+          List<String> loadedShas = new ArrayList<>();
+          List<Object> results;
+          try {
+            results =
+                redisTemplate.executePipelined(
+                    (RedisCallback<Object>)
+                        connection -> {
+                          commands.accept(new Pipeline(connection, loads, loadedShas));
+                          return null;
+                        });
+          } catch (RuntimeException e) {
+            if (isNoScript(e)) {
+              // Redis 重启或 SCRIPT FLUSH 丢了脚本缓存，下一次管道重新 SCRIPT LOAD
+              loadedScripts.clear();
+            } else {
+              // 本次插入的 SCRIPT LOAD 不一定执行到了
+              loadedShas.forEach(loadedScripts::remove);
+            }
+            throw e;
+          }
+          if (loads.isEmpty()) {
+            return results;
+          }
+          // 去掉管道里插入的 SCRIPT LOAD 结果，只留下调用方追加的命令
+          List<Object> own = new ArrayList<>(results.size() - loads.size());
+          for (int i = 0, next = 0; i < results.size(); i++) {
+            if (next < loads.size() && loads.get(next) == i) {
+              next++;
+            } else {
+              own.add(results.get(i));
+            }
+          }
+          return own;
+        });
+  }
+
+  private <T> T timed(String command, Supplier<T> call) {
+    long start = System.nanoTime();
+    try {
+      T result = call.get();
+      timer(successTimers, command, "success")
+          .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+      return result;
+    } catch (RuntimeException e) {
+      timer(errorTimers, command, "error").record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+      throw e;
+    }
+  }
+
+  private Timer timer(Map<String, Timer> timers, String command, String outcome) {
+    return timers.computeIfAbsent(
+        command,
+        c ->
+            Timer.builder("shortlink.redis.commands")
+                .tag("command", c)
+                .tag("outcome", outcome)
+                .register(meterRegistry));
+  }
+
+  private static long delAll(RedisConnection connection, List<byte[]> keys) {
+    if (keys.isEmpty()) {
+      return 0;
+    }
+    Long deleted = connection.keyCommands().del(keys.toArray(new byte[0][]));
+    keys.clear();
+    return deleted == null ? 0 : deleted;
+  }
+
+  private static boolean isNoScript(Throwable e) {
+    for (Throwable t = e; t != null; t = t.getCause()) {
+      if (t.getMessage() != null && t.getMessage().contains("NOSCRIPT")) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /** Lua script declared once, run by SHA */
+  public record Script<T>(String name, RedisScript<T> redisScript) {}
+
+  /** Commands queued on one pipelined connection */
+  public final class Pipeline {
+
+    private final RedisConnection connection;
+    private final List<Integer> loads;
+    private final List<String> loadedShas;
+    private int queued;
+
+    private Pipeline(RedisConnection connection, List<Integer> loads, List<String> loadedShas) {
+      this.connection = connection;
+      this.loads = loads;
+      this.loadedShas = loadedShas;
+    }
+
+    /**
+     * 追加一次 EVALSHA，本节点第一次用到该脚本时先在同一管道里 SCRIPT LOAD
+     *
+     * @param script {@link #script} 声明的脚本
+     * @param keys KEYS
+     * @param args ARGV
+     */
+    public void eval(Script<?> script, List<String> keys, String... args) {
+      RedisScript<?> redisScript = script.redisScript();
+      if (loadedScripts.add(redisScript.getSha1())) {
+        loadedShas.add(redisScript.getSha1());
+        loads.add(queued++);
+        connection
+            .scriptingCommands()
+            .scriptLoad(redisScript.getScriptAsString().getBytes(StandardCharsets.UTF_8));
+      }
+      byte[][] keysAndArgs = new byte[keys.size() + args.length][];
+      for (int i = 0; i < keys.size(); i++) {
+        keysAndArgs[i] = keys.get(i).getBytes(StandardCharsets.UTF_8);
+      }
+      for (int i = 0; i < args.length; i++) {
+        keysAndArgs[keys.size() + i] = args[i].getBytes(StandardCharsets.UTF_8);
+      }
+      queued++;
+      connection
+          .scriptingCommands()
+          .evalSha(
+              redisScript.getSha1().getBytes(StandardCharsets.UTF_8),
+              ReturnType.fromJavaType(redisScript.getResultType()),
+              keys.size(),
+              keysAndArgs);
+    }
+
+    /**
+     * 追加任意命令
+     *
+     * @param command 在管道连接上追加一条命令
+     */
+    public void command(Consumer<RedisConnection> command) {
+      queued++;
+      command.accept(connection);
+    }
+  }
+}
@@ -0,0 +1,82 @@
+package org.superwindcloud.shortlink.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * {@link PendingCounts} kept apart per short_links partition.
+ *
+ * <p>A write-behind counter records each id under the shard decoded from its short code, so a flush
+ * can send one UPDATE per shard with that shard's url_hash range and let the database prune it to a
+ * single partition. Ids whose shard is unknown (short codes the block generator did not issue) are
+ * kept under shard -1 and still need a statement that searches every partition.
+ */
+public final class ShardedPendingCounts {
+
+  /** Shard of ids whose partition cannot be derived from their short code */
+  public static final int UNKNOWN_SHARD = -1;
+
+  // 下标是分片 + 1，0 号放分片未知的 id
+  private final PendingCounts[] counts;
+
+  public ShardedPendingCounts(int shardCount) {
+    counts = new PendingCounts[shardCount + 1];
+    for (int i = 0; i < counts.length; i++) {
+      counts[i] = new PendingCounts();
+    }
+  }
+
+  /** Adds to the pending count of the id in the shard */
+  public void add(int shard, long id, long delta) {
+    counts[shard + 1].add(id, delta);
+  }
+
+  /** Puts deltas taken by {@link #drain()} back into their shard */
+  public void addAll(int shard, Map<Long, Long> deltas) {
+    PendingCounts shardCounts = counts[shard + 1];
+    deltas.forEach(shardCounts::add);
+  }
+
+  /** Pending count of the id over all shards */
+  public long get(long id) {
+    long pending = 0;
+    for (PendingCounts shardCounts : counts) {
+      pending += shardCounts.get(id);
+    }
+    return pending;
+  }
+
+  /** Pending count over all ids */
+  public long total() {
+    long total = 0;
+    for (PendingCounts shardCounts : counts) {
+      total += shardCounts.total();
+    }
+    return total;
+  }
+
+  /** Number of ids holding an adder, including ones idle since the last drain */
+  public int size() {
+    int size = 0;
+    for (PendingCounts shardCounts : counts) {
+      size += shardCounts.size();
+    }
+    return size;
+  }
+
+  /**
+   * 取走所有分片的待写增量
+   *
+   * @return 分片（未知为 {@link #UNKNOWN_SHARD}）到该分片每个 id 的增量，只含非空的分片
+   */
+  public Map<Integer, Map<Long, Long>> drain() {
+    Map<Integer, Map<Long, Long>> deltas = new LinkedHashMap<>();
+    for (int i = 0; i < counts.length; i++) {
+      Map<Long, Long> shardDeltas = counts[i].drain();
+      if (!shardDeltas.isEmpty()) {
+        deltas.put(i - 1, shardDeltas);
+      }
+    }
+    return deltas;
+  }
+}
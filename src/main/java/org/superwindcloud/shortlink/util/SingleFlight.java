@@ -0,0 +1,97 @@
+package org.superwindcloud.shortlink.util;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Collapses concurrent loads of the same key into one.
+ *
+ * <p>The first caller for a key runs the loader; callers that arrive while it is running wait on
+ * its future and get the same result or exception. Nothing is kept afterwards, the next caller
+ * starts a new load. Waiting parks on a {@link CompletableFuture} rather than holding a monitor or
+ * a map bin the way a cache {@code compute} would, so a slow load neither pins virtual threads nor
+ * blocks other keys.
+ *
+ * @param <K> key type
+ * @param <V> result type
+ */
+public final class SingleFlight<K, V> {
+
+  private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+  private final LongAdder loads = new LongAdder();
+  private final LongAdder coalesced = new LongAdder();
+
+  /** Runs the loader on the calling thread, or waits for the load of this key already running */
+  public V load(K key, Supplier<V> loader) {
+    CompletableFuture<V> flight = new CompletableFuture<>();
+    CompletableFuture<V> running = inFlight.putIfAbsent(key, flight);
+    if (running != null) {
+      coalesced.increment();
+      return await(running);
+    }
+    loads.increment();
+    run(key, flight, loader);
+    return await(flight);
+  }
+
+  /**
+   * 在线程池里加载，同一个 key 已经在加载时什么也不做
+   *
+   * @return 是否发起了新的加载
+   */
+  public boolean loadAsync(K key, Supplier<V> loader, Executor executor) {
+    CompletableFuture<V> flight = new CompletableFuture<>();
+    if (inFlight.putIfAbsent(key, flight) != null) {
+      return false;
+    }
+    try {
+      executor.execute(() -> run(key, flight, loader));
+    } catch (RejectedExecutionException e) {
+      // 关闭过程中线程池不再接任务，这期间挂上来的调用方拿到同一个异常
+      inFlight.remove(key, flight);
+      flight.completeExceptionally(e);
+      return false;
+    }
+    loads.increment();
+    return true;
+  }
+
+  /** Loads started, synchronous or not */
+  public long loads() {
+    return loads.sum();
+  }
+
+  /** Callers that waited for another caller's load instead of starting their own */
+  public long coalesced() {
+    return coalesced.sum();
+  }
+
+  private void run(K key, CompletableFuture<V> flight, Supplier<V> loader) {
+    try {
+      flight.complete(loader.get());
+    } catch (RuntimeException | Error e) {
+      flight.completeExceptionally(e);
+    } finally {
+      inFlight.remove(key, flight);
+    }
+  }
+
+  private static <V> V await(CompletableFuture<V> flight) {
+    try {
+      return flight.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      if (e.getCause() instanceof Error cause) {
+        throw cause;
+      }
+      throw e;
+    }
+  }
+}
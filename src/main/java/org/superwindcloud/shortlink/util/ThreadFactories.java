@@ -0,0 +1,23 @@
+package org.superwindcloud.shortlink.util;
+
+import java.util.concurrent.ThreadFactory;
+
+/** Thread factories for the app's own background executors */
+public final class ThreadFactories {
+
+  private ThreadFactories() {}
+
+  /**
+   * 创建后台线程工厂
+   *
+   * @param name 线程名
+   * @param virtual 为 true 时创建虚拟线程，否则创建守护平台线程
+   * @return 线程工厂
+   */
+  public static ThreadFactory background(String name, boolean virtual) {
+    if (virtual) {
+      return Thread.ofVirtual().name(name).factory();
+    }
+    return Thread.ofPlatform().name(name).daemon().factory();
+  }
+}
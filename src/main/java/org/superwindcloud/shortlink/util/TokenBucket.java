@@ -0,0 +1,55 @@
+package org.superwindcloud.shortlink.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket.
+ *
+ * <p>Implemented as a generic cell rate algorithm: the whole state is one "theoretical arrival
+ * time" in an {@link AtomicLong}, advanced with CAS by one emission interval per permit. A burst of
+ * {@code capacity} permits is allowed, after which permits refill at {@code capacity} per period.
+ */
+public final class TokenBucket {
+
+  private final long emissionIntervalNanos;
+  private final long burstToleranceNanos;
+  private final AtomicLong theoreticalArrival;
+
+  /**
+   * 创建令牌桶，初始为满
+   *
+   * @param capacity 桶容量，也是每个周期补充的令牌数
+   * @param period 补充周期
+   * @param unit 周期单位
+   * @param nowNanos 当前 {@link System#nanoTime()}
+   */
+  public TokenBucket(long capacity, long period, TimeUnit unit, long nowNanos) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("capacity must be positive: " + capacity);
+    }
+    this.emissionIntervalNanos = Math.max(1, unit.toNanos(period) / capacity);
+    this.burstToleranceNanos = emissionIntervalNanos * (capacity - 1);
+    this.theoreticalArrival = new AtomicLong(nowNanos);
+  }
+
+  /** Takes one permit if available; never blocks */
+  public boolean tryAcquire(long nowNanos) {
+    while (true) {
+      long tat = theoreticalArrival.get();
+      // nanoTime 可能为负且会回绕，只能比较差值
+      long base = tat - nowNanos > 0 ? tat : nowNanos;
+      if (base - nowNanos > burstToleranceNanos) {
+        return false;
+      }
+      if (theoreticalArrival.compareAndSet(tat, base + emissionIntervalNanos)) {
+        return true;
+      }
+    }
+  }
+
+  /** Nanoseconds until the next permit becomes available, zero if one is available now */
+  public long nanosUntilNextPermit(long nowNanos) {
+    return Math.max(0, theoreticalArrival.get() - nowNanos - burstToleranceNanos);
+  }
+}
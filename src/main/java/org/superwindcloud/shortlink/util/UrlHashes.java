@@ -0,0 +1,32 @@
+package org.superwindcloud.shortlink.util;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.UUID;
+
+/** Fixed-width digests of original URLs, stored in {@code short_links.url_hash} */
+public final class UrlHashes {
+
+  private UrlHashes() {}
+
+  /**
+   * SHA-256 前 128 位，以 UUID 存储，数据库里是 16 字节定长列
+   *
+   * <p>128 位在数十亿行内碰撞概率可以忽略，唯一索引建在这一列上；查到后仍要比对完整 URL。
+   *
+   * @param originalUrl 原始 URL，已由调用方去掉首尾空白
+   * @return URL 摘要
+   */
+  public static UUID of(String originalUrl) {
+    MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
+    ByteBuffer hash = ByteBuffer.wrap(digest.digest(originalUrl.getBytes(StandardCharsets.UTF_8)));
+    return new UUID(hash.getLong(), hash.getLong());
+  }
+}
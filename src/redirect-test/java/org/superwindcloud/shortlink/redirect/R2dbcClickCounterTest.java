@@ -0,0 +1,73 @@
+package org.superwindcloud.shortlink.redirect;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+import org.superwindcloud.shortlink.repository.ShortLinkShards;
+import reactor.core.publisher.Mono;
+
+@ExtendWith(MockitoExtension.class)
+class R2dbcClickCounterTest {
+
+  @Mock private ReactiveShortLinkRepository repository;
+
+  private SimpleMeterRegistry meterRegistry;
+  private R2dbcClickCounter counter;
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    counter =
+        new R2dbcClickCounter(repository, new ShortLinkShards(4, 6, 42L), meterRegistry, 60_000);
+  }
+
+  @Test
+  void flushWritesOneStatementPerShard() {
+    when(repository.addClickCounts(1, Map.of(1L, 2L))).thenReturn(Mono.just(1L));
+    when(repository.addClickCounts(-1, Map.of(2L, 1L))).thenReturn(Mono.just(1L));
+    counter.record(1, 1L);
+    counter.record(1, 1L);
+    counter.record(-1, 2L);
+
+    assertEquals(3L, counter.flush().block());
+
+    assertEquals(0.0, meterRegistry.get("shortlink.clicks.pending").gauge().value());
+    assertEquals(3.0, meterRegistry.get("shortlink.clicks.flushed").counter().count());
+  }
+
+  @Test
+  void flushSkipsDatabaseWhenNothingPending() {
+    assertEquals(0L, counter.flush().block());
+
+    verify(repository, never()).addClickCounts(anyInt(), any());
+  }
+
+  @Test
+  void failedFlushKeepsDeltasForNextRound() {
+    when(repository.addClickCounts(anyInt(), any()))
+        .thenReturn(Mono.error(new QueryTimeoutException("timeout")))
+        .thenReturn(Mono.just(1L));
+    counter.record(2, 7L);
+
+    assertThrows(QueryTimeoutException.class, () -> counter.flush().block());
+
+    assertEquals(1.0, meterRegistry.get("shortlink.clicks.pending").gauge().value());
+    assertEquals(1.0, meterRegistry.get("shortlink.clicks.flush.failures").counter().count());
+    assertEquals(1L, counter.flush().block());
+    verify(repository, times(2)).addClickCounts(2, Map.of(7L, 1L));
+  }
+}
@@ -0,0 +1,121 @@
+package org.superwindcloud.shortlink.redirect;
+
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.superwindcloud.shortlink.controller.RedirectPolicy;
+import org.superwindcloud.shortlink.service.RedirectEntry;
+import reactor.core.publisher.Mono;
+
+/** Same cases as ShortLinkControllerTest, so both services keep answering alike */
+@ExtendWith(MockitoExtension.class)
+class ReactiveRedirectHandlerTest {
+
+  @Mock private ReactiveRedirectService redirectService;
+
+  private WebTestClient client;
+
+  @BeforeEach
+  void setUp() {
+    ReactiveRedirectHandler handler =
+        new ReactiveRedirectHandler(redirectService, new RedirectPolicy(302, 0));
+    client =
+        WebTestClient.bindToRouterFunction(new ReactiveRedirectConfig().redirectRoutes(handler))
+            .build();
+  }
+
+  @Test
+  void redirectReturnsFoundWithoutCachingHeaders() {
+    when(redirectService.resolveRedirect("abc123"))
+        .thenReturn(Mono.just(new RedirectEntry(1L, "https://example.com/article")));
+
+    client
+        .get()
+        .uri("/r/abc123")
+        .exchange()
+        .expectStatus()
+        .isFound()
+        .expectHeader()
+        .valueEquals(HttpHeaders.LOCATION, "https://example.com/article")
+        .expectHeader()
+        .doesNotExist(HttpHeaders.CACHE_CONTROL)
+        .expectHeader()
+        .doesNotExist(HttpHeaders.ETAG);
+  }
+
+  @Test
+  void redirectUsesLinkPolicyAndAnswersRevalidation() {
+    when(redirectService.resolveRedirect("abc123"))
+        .thenReturn(
+            Mono.just(new RedirectEntry(1L, "https://example.com/article", 301, 3600)));
+
+    String etag =
+        client
+            .get()
+            .uri("/r/abc123")
+            .exchange()
+            .expectStatus()
+            .isMovedPermanently()
+            .expectHeader()
+            .valueEquals(HttpHeaders.LOCATION, "https://example.com/article")
+            .expectHeader()
+            .valueEquals(HttpHeaders.CACHE_CONTROL, "public, max-age=3600")
+            .returnResult(Void.class)
+            .getResponseHeaders()
+            .getETag();
+
+    client
+        .get()
+        .uri("/r/abc123")
+        .header(HttpHeaders.IF_NONE_MATCH, etag)
+        .exchange()
+        .expectStatus()
+        .isNotModified()
+        .expectHeader()
+        .doesNotExist(HttpHeaders.LOCATION)
+        .expectHeader()
+        .valueEquals(HttpHeaders.ETAG, etag)
+        .expectHeader()
+        .valueEquals(HttpHeaders.CACHE_CONTROL, "public, max-age=3600");
+  }
+
+  @Test
+  void redirectReturnsNotFound() {
+    when(redirectService.resolveRedirect("missing")).thenReturn(Mono.empty());
+
+    client
+        .get()
+        .uri("/r/missing")
+        .exchange()
+        .expectStatus()
+        .isNotFound()
+        .expectHeader()
+        .contentType(MediaType.APPLICATION_JSON)
+        .expectBody()
+        .jsonPath("$.error")
+        .isEqualTo("Short link not found");
+  }
+
+  @Test
+  void redirectReturnsGenericErrorWhenLookupFails() {
+    when(redirectService.resolveRedirect("abc123"))
+        .thenReturn(Mono.error(new IllegalStateException("connection reset")));
+
+    client
+        .get()
+        .uri("/r/abc123")
+        .exchange()
+        .expectStatus()
+        .is5xxServerError()
+        .expectBody()
+        .jsonPath("$.error")
+        .isEqualTo("Internal server error");
+  }
+}
@@ -0,0 +1,132 @@
+package org.superwindcloud.shortlink.redirect;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.superwindcloud.shortlink.repository.ShortLinkShards;
+import org.superwindcloud.shortlink.util.ShardedPendingCounts;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Write-behind click counter of the reactive redirect service.
+ *
+ * <p>Same scheme and meters as {@link org.superwindcloud.shortlink.service.ClickCountAggregator}:
+ * redirects bump a per-link counter in {@link ShardedPendingCounts}, and every {@code
+ * app.clicks.flush-interval-ms} the pending deltas go out in one UPDATE per shard over R2DBC. A
+ * flush that fails puts back the deltas it has not written; ticks that arrive while a flush is
+ * still running are dropped, not queued.
+ */
+@Component
+public class R2dbcClickCounter {
+
+  private static final Logger log = LoggerFactory.getLogger(R2dbcClickCounter.class);
+
+  private static final Duration SHUTDOWN_FLUSH_TIMEOUT = Duration.ofSeconds(10);
+
+  private final ReactiveShortLinkRepository repository;
+  private final long flushIntervalMillis;
+
+  private final ShardedPendingCounts pending;
+  private final Counter flushedClicks;
+  private final Counter failedFlushes;
+  private Disposable flushing;
+
+  public R2dbcClickCounter(
+      ReactiveShortLinkRepository repository,
+      ShortLinkShards shards,
+      MeterRegistry meterRegistry,
+      @Value("${app.clicks.flush-interval-ms:1000}") long flushIntervalMillis) {
+    this.repository = repository;
+    this.flushIntervalMillis = flushIntervalMillis;
+    this.pending = new ShardedPendingCounts(shards.count());
+    Gauge.builder("shortlink.clicks.pending", pending, ShardedPendingCounts::total)
+        .description("Clicks recorded in memory but not yet written to the database")
+        .register(meterRegistry);
+    this.flushedClicks = meterRegistry.counter("shortlink.clicks.flushed");
+    this.failedFlushes = meterRegistry.counter("shortlink.clicks.flush.failures");
+  }
+
+  @PostConstruct
+  void start() {
+    flushing =
+        Flux.interval(Duration.ofMillis(flushIntervalMillis))
+            .onBackpressureDrop()
+            .concatMap(tick -> flush().onErrorResume(e -> Mono.empty()), 1)
+            .subscribe();
+  }
+
+  /**
+   * Records one click without touching the database
+   *
+   * @param shard 从短码解出的分片，未知时为 -1
+   * @param shortLinkId 短链接 id
+   */
+  public void record(int shard, long shortLinkId) {
+    pending.add(shard, shortLinkId, 1);
+  }
+
+  /**
+   * Writes all pending deltas, one statement per shard
+   *
+   * @return number of clicks written
+   */
+  public Mono<Long> flush() {
+    return Mono.defer(
+        () -> {
+          Map<Integer, Map<Long, Long>> deltasByShard = pending.drain();
+          if (deltasByShard.isEmpty()) {
+            return Mono.just(0L);
+          }
+          return Flux.fromIterable(List.copyOf(deltasByShard.keySet()))
+              .concatMap(
+                  shard -> {
+                    long clicks = sum(deltasByShard.get(shard));
+                    return repository
+                        .addClickCounts(shard, deltasByShard.get(shard))
+                        .doOnSuccess(
+                            rows -> {
+                              flushedClicks.increment(clicks);
+                              deltasByShard.remove(shard);
+                            })
+                        .thenReturn(clicks);
+                  })
+              .reduce(0L, Long::sum)
+              .doOnError(
+                  e -> {
+                    // 写库失败时把还没写入的分片放回去，等下一轮再写
+                    long kept =
+                        deltasByShard.values().stream().mapToLong(R2dbcClickCounter::sum).sum();
+                    deltasByShard.forEach(pending::addAll);
+                    failedFlushes.increment();
+                    log.warn("Click count flush failed, {} clicks kept for retry", kept, e);
+                  });
+        });
+  }
+
+  private static long sum(Map<Long, Long> deltas) {
+    return deltas.values().stream().mapToLong(Long::longValue).sum();
+  }
+
+  @PreDestroy
+  void shutdown() {
+    if (flushing != null) {
+      flushing.dispose();
+    }
+    try {
+      log.info("Flushed {} pending clicks on shutdown", flush().block(SHUTDOWN_FLUSH_TIMEOUT));
+    } catch (RuntimeException e) {
+      log.error("Final click count flush failed, {} clicks lost", pending.total(), e);
+    }
+  }
+}
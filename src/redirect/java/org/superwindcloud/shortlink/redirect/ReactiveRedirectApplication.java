@@ -0,0 +1,41 @@
+package org.superwindcloud.shortlink.redirect;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.context.annotation.Import;
+import org.superwindcloud.shortlink.config.CacheInvalidationConfig;
+import org.superwindcloud.shortlink.controller.RedirectPolicy;
+import org.superwindcloud.shortlink.repository.ShortLinkShards;
+import org.superwindcloud.shortlink.util.RedisCommands;
+
+/**
+ * Redirect-only service on WebFlux, R2DBC and reactive Lettuce, built with {@code -Predirect}.
+ *
+ * <p>Serves {@code GET /r/{shortCode}} against the same database, Redis cache hash and invalidation
+ * channel as the main application, so both can run side by side behind one load balancer. The
+ * blocking beans are left out on purpose: instead of scanning the whole package only the pieces
+ * that do not touch JDBC are imported.
+ */
+@SpringBootConfiguration
+@EnableAutoConfiguration
+@Import({
+  RedirectPolicy.class,
+  ShortLinkShards.class,
+  RedisCommands.class,
+  CacheInvalidationConfig.class,
+  ReactiveRedirectConfig.class,
+  ReactiveShortLinkRepository.class,
+  R2dbcClickCounter.class,
+  ReactiveRedirectService.class,
+  ReactiveRedirectHandler.class
+})
+public class ReactiveRedirectApplication {
+
+  public static void main(String[] args) {
+    SpringApplication application = new SpringApplication(ReactiveRedirectApplication.class);
+    application.setWebApplicationType(WebApplicationType.REACTIVE);
+    application.run(args);
+  }
+}
@@ -0,0 +1,63 @@
+package org.superwindcloud.shortlink.redirect;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.r2dbc.spi.ConnectionFactory;
+import java.time.Duration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.web.reactive.function.server.RequestPredicates;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.superwindcloud.shortlink.cache.CacheInvalidationBus;
+import org.superwindcloud.shortlink.cache.ReactiveRedisCacheStore;
+import org.superwindcloud.shortlink.config.CacheConfig;
+
+@Configuration
+public class ReactiveRedirectConfig {
+
+  @Bean
+  public Caffeine<Object, Object> caffeine(
+      @Value("${app.cache.l1.max-age-ms:0}") long maxAgeMillis) {
+    return CacheConfig.defaultCaffeine(maxAgeMillis);
+  }
+
+  /** Same layout as the main application's cache, with a non-blocking L2 */
+  @Bean
+  public CacheManager cacheManager(
+      Caffeine<Object, Object> caffeine,
+      ReactiveRedisConnectionFactory connectionFactory,
+      CacheInvalidationBus cacheInvalidationBus,
+      MeterRegistry meterRegistry,
+      @Value("${app.cache.l2.enabled:true}") boolean l2Enabled,
+      @Value("${app.cache.l2.timeout-ms:50}") long l2TimeoutMillis,
+      @Value("${app.cache.l2.ttl-ms:86400000}") long l2TtlMillis) {
+    ReactiveRedisCacheStore remoteStore = null;
+    if (l2Enabled) {
+      ReactiveRedisTemplate<byte[], byte[]> redisTemplate =
+          new ReactiveRedisTemplate<>(connectionFactory, RedisSerializationContext.byteArray());
+      remoteStore =
+          new ReactiveRedisCacheStore(
+              redisTemplate, Duration.ofMillis(l2TimeoutMillis), Duration.ofMillis(l2TtlMillis));
+    }
+    return CacheConfig.layeredCacheManager(
+        caffeine, remoteStore, cacheInvalidationBus, meterRegistry);
+  }
+
+  @Bean
+  public DatabaseClient databaseClient(ConnectionFactory connectionFactory) {
+    return DatabaseClient.create(connectionFactory);
+  }
+
+  @Bean
+  public RouterFunction<ServerResponse> redirectRoutes(ReactiveRedirectHandler handler) {
+    return RouterFunctions.route(RequestPredicates.GET("/r/{shortCode}"), handler::redirect);
+  }
+}
@@ -0,0 +1,80 @@
+package org.superwindcloud.shortlink.redirect;
+
+import java.nio.charset.StandardCharsets;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.superwindcloud.shortlink.controller.RedirectPolicy;
+import org.superwindcloud.shortlink.service.RedirectEntry;
+import reactor.core.publisher.Mono;
+
+/**
+ * {@code GET /r/{shortCode}} for the reactive service.
+ *
+ * <p>Responses match {@link org.superwindcloud.shortlink.controller.ShortLinkController}: the
+ * {@link RedirectPolicy} status with a {@code Location} header (304 on a matching {@code
+ * If-None-Match}), 404 with the same JSON error, or 500 with the generic one.
+ */
+@Component
+public class ReactiveRedirectHandler {
+
+  private static final Logger log = LoggerFactory.getLogger(ReactiveRedirectHandler.class);
+
+  private static final byte[] NOT_FOUND_BODY =
+      "{\"error\":\"Short link not found\"}".getBytes(StandardCharsets.UTF_8);
+  private static final byte[] INTERNAL_ERROR_BODY =
+      "{\"error\":\"Internal server error\"}".getBytes(StandardCharsets.UTF_8);
+
+  private final ReactiveRedirectService redirectService;
+  private final RedirectPolicy redirectPolicy;
+
+  public ReactiveRedirectHandler(
+      ReactiveRedirectService redirectService, RedirectPolicy redirectPolicy) {
+    this.redirectService = redirectService;
+    this.redirectPolicy = redirectPolicy;
+  }
+
+  public Mono<ServerResponse> redirect(ServerRequest request) {
+    String shortCode = request.pathVariable("shortCode");
+    return redirectService
+        .resolveRedirect(shortCode)
+        .flatMap(entry -> redirectResponse(request, entry))
+        .switchIfEmpty(Mono.defer(() -> json(HttpStatus.NOT_FOUND, NOT_FOUND_BODY)))
+        .onErrorResume(
+            e -> {
+              log.error("Redirect failed for {}", shortCode, e);
+              return json(HttpStatus.INTERNAL_SERVER_ERROR, INTERNAL_ERROR_BODY);
+            });
+  }
+
+  private Mono<ServerResponse> redirectResponse(ServerRequest request, RedirectEntry entry) {
+    String cacheControl = redirectPolicy.cacheControl(entry);
+    if (cacheControl == null) {
+      return ServerResponse.status(redirectPolicy.status(entry))
+          .header(HttpHeaders.LOCATION, entry.originalUrl())
+          .build();
+    }
+    String etag = redirectPolicy.etag(entry);
+    String ifNoneMatch = request.headers().firstHeader(HttpHeaders.IF_NONE_MATCH);
+    if (RedirectPolicy.notModified(ifNoneMatch, etag)) {
+      return ServerResponse.status(HttpStatus.NOT_MODIFIED)
+          .header(HttpHeaders.CACHE_CONTROL, cacheControl)
+          .header(HttpHeaders.ETAG, etag)
+          .build();
+    }
+    return ServerResponse.status(redirectPolicy.status(entry))
+        .header(HttpHeaders.LOCATION, entry.originalUrl())
+        .header(HttpHeaders.CACHE_CONTROL, cacheControl)
+        .header(HttpHeaders.ETAG, etag)
+        .build();
+  }
+
+  private static Mono<ServerResponse> json(HttpStatus status, byte[] body) {
+    return ServerResponse.status(status).contentType(MediaType.APPLICATION_JSON).bodyValue(body);
+  }
+}
@@ -0,0 +1,94 @@
+package org.superwindcloud.shortlink.redirect;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.concurrent.TimeUnit;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+import org.superwindcloud.shortlink.config.CacheConfig;
+import org.superwindcloud.shortlink.repository.ShortLinkShards;
+import org.superwindcloud.shortlink.service.RedirectEntry;
+import org.superwindcloud.shortlink.service.code.PackedShortCode;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking counterpart of {@link
+ * org.superwindcloud.shortlink.service.ShortLinkService#resolveRedirect}.
+ *
+ * <p>L1 hits complete on the calling event loop; L2 goes through {@link Cache#retrieve(Object)}
+ * and the database through R2DBC, so no step parks a thread. There is no Bloom filter or negative
+ * cache here, so unknown codes always reach the database.
+ */
+@Service
+public class ReactiveRedirectService {
+
+  private final Cache shortCodeCache;
+  private final ReactiveShortLinkRepository repository;
+  private final ShortLinkShards shards;
+  private final R2dbcClickCounter clickCounter;
+
+  private final Timer cacheLookups;
+  private final Timer databaseLookups;
+  private final Timer notFoundLookups;
+  private final Timer filteredLookups;
+
+  public ReactiveRedirectService(
+      CacheManager cacheManager,
+      ReactiveShortLinkRepository repository,
+      ShortLinkShards shards,
+      R2dbcClickCounter clickCounter,
+      MeterRegistry meterRegistry) {
+    this.shortCodeCache = cacheManager.getCache(CacheConfig.SHORT_CODE_CACHE);
+    this.repository = repository;
+    this.shards = shards;
+    this.clickCounter = clickCounter;
+    this.cacheLookups = lookupTimer(meterRegistry, "cache");
+    this.databaseLookups = lookupTimer(meterRegistry, "db");
+    this.notFoundLookups = lookupTimer(meterRegistry, "not_found");
+    this.filteredLookups = lookupTimer(meterRegistry, "filtered");
+  }
+
+  private static Timer lookupTimer(MeterRegistry meterRegistry, String outcome) {
+    return Timer.builder("shortlink.redirect.lookups")
+        .description("Short code lookups by where the answer came from")
+        .tag("outcome", outcome)
+        .register(meterRegistry);
+  }
+
+  /** Resolves a short code and records the click; empty if the code does not exist */
+  public Mono<RedirectEntry> resolveRedirect(String shortCode) {
+    return findRedirectEntry(shortCode)
+        .doOnNext(entry -> clickCounter.record(shards.ofShortCode(shortCode), entry.id()));
+  }
+
+  /** Looks a short code up through the caches without recording a click */
+  public Mono<RedirectEntry> findRedirectEntry(String shortCode) {
+    long start = System.nanoTime();
+    long packed = PackedShortCode.pack(shortCode);
+    if (packed == PackedShortCode.INVALID) {
+      filteredLookups.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+      return Mono.empty();
+    }
+    Mono<RedirectEntry> cached =
+        Mono.fromFuture(() -> shortCodeCache.retrieve(packed))
+            .cast(RedirectEntry.class)
+            .doOnNext(entry -> record(cacheLookups, start));
+    return cached.switchIfEmpty(
+        Mono.defer(
+            () ->
+                repository
+                    .findRedirectEntry(shortCode)
+                    .doOnNext(
+                        entry -> {
+                          shortCodeCache.put(packed, entry);
+                          record(databaseLookups, start);
+                        })
+                    .switchIfEmpty(
+                        Mono.fromRunnable(() -> record(notFoundLookups, start)))));
+  }
+
+  private static void record(Timer timer, long start) {
+    timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+  }
+}
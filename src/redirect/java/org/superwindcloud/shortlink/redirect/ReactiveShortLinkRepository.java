@@ -0,0 +1,91 @@
+package org.superwindcloud.shortlink.redirect;
+
+import io.r2dbc.spi.Row;
+import java.util.Map;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import org.superwindcloud.shortlink.repository.ShortLinkShards;
+import org.superwindcloud.shortlink.service.RedirectEntry;
+import reactor.core.publisher.Mono;
+
+/** The two short_links statements the redirect service needs, over R2DBC */
+@Repository
+public class ReactiveShortLinkRepository {
+
+  private static final String REDIRECT_COLUMNS =
+      "id, original_url, redirect_status, cache_max_age";
+
+  private final DatabaseClient databaseClient;
+  private final ShortLinkShards shards;
+
+  public ReactiveShortLinkRepository(DatabaseClient databaseClient, ShortLinkShards shards) {
+    this.databaseClient = databaseClient;
+    this.shards = shards;
+  }
+
+  /** Loads the redirect of a short code; empty if it does not exist */
+  public Mono<RedirectEntry> findRedirectEntry(String shortCode) {
+    int shard = shards.ofShortCode(shortCode);
+    DatabaseClient.GenericExecuteSpec query;
+    if (shards.partitioned() && shard >= 0) {
+      // 与 ShortLinkJdbcRepository 相同，按短码里的分片只查一个分区
+      query =
+          databaseClient
+              .sql(
+                  "select "
+                      + REDIRECT_COLUMNS
+                      + " from short_links where short_code = $1 and url_hash between $2 and $3")
+              .bind(0, shortCode)
+              .bind(1, shards.lowerBound(shard))
+              .bind(2, shards.upperBound(shard));
+    } else {
+      query =
+          databaseClient
+              .sql("select " + REDIRECT_COLUMNS + " from short_links where short_code = $1")
+              .bind(0, shortCode);
+    }
+    return query.map((row, metadata) -> toRedirectEntry(row)).first();
+  }
+
+  /**
+   * 一条 UPDATE 批量累加点击数，分区表上按分片的 url_hash 范围只更新一个分区
+   *
+   * @param shard 这些 id 所在的分片，解不出时为 -1
+   * @param deltas 短链接 id 到新增点击数
+   * @return 更新的行数
+   */
+  public Mono<Long> addClickCounts(int shard, Map<Long, Long> deltas) {
+    Long[] ids = new Long[deltas.size()];
+    Long[] clicks = new Long[deltas.size()];
+    int i = 0;
+    for (Map.Entry<Long, Long> delta : deltas.entrySet()) {
+      ids[i] = delta.getKey();
+      clicks[i] = delta.getValue();
+      i++;
+    }
+    String sql =
+        "update short_links s set click_count = coalesce(s.click_count, 0) + d.clicks"
+            + " from unnest($1::bigint[], $2::bigint[]) as d(id, clicks) where s.id = d.id";
+    if (shards.partitioned() && shard >= 0) {
+      return databaseClient
+          .sql(sql + " and s.url_hash between $3 and $4")
+          .bind(0, ids)
+          .bind(1, clicks)
+          .bind(2, shards.lowerBound(shard))
+          .bind(3, shards.upperBound(shard))
+          .fetch()
+          .rowsUpdated();
+    }
+    return databaseClient.sql(sql).bind(0, ids).bind(1, clicks).fetch().rowsUpdated();
+  }
+
+  private static RedirectEntry toRedirectEntry(Row row) {
+    Integer redirectStatus = row.get("redirect_status", Integer.class);
+    Integer cacheMaxAge = row.get("cache_max_age", Integer.class);
+    return new RedirectEntry(
+        row.get("id", Long.class),
+        row.get("original_url", String.class),
+        redirectStatus == null ? RedirectEntry.DEFAULT : redirectStatus,
+        cacheMaxAge == null ? RedirectEntry.DEFAULT : cacheMaxAge);
+  }
+}
@@ -0,0 +1,46 @@
+package org.superwindcloud.shortlink.cache;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class HotSetSnapshotTest {
+
+  @TempDir Path dir;
+
+  @Test
+  void writeThenReadKeepsIdsInOrder() throws IOException {
+    Path path = dir.resolve("nested/hot-set.bin");
+    long[] ids = {42L, 7L, Long.MAX_VALUE, 1L};
+
+    HotSetSnapshot.write(path, ids);
+    HotSetSnapshot.write(path, ids);
+
+    assertArrayEquals(ids, HotSetSnapshot.read(path));
+    assertEquals(4 + 1 + 4 + ids.length * 8 + 8, Files.size(path));
+    try (var files = Files.list(path.getParent())) {
+      assertEquals(1, files.count());
+    }
+  }
+
+  @Test
+  void readRejectsCorruptAndTruncatedFiles() throws IOException {
+    Path path = dir.resolve("hot-set.bin");
+    HotSetSnapshot.write(path, new long[] {1L, 2L, 3L});
+    byte[] bytes = Files.readAllBytes(path);
+
+    bytes[12] ^= 1;
+    Files.write(path, bytes);
+    assertThrows(IOException.class, () -> HotSetSnapshot.read(path));
+
+    Files.write(path, Arrays.copyOf(bytes, bytes.length - 3));
+    assertThrows(IOException.class, () -> HotSetSnapshot.read(path));
+  }
+}
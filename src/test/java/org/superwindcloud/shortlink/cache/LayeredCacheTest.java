@@ -0,0 +1,127 @@
+package org.superwindcloud.shortlink.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.superwindcloud.shortlink.service.RedirectEntry;
+
+class LayeredCacheTest {
+
+  private static final String CACHE = "links";
+
+  private InMemoryRemoteStore remoteStore;
+  private LocalCacheInvalidationBus bus;
+  private SimpleMeterRegistry meterRegistry;
+  private Cache nodeA;
+  private Cache nodeB;
+
+  @BeforeEach
+  void setUp() {
+    remoteStore = new InMemoryRemoteStore();
+    bus = new LocalCacheInvalidationBus();
+    meterRegistry = new SimpleMeterRegistry();
+    nodeA = newNode().getCache(CACHE);
+    nodeB = newNode().getCache(CACHE);
+  }
+
+  private LayeredCacheManager newNode() {
+    LayeredCacheManager manager =
+        new LayeredCacheManager(
+            new CaffeineCacheManager(CACHE),
+            remoteStore,
+            Map.of(CACHE, new RedirectEntryCacheCodec()),
+            Set.of(CACHE),
+            bus,
+            meterRegistry);
+    manager.afterPropertiesSet();
+    return manager;
+  }
+
+  @Test
+  void otherNodeServesEntryFromSharedTier() {
+    nodeA.put(42L, new RedirectEntry(9L, "https://example.com/article"));
+
+    RedirectEntry fromB = nodeB.get(42L, RedirectEntry.class);
+
+    assertEquals(new RedirectEntry(9L, "https://example.com/article"), fromB);
+    assertEquals(
+        1.0,
+        meterRegistry
+            .get("shortlink.cache.requests")
+            .tags("tier", "l2", "result", "hit")
+            .counter()
+            .count());
+  }
+
+  @Test
+  void evictOnOneNodeDropsLocalCopyEverywhere() {
+    nodeA.put(42L, new RedirectEntry(9L, "https://example.com/article"));
+    assertNotNull(nodeB.get(42L));
+
+    nodeA.evict(42L);
+
+    assertNull(nodeB.get(42L));
+    assertNull(nodeA.get(42L));
+  }
+
+  @Test
+  void retrieveFallsThroughToSharedTierAndFillsLocal() {
+    nodeA.put(42L, new RedirectEntry(9L, "https://example.com/article"));
+
+    Object fromB = nodeB.retrieve(42L).join();
+    remoteStore.clear(CACHE);
+
+    assertEquals(new RedirectEntry(9L, "https://example.com/article"), fromB);
+    assertEquals(new RedirectEntry(9L, "https://example.com/article"), nodeB.retrieve(42L).join());
+    assertNull(nodeB.retrieve(7L).join());
+  }
+
+  @Test
+  void sharedCacheNeedsValueCodec() {
+    LayeredCacheManager manager =
+        new LayeredCacheManager(
+            new CaffeineCacheManager(CACHE),
+            remoteStore,
+            Map.of(CACHE, new LongKeyCodec()),
+            Set.of(CACHE),
+            bus,
+            meterRegistry);
+
+    assertThrows(IllegalArgumentException.class, () -> manager.getCache(CACHE));
+  }
+
+  private static final class InMemoryRemoteStore implements RemoteCacheStore {
+    private final Map<ByteBuffer, byte[]> entries = new ConcurrentHashMap<>();
+
+    @Override
+    public byte[] get(String cacheName, byte[] key) {
+      return entries.get(ByteBuffer.wrap(key));
+    }
+
+    @Override
+    public void put(String cacheName, byte[] key, byte[] value) {
+      entries.put(ByteBuffer.wrap(key), value);
+    }
+
+    @Override
+    public void evict(String cacheName, byte[] key) {
+      entries.remove(ByteBuffer.wrap(key));
+    }
+
+    @Override
+    public void clear(String cacheName) {
+      entries.clear();
+    }
+  }
+}
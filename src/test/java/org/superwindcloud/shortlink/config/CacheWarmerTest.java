@@ -0,0 +1,99 @@
+package org.superwindcloud.shortlink.config;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.DefaultApplicationArguments;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.superwindcloud.shortlink.cache.HotSetSnapshot;
+import org.superwindcloud.shortlink.entity.ShortLink;
+import org.superwindcloud.shortlink.repository.ShortLinkJdbcRepository;
+import org.superwindcloud.shortlink.service.RedirectEntry;
+import org.superwindcloud.shortlink.service.ShortLinkService;
+
+@ExtendWith(MockitoExtension.class)
+class CacheWarmerTest {
+
+  @Mock private ShortLinkService shortLinkService;
+  @Mock private ShortLinkJdbcRepository shortLinkJdbcRepository;
+  @Mock private CacheManager cacheManager;
+
+  @TempDir Path dir;
+
+  @Test
+  void restoresSnapshotThenTopsUpWithKeysetPages() throws Exception {
+    Path snapshot = dir.resolve("hot-set.bin");
+    HotSetSnapshot.write(snapshot, new long[] {9L});
+    List<ShortLink> hot = List.of(link(9L, "hot001"));
+    List<ShortLink> firstPage = List.of(link(30L, "new030"), link(29L, "new029"));
+    List<ShortLink> secondPage = List.of(link(28L, "new028"));
+    when(shortLinkJdbcRepository.findByIds(List.of(9L))).thenReturn(hot);
+    when(shortLinkJdbcRepository.findPageByIdDesc(Long.MAX_VALUE, 2)).thenReturn(firstPage);
+    when(shortLinkJdbcRepository.findPageByIdDesc(29L, 1)).thenReturn(secondPage);
+
+    newWarmer(4, snapshot).run(new DefaultApplicationArguments());
+
+    InOrder order = inOrder(shortLinkService);
+    order.verify(shortLinkService).warmCache(hot);
+    order.verify(shortLinkService).warmCache(firstPage);
+    order.verify(shortLinkService).warmCache(secondPage);
+  }
+
+  @Test
+  void failedWarmUpStartsCold() {
+    when(shortLinkJdbcRepository.findPageByIdDesc(Long.MAX_VALUE, 2))
+        .thenThrow(new IllegalStateException("unexpected row"));
+
+    assertDoesNotThrow(
+        () -> newWarmer(4, dir.resolve("missing.bin")).run(new DefaultApplicationArguments()));
+
+    verifyNoInteractions(shortLinkService);
+  }
+
+  @Test
+  void snapshotWritesHottestCachedIds() throws Exception {
+    CaffeineCache cache =
+        new CaffeineCache(
+            CacheConfig.SHORT_CODE_CACHE, Caffeine.newBuilder().maximumSize(100).build());
+    cache.put(1L, new RedirectEntry(11L, "https://example.com/a"));
+    when(cacheManager.getCache(CacheConfig.SHORT_CODE_CACHE)).thenReturn(cache);
+    Path snapshot = dir.resolve("hot-set.bin");
+
+    assertEquals(1, newWarmer(10, snapshot).snapshot());
+
+    assertArrayEquals(new long[] {11L}, HotSetSnapshot.read(snapshot));
+  }
+
+  private CacheWarmer newWarmer(int size, Path snapshot) {
+    return new CacheWarmer(
+        shortLinkService,
+        shortLinkJdbcRepository,
+        cacheManager,
+        size,
+        "recent",
+        2,
+        snapshot.toString(),
+        60_000,
+        false);
+  }
+
+  private static ShortLink link(long id, String shortCode) {
+    ShortLink shortLink = new ShortLink("https://example.com/" + shortCode, shortCode);
+    shortLink.setId(id);
+    return shortLink;
+  }
+}
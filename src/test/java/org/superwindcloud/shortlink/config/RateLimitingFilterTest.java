@@ -0,0 +1,84 @@
+package org.superwindcloud.shortlink.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.Mockito.mock;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.superwindcloud.shortlink.util.RateLimiter;
+import org.superwindcloud.shortlink.util.RedisCommands;
+
+class RateLimitingFilterTest {
+
+  private RateLimitingFilter filter;
+
+  @BeforeEach
+  void setUp() {
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    RateLimiter rateLimiter =
+        new RateLimiter(mock(RedisCommands.class), meterRegistry, 60_000, 1_000, false);
+    filter =
+        new RateLimitingFilter(rateLimiter, meterRegistry, "redirect", Set.of("secret"), 1, 2, 60);
+  }
+
+  @Test
+  void rejectsClientIpOverLimitWithRetryAfter() throws Exception {
+    // 每秒 1 次、窗口 60 秒，即每分钟 60 次
+    for (int i = 0; i < 60; i++) {
+      assertEquals(200, call("10.0.0.1", null).getStatus());
+    }
+
+    MockHttpServletResponse rejected = call("10.0.0.1", null);
+
+    assertEquals(429, rejected.getStatus());
+    assertNotNull(rejected.getHeader("Retry-After"));
+    assertEquals("{\"error\":\"Too many requests\"}", rejected.getContentAsString());
+    assertEquals(200, call("10.0.0.2", null).getStatus());
+  }
+
+  @Test
+  void apiKeyBudgetIsSharedAcrossClientIps() throws Exception {
+    // 每个 IP 每分钟 60 次，key 每分钟 120 次
+    for (int i = 0; i < 120; i++) {
+      assertEquals(200, call("10.0.1." + (i % 2), "secret").getStatus());
+    }
+
+    assertEquals(429, call("10.0.1.9", "secret").getStatus());
+    assertEquals(200, call("10.0.1.9", null).getStatus());
+  }
+
+  @Test
+  void apiKeyClientIsNotCappedByItsIpBudget() throws Exception {
+    for (int i = 0; i < 100; i++) {
+      assertEquals(200, call("10.0.2.1", "secret").getStatus());
+    }
+
+    assertEquals(200, call("10.0.2.1", null).getStatus());
+  }
+
+  @Test
+  void unknownApiKeyCountsAgainstClientIp() throws Exception {
+    for (int i = 0; i < 60; i++) {
+      assertEquals(200, call("10.0.3.1", "made-up-" + i).getStatus());
+    }
+
+    assertEquals(429, call("10.0.3.1", "made-up-again").getStatus());
+  }
+
+  private MockHttpServletResponse call(String remoteAddr, String apiKey) throws Exception {
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/r/abc123");
+    request.setRemoteAddr(remoteAddr);
+    if (apiKey != null) {
+      request.addHeader(RateLimitingFilter.API_KEY_HEADER, apiKey);
+    }
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    filter.doFilter(request, response, new MockFilterChain());
+    return response;
+  }
+}
@@ -0,0 +1,83 @@
+package org.superwindcloud.shortlink.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.superwindcloud.shortlink.repository.ShortLinkJdbcRepository;
+import org.superwindcloud.shortlink.repository.ShortLinkJdbcRepository.UrlHashBatch;
+import org.superwindcloud.shortlink.util.UrlHashes;
+
+@ExtendWith(MockitoExtension.class)
+class UrlHashBackfillTest {
+
+  @Mock private ShortLinkJdbcRepository shortLinkJdbcRepository;
+
+  @Test
+  void backfillWalksIdBatchesThenDisablesFallback() throws Exception {
+    when(shortLinkJdbcRepository.backfillUrlHashes(0, 2)).thenReturn(new UrlHashBatch(2, 7));
+    when(shortLinkJdbcRepository.backfillUrlHashes(7, 2)).thenReturn(new UrlHashBatch(1, 9));
+    when(shortLinkJdbcRepository.backfillUrlHashes(9, 2)).thenReturn(new UrlHashBatch(0, 9));
+    when(shortLinkJdbcRepository.markUrlHashesBackfilled()).thenReturn(true);
+
+    long rows = newBackfill(false).backfill();
+
+    assertEquals(3, rows);
+    InOrder order = inOrder(shortLinkJdbcRepository);
+    order.verify(shortLinkJdbcRepository).backfillUrlHashes(9, 2);
+    order.verify(shortLinkJdbcRepository).markUrlHashesBackfilled();
+    verify(shortLinkJdbcRepository, never()).dropOriginalUrlUniqueIndexes();
+  }
+
+  @Test
+  void dropsLegacyIndexOnlyAfterBackfill() throws Exception {
+    when(shortLinkJdbcRepository.backfillUrlHashes(0, 2)).thenReturn(new UrlHashBatch(0, 0));
+    when(shortLinkJdbcRepository.markUrlHashesBackfilled()).thenReturn(true);
+
+    newBackfill(true).backfill();
+
+    InOrder order = inOrder(shortLinkJdbcRepository);
+    order.verify(shortLinkJdbcRepository).markUrlHashesBackfilled();
+    order.verify(shortLinkJdbcRepository).dropOriginalUrlUniqueIndexes();
+  }
+
+  @Test
+  void rowsWrittenByOldNodesDuringThePassTriggerAnotherPass() throws Exception {
+    when(shortLinkJdbcRepository.backfillUrlHashes(0, 2))
+        .thenReturn(new UrlHashBatch(0, 0))
+        .thenReturn(new UrlHashBatch(1, 4));
+    when(shortLinkJdbcRepository.backfillUrlHashes(4, 2)).thenReturn(new UrlHashBatch(0, 4));
+    when(shortLinkJdbcRepository.markUrlHashesBackfilled()).thenReturn(false, true);
+
+    long rows = newBackfill(true).backfill();
+
+    assertEquals(1, rows);
+    InOrder order = inOrder(shortLinkJdbcRepository);
+    order.verify(shortLinkJdbcRepository).markUrlHashesBackfilled();
+    order.verify(shortLinkJdbcRepository).backfillUrlHashes(4, 2);
+    order.verify(shortLinkJdbcRepository).markUrlHashesBackfilled();
+    order.verify(shortLinkJdbcRepository).dropOriginalUrlUniqueIndexes();
+  }
+
+  @Test
+  void urlHashIsStableAndCaseSensitive() {
+    assertEquals(
+        UrlHashes.of("https://example.com/Article"), UrlHashes.of("https://example.com/Article"));
+    assertNotEquals(
+        UrlHashes.of("https://example.com/Article"), UrlHashes.of("https://example.com/article"));
+  }
+
+  private UrlHashBackfill newBackfill(boolean dropLegacyIndex) {
+    return new UrlHashBackfill(
+        shortLinkJdbcRepository, new SimpleMeterRegistry(), 2, 0, 0, dropLegacyIndex, false);
+  }
+}
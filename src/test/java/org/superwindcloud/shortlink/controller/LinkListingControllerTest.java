@@ -0,0 +1,196 @@
+package org.superwindcloud.shortlink.controller;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.superwindcloud.shortlink.exception.GlobalExceptionHandler;
+import org.superwindcloud.shortlink.repository.LinkCursor;
+import org.superwindcloud.shortlink.repository.LinkSummary;
+import org.superwindcloud.shortlink.service.LinkListingService;
+import tools.jackson.databind.json.JsonMapper;
+
+@ExtendWith(MockitoExtension.class)
+class LinkListingControllerTest {
+
+  private static final LinkSummary NEWER =
+      new LinkSummary(
+          9L, "abc123", "https://example.com/b", LocalDateTime.parse("2024-05-01T10:00:00.5"), 4);
+  private static final LinkSummary OLDER =
+      new LinkSummary(
+          8L, "xyz789", "https://example.com/a", LocalDateTime.parse("2024-05-01T09:00:00"), 0);
+
+  private static final String ADMIN_TOKEN = "admin-secret";
+  private static final long EXPORT_TIMEOUT_MILLIS = 120_000;
+
+  @Mock private LinkListingService linkListingService;
+
+  private MockMvc mockMvc;
+
+  @BeforeEach
+  void setUp() {
+    mockMvc =
+        MockMvcBuilders.standaloneSetup(
+                new LinkListingController(
+                    linkListingService,
+                    JsonMapper.builder().build(),
+                    new AdminToken(ADMIN_TOKEN),
+                    1,
+                    EXPORT_TIMEOUT_MILLIS))
+            .setControllerAdvice(new GlobalExceptionHandler())
+            .build();
+  }
+
+  @Test
+  void listLinksReturnsPageAndCursorThatRoundTrips() throws Exception {
+    when(linkListingService.page(NEWER.cursor(), "example", 2))
+        .thenReturn(new LinkListingService.LinkPage(List.of(OLDER), OLDER.cursor()));
+
+    mockMvc
+        .perform(
+            get("/api/links")
+                .header(AdminToken.HEADER, ADMIN_TOKEN)
+                .param("after", NEWER.cursor().encode())
+                .param("limit", "2")
+                .param("q", "example"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.links[0].shortCode").value("xyz789"))
+        .andExpect(jsonPath("$.links[0].shortUrl").value("/r/xyz789"))
+        .andExpect(jsonPath("$.nextCursor").value(OLDER.cursor().encode()));
+
+    assertEquals(NEWER.cursor(), LinkCursor.decode(NEWER.cursor().encode()));
+  }
+
+  @Test
+  void listLinksRejectsBadCursorAndLimit() throws Exception {
+    mockMvc
+        .perform(
+            get("/api/links").header(AdminToken.HEADER, ADMIN_TOKEN).param("after", "not-a-cursor"))
+        .andExpect(status().isBadRequest());
+    mockMvc
+        .perform(
+            get("/api/links")
+                .header(AdminToken.HEADER, ADMIN_TOKEN)
+                .param("limit", "" + (LinkListingController.MAX_LIMIT + 1)))
+        .andExpect(status().isBadRequest());
+
+    assertNull(LinkCursor.decode("AAAA"));
+    verifyNoInteractions(linkListingService);
+  }
+
+  @Test
+  void exportLinksStreamsOneLinePerLink() throws Exception {
+    doAnswer(
+            invocation -> {
+              Consumer<LinkSummary> sink = invocation.getArgument(1);
+              sink.accept(NEWER);
+              sink.accept(OLDER);
+              return null;
+            })
+        .when(linkListingService)
+        .export(eq(null), any());
+
+    MvcResult result =
+        mockMvc
+            .perform(get("/api/links/export").header(AdminToken.HEADER, ADMIN_TOKEN))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+    String body =
+        mockMvc
+            .perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andExpect(content().string(containsString("\"shortCode\":\"abc123\"")))
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+    assertEquals(2, body.lines().count());
+  }
+
+  @Test
+  void listingAndExportRequireAdminToken() throws Exception {
+    mockMvc.perform(get("/api/links")).andExpect(status().isForbidden());
+    mockMvc
+        .perform(get("/api/links/export").header(AdminToken.HEADER, "guess"))
+        .andExpect(status().isForbidden());
+
+    verifyNoInteractions(linkListingService);
+  }
+
+  @Test
+  void exportRejectsSecondConcurrentExport() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    doAnswer(invocation -> release.await(5, TimeUnit.SECONDS))
+        .when(linkListingService)
+        .export(eq(null), any());
+    MvcResult running =
+        mockMvc
+            .perform(get("/api/links/export").header(AdminToken.HEADER, ADMIN_TOKEN))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+    mockMvc
+        .perform(get("/api/links/export").header(AdminToken.HEADER, ADMIN_TOKEN))
+        .andExpect(status().isTooManyRequests())
+        .andExpect(header().exists("Retry-After"));
+
+    release.countDown();
+    mockMvc.perform(asyncDispatch(running)).andExpect(status().isOk());
+    mockMvc
+        .perform(get("/api/links/export").header(AdminToken.HEADER, ADMIN_TOKEN))
+        .andExpect(request().asyncStarted());
+  }
+
+  @Test
+  void timedOutExportGivesItsSlotBack() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    doAnswer(invocation -> release.await(5, TimeUnit.SECONDS))
+        .when(linkListingService)
+        .export(eq(null), any());
+    MvcResult running =
+        mockMvc
+            .perform(get("/api/links/export").header(AdminToken.HEADER, ADMIN_TOKEN))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+    MockAsyncContext asyncContext = (MockAsyncContext) running.getRequest().getAsyncContext();
+    assertEquals(EXPORT_TIMEOUT_MILLIS, asyncContext.getTimeout());
+
+    // 模拟容器的异步超时，导出任务还卡在数据库游标上
+    for (AsyncListener listener : asyncContext.getListeners()) {
+      listener.onTimeout(new AsyncEvent(asyncContext));
+    }
+
+    mockMvc
+        .perform(get("/api/links/export").header(AdminToken.HEADER, ADMIN_TOKEN))
+        .andExpect(request().asyncStarted());
+    release.countDown();
+  }
+}
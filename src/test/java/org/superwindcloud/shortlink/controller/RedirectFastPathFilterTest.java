@@ -0,0 +1,96 @@
+package org.superwindcloud.shortlink.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.superwindcloud.shortlink.service.RedirectEntry;
+import org.superwindcloud.shortlink.service.ShortLinkService;
+
+@ExtendWith(MockitoExtension.class)
+class RedirectFastPathFilterTest {
+
+  @Mock private ShortLinkService shortLinkService;
+
+  private RedirectFastPathFilter filter;
+
+  @BeforeEach
+  void setUp() {
+    filter = new RedirectFastPathFilter(shortLinkService, new RedirectPolicy(302, 0));
+  }
+
+  @Test
+  void redirectsWithoutReachingTheController() throws Exception {
+    when(shortLinkService.resolveRedirect("abc123", null, null))
+        .thenReturn(Optional.of(new RedirectEntry(1L, "https://example.com")));
+    MockFilterChain chain = new MockFilterChain();
+    MockHttpServletResponse response = call("GET", "/r/abc123", chain);
+
+    assertEquals(302, response.getStatus());
+    assertEquals("https://example.com", response.getHeader("Location"));
+    assertEquals(0, response.getContentLength());
+    assertNull(chain.getRequest());
+  }
+
+  @Test
+  void cacheableLinkGetsCachingHeadersAndNotModified() throws Exception {
+    when(shortLinkService.resolveRedirect("abc123", null, null))
+        .thenReturn(Optional.of(new RedirectEntry(1L, "https://example.com", 308, 600)));
+    MockHttpServletResponse first = call("GET", "/r/abc123", new MockFilterChain());
+
+    assertEquals(308, first.getStatus());
+    assertEquals("public, max-age=600", first.getHeader("Cache-Control"));
+    String etag = first.getHeader("ETag");
+    assertNotNull(etag);
+
+    MockHttpServletRequest revalidate = new MockHttpServletRequest("GET", "/r/abc123");
+    revalidate.addHeader("If-None-Match", etag);
+    MockHttpServletResponse second = new MockHttpServletResponse();
+    filter.doFilter(revalidate, second, new MockFilterChain());
+
+    assertEquals(304, second.getStatus());
+    assertNull(second.getHeader("Location"));
+    assertEquals(etag, second.getHeader("ETag"));
+  }
+
+  @Test
+  void unknownCodeGetsSameJsonAsController() throws Exception {
+    when(shortLinkService.resolveRedirect("nope", null, null)).thenReturn(Optional.empty());
+    MockHttpServletResponse response = call("GET", "/r/nope", new MockFilterChain());
+
+    assertEquals(404, response.getStatus());
+    assertEquals("application/json", response.getContentType());
+    assertEquals("{\"error\":\"Short link not found\"}", response.getContentAsString());
+  }
+
+  @Test
+  void leavesUnusualRequestsToTheController() throws Exception {
+    for (String[] request :
+        new String[][] {
+          {"HEAD", "/r/abc123"}, {"GET", "/r/a%41"}, {"GET", "/r/a/b"}, {"GET", "/r/"}
+        }) {
+      MockFilterChain chain = new MockFilterChain();
+      call(request[0], request[1], chain);
+      assertNotNull(chain.getRequest(), request[0] + " " + request[1]);
+    }
+    verifyNoInteractions(shortLinkService);
+  }
+
+  private MockHttpServletResponse call(String method, String uri, MockFilterChain chain)
+      throws Exception {
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    filter.doFilter(new MockHttpServletRequest(method, uri), response, chain);
+    return response;
+  }
+}
@@ -1,14 +1,22 @@
 package org.superwindcloud.shortlink.controller;
 
+import static org.hamcrest.Matchers.containsString;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
-import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -16,15 +24,20 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
 import org.superwindcloud.shortlink.entity.ShortLink;
 import org.superwindcloud.shortlink.exception.GlobalExceptionHandler;
+import org.superwindcloud.shortlink.service.RedirectEntry;
 import org.superwindcloud.shortlink.service.ShortLinkService;
+import tools.jackson.databind.json.JsonMapper;
 
 @ExtendWith(MockitoExtension.class)
 class ShortLinkControllerTest {
 
+  private static final String ADMIN_TOKEN = "admin-secret";
+
   @Mock private ShortLinkService shortLinkService;
 
   private MockMvc mockMvc;
@@ -35,7 +48,12 @@ class ShortLinkControllerTest {
     validator = new LocalValidatorFactoryBean();
     validator.afterPropertiesSet();
     mockMvc =
-        MockMvcBuilders.standaloneSetup(new ShortLinkController(shortLinkService))
+        MockMvcBuilders.standaloneSetup(
+                new ShortLinkController(
+                    shortLinkService,
+                    JsonMapper.builder().build(),
+                    new RedirectPolicy(302, 0),
+                    new AdminToken(ADMIN_TOKEN)))
             .setControllerAdvice(new GlobalExceptionHandler())
             .setValidator(validator)
             .build();
@@ -76,21 +94,144 @@ class ShortLinkControllerTest {
   }
 
   @Test
-  void redirectToOriginalUrlReturnsFound() throws Exception {
+  void createShortLinksStreamsOneLinePerUrl() throws Exception {
+    ShortLink shortLink = new ShortLink("https://example.com/article", "abc123");
+    when(shortLinkService.createShortLinks(List.of("https://example.com/article")))
+        .thenReturn(Map.of("https://example.com/article", shortLink));
+
+    MvcResult result =
+        mockMvc
+            .perform(
+                post("/api/shorten/batch")
+                    .contentType(APPLICATION_JSON)
+                    .content("{\"urls\":[\"https://example.com/article\",\"not-a-url\"]}"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+    mockMvc
+        .perform(asyncDispatch(result))
+        .andExpect(status().isOk())
+        .andExpect(
+            content()
+                .string(
+                    "{\"url\":\"https://example.com/article\",\"shortUrl\":\"/r/abc123\",\"shortCode\":\"abc123\",\"originalUrl\":\"https://example.com/article\"}\n"
+                        + "{\"url\":\"not-a-url\",\"error\":\"Invalid URL format\"}\n"));
+  }
+
+  @Test
+  void createShortLinksAcceptsNdjson() throws Exception {
     ShortLink shortLink = new ShortLink("https://example.com/article", "abc123");
-    shortLink.setId(1L);
-    shortLink.setCreatedAt(LocalDateTime.now());
-    when(shortLinkService.findAndIncrementClickCount("abc123")).thenReturn(Optional.of(shortLink));
+    when(shortLinkService.createShortLinks(List.of("https://example.com/article")))
+        .thenReturn(Map.of("https://example.com/article", shortLink));
+
+    MvcResult result =
+        mockMvc
+            .perform(
+                post("/api/shorten/batch")
+                    .contentType(APPLICATION_NDJSON)
+                    .content("{\"url\":\"https://example.com/article\"}\n\n"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+    mockMvc
+        .perform(asyncDispatch(result))
+        .andExpect(status().isOk())
+        .andExpect(content().string(containsString("\"shortCode\":\"abc123\"")));
+  }
+
+  @Test
+  void createShortLinksRejectsUnparseableNdjsonLine() throws Exception {
+    mockMvc
+        .perform(
+            post("/api/shorten/batch")
+                .contentType(APPLICATION_NDJSON)
+                .content("{\"url\":\"https://example.com/article\"}\nhttps://example.com/raw\n"))
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("$.error").value("Line 2 is not a {\"url\": ...} object"));
+
+    verifyNoInteractions(shortLinkService);
+  }
+
+  @Test
+  void createShortLinksRejectsOversizedNdjsonLine() throws Exception {
+    String longLine = "{\"url\":\"https://example.com/" + "a".repeat(10_000) + "\"}";
+
+    mockMvc
+        .perform(post("/api/shorten/batch").contentType(APPLICATION_NDJSON).content(longLine))
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("$.error").value("Line 1 exceeds 8192 bytes"));
+
+    verifyNoInteractions(shortLinkService);
+  }
+
+  @Test
+  void redirectToOriginalUrlReturnsFound() throws Exception {
+    when(shortLinkService.resolveRedirect("abc123", null, null))
+        .thenReturn(Optional.of(new RedirectEntry(1L, "https://example.com/article")));
 
     mockMvc
         .perform(get("/r/abc123"))
         .andExpect(status().isFound())
-        .andExpect(header().string("Location", "https://example.com/article"));
+        .andExpect(header().string("Location", "https://example.com/article"))
+        .andExpect(header().doesNotExist("Cache-Control"))
+        .andExpect(header().doesNotExist("ETag"));
+  }
+
+  @Test
+  void redirectUsesLinkPolicyAndAnswersRevalidation() throws Exception {
+    when(shortLinkService.resolveRedirect("abc123", null, null))
+        .thenReturn(Optional.of(new RedirectEntry(1L, "https://example.com/article", 301, 3600)));
+
+    MvcResult result =
+        mockMvc
+            .perform(get("/r/abc123"))
+            .andExpect(status().isMovedPermanently())
+            .andExpect(header().string("Location", "https://example.com/article"))
+            .andExpect(header().string("Cache-Control", "public, max-age=3600"))
+            .andReturn();
+    String etag = result.getResponse().getHeader("ETag");
+
+    mockMvc
+        .perform(get("/r/abc123").header("If-None-Match", etag))
+        .andExpect(status().isNotModified())
+        .andExpect(header().doesNotExist("Location"))
+        .andExpect(header().string("ETag", etag));
+  }
+
+  @Test
+  void updateRedirectPolicyRejectsUnsupportedStatus() throws Exception {
+    mockMvc
+        .perform(
+            put("/api/links/abc123/redirect-policy")
+                .header(AdminToken.HEADER, ADMIN_TOKEN)
+                .contentType(APPLICATION_JSON)
+                .content("{\"status\":303,\"maxAge\":60}"))
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("$.error").exists());
+  }
+
+  @Test
+  void updateRedirectPolicyRequiresAdminToken() throws Exception {
+    mockMvc
+        .perform(
+            put("/api/links/abc123/redirect-policy")
+                .contentType(APPLICATION_JSON)
+                .content("{\"status\":301,\"maxAge\":31536000}"))
+        .andExpect(status().isForbidden());
+    mockMvc
+        .perform(
+            put("/api/links/abc123/redirect-policy")
+                .header(AdminToken.HEADER, "guess")
+                .contentType(APPLICATION_JSON)
+                .content("{\"status\":301,\"maxAge\":31536000}"))
+        .andExpect(status().isForbidden());
+
+    verifyNoInteractions(shortLinkService);
   }
 
   @Test
   void redirectToOriginalUrlReturnsNotFound() throws Exception {
-    when(shortLinkService.findAndIncrementClickCount("missing")).thenReturn(Optional.empty());
+    when(shortLinkService.resolveRedirect("missing", null, null)).thenReturn(Optional.empty());
 
     mockMvc
         .perform(get("/r/missing"))
@@ -0,0 +1,91 @@
+package org.superwindcloud.shortlink.controller;
+
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.superwindcloud.shortlink.exception.GlobalExceptionHandler;
+import org.superwindcloud.shortlink.repository.ClickRollupRow;
+import org.superwindcloud.shortlink.service.RedirectEntry;
+import org.superwindcloud.shortlink.service.ShortLinkService;
+import org.superwindcloud.shortlink.service.analytics.ClickAnalytics;
+import org.superwindcloud.shortlink.service.analytics.RollupGranularity;
+
+@ExtendWith(MockitoExtension.class)
+class StatsControllerTest {
+
+  @Mock private ShortLinkService shortLinkService;
+  @Mock private ClickAnalytics clickAnalytics;
+
+  private MockMvc mockMvc;
+
+  @BeforeEach
+  void setUp() {
+    mockMvc =
+        MockMvcBuilders.standaloneSetup(new StatsController(shortLinkService, clickAnalytics))
+            .setControllerAdvice(new GlobalExceptionHandler())
+            .build();
+  }
+
+  @Test
+  void getStatsReturnsBucketsInRange() throws Exception {
+    when(shortLinkService.findRedirectEntry("abc123"))
+        .thenReturn(Optional.of(new RedirectEntry(7L, "https://example.com/article")));
+    when(clickAnalytics.rollups(
+            eq(7L),
+            eq(RollupGranularity.HOUR),
+            eq(Instant.parse("2024-05-01T00:00:00Z")),
+            eq(Instant.parse("2024-05-02T00:00:00Z")),
+            eq(StatsController.MAX_BUCKETS)))
+        .thenReturn(
+            List.of(
+                new ClickRollupRow(
+                    7L, "HOUR", LocalDateTime.parse("2024-05-01T09:00:00"), 5, 1, 3, 1),
+                new ClickRollupRow(
+                    7L, "HOUR", LocalDateTime.parse("2024-05-01T10:00:00"), 2, 0, 0, 0)));
+
+    mockMvc
+        .perform(
+            get("/api/stats/abc123")
+                .param("from", "2024-05-01T00:30:00Z")
+                .param("to", "2024-05-02T00:00:00Z")
+                .param("granularity", "HOUR"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.granularity").value("hour"))
+        .andExpect(jsonPath("$.from").value("2024-05-01T00:00:00Z"))
+        .andExpect(jsonPath("$.clicks").value(7))
+        .andExpect(jsonPath("$.buckets[0].start").value("2024-05-01T09:00:00Z"))
+        .andExpect(jsonPath("$.buckets[0].mobileClicks").value(3))
+        .andExpect(jsonPath("$.buckets[1].clicks").value(2));
+  }
+
+  @Test
+  void getStatsRejectsUnknownGranularityAndOversizedRange() throws Exception {
+    mockMvc
+        .perform(get("/api/stats/abc123").param("granularity", "week"))
+        .andExpect(status().isBadRequest());
+    mockMvc
+        .perform(
+            get("/api/stats/abc123")
+                .param("from", "2000-01-01T00:00:00Z")
+                .param("granularity", "minute"))
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("$.error").value("Range spans more than 10000 buckets"));
+
+    verifyNoInteractions(shortLinkService, clickAnalytics);
+  }
+}
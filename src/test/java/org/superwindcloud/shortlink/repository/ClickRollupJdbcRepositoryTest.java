@@ -0,0 +1,70 @@
+package org.superwindcloud.shortlink.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+class ClickRollupJdbcRepositoryTest {
+
+  private static final LocalDateTime MINUTE = LocalDateTime.parse("2024-05-01T10:00:00");
+
+  private JdbcTemplate jdbcTemplate;
+  private ClickRollupJdbcRepository repository;
+
+  @BeforeEach
+  void setUp() {
+    DriverManagerDataSource dataSource =
+        new DriverManagerDataSource("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+    jdbcTemplate = new JdbcTemplate(dataSource);
+    jdbcTemplate.execute(
+        "create table click_rollups (link_id bigint not null, granularity varchar(8) not null,"
+            + " bucket_start timestamp not null, clicks bigint not null,"
+            + " bot_clicks bigint not null, mobile_clicks bigint not null,"
+            + " desktop_clicks bigint not null, primary key (link_id, granularity, bucket_start))");
+    repository =
+        new ClickRollupJdbcRepository(jdbcTemplate, new DataSourceTransactionManager(dataSource));
+  }
+
+  @Test
+  void addAllAddsToExistingBuckets() {
+    repository.addAll(List.of(row(1L, "MINUTE", 2)));
+    repository.addAll(List.of(row(1L, "MINUTE", 3), row(2L, "MINUTE", 1)));
+
+    assertEquals(5L, clicks(1L));
+    assertEquals(1L, clicks(2L));
+  }
+
+  @Test
+  void failedChunkRollsBackEarlierChunks() {
+    // 第一块 1000 行能写入，第二块违反非空约束
+    List<ClickRollupRow> rows = new ArrayList<>();
+    for (long linkId = 0; linkId < 1_000; linkId++) {
+      rows.add(row(linkId, "MINUTE", 1));
+    }
+    rows.add(row(1_000L, null, 1));
+
+    assertThrows(DataAccessException.class, () -> repository.addAll(rows));
+
+    assertEquals(
+        0L, jdbcTemplate.queryForObject("select count(*) from click_rollups", Long.class));
+  }
+
+  private long clicks(long linkId) {
+    return jdbcTemplate.queryForObject(
+        "select clicks from click_rollups where link_id = ?", Long.class, linkId);
+  }
+
+  private static ClickRollupRow row(long linkId, String granularity, long clicks) {
+    return new ClickRollupRow(linkId, granularity, MINUTE, clicks, 0, 0, 0);
+  }
+}
@@ -0,0 +1,120 @@
+package org.superwindcloud.shortlink.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.ByteBuffer;
+import java.util.Base64;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.superwindcloud.shortlink.cache.CacheInvalidation;
+import org.superwindcloud.shortlink.cache.LocalCacheInvalidationBus;
+import org.superwindcloud.shortlink.config.CacheConfig;
+import org.superwindcloud.shortlink.service.code.PackedShortCode;
+
+class ReadReplicasTest {
+
+  private static final String PRIMARY_URL =
+      "jdbc:h2:mem:replicas-primary;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE";
+  private static final String REPLICA_URL =
+      "jdbc:h2:mem:replicas-replica;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE";
+  // 没有监听的端口，连接直接被拒绝
+  private static final String UNREACHABLE_URL = "jdbc:h2:tcp://127.0.0.1:1/unreachable";
+
+  private final LocalCacheInvalidationBus invalidationBus = new LocalCacheInvalidationBus();
+  private final JdbcTemplate primary = database(PRIMARY_URL, "primary");
+  private ReadReplicas readReplicas;
+
+  @AfterEach
+  void tearDown() {
+    readReplicas.shutdown();
+  }
+
+  @Test
+  void readsGoToHealthyReplica() {
+    database(REPLICA_URL, "replica");
+    readReplicas = newReadReplicas(REPLICA_URL);
+    readReplicas.start();
+
+    assertEquals(1, readReplicas.healthyCount());
+    assertEquals("replica", readSource("abc123"));
+    assertEquals("replica", readSource(null));
+  }
+
+  @Test
+  void recentWriteIsReadFromPrimary() {
+    database(REPLICA_URL, "replica");
+    readReplicas = newReadReplicas(REPLICA_URL);
+    readReplicas.start();
+
+    readReplicas.recordWrite("abc123");
+
+    assertEquals("primary", readSource("abc123"));
+    assertEquals("replica", readSource("xyz789"));
+  }
+
+  @Test
+  void evictionFromAnotherNodeCountsAsWrite() {
+    database(REPLICA_URL, "replica");
+    readReplicas = newReadReplicas(REPLICA_URL);
+    readReplicas.start();
+
+    byte[] key =
+        ByteBuffer.allocate(Long.BYTES).putLong(PackedShortCode.pack("abc123")).array();
+    invalidationBus.publish(
+        new CacheInvalidation(
+            "other-node", CacheConfig.SHORT_CODE_CACHE, Base64.getEncoder().encodeToString(key)));
+
+    assertEquals("primary", readSource("abc123"));
+  }
+
+  @Test
+  void unreachableReplicaLeavesRotation() {
+    readReplicas = newReadReplicas(UNREACHABLE_URL);
+    readReplicas.start();
+
+    assertEquals(0, readReplicas.healthyCount());
+    assertEquals("primary", readSource("abc123"));
+  }
+
+  @Test
+  void withoutReplicasEveryReadGoesToPrimary() {
+    readReplicas = newReadReplicas("");
+    readReplicas.start();
+
+    readReplicas.recordWrite("abc123");
+
+    assertEquals("primary", readSource("xyz789"));
+  }
+
+  private String readSource(String shortCode) {
+    return readReplicas.read(
+        shortCode, jdbc -> jdbc.queryForObject("select name from source", String.class));
+  }
+
+  private ReadReplicas newReadReplicas(String urls) {
+    return new ReadReplicas(
+        primary,
+        invalidationBus,
+        new SimpleMeterRegistry(),
+        urls,
+        "sa",
+        "",
+        2,
+        250,
+        5_000,
+        60_000,
+        false);
+  }
+
+  /** 建库并写入一行标记，查询结果能看出读的是哪个库 */
+  private static JdbcTemplate database(String url, String name) {
+    JdbcTemplate jdbc = new JdbcTemplate(new DriverManagerDataSource(url, "sa", ""));
+    jdbc.execute("drop table if exists source");
+    jdbc.execute("create table source (name varchar(16))");
+    jdbc.update("insert into source values (?)", name);
+    return jdbc;
+  }
+}
@@ -0,0 +1,55 @@
+package org.superwindcloud.shortlink.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.superwindcloud.shortlink.service.code.ShortCodeCodec;
+import org.superwindcloud.shortlink.util.UrlHashes;
+
+class ShortLinkShardsTest {
+
+  @Test
+  void boundsTileTheWholeHashSpace() {
+    ShortLinkShards shards = new ShortLinkShards(3, 6, 42L);
+
+    assertEquals(new UUID(0, 0), shards.lowerBound(0));
+    assertEquals(new UUID(-1L, -1L), shards.upperBound(2));
+    for (int shard = 0; shard < 3; shard++) {
+      assertEquals(shard, shards.ofUrlHash(shards.lowerBound(shard)));
+      assertEquals(shard, shards.ofUrlHash(shards.upperBound(shard)));
+    }
+    for (int shard = 1; shard < 3; shard++) {
+      UUID previousUpper = shards.upperBound(shard - 1);
+      UUID lower = shards.lowerBound(shard);
+      assertEquals(previousUpper.getMostSignificantBits() + 1, lower.getMostSignificantBits());
+      assertEquals(-1L, previousUpper.getLeastSignificantBits());
+    }
+  }
+
+  @Test
+  void urlShardMatchesItsHashRange() {
+    ShortLinkShards shards = new ShortLinkShards(8, 6, 42L);
+
+    for (int i = 0; i < 1000; i++) {
+      String url = "https://example.com/article/" + i;
+      long high = UrlHashes.of(url).getMostSignificantBits();
+      int shard = shards.ofUrl(url);
+      long lower = shards.lowerBound(shard).getMostSignificantBits();
+      long upper = shards.upperBound(shard).getMostSignificantBits();
+      assertTrue(Long.compareUnsigned(high, lower) >= 0, url);
+      assertTrue(Long.compareUnsigned(high, upper) <= 0, url);
+    }
+  }
+
+  @Test
+  void shortCodeShardComesFromDecodedValue() {
+    ShortLinkShards shards = new ShortLinkShards(4, 6, 42L);
+    ShortCodeCodec codec = new ShortCodeCodec(6, 42L);
+
+    assertEquals(3, shards.ofShortCode(codec.encode(41L * 4 + 3)));
+    assertEquals(-1, shards.ofShortCode("abc"));
+    assertEquals(0, new ShortLinkShards(1, 6, 42L).ofShortCode("abc"));
+  }
+}
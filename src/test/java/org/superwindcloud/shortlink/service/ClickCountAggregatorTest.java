@@ -0,0 +1,87 @@
+package org.superwindcloud.shortlink.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+import org.superwindcloud.shortlink.repository.ShortLinkJdbcRepository;
+import org.superwindcloud.shortlink.repository.ShortLinkShards;
+
+@ExtendWith(MockitoExtension.class)
+class ClickCountAggregatorTest {
+
+  @Mock private ShortLinkJdbcRepository shortLinkJdbcRepository;
+
+  private SimpleMeterRegistry meterRegistry;
+  private ClickCountAggregator aggregator;
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    aggregator =
+        new ClickCountAggregator(
+            shortLinkJdbcRepository,
+            new ShortLinkShards(4, 6, 42L),
+            meterRegistry,
+            60_000,
+            1_000_000,
+            false);
+  }
+
+  @Test
+  void flushWritesAccumulatedDeltasInOneBatch() {
+    aggregator.record(1, 1L);
+    aggregator.record(1, 1L);
+    aggregator.record(1, 2L);
+
+    assertEquals(3L, aggregator.flush());
+
+    verify(shortLinkJdbcRepository).addClickCounts(1, Map.of(1L, 2L, 2L, 1L));
+    assertEquals(0L, aggregator.pendingClicks(1L));
+    assertEquals(0.0, meterRegistry.get("shortlink.clicks.pending").gauge().value());
+  }
+
+  @Test
+  void flushWritesOneBatchPerShard() {
+    aggregator.record(0, 1L);
+    aggregator.record(3, 2L, 5);
+    aggregator.record(-1, 3L);
+
+    assertEquals(7L, aggregator.flush());
+
+    verify(shortLinkJdbcRepository).addClickCounts(-1, Map.of(3L, 1L));
+    verify(shortLinkJdbcRepository).addClickCounts(0, Map.of(1L, 1L));
+    verify(shortLinkJdbcRepository).addClickCounts(3, Map.of(2L, 5L));
+  }
+
+  @Test
+  void flushSkipsDatabaseWhenNothingPending() {
+    assertEquals(0L, aggregator.flush());
+
+    verify(shortLinkJdbcRepository, never()).addClickCounts(anyInt(), any());
+  }
+
+  @Test
+  void failedFlushKeepsDeltasForNextRound() {
+    aggregator.record(2, 7L);
+    when(shortLinkJdbcRepository.addClickCounts(anyInt(), any()))
+        .thenThrow(new QueryTimeoutException("timeout"));
+
+    assertThrows(QueryTimeoutException.class, aggregator::flush);
+
+    assertEquals(1L, aggregator.pendingClicks(7L));
+    assertEquals(1.0, meterRegistry.get("shortlink.clicks.flush.failures").counter().count());
+  }
+}
@@ -0,0 +1,125 @@
+package org.superwindcloud.shortlink.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.UUID;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.superwindcloud.shortlink.cache.LocalCacheInvalidationBus;
+
+class ShortCodeFilterTest {
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final SwitchableBus bus = new SwitchableBus();
+  private JdbcTemplate jdbcTemplate;
+  private ShortCodeFilter filter;
+
+  @BeforeEach
+  void setUp() {
+    DriverManagerDataSource dataSource =
+        new DriverManagerDataSource("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+    jdbcTemplate = new JdbcTemplate(dataSource);
+    jdbcTemplate.execute(
+        "create table short_links (id bigint primary key, short_code varchar(16))");
+    jdbcTemplate.update("insert into short_links values (1, 'abc123')");
+    filter =
+        new ShortCodeFilter(
+            jdbcTemplate,
+            new DataSourceTransactionManager(dataSource),
+            bus,
+            meterRegistry,
+            1_000,
+            0.01,
+            60_000,
+            1_000,
+            3_600_000,
+            false);
+  }
+
+  @AfterEach
+  void tearDown() {
+    filter.shutdown();
+  }
+
+  @Test
+  void rejectsUnknownCodesWhileBusDelivers() {
+    filter.run(null);
+
+    assertTrue(filter.mightExist("abc123"));
+    assertFalse(filter.mightExist("zzz999"));
+    assertEquals(1, lookups("rejected"));
+  }
+
+  @Test
+  void missesFallThroughUntilScanAfterBusRecovers() {
+    filter.run(null);
+    bus.receiving = false;
+
+    // 总线断开期间其他节点创建的短码只有数据库知道
+    jdbcTemplate.update("insert into short_links values (2, 'new456')");
+    assertTrue(filter.mightExist("new456"));
+
+    bus.receiving = true;
+    assertTrue(filter.mightExist("zzz999"));
+    assertEquals(2, lookups("bypassed"));
+
+    filter.refresh();
+    assertTrue(filter.mightExist("new456"));
+    assertFalse(filter.mightExist("zzz999"));
+  }
+
+  @Test
+  void localBusNeverTrustsFilterMisses() {
+    bus.receiving = false;
+    filter.run(null);
+
+    assertTrue(filter.mightExist("zzz999"));
+    assertEquals(0, lookups("rejected"));
+  }
+
+  @Test
+  void scanClearsNegativeEntryOfCodeWhoseAnnouncementWasLost() {
+    filter.run(null);
+    filter.recordMissing("new456");
+    assertFalse(filter.mightExist("new456"));
+
+    jdbcTemplate.update("insert into short_links values (2, 'new456')");
+    filter.refresh();
+
+    assertTrue(filter.mightExist("new456"));
+  }
+
+  @Test
+  void bypassedMissIsNotCountedAsFalsePositive() {
+    filter.run(null);
+    bus.receiving = false;
+
+    assertTrue(filter.mightExist("zzz999"));
+    filter.recordMissing("zzz999");
+
+    assertEquals(1, lookups("bypassed"));
+    assertEquals(0, lookups("false_positive"));
+  }
+
+  private double lookups(String result) {
+    return meterRegistry.counter("shortlink.filter.lookups", "result", result).count();
+  }
+
+  /** Local bus whose remote delivery can be switched off like a dropped Redis subscription */
+  private static final class SwitchableBus extends LocalCacheInvalidationBus {
+
+    private volatile boolean receiving = true;
+
+    @Override
+    public boolean receivesRemote() {
+      return receiving;
+    }
+  }
+}
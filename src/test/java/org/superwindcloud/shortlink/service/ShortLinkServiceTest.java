@@ -1,13 +1,32 @@
 package org.superwindcloud.shortlink.service;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -15,9 +34,19 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.superwindcloud.shortlink.cache.LayeredCacheManager;
+import org.superwindcloud.shortlink.cache.LocalCacheInvalidationBus;
 import org.superwindcloud.shortlink.config.CacheConfig;
 import org.superwindcloud.shortlink.entity.ShortLink;
+import org.superwindcloud.shortlink.repository.ReadReplicas;
+import org.superwindcloud.shortlink.repository.ShortLinkJdbcRepository;
 import org.superwindcloud.shortlink.repository.ShortLinkRepository;
+import org.superwindcloud.shortlink.repository.ShortLinkShards;
+import org.superwindcloud.shortlink.service.analytics.ClickAnalytics;
+import org.superwindcloud.shortlink.service.code.PackedShortCode;
+import org.superwindcloud.shortlink.service.code.ShortCodeGenerator;
 import org.superwindcloud.shortlink.util.DistributedLock;
 
 @ExtendWith(MockitoExtension.class)
@@ -28,70 +57,327 @@ class ShortLinkServiceTest {
   @Mock private Cache originalUrlCache;
   @Mock private Cache shortCodeCache;
   @Mock private DistributedLock distributedLock;
+  @Mock private ClickCountAggregator clickCountAggregator;
+  @Mock private ClickAnalytics clickAnalytics;
+  @Mock private ShortCodeGenerator shortCodeGenerator;
+  @Mock private ShortLinkJdbcRepository shortLinkJdbcRepository;
+  @Mock private ShortCodeFilter shortCodeFilter;
+  @Mock private ReadReplicas readReplicas;
 
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
   private ShortLinkService shortLinkService;
 
   @BeforeEach
   void setUp() {
     when(cacheManager.getCache(CacheConfig.ORIGINAL_URL_CACHE)).thenReturn(originalUrlCache);
     when(cacheManager.getCache(CacheConfig.SHORT_CODE_CACHE)).thenReturn(shortCodeCache);
-    shortLinkService = new ShortLinkService(shortLinkRepository, cacheManager, distributedLock);
+    lenient().when(shortCodeFilter.mightExist(anyString())).thenReturn(true);
+    shortLinkService = newService("lock");
+  }
+
+  private ShortLinkService newService(String createMode) {
+    return newService(createMode, cacheManager, Runnable::run, 0L, meterRegistry);
+  }
+
+  private ShortLinkService newService(
+      String createMode,
+      CacheManager caches,
+      Executor refreshExecutor,
+      long refreshAheadMillis,
+      MeterRegistry registry) {
+    return new ShortLinkService(
+        shortLinkRepository,
+        caches,
+        distributedLock,
+        clickCountAggregator,
+        clickAnalytics,
+        shortCodeGenerator,
+        shortLinkJdbcRepository,
+        shortCodeFilter,
+        readReplicas,
+        new ShortLinkShards(1, 6, 42L),
+        refreshExecutor,
+        registry,
+        createMode,
+        refreshAheadMillis);
   }
 
   @Test
   void createShortLinkReturnsExistingLinkWhenCacheHit() {
-    ShortLink existing = new ShortLink("https://example.com/article", "abc123");
+    long packed = PackedShortCode.pack("abc123");
     when(distributedLock.tryLock(any(), any())).thenReturn(true);
-    when(originalUrlCache.get("https://example.com/article", ShortLink.class)).thenReturn(existing);
+    when(originalUrlCache.get(any(), eq(Long.class))).thenReturn(packed);
+    when(shortCodeCache.get(packed, RedirectEntry.class))
+        .thenReturn(new RedirectEntry(3L, "https://example.com/article"));
 
     ShortLink result = shortLinkService.createShortLink("https://example.com/article");
 
-    assertEquals(existing, result);
+    assertEquals("abc123", result.getShortCode());
+    assertEquals("https://example.com/article", result.getOriginalUrl());
     verify(shortLinkRepository, never()).saveAndFlush(any());
     verify(distributedLock).releaseLock(any(), any());
   }
 
   @Test
-  void findAndIncrementClickCountUsesAtomicRepositoryUpdateAndRefreshesCache() {
+  void resolveRedirectRecordsClickWithoutDatabaseWrite() {
+    when(shortCodeCache.get(PackedShortCode.pack("abc123"), RedirectEntry.class))
+        .thenReturn(new RedirectEntry(7L, "https://example.com/article"));
+
+    Optional<RedirectEntry> result =
+        shortLinkService.resolveRedirect("abc123", "https://news.example/", "curl/8.0");
+
+    assertTrue(result.isPresent());
+    assertEquals("https://example.com/article", result.get().originalUrl());
+    verify(clickCountAggregator).record(0, 7L);
+    verify(clickAnalytics).record(7L, "https://news.example/", "curl/8.0");
+    verifyNoInteractions(shortLinkRepository);
+  }
+
+  @Test
+  void agingEntryIsReloadedOnceInBackground() {
+    // L1 条目 1 秒过期、0.5 秒后提前刷新，时间由 ticker 推进；指标单独注册，不和 setUp 的服务混在一起
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    AtomicLong nanos = new AtomicLong();
+    CaffeineCacheManager local =
+        new CaffeineCacheManager(CacheConfig.ORIGINAL_URL_CACHE, CacheConfig.SHORT_CODE_CACHE);
+    local.setCaffeine(
+        Caffeine.newBuilder()
+            .expireAfterWrite(1, TimeUnit.SECONDS)
+            .ticker(nanos::get)
+            .executor(Runnable::run));
+    LayeredCacheManager caches =
+        new LayeredCacheManager(
+            local, null, Map.of(), Set.of(), new LocalCacheInvalidationBus(), registry);
+    Queue<Runnable> refreshTasks = new ArrayDeque<>();
+    ShortLinkService service = newService("lock", caches, refreshTasks::add, 500L, registry);
+    ShortLink before = new ShortLink("https://example.com/old", "abc123");
+    before.setId(7L);
+    ShortLink after = new ShortLink("https://example.com/new", "abc123");
+    after.setId(7L);
+    when(shortLinkJdbcRepository.findByShortCode("abc123"))
+        .thenReturn(Optional.of(before))
+        .thenReturn(Optional.of(after));
+
+    assertEquals(
+        "https://example.com/old", service.findRedirectEntry("abc123").get().originalUrl());
+    nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(900));
+    // 刷新还在排队时的命中继续用旧条目，也不会再发起一次刷新
+    for (int i = 0; i < 3; i++) {
+      assertEquals(
+          "https://example.com/old", service.findRedirectEntry("abc123").get().originalUrl());
+    }
+    assertEquals(1, refreshTasks.size());
+    refreshTasks.poll().run();
+    nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(200));
+
+    assertEquals(
+        "https://example.com/new", service.findRedirectEntry("abc123").get().originalUrl());
+    assertTrue(refreshTasks.isEmpty());
+    verify(shortLinkJdbcRepository, times(2)).findByShortCode("abc123");
+    assertEquals(1.0, registry.get("shortlink.redirect.refreshes").counter().count());
+    assertEquals(
+        2.0,
+        registry
+            .get("shortlink.redirect.loads")
+            .tag("outcome", "loaded")
+            .functionCounter()
+            .count());
+    assertEquals(
+        0.0,
+        registry
+            .get("shortlink.redirect.loads")
+            .tag("outcome", "coalesced")
+            .functionCounter()
+            .count());
+  }
+
+  @Test
+  void recordEdgeHitsAddsClicksForKnownCode() {
+    when(shortCodeCache.get(PackedShortCode.pack("abc123"), RedirectEntry.class))
+        .thenReturn(new RedirectEntry(7L, "https://example.com/article"));
+
+    assertTrue(shortLinkService.recordEdgeHits("abc123", 40));
+
+    verify(clickCountAggregator).record(0, 7L, 40L);
+    verifyNoInteractions(clickAnalytics);
+  }
+
+  @Test
+  void updateRedirectPolicyEvictsCachedEntry() {
     ShortLink shortLink = new ShortLink("https://example.com/article", "abc123");
-    shortLink.setId(7L);
-    shortLink.setClickCount(5L);
-    when(shortCodeCache.get("abc123", ShortLink.class)).thenReturn(shortLink);
-    when(shortLinkRepository.incrementClickCountById(7L)).thenReturn(1);
+    shortLink.setId(3L);
+    shortLink.setRedirectStatus(301);
+    shortLink.setCacheMaxAge(86_400);
+    when(shortLinkJdbcRepository.updateRedirectPolicy("abc123", 301, 86_400)).thenReturn(1);
+    when(shortLinkJdbcRepository.findByShortCode("abc123")).thenReturn(Optional.of(shortLink));
 
-    Optional<ShortLink> result = shortLinkService.findAndIncrementClickCount("abc123");
+    Optional<ShortLink> result = shortLinkService.updateRedirectPolicy("abc123", 301, 86_400);
 
     assertTrue(result.isPresent());
-    assertEquals(6L, result.get().getClickCount());
-    verify(shortLinkRepository).incrementClickCountById(7L);
-    verify(shortCodeCache).put("abc123", shortLink);
-    verify(originalUrlCache).put("https://example.com/article", shortLink);
+    assertEquals(301, result.get().getRedirectStatus());
+    assertEquals(86_400, result.get().getCacheMaxAge());
+    verify(shortCodeCache).evict(PackedShortCode.pack("abc123"));
+    verify(readReplicas).recordWrite("abc123");
   }
 
   @Test
-  void findAndIncrementClickCountSkipsUpdateWhenMissing() {
-    when(shortCodeCache.get("missing", ShortLink.class)).thenReturn(null);
-    when(shortLinkRepository.findByShortCode("missing")).thenReturn(Optional.empty());
+  void resolveRedirectSkipsUpdateWhenMissing() {
+    when(shortLinkJdbcRepository.findByShortCode("missing")).thenReturn(Optional.empty());
 
-    Optional<ShortLink> result = shortLinkService.findAndIncrementClickCount("missing");
+    Optional<RedirectEntry> result = shortLinkService.resolveRedirect("missing");
 
     assertTrue(result.isEmpty());
-    verify(shortLinkRepository, never()).incrementClickCountById(any());
+    verify(clickCountAggregator, never()).record(anyInt(), anyLong());
+    verifyNoInteractions(clickAnalytics);
+  }
+
+  @Test
+  void resolveRedirectRejectsUnpackableCodeWithoutLookup() {
+    Optional<RedirectEntry> result = shortLinkService.resolveRedirect("not-a-code");
+
+    assertTrue(result.isEmpty());
+    verifyNoInteractions(shortCodeCache, shortLinkRepository, shortLinkJdbcRepository);
+  }
+
+  @Test
+  void findByShortCodeAddsPendingClicksToStoredCount() {
+    ShortLink shortLink = new ShortLink("https://example.com/article", "abc123");
+    shortLink.setId(7L);
+    shortLink.setClickCount(5L);
+    when(shortLinkJdbcRepository.findByShortCode("abc123")).thenReturn(Optional.of(shortLink));
+    when(clickCountAggregator.pendingClicks(7L)).thenReturn(2L);
+
+    Optional<ShortLink> result = shortLinkService.findByShortCode("abc123");
+
+    assertTrue(result.isPresent());
+    assertEquals(7L, result.get().getClickCount());
   }
 
   @Test
   void createShortLinkReusesDatabaseRecordWhenLockBusy() {
     ShortLink existing = new ShortLink("https://example.com/article", "abc123");
+    existing.setId(3L);
     when(distributedLock.tryLock(any(), any())).thenReturn(false);
-    when(originalUrlCache.get("https://example.com/article", ShortLink.class)).thenReturn(null);
-    when(shortLinkRepository.findByOriginalUrl("https://example.com/article"))
+    when(shortLinkJdbcRepository.findByOriginalUrl("https://example.com/article"))
         .thenReturn(Optional.of(existing));
 
     ShortLink result = shortLinkService.createShortLink("https://example.com/article");
 
     assertEquals(existing, result);
     verify(shortLinkRepository, never()).saveAndFlush(any());
-    verify(originalUrlCache).put("https://example.com/article", existing);
-    verify(shortCodeCache).put("abc123", existing);
+    verify(originalUrlCache).put(any(), eq(PackedShortCode.pack("abc123")));
+    verify(shortCodeCache)
+        .put(PackedShortCode.pack("abc123"), new RedirectEntry(3L, "https://example.com/article"));
+    assertEquals(1, createCount("existing"));
+  }
+
+  @Test
+  void createShortLinkRereadsPrimaryWhenReplicaMissedExistingRow() {
+    ShortLink existing = new ShortLink("https://example.com/article", "xyz789");
+    when(distributedLock.tryLock(any(), any())).thenReturn(true);
+    when(shortLinkJdbcRepository.findByOriginalUrlOnReplica("https://example.com/article"))
+        .thenReturn(Optional.empty());
+    when(shortCodeGenerator.nextShortCode(0)).thenReturn("abc123");
+    when(shortLinkRepository.saveAndFlush(any()))
+        .thenThrow(new DataIntegrityViolationException("duplicate url_hash"));
+    when(shortLinkJdbcRepository.findByOriginalUrl("https://example.com/article"))
+        .thenReturn(Optional.of(existing));
+
+    ShortLink result = shortLinkService.createShortLink("https://example.com/article");
+
+    assertEquals(existing, result);
+    verify(readReplicas, never()).recordWrite(anyString());
+    assertEquals(1, createCount("existing"));
+  }
+
+  @Test
+  void createShortLinkTimesLockFailureBeforeThrowing() {
+    when(distributedLock.tryLock(any(), any())).thenReturn(false);
+    when(shortLinkJdbcRepository.findByOriginalUrl("https://example.com/article"))
+        .thenReturn(Optional.empty());
+
+    assertThrows(
+        IllegalStateException.class,
+        () -> shortLinkService.createShortLink("https://example.com/article"));
+
+    assertEquals(1, createCount("lock_fail"));
+    assertEquals(0, createCount("created"));
+  }
+
+  @Test
+  void createShortLinkInUpsertModeInsertsWithoutLock() {
+    ShortLink inserted = new ShortLink("https://example.com/article", "abc123");
+    inserted.setId(3L);
+    when(shortCodeGenerator.nextShortCode(0)).thenReturn("abc123");
+    when(shortLinkJdbcRepository.insertIfAbsent("https://example.com/article", "abc123"))
+        .thenReturn(Optional.of(inserted));
+
+    ShortLink result = newService("upsert").createShortLink("https://example.com/article");
+
+    assertEquals(inserted, result);
+    verifyNoInteractions(distributedLock);
+    verify(readReplicas).recordWrite("abc123");
+    verify(shortCodeCache)
+        .put(PackedShortCode.pack("abc123"), new RedirectEntry(3L, "https://example.com/article"));
+  }
+
+  @Test
+  void createShortLinkInUpsertModeFallsBackToExistingRowOnConflict() {
+    ShortLink existing = new ShortLink("https://example.com/article", "xyz789");
+    when(shortCodeGenerator.nextShortCode(0)).thenReturn("abc123");
+    when(shortLinkJdbcRepository.insertIfAbsent("https://example.com/article", "abc123"))
+        .thenReturn(Optional.empty());
+    when(shortLinkJdbcRepository.findByOriginalUrl("https://example.com/article"))
+        .thenReturn(Optional.of(existing));
+
+    ShortLink result = newService("upsert").createShortLink("https://example.com/article");
+
+    assertEquals(existing, result);
+    verifyNoInteractions(distributedLock);
+    assertEquals(1, createCount("existing"));
+  }
+
+  @Test
+  void createShortLinksDedupesBatchAndInsertsOnlyNewUrls() {
+    ShortLink existing = new ShortLink("https://example.com/a", "aaa111");
+    ShortLink inserted = new ShortLink("https://example.com/b", "bbb222");
+    when(shortLinkJdbcRepository.findByOriginalUrls(any())).thenReturn(List.of(existing));
+    when(shortCodeGenerator.nextShortCode(0)).thenReturn("bbb222");
+    when(shortLinkJdbcRepository.insertAllIfAbsent(Map.of("https://example.com/b", "bbb222")))
+        .thenReturn(List.of(inserted));
+
+    Map<String, ShortLink> result =
+        shortLinkService.createShortLinks(
+            List.of("https://example.com/a", "https://example.com/b", "https://example.com/a"));
+
+    assertEquals(2, result.size());
+    assertEquals(existing, result.get("https://example.com/a"));
+    assertEquals(inserted, result.get("https://example.com/b"));
+    verify(shortCodeGenerator).nextShortCode(0);
+    verify(shortCodeFilter).recordCreated("bbb222");
+  }
+
+  @Test
+  void findByShortCodeSkipsLookupsWhenFilterRejectsCode() {
+    when(shortCodeFilter.mightExist("nope42")).thenReturn(false);
+
+    Optional<ShortLink> result = shortLinkService.findByShortCode("nope42");
+
+    assertTrue(result.isEmpty());
+    verifyNoInteractions(shortCodeCache, shortLinkRepository, shortLinkJdbcRepository);
+  }
+
+  @Test
+  void findByShortCodeRecordsMissingCodeAfterDatabaseMiss() {
+    when(shortLinkJdbcRepository.findByShortCode("nope42")).thenReturn(Optional.empty());
+
+    Optional<ShortLink> result = shortLinkService.findByShortCode("nope42");
+
+    assertTrue(result.isEmpty());
+    verify(shortCodeFilter).recordMissing("nope42");
+  }
+
+  private long createCount(String outcome) {
+    return meterRegistry.get("shortlink.create").tag("outcome", outcome).timer().count();
   }
 }
@@ -0,0 +1,179 @@
+package org.superwindcloud.shortlink.service.analytics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+import org.superwindcloud.shortlink.repository.ClickRollupJdbcRepository;
+import org.superwindcloud.shortlink.repository.ClickRollupRow;
+
+@ExtendWith(MockitoExtension.class)
+class ClickAnalyticsTest {
+
+  private static final String IPHONE =
+      "Mozilla/5.0 (iPhone; CPU iPhone OS 17_0 like Mac OS X) AppleWebKit/605.1.15 Mobile/15E148";
+  private static final String GOOGLEBOT =
+      "Mozilla/5.0 (compatible; Googlebot/2.1; +http://www.google.com/bot.html)";
+
+  @Mock private ClickRollupJdbcRepository clickRollupJdbcRepository;
+  @Captor private ArgumentCaptor<List<ClickRollupRow>> rows;
+
+  private SimpleMeterRegistry meterRegistry;
+  private ClickAnalytics analytics;
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    analytics = newAnalytics("drop", 4, 10);
+  }
+
+  private ClickAnalytics newAnalytics(String overflow, int ringCapacity, int sampleRate) {
+    return new ClickAnalytics(
+        clickRollupJdbcRepository,
+        new HotLinkTracker(meterRegistry, 60, 6, 10, true),
+        meterRegistry,
+        true,
+        ringCapacity,
+        60_000,
+        1_000,
+        overflow,
+        sampleRate,
+        5_000,
+        false);
+  }
+
+  @Test
+  void flushWritesOneRowPerLinkAndGranularity() {
+    analytics.record(1L, "https://news.example/", IPHONE);
+    analytics.record(1L, null, GOOGLEBOT);
+    analytics.record(2L, null, null);
+
+    assertEquals(3, analytics.flush());
+
+    verify(clickRollupJdbcRepository).addAll(rows.capture());
+    List<ClickRollupRow> written =
+        rows.getValue().stream()
+            .sorted(
+                Comparator.comparingLong(ClickRollupRow::linkId)
+                    .thenComparing(ClickRollupRow::granularity))
+            .toList();
+    assertEquals(6, written.size());
+    ClickRollupRow day = written.get(0);
+    assertEquals("DAY", day.granularity());
+    assertEquals(2, day.clicks());
+    assertEquals(1, day.botClicks());
+    assertEquals(1, day.mobileClicks());
+    assertEquals(0, day.desktopClicks());
+    assertEquals(day.bucketStart().toLocalDate().atStartOfDay(), day.bucketStart());
+    assertEquals(1, written.get(5).clicks());
+    assertEquals("MINUTE", written.get(5).granularity());
+  }
+
+  @Test
+  void fullRingDropsEventsWithoutBlocking() {
+    for (int i = 0; i < 6; i++) {
+      analytics.record(1L, null, null);
+    }
+
+    assertEquals(4, analytics.flush());
+    assertEquals(2, meterRegistry.counter("shortlink.analytics.events.dropped").count());
+  }
+
+  @Test
+  void sampledEventsCountForTheOnesSkipped() {
+    analytics = newAnalytics("sample", 8, 3);
+    for (int i = 0; i < 200; i++) {
+      analytics.record(1L, null, null);
+    }
+
+    int events = analytics.flush();
+
+    verify(clickRollupJdbcRepository).addAll(rows.capture());
+    ClickRollupRow day =
+        rows.getValue().stream().filter(row -> row.granularity().equals("DAY")).findFirst().get();
+    // 水位是 6，之后收下的事件每个按 3 次计
+    assertEquals(6 + (events - 6) * 3L, day.clicks());
+    assertEquals(
+        200,
+        events
+            + meterRegistry.counter("shortlink.analytics.events.sampled").count()
+            + meterRegistry.counter("shortlink.analytics.events.dropped").count());
+  }
+
+  @Test
+  void blockingPolicyWaitsForDrainerInsteadOfDropping() {
+    analytics = newAnalytics("block", 4, 10);
+    analytics.start();
+    for (int i = 0; i < 20; i++) {
+      analytics.record(1L, null, null);
+    }
+    analytics.stop();
+
+    verify(clickRollupJdbcRepository, atLeastOnce()).addAll(rows.capture());
+    long clicks =
+        rows.getAllValues().stream()
+            .flatMap(List::stream)
+            .filter(row -> row.granularity().equals("DAY"))
+            .mapToLong(ClickRollupRow::clicks)
+            .sum();
+    assertEquals(20, clicks);
+    assertEquals(0, meterRegistry.counter("shortlink.analytics.events.dropped").count());
+  }
+
+  @Test
+  void flushEndsWhileRedirectsKeepFillingTheRing() throws Exception {
+    ClickAnalytics busy = newAnalytics("drop", 64, 10);
+    AtomicBoolean recording = new AtomicBoolean(true);
+    Thread redirects =
+        new Thread(
+            () -> {
+              while (recording.get()) {
+                busy.record(1L, null, null);
+              }
+            });
+    redirects.start();
+    try {
+      int drained = assertTimeoutPreemptively(Duration.ofSeconds(5), busy::flush);
+
+      assertTrue(drained <= 64);
+    } finally {
+      recording.set(false);
+      redirects.join();
+    }
+  }
+
+  @Test
+  void failedWriteKeepsBucketsForNextFlush() {
+    doThrow(new QueryTimeoutException("timeout"))
+        .doNothing()
+        .when(clickRollupJdbcRepository)
+        .addAll(anyList());
+    analytics.record(1L, null, null);
+
+    assertThrows(QueryTimeoutException.class, analytics::flush);
+    analytics.flush();
+
+    verify(clickRollupJdbcRepository, times(2)).addAll(rows.capture());
+    assertEquals(3, rows.getAllValues().get(1).size());
+    assertEquals(1, meterRegistry.counter("shortlink.analytics.flush.failures").count());
+  }
+}
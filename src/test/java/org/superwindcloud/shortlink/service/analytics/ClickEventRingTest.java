@@ -0,0 +1,92 @@
+package org.superwindcloud.shortlink.service.analytics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+
+class ClickEventRingTest {
+
+  @Test
+  void fullRingRejectsUntilDrained() {
+    ClickEventRing ring = new ClickEventRing(3);
+    assertEquals(4, ring.capacity());
+    for (int i = 0; i < 4; i++) {
+      assertTrue(ring.offer(i, 1_000L + i, 7L, UserAgentClass.MOBILE));
+    }
+    assertFalse(ring.offer(9, 2_000L, 0L, UserAgentClass.BOT));
+
+    List<Long> ids = new ArrayList<>();
+    assertEquals(
+        2,
+        ring.drain(
+            (linkId, timestamp, referrerHash, userAgentClass, weight) -> {
+              assertEquals(1_000L + linkId, timestamp);
+              assertEquals(7L, referrerHash);
+              assertEquals(UserAgentClass.MOBILE, userAgentClass);
+              assertEquals(1, weight);
+              ids.add(linkId);
+            },
+            2));
+    assertTrue(ring.offer(4, 1_004L, 7L, UserAgentClass.MOBILE));
+    ring.drain((linkId, timestamp, referrerHash, userAgentClass, weight) -> ids.add(linkId), 10);
+
+    assertEquals(List.of(0L, 1L, 2L, 3L, 4L), ids);
+    assertEquals(0, ring.size());
+  }
+
+  @Test
+  void concurrentProducersDeliverEveryEventOnce() throws Exception {
+    int producers = 4;
+    int perProducer = 50_000;
+    ClickEventRing ring = new ClickEventRing(1024);
+    CountDownLatch start = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(producers);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int p = 0; p < producers; p++) {
+        long producer = p;
+        futures.add(
+            executor.submit(
+                () -> {
+                  start.await();
+                  for (int i = 0; i < perProducer; i++) {
+                    // 环满时自旋重试，测试只关心不丢不重
+                    while (!ring.offer(producer, i, 0L, UserAgentClass.DESKTOP)) {
+                      Thread.onSpinWait();
+                    }
+                  }
+                  return null;
+                }));
+      }
+      start.countDown();
+
+      long[] next = new long[producers];
+      int received = 0;
+      while (received < producers * perProducer) {
+        received +=
+            ring.drain(
+                (linkId, timestamp, referrerHash, userAgentClass, weight) -> {
+                  // 同一生产者的事件按写入顺序出现
+                  assertEquals(next[(int) linkId]++, timestamp);
+                },
+                256);
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+      for (long count : next) {
+        assertEquals(perProducer, count);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+}
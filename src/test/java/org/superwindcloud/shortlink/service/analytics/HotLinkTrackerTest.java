@@ -0,0 +1,65 @@
+package org.superwindcloud.shortlink.service.analytics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class HotLinkTrackerTest {
+
+  @Test
+  void heavyHittersSurviveLongTailInBoundedCandidates() {
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    HotLinkTracker tracker = new HotLinkTracker(meterRegistry, 60, 6, 8, true);
+    long now = 1_700_000_000_000L;
+    // 5 个热点链接夹在 2 万个只点一次的链接中间
+    for (int i = 0; i < 20_000; i++) {
+      tracker.record(100_000L + i, now);
+      if (i % 20 == 0) {
+        for (long hot = 1; hot <= 5; hot++) {
+          for (int c = 0; c < hot; c++) {
+            tracker.record(hot, now);
+          }
+        }
+      }
+    }
+    tracker.publish(now);
+
+    List<HotLinkTracker.HotLink> top = tracker.top(5);
+    assertEquals(
+        List.of(5L, 4L, 3L, 2L, 1L), top.stream().map(HotLinkTracker.HotLink::linkId).toList());
+    // 估计值只会偏大
+    assertTrue(top.get(0).clicks() >= 5_000);
+    assertEquals(
+        top.get(0).clicks(),
+        meterRegistry.get("shortlink.hotlinks.clicks").tag("rank", "1").gauge().value());
+  }
+
+  @Test
+  void clicksLeaveTheRankingAfterOneWindow() {
+    HotLinkTracker tracker = new HotLinkTracker(new SimpleMeterRegistry(), 60, 6, 8, true);
+    long now = 1_700_000_000_000L;
+    for (int i = 0; i < 10; i++) {
+      tracker.record(1L, now);
+    }
+    tracker.record(2L, now + 30_000);
+    tracker.publish(now + 30_000);
+    assertEquals(2, tracker.top(10).size());
+    assertEquals(10, tracker.top(10).get(0).clicks());
+
+    tracker.publish(now + 61_000);
+    assertEquals(
+        List.of(2L), tracker.top(10).stream().map(HotLinkTracker.HotLink::linkId).toList());
+  }
+
+  @Test
+  void noRankGaugesWithoutAnalytics() {
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    new HotLinkTracker(meterRegistry, 60, 6, 8, false);
+
+    assertNull(meterRegistry.find("shortlink.hotlinks.clicks").gauge());
+  }
+}
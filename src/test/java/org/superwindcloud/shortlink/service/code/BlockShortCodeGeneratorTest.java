@@ -0,0 +1,50 @@
+package org.superwindcloud.shortlink.service.code;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.HashSet;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class BlockShortCodeGeneratorTest {
+
+  @Mock private IdBlockAllocator allocator;
+
+  @Test
+  void leasesNewBlockOnlyWhenCurrentOneIsExhausted() {
+    when(allocator.allocate(3)).thenReturn(new IdBlock(0, 3), new IdBlock(30, 33));
+    BlockShortCodeGenerator generator = new BlockShortCodeGenerator(allocator, 6, 42L, 3, 1);
+    Set<String> codes = new HashSet<>();
+
+    for (int i = 0; i < 5; i++) {
+      codes.add(generator.nextShortCode(0));
+    }
+
+    assertEquals(5, codes.size());
+    verify(allocator, times(2)).allocate(3);
+  }
+
+  @Test
+  void embedsShardThatDecodingRecovers() {
+    when(allocator.allocate(10)).thenReturn(new IdBlock(0, 10));
+    BlockShortCodeGenerator generator = new BlockShortCodeGenerator(allocator, 6, 42L, 10, 4);
+    ShortCodeCodec codec = new ShortCodeCodec(6, 42L);
+    Set<String> codes = new HashSet<>();
+
+    for (int i = 0; i < 10; i++) {
+      int shard = i % 4;
+      String code = generator.nextShortCode(shard);
+      assertEquals(shard, codec.decode(code) % 4);
+      codes.add(code);
+    }
+
+    assertEquals(10, codes.size());
+  }
+}
@@ -0,0 +1,32 @@
+package org.superwindcloud.shortlink.service.code;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import org.junit.jupiter.api.Test;
+
+class PackedShortCodeTest {
+
+  @Test
+  void roundTripsCodesIncludingLeadingZeros() {
+    for (String code : new String[] {"abc123", "000000", "0", "ZZZZZZZZZZ", "Ab9"}) {
+      long packed = PackedShortCode.pack(code);
+
+      assertNotEquals(PackedShortCode.INVALID, packed);
+      assertEquals(code, PackedShortCode.unpack(packed));
+    }
+  }
+
+  @Test
+  void distinguishesCodesThatDifferOnlyInLength() {
+    assertNotEquals(PackedShortCode.pack("0"), PackedShortCode.pack("00"));
+  }
+
+  @Test
+  void rejectsCodesOutsideTheAlphabetOrTooLong() {
+    assertEquals(PackedShortCode.INVALID, PackedShortCode.pack(""));
+    assertEquals(PackedShortCode.INVALID, PackedShortCode.pack("abc-12"));
+    assertEquals(PackedShortCode.INVALID, PackedShortCode.pack("é"));
+    assertEquals(PackedShortCode.INVALID, PackedShortCode.pack("abcdefghijk"));
+  }
+}
@@ -0,0 +1,56 @@
+package org.superwindcloud.shortlink.service.code;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class ShortCodeCodecTest {
+
+  @Test
+  void encodeIsBijectiveOverWholeCodeSpace() {
+    ShortCodeCodec codec = new ShortCodeCodec(2, 42L);
+    Set<String> codes = new HashSet<>();
+
+    for (long value = 0; value < codec.capacity(); value++) {
+      String code = codec.encode(value);
+      assertEquals(2, code.length());
+      assertTrue(codes.add(code), "duplicate code " + code);
+    }
+
+    assertEquals(62 * 62, codes.size());
+  }
+
+  @Test
+  void consecutiveValuesDoNotProduceSequentialCodes() {
+    ShortCodeCodec codec = new ShortCodeCodec(6, 42L);
+
+    String first = codec.encode(1000);
+    String second = codec.encode(1001);
+
+    assertEquals(6, first.length());
+    assertNotEquals(first.substring(0, 5), second.substring(0, 5));
+  }
+
+  @Test
+  void encodeRejectsValuesOutsideCodeSpace() {
+    ShortCodeCodec codec = new ShortCodeCodec(2, 42L);
+
+    assertThrows(IllegalStateException.class, () -> codec.encode(codec.capacity()));
+  }
+
+  @Test
+  void decodeInvertsEncode() {
+    ShortCodeCodec codec = new ShortCodeCodec(2, 42L);
+
+    for (long value = 0; value < codec.capacity(); value++) {
+      assertEquals(value, codec.decode(codec.encode(value)));
+    }
+    assertEquals(-1, codec.decode("abc"));
+    assertEquals(-1, codec.decode("a-"));
+  }
+}
@@ -0,0 +1,113 @@
+package org.superwindcloud.shortlink.support;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.superwindcloud.shortlink.ShortlinkApplication;
+import org.superwindcloud.shortlink.service.code.IdBlock;
+import org.superwindcloud.shortlink.service.code.IdBlockAllocator;
+import org.superwindcloud.shortlink.util.DistributedLock;
+
+/**
+ * Starts the application in-process for benchmarks and load tests, without Redis.
+ *
+ * <p>{@code h2} runs on an in-memory H2 database in PostgreSQL mode; {@code postgres} uses the
+ * regular {@code DB_*} environment variables. The distributed lock and the id block allocator are
+ * replaced by in-memory stand-ins, and the L2 cache is off.
+ */
+public final class InProcessApplication {
+
+  private InProcessApplication() {}
+
+  /**
+   * 启动应用上下文
+   *
+   * @param createMode {@code lock} 或 {@code upsert}
+   * @param database {@code h2} 或 {@code postgres}
+   * @param web 为 true 时在随机端口启动 Tomcat，端口见 {@code local.server.port}
+   * @return 已启动的上下文，调用方负责关闭
+   */
+  public static ConfigurableApplicationContext start(
+      String createMode, String database, boolean web) {
+    // DevTools 读的是系统属性，从 main 线程启动时否则会重启并重新执行调用方的 main
+    System.setProperty("spring.devtools.restart.enabled", "false");
+    Map<String, String> properties = new HashMap<>();
+    properties.put("app.create.mode", createMode);
+    properties.put("app.startup.verify-dependencies", "false");
+    properties.put("app.cache.invalidation", "local");
+    properties.put("app.cache.l2.enabled", "false");
+    properties.put("app.short-code.allocator", "in-memory");
+    properties.put("app.rate-limit.enabled", "false");
+    properties.put("spring.devtools.restart.enabled", "false");
+    properties.put("spring.jpa.show-sql", "false");
+    properties.put("logging.level.root", "warn");
+    properties.put("server.port", "0");
+    if ("h2".equals(database)) {
+      properties.put(
+          "spring.datasource.url",
+          "jdbc:h2:mem:inprocess;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE"
+              + ";DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE");
+      properties.put("spring.datasource.driverClassName", "org.h2.Driver");
+      properties.put("spring.datasource.username", "sa");
+      properties.put("spring.datasource.password", "");
+      properties.put("spring.jpa.database-platform", "org.hibernate.dialect.H2Dialect");
+      properties.put("spring.jpa.hibernate.ddl-auto", "create");
+    }
+    // 以命令行参数传入，优先级高于 application.properties
+    String[] args =
+        properties.entrySet().stream()
+            .map(entry -> "--" + entry.getKey() + "=" + entry.getValue())
+            .toArray(String[]::new);
+    return new SpringApplicationBuilder(ShortlinkApplication.class, Stubs.class)
+        .web(web ? WebApplicationType.SERVLET : WebApplicationType.NONE)
+        .run(args);
+  }
+
+  @Configuration(proxyBeanMethods = false)
+  static class Stubs {
+
+    @Bean
+    @Primary
+    DistributedLock inMemoryDistributedLock() {
+      return new InMemoryDistributedLock();
+    }
+
+    @Bean
+    @Primary
+    IdBlockAllocator inMemoryIdBlockAllocator() {
+      AtomicLong next = new AtomicLong();
+      return size -> {
+        long start = next.getAndAdd(size);
+        return new IdBlock(start, start + size);
+      };
+    }
+  }
+
+  /** Same contract as the Redis lock, backed by a map */
+  static final class InMemoryDistributedLock extends DistributedLock {
+
+    private final Map<String, String> locks = new ConcurrentHashMap<>();
+
+    InMemoryDistributedLock() {
+      super(null, new SimpleMeterRegistry());
+    }
+
+    @Override
+    public boolean tryLock(String lockKey, String lockValue, long expireTime) {
+      return locks.putIfAbsent(lockKey, lockValue) == null;
+    }
+
+    @Override
+    public boolean releaseLock(String lockKey, String lockValue) {
+      return locks.remove(lockKey, lockValue);
+    }
+  }
+}
@@ -0,0 +1,38 @@
+package org.superwindcloud.shortlink.util;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class BloomFilterTest {
+
+  @Test
+  void neverReportsAddedValueAsMissing() {
+    BloomFilter filter = new BloomFilter(10_000, 0.01);
+    for (int i = 0; i < 10_000; i++) {
+      filter.put("code" + i);
+    }
+
+    for (int i = 0; i < 10_000; i++) {
+      assertTrue(filter.mightContain("code" + i));
+    }
+  }
+
+  @Test
+  void falsePositiveRateStaysNearTarget() {
+    BloomFilter filter = new BloomFilter(10_000, 0.01);
+    for (int i = 0; i < 10_000; i++) {
+      filter.put("code" + i);
+    }
+
+    int falsePositives = 0;
+    for (int i = 0; i < 100_000; i++) {
+      if (filter.mightContain("other" + i)) {
+        falsePositives++;
+      }
+    }
+
+    assertTrue(falsePositives < 2_000, "false positives: " + falsePositives);
+    assertTrue(filter.expectedFalsePositiveRate() < 0.02);
+  }
+}
@@ -0,0 +1,60 @@
+package org.superwindcloud.shortlink.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class PendingCountsTest {
+
+  @Test
+  void drainTakesDeltasAndDropsIdleIds() {
+    PendingCounts counts = new PendingCounts();
+    counts.add(1L, 2);
+    counts.add(2L, 1);
+
+    assertEquals(Map.of(1L, 2L, 2L, 1L), counts.drain());
+    assertEquals(0, counts.total());
+    assertEquals(2, counts.size());
+
+    counts.add(2L, 5);
+    assertEquals(Map.of(2L, 5L), counts.drain());
+    assertEquals(1, counts.size());
+  }
+
+  @Test
+  void noCountIsLostWhileIdleIdsAreDropped() throws Exception {
+    PendingCounts counts = new PendingCounts();
+    int writers = 8;
+    int addsPerWriter = 200_000;
+    ExecutorService executor = Executors.newFixedThreadPool(writers);
+    CountDownLatch done = new CountDownLatch(writers);
+    try {
+      for (int w = 0; w < writers; w++) {
+        executor.execute(
+            () -> {
+              // 少量 id 频繁在空闲和活跃之间切换，反复撞上 drain 的移除
+              for (int i = 0; i < addsPerWriter; i++) {
+                counts.add(i % 4, 1);
+              }
+              done.countDown();
+            });
+      }
+      long drained = 0;
+      boolean writing = true;
+      while (writing) {
+        writing = !done.await(0, TimeUnit.MILLISECONDS);
+        drained += counts.drain().values().stream().mapToLong(Long::longValue).sum();
+      }
+
+      assertEquals((long) writers * addsPerWriter, drained);
+      assertEquals(0, counts.total());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+}
@@ -0,0 +1,73 @@
+package org.superwindcloud.shortlink.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+
+@ExtendWith(MockitoExtension.class)
+class RateLimiterTest {
+
+  @Mock private RedisCommands redisCommands;
+
+  private SimpleMeterRegistry meterRegistry;
+  private RateLimiter rateLimiter;
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    rateLimiter = new RateLimiter(redisCommands, meterRegistry, 60_000, 1_000, false);
+  }
+
+  @AfterEach
+  void tearDown() {
+    rateLimiter.shutdown();
+  }
+
+  @Test
+  void localBucketRejectsOverLimitWithoutTouchingRedis() {
+    for (int i = 0; i < 5; i++) {
+      assertTrue(rateLimiter.isAllowed("ip:1", 5, 60));
+    }
+
+    assertFalse(rateLimiter.isAllowed("ip:1", 5, 60));
+    assertTrue(rateLimiter.isAllowed("ip:2", 5, 60));
+    assertTrue(rateLimiter.retryAfterMillis("ip:1") > 0);
+    verifyNoInteractions(redisCommands);
+  }
+
+  @Test
+  void syncBlocksKeyOnceClusterCountReachesLimit() {
+    assertTrue(rateLimiter.isAllowed("ip:1", 5, 60));
+    when(redisCommands.pipeline(any(), any())).thenReturn(List.of(5L));
+
+    rateLimiter.sync();
+
+    assertFalse(rateLimiter.isAllowed("ip:1", 5, 60));
+    assertTrue(rateLimiter.retryAfterMillis("ip:1") > 0);
+  }
+
+  @Test
+  void failedSyncKeepsEnforcingLocalBucketOnly() {
+    assertTrue(rateLimiter.isAllowed("ip:1", 5, 60));
+    when(redisCommands.pipeline(any(), any()))
+        .thenThrow(new RedisConnectionFailureException("down"));
+
+    rateLimiter.sync();
+
+    assertTrue(rateLimiter.isAllowed("ip:1", 5, 60));
+    assertEquals(1.0, meterRegistry.get("shortlink.ratelimit.sync.failures").counter().count());
+  }
+}
@@ -0,0 +1,99 @@
+package org.superwindcloud.shortlink.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisSystemException;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisScriptingCommands;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+@ExtendWith(MockitoExtension.class)
+class RedisCommandsTest {
+
+  private static final RedisCommands.Script<Long> SCRIPT =
+      RedisCommands.script("test", "return redis.call('incr', KEYS[1])", Long.class);
+
+  @Mock private StringRedisTemplate redisTemplate;
+  @Mock private RedisConnection connection;
+  @Mock private RedisScriptingCommands scriptingCommands;
+
+  private SimpleMeterRegistry meterRegistry;
+  private RedisCommands redisCommands;
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    redisCommands = new RedisCommands(redisTemplate, meterRegistry);
+    when(connection.scriptingCommands()).thenReturn(scriptingCommands);
+  }
+
+  @Test
+  void pipelineLoadsScriptOnceAndDropsLoadResult() {
+    List<Object> serverReplies = new ArrayList<>(List.of("sha", 1L, 2L));
+    when(redisTemplate.executePipelined(any(RedisCallback.class)))
+        .thenAnswer(
+            invocation -> {
+              invocation.<RedisCallback<?>>getArgument(0).doInRedis(connection);
+              return List.copyOf(serverReplies);
+            });
+
+    assertEquals(List.of(1L, 2L), redisCommands.pipeline("test", this::evalTwice));
+    serverReplies.remove(0);
+    assertEquals(List.of(1L, 2L), redisCommands.pipeline("test", this::evalTwice));
+
+    verify(scriptingCommands, times(1)).scriptLoad(any());
+    verify(scriptingCommands, times(4))
+        .evalSha(any(byte[].class), any(ReturnType.class), anyInt(), any(byte[][].class));
+    assertEquals(
+        2,
+        meterRegistry
+            .get("shortlink.redis.commands")
+            .tags("command", "pipeline:test", "outcome", "success")
+            .timer()
+            .count());
+  }
+
+  @Test
+  void noScriptErrorReloadsScriptOnNextPipeline() {
+    when(redisTemplate.executePipelined(any(RedisCallback.class)))
+        .thenAnswer(
+            invocation -> {
+              invocation.<RedisCallback<?>>getArgument(0).doInRedis(connection);
+              throw new RedisSystemException(
+                  "NOSCRIPT No matching script", new IllegalStateException());
+            });
+
+    assertThrows(RedisSystemException.class, () -> redisCommands.pipeline("test", this::evalTwice));
+    assertThrows(RedisSystemException.class, () -> redisCommands.pipeline("test", this::evalTwice));
+
+    verify(scriptingCommands, times(2)).scriptLoad(any());
+    assertEquals(
+        2,
+        meterRegistry
+            .get("shortlink.redis.commands")
+            .tags("command", "pipeline:test", "outcome", "error")
+            .timer()
+            .count());
+  }
+
+  private void evalTwice(RedisCommands.Pipeline pipeline) {
+    pipeline.eval(SCRIPT, List.of("a"));
+    pipeline.eval(SCRIPT, List.of("b"));
+  }
+}
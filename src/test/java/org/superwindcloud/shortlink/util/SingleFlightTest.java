@@ -0,0 +1,111 @@
+package org.superwindcloud.shortlink.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class SingleFlightTest {
+
+  @Test
+  void concurrentCallersShareOneLoad() throws Exception {
+    SingleFlight<Long, String> flight = new SingleFlight<>();
+    AtomicInteger calls = new AtomicInteger();
+    CountDownLatch release = new CountDownLatch(1);
+    int callers = 16;
+    ExecutorService executor = Executors.newFixedThreadPool(callers);
+    try {
+      List<Future<String>> results = new ArrayList<>();
+      for (int i = 0; i < callers; i++) {
+        results.add(
+            executor.submit(
+                () ->
+                    flight.load(
+                        42L,
+                        () -> {
+                          calls.incrementAndGet();
+                          awaitQuietly(release);
+                          return "https://example.com/article";
+                        })));
+      }
+      // 等其余调用方都挂到第一次加载上再放行
+      long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+      while (flight.coalesced() < callers - 1 && System.nanoTime() < deadline) {
+        Thread.onSpinWait();
+      }
+      release.countDown();
+
+      for (Future<String> result : results) {
+        assertEquals("https://example.com/article", result.get(5, TimeUnit.SECONDS));
+      }
+      assertEquals(1, calls.get());
+      assertEquals(1, flight.loads());
+      assertEquals(callers - 1, flight.coalesced());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void nextCallAfterCompletionLoadsAgain() {
+    SingleFlight<Long, Integer> flight = new SingleFlight<>();
+    AtomicInteger calls = new AtomicInteger();
+
+    flight.load(42L, calls::incrementAndGet);
+    int second = flight.load(42L, calls::incrementAndGet);
+
+    assertEquals(2, second);
+    assertEquals(0, flight.coalesced());
+  }
+
+  @Test
+  void failureReachesCallerAndDoesNotStick() {
+    SingleFlight<Long, String> flight = new SingleFlight<>();
+    IllegalStateException failure = new IllegalStateException("database down");
+
+    IllegalStateException thrown =
+        assertThrows(
+            IllegalStateException.class,
+            () ->
+                flight.load(
+                    42L,
+                    () -> {
+                      throw failure;
+                    }));
+
+    assertSame(failure, thrown);
+    assertEquals("ok", flight.load(42L, () -> "ok"));
+  }
+
+  @Test
+  void asyncLoadIsSkippedWhileOneIsRunning() {
+    SingleFlight<Long, String> flight = new SingleFlight<>();
+    List<Runnable> queued = new ArrayList<>();
+
+    assertTrue(flight.loadAsync(42L, () -> "first", queued::add));
+    assertFalse(flight.loadAsync(42L, () -> "second", queued::add));
+    queued.forEach(Runnable::run);
+
+    assertEquals(1, queued.size());
+    assertTrue(flight.loadAsync(42L, () -> "third", Runnable::run));
+  }
+
+  private static void awaitQuietly(CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}